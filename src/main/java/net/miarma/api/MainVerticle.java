@@ -4,7 +4,10 @@ import io.vertx.core.*;
 import net.miarma.api.common.ConfigManager;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.LogAccumulator;
+import net.miarma.api.common.db.ChangeEvents;
+import net.miarma.api.common.db.ReadConsistency;
 import net.miarma.api.common.security.SecretManager;
+import net.miarma.api.common.vertx.EntityMessageCodec;
 import net.miarma.api.common.vertx.VertxJacksonConfig;
 import net.miarma.api.microservices.core.verticles.CoreMainVerticle;
 import net.miarma.api.microservices.huertos.verticles.HuertosLogicVerticle;
@@ -34,6 +37,9 @@ public class MainVerticle extends AbstractVerticle {
 	    this.configManager.loadConfig();
 	    SecretManager.getOrCreateSecret();
         VertxJacksonConfig.configure();
+        ReadConsistency.install(vertx);
+        ChangeEvents.install(vertx);
+        EntityMessageCodec.install(vertx);
     }
 	
 	@Override
@@ -108,6 +108,11 @@ public class ConfigManager {
         String value = config.getProperty(key);
         return value != null ? Integer.parseInt(value) : 10;
     }
+
+    public int getIntProperty(String key, int defaultValue) {
+        String value = config.getProperty(key);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
     
     public boolean getBooleanProperty(String key) {
         return Boolean.parseBoolean(config.getProperty(key));
@@ -27,6 +27,7 @@ public class Constants {
     public static final String HUERTOS_EVENT_BUS = "huertos.eventbus";
     public static final String MMC_EVENT_BUS = "mmc.eventbus";
     public static final String CINE_EVENT_BUS = "cine.eventbus";
+    public static final String DB_CHANGES_EVENT_BUS = "db.changes";
 
     public static final Logger LOGGER = LoggerFactory.getLogger(Constants.APP_NAME);
 	
@@ -50,6 +51,7 @@ public class Constants {
 			.registerTypeAdapter(MMCModStatus.class, new ValuableEnumDeserializer())
 			.registerTypeAdapter(CineUserRole.class, new ValuableEnumDeserializer())
 			.registerTypeAdapter(CineUserStatus.class, new ValuableEnumDeserializer())
+			.registerTypeAdapterFactory(new EntityTypeAdapterFactory())
 			.addSerializationExclusionStrategy(new APIDontReturnExclusionStrategy())
 			.create();
     
@@ -69,9 +71,8 @@ public class Constants {
 	    }
 
 	    public static CoreUserRole fromInt(int i) {
-	        for (CoreUserRole role : values()) {
-	            if (role.value == i) return role;
-	        }
+	        CoreUserRole role = ValuableEnumRegistry.fromValue(CoreUserRole.class, i);
+	        if (role != null) return role;
 	        throw new IllegalArgumentException("Invalid CoreUserRole value: " + i);
 	    }
 	}
@@ -93,9 +94,8 @@ public class Constants {
 	    }
 
 	    public static CoreUserGlobalStatus fromInt(int i) {
-	        for (CoreUserGlobalStatus status : values()) {
-	            if (status.value == i) return status;
-	        }
+	        CoreUserGlobalStatus status = ValuableEnumRegistry.fromValue(CoreUserGlobalStatus.class, i);
+	        if (status != null) return status;
 	        throw new IllegalArgumentException("Invalid CoreUserGlobalStatus value: " + i);
 	    }
 	}
@@ -127,9 +127,8 @@ public class Constants {
 		}
 		
 		public static CoreFileContext fromInt(int i) {
-			for (CoreFileContext context : values()) {
-				if (context.value == i) return context;
-			}
+			CoreFileContext context = ValuableEnumRegistry.fromValue(CoreFileContext.class, i);
+			if (context != null) return context;
 			throw new IllegalArgumentException("Invalid CoreFileContext value: " + i);
 		}
 	}
@@ -152,9 +151,8 @@ public class Constants {
 	    }
 
 	    public static HuertosUserRole fromInt(int i) {
-	        for (HuertosUserRole role : values()) {
-	            if (role.value == i) return role;
-	        }
+	        HuertosUserRole role = ValuableEnumRegistry.fromValue(HuertosUserRole.class, i);
+	        if (role != null) return role;
 	        throw new IllegalArgumentException("Invalid HuertosUserRole value: " + i);
 	    }
 	}
@@ -179,9 +177,8 @@ public class Constants {
 		}
 		
 		public static HuertosUserType fromInt(int i) {
-			for (HuertosUserType type : values()) {
-				if (type.value == i) return type;
-			}
+			HuertosUserType type = ValuableEnumRegistry.fromValue(HuertosUserType.class, i);
+			if (type != null) return type;
 			throw new IllegalArgumentException("Invalid HuertosUserType value: " + i);
 		}
 	}
@@ -203,9 +200,8 @@ public class Constants {
 	    }
 
 	    public static HuertosUserStatus fromInt(int i) {
-	        for (HuertosUserStatus status : values()) {
-	            if (status.value == i) return status;
-	        }
+	        HuertosUserStatus status = ValuableEnumRegistry.fromValue(HuertosUserStatus.class, i);
+	        if (status != null) return status;
 	        throw new IllegalArgumentException("Invalid HuertosUserStatus value: " + i);
 	    }
 	}
@@ -228,9 +224,8 @@ public class Constants {
 	    }
 
 	    public static HuertosRequestStatus fromInt(int i) {
-	        for (HuertosRequestStatus status : values()) {
-	            if (status.value == i) return status;
-	        }
+	        HuertosRequestStatus status = ValuableEnumRegistry.fromValue(HuertosRequestStatus.class, i);
+	        if (status != null) return status;
 	        throw new IllegalArgumentException("Invalid HuertoRequestStatus value: " + i);
 	    }
 	}
@@ -251,9 +246,8 @@ public class Constants {
 		}
 		
 		public static HuertosPaymentType fromInt(int i) {
-			for (HuertosPaymentType type : values()) {
-				if (type.value == i) return type;
-			}
+			HuertosPaymentType type = ValuableEnumRegistry.fromValue(HuertosPaymentType.class, i);
+			if (type != null) return type;
 			throw new IllegalArgumentException("Invalid HuertoPaymentType value: " + i);
 		}
 	}
@@ -278,9 +272,8 @@ public class Constants {
 		}
 		
 		public static HuertosRequestType fromInt(int i) {
-			for (HuertosRequestType type : values()) {
-				if (type.value == i) return type;
-			}
+			HuertosRequestType type = ValuableEnumRegistry.fromValue(HuertosRequestType.class, i);
+			if (type != null) return type;
 			throw new IllegalArgumentException("Invalid HuertoRequestType value: " + i);
 		}
 	}
@@ -302,9 +295,8 @@ public class Constants {
 		}
 		
 		public static HuertosAnnouncePriority fromInt(int i) {
-			for (HuertosAnnouncePriority priority : values()) {
-				if (priority.value == i) return priority;
-			}
+			HuertosAnnouncePriority priority = ValuableEnumRegistry.fromValue(HuertosAnnouncePriority.class, i);
+			if (priority != null) return priority;
 			throw new IllegalArgumentException("Invalid HuertoAnnouncePriority value: " + i);
 		}
 	}
@@ -325,9 +317,8 @@ public class Constants {
 		}
 		
 		public static HuertosPaymentFrequency fromInt(int i) {
-			for (HuertosPaymentFrequency frequency : values()) {
-				if (frequency.value == i) return frequency;
-			}
+			HuertosPaymentFrequency frequency = ValuableEnumRegistry.fromValue(HuertosPaymentFrequency.class, i);
+			if (frequency != null) return frequency;
 			throw new IllegalArgumentException("Invalid HuertoPaymentFrequency value: " + i);
 		}
 	}
@@ -349,9 +340,8 @@ public class Constants {
 	    }
 
 	    public static MMCUserRole fromInt(int i) {
-	        for (MMCUserRole role : values()) {
-	            if (role.value == i) return role;
-	        }
+	        MMCUserRole role = ValuableEnumRegistry.fromValue(MMCUserRole.class, i);
+	        if (role != null) return role;
 	        throw new IllegalArgumentException("Invalid MMCUserRole value: " + i);
 	    }
 	}
@@ -373,9 +363,8 @@ public class Constants {
 	    }
 
 	    public static MMCUserStatus fromInt(int i) {
-	        for (MMCUserStatus status : values()) {
-	            if (status.value == i) return status;
-	        }
+	        MMCUserStatus status = ValuableEnumRegistry.fromValue(MMCUserStatus.class, i);
+	        if (status != null) return status;
 	        throw new IllegalArgumentException("Invalid MMCUserStatus value: " + i);
 	    }
 	}
@@ -396,9 +385,8 @@ public class Constants {
 		}
 		
 		public static MMCModStatus fromInt(int i) {
-			for (MMCModStatus status : values()) {
-				if (status.value == i) return status;
-			}
+			MMCModStatus status = ValuableEnumRegistry.fromValue(MMCModStatus.class, i);
+			if (status != null) return status;
 			throw new IllegalArgumentException("Invalid MiarmacraftModStatus value: " + i);
 		}
 	}
@@ -419,9 +407,8 @@ public class Constants {
 		}
 
 		public static CineUserStatus fromInt(int i) {
-			for (CineUserStatus status : values()) {
-				if (status.value == i) return status;
-			}
+			CineUserStatus status = ValuableEnumRegistry.fromValue(CineUserStatus.class, i);
+			if (status != null) return status;
 			throw new IllegalArgumentException("Invalid CineUserStatus value: " + i);
 		}
 	}
@@ -442,9 +429,8 @@ public class Constants {
 		}
 
 		public static CineUserRole fromInt(int i) {
-			for (CineUserRole role : values()) {
-				if (role.value == i) return role;
-			}
+			CineUserRole role = ValuableEnumRegistry.fromValue(CineUserRole.class, i);
+			if (role != null) return role;
 			throw new IllegalArgumentException("Invalid CineUserRole value: " + i);
 		}
 	}
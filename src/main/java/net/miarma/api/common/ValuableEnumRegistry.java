@@ -0,0 +1,117 @@
+package net.miarma.api.common;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Búsqueda en tiempo constante de las constantes de un {@link ValuableEnum} por su valor
+ * entero o por su nombre.
+ * <p>
+ * La primera vez que se pide un tipo se construye un array denso indexado por
+ * {@code valor - mínimo} (o un mapa si los valores están muy dispersos) y un mapa de
+ * nombres; después cada búsqueda es un acceso al array. Lo usan los {@code fromInt} de
+ * {@link Constants}, Gson, el {@code RowMapper} y los filtros de {@code QueryBuilder}.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public final class ValuableEnumRegistry {
+
+    /**
+     * Rango máximo de valores para el que se usa un array denso.
+     */
+    private static final int MAX_DENSE_RANGE = 1024;
+
+    private static final ClassValue<Lookup> LOOKUPS = new ClassValue<>() {
+        @Override
+        protected Lookup computeValue(Class<?> type) {
+            return new Lookup(type);
+        }
+    };
+
+    private static final class Lookup {
+        private final Object[] dense;
+        private final int min;
+        private final Map<Integer, Object> sparse;
+        private final Map<String, Object> byName = new HashMap<>();
+
+        private Lookup(Class<?> type) {
+            Object[] constants = type.getEnumConstants();
+            if (constants == null || !ValuableEnum.class.isAssignableFrom(type)) {
+                throw new IllegalArgumentException(type.getName() + " is not a ValuableEnum");
+            }
+
+            int low = Integer.MAX_VALUE;
+            int high = Integer.MIN_VALUE;
+            for (Object constant : constants) {
+                int value = ((ValuableEnum) constant).getValue();
+                low = Math.min(low, value);
+                high = Math.max(high, value);
+                byName.put(((Enum<?>) constant).name().toUpperCase(Locale.ROOT), constant);
+            }
+
+            if (constants.length == 0 || (long) high - low >= MAX_DENSE_RANGE) {
+                this.dense = null;
+                this.min = 0;
+                this.sparse = new HashMap<>();
+                for (Object constant : constants) {
+                    sparse.putIfAbsent(((ValuableEnum) constant).getValue(), constant);
+                }
+            } else {
+                this.min = low;
+                this.dense = new Object[high - low + 1];
+                this.sparse = null;
+                for (Object constant : constants) {
+                    int index = ((ValuableEnum) constant).getValue() - low;
+                    // si dos constantes comparten valor gana la primera, como en los fromInt
+                    if (dense[index] == null) dense[index] = constant;
+                }
+            }
+        }
+
+        private Object byValue(int value) {
+            if (dense == null) return sparse.get(value);
+            int index = value - min;
+            return index >= 0 && index < dense.length ? dense[index] : null;
+        }
+    }
+
+    private ValuableEnumRegistry() {}
+
+    /**
+     * Constante con el valor dado.
+     *
+     * @param type  clase del enum
+     * @param value valor entero
+     * @return la constante, o null si ninguna tiene ese valor
+     * @throws IllegalArgumentException si {@code type} no es un enum que implemente {@link ValuableEnum}
+     */
+    public static <E extends Enum<E> & ValuableEnum> E fromValue(Class<E> type, int value) {
+        return type.cast(LOOKUPS.get(type).byValue(value));
+    }
+
+    /**
+     * Igual que {@link #fromValue(Class, int)} para cuando el tipo solo se conoce en tiempo de ejecución.
+     */
+    public static Object find(Class<?> type, int value) {
+        return LOOKUPS.get(type).byValue(value);
+    }
+
+    /**
+     * Constante con el nombre dado, sin distinguir mayúsculas.
+     *
+     * @param type clase del enum
+     * @param name nombre de la constante
+     * @return la constante, o null si no hay ninguna con ese nombre
+     */
+    public static Object findByName(Class<?> type, String name) {
+        return name != null ? LOOKUPS.get(type).byName.get(name.toUpperCase(Locale.ROOT)) : null;
+    }
+
+    /**
+     * Indica si la clase es un enum que implementa {@link ValuableEnum}.
+     */
+    public static boolean supports(Class<?> type) {
+        return type.isEnum() && ValuableEnum.class.isAssignableFrom(type);
+    }
+}
@@ -0,0 +1,19 @@
+package net.miarma.api.common.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Anotación para indicar las tablas de las que se leen los datos de una entidad,
+ * normalmente una vista. Una escritura en cualquiera de ellas invalida la caché
+ * de la entidad (ver {@link net.miarma.api.common.db.EntityCache}).
+ *
+ * @author José Manuel Amador Gallardo
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DependsOn {
+	String[] value();
+}
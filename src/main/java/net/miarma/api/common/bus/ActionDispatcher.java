@@ -0,0 +1,384 @@
+package net.miarma.api.common.bus;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import net.miarma.api.common.ConfigManager;
+import net.miarma.api.common.Constants;
+import net.miarma.api.common.db.ChangeEvents;
+import net.miarma.api.common.db.ReadConsistency;
+import net.miarma.api.common.exceptions.BadRequestException;
+import net.miarma.api.common.exceptions.ServiceUnavailableException;
+import net.miarma.api.common.http.ApiStatus;
+import net.miarma.api.common.vertx.EntityMessage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Tabla de acciones de una dirección del event bus.
+ * <p>
+ * Cada acción se registra con su nombre y un handler tipado que recibe la petición (el
+ * {@link JsonObject} del mensaje o, con {@link #action(String, Class, Function)}, el objeto
+ * que se lee de él) y devuelve un {@link Future} con la respuesta. La respuesta se envía tal
+ * cual si el event bus sabe transportarla ({@link JsonObject}, {@link JsonArray}, textos,
+ * números, booleanos...) y si no envuelta en un {@link EntityMessage}.
+ * <p>
+ * Para cada acción:
+ * <ul>
+ *     <li>se admiten como mucho {@code bus.maxConcurrency} peticiones a la vez (64 por defecto;
+ *     0 sin límite); las que llegan de más se rechazan con un {@code 503}. Una petición ocupa
+ *     su hueco hasta que termina su handler, aunque ya se haya respondido por timeout</li>
+ *     <li>si no hay respuesta en {@code bus.timeoutMs} milisegundos (25000 por defecto, por
+ *     debajo de los 30 s que espera el emisor; 0 sin límite) se contesta con un {@code 503}</li>
+ *     <li>los errores se traducen con {@link ApiStatus#fromException(Throwable)}; los que se lanzan
+ *     al leer los parámetros ({@link IllegalArgumentException}, {@link ClassCastException}) son
+ *     un {@code 400}, igual que una acción desconocida</li>
+ *     <li>se anotan llamadas, errores, rechazos, timeouts y tiempos (ver {@link #getStats()})</li>
+ * </ul>
+ * Las acciones de lectura registradas con {@link #read(String, Function)} además agrupan las
+ * peticiones iguales (misma acción y mismos parámetros) que llegan mientras otra está en curso,
+ * que comparten su resultado sin volver a consultar la base de datos ni contar para
+ * {@code bus.maxConcurrency}. Con {@code bus.coalesceTtlMs} mayor que cero (0 por defecto) el
+ * resultado se reutiliza también durante ese tiempo, hasta la siguiente escritura avisada por
+ * {@link ChangeEvents}. {@code bus.coalesce=0} lo desactiva. Las peticiones que deben leer del
+ * primario ({@link ReadConsistency#isPrimary()}) nunca se agrupan.
+ * <p>
+ * Todos los valores admiten uno específico por acción con el sufijo {@code .<acción>},
+ * por ejemplo {@code bus.timeoutMs.getBalanceWithTotals}.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public final class ActionDispatcher {
+
+    private static final Map<String, ActionStats> STATS = new ConcurrentHashMap<>();
+
+    private final Vertx vertx;
+    private final String address;
+    private final Map<String, Action> actions = new HashMap<>();
+
+    private record Action(String name, Function<JsonObject, Future<?>> handler, int maxConcurrency,
+                          long timeoutMs, Singleflight coalescer, ActionStats stats) {}
+
+    /**
+     * Acumuladores de una acción.
+     */
+    private static final class ActionStats {
+        private final String address;
+        private final String action;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAccumulator maxInFlight = new LongAccumulator(Math::max, 0);
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder cached = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private volatile int maxConcurrency;
+        private volatile long timeoutMs;
+        private volatile boolean coalescing;
+        private volatile long coalesceTtlMs;
+
+        private ActionStats(String address, String action) {
+            this.address = address;
+            this.action = action;
+        }
+    }
+
+    /**
+     * Resumen de una acción.
+     *
+     * @param address        dirección del event bus
+     * @param action         nombre de la acción
+     * @param calls          peticiones atendidas (sin contar las rechazadas)
+     * @param errors         peticiones que terminaron con error, incluidos los timeouts
+     * @param rejected       peticiones rechazadas por superar {@code maxConcurrency}
+     * @param timeouts       peticiones que no respondieron a tiempo
+     * @param coalesced      peticiones que se unieron a otra igual en curso
+     * @param cached         peticiones servidas con el resultado reciente de otra igual
+     * @param coalescingRatio fracción de las peticiones que no ejecutaron la acción
+     * @param inFlight       peticiones en curso
+     * @param maxInFlight    máximo de peticiones a la vez desde el arranque
+     * @param maxConcurrency límite de peticiones a la vez (0 sin límite)
+     * @param timeoutMs      tiempo máximo de respuesta (0 sin límite)
+     * @param coalescing     si se agrupan las peticiones iguales
+     * @param coalesceTtlMs  tiempo que se reutiliza un resultado completado
+     * @param totalMs        tiempo total
+     * @param avgMs          tiempo medio
+     * @param maxMs          tiempo máximo
+     */
+    public record ActionReport(String address, String action, long calls, long errors, long rejected, long timeouts,
+                               long coalesced, long cached, double coalescingRatio,
+                               int inFlight, long maxInFlight, int maxConcurrency, long timeoutMs,
+                               boolean coalescing, long coalesceTtlMs,
+                               double totalMs, double avgMs, double maxMs) {}
+
+    private ActionDispatcher(Vertx vertx, String address) {
+        this.vertx = vertx;
+        this.address = address;
+    }
+
+    /**
+     * Crea una tabla de acciones vacía para la dirección dada. Hay que registrar las acciones
+     * y después llamar a {@link #listen()}.
+     *
+     * @param vertx   instancia de Vert.x
+     * @param address dirección del event bus
+     * @return la tabla
+     */
+    public static ActionDispatcher on(Vertx vertx, String address) {
+        return new ActionDispatcher(vertx, address);
+    }
+
+    /**
+     * Registra una acción que recibe el cuerpo del mensaje.
+     *
+     * @param name    nombre de la acción (campo {@code action} del mensaje)
+     * @param handler handler de la acción
+     * @return esta misma tabla
+     * @param <R> tipo de la respuesta
+     */
+    public <R> ActionDispatcher action(String name, Function<JsonObject, Future<R>> handler) {
+        return register(name, handler::apply, false);
+    }
+
+    /**
+     * Registra una acción de solo lectura: las peticiones iguales que coinciden en el tiempo
+     * comparten una sola ejecución. El handler no debe tener efectos y quien reciba la
+     * respuesta no debe modificarla, porque es la misma instancia para todos.
+     *
+     * @param name    nombre de la acción
+     * @param handler handler de la acción
+     * @return esta misma tabla
+     * @param <R> tipo de la respuesta
+     */
+    public <R> ActionDispatcher read(String name, Function<JsonObject, Future<R>> handler) {
+        return register(name, handler::apply, true);
+    }
+
+    /**
+     * Registra una acción cuya petición se lee del cuerpo del mensaje como {@code requestType}
+     * (una entidad o un record con los campos esperados).
+     *
+     * @param name        nombre de la acción
+     * @param requestType clase de la petición
+     * @param handler     handler de la acción
+     * @return esta misma tabla
+     * @param <Q> tipo de la petición
+     * @param <R> tipo de la respuesta
+     */
+    public <Q, R> ActionDispatcher action(String name, Class<Q> requestType, Function<Q, Future<R>> handler) {
+        return action(name, body -> handler.apply(Constants.GSON.fromJson(body.encode(), requestType)));
+    }
+
+    /**
+     * Empieza a atender la dirección con las acciones registradas.
+     *
+     * @return el consumidor registrado
+     */
+    public MessageConsumer<JsonObject> listen() {
+        List<Singleflight> coalescers = actions.values().stream()
+                .map(Action::coalescer)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!coalescers.isEmpty()) {
+            vertx.eventBus().consumer(Constants.DB_CHANGES_EVENT_BUS,
+                    _ -> coalescers.forEach(Singleflight::invalidate));
+        }
+        return vertx.eventBus().consumer(address, this::dispatch);
+    }
+
+    /**
+     * Resumen de todas las acciones registradas, de mayor a menor tiempo total.
+     */
+    public static List<ActionReport> getStats() {
+        List<ActionReport> result = new ArrayList<>();
+        STATS.values().forEach(stats -> {
+            long calls = stats.calls.sum();
+            long coalesced = stats.coalesced.sum();
+            long cached = stats.cached.sum();
+            double totalMs = stats.totalNanos.sum() / 1_000_000.0;
+            result.add(new ActionReport(
+                    stats.address,
+                    stats.action,
+                    calls,
+                    stats.errors.sum(),
+                    stats.rejected.sum(),
+                    stats.timeouts.sum(),
+                    coalesced,
+                    cached,
+                    calls > 0 ? (double) (coalesced + cached) / calls : 0,
+                    stats.inFlight.get(),
+                    stats.maxInFlight.get(),
+                    stats.maxConcurrency,
+                    stats.timeoutMs,
+                    stats.coalescing,
+                    stats.coalesceTtlMs,
+                    totalMs,
+                    calls > 0 ? totalMs / calls : 0,
+                    stats.maxNanos.get() / 1_000_000.0
+            ));
+        });
+        result.sort(Comparator.comparingDouble(ActionReport::totalMs).reversed());
+        return result;
+    }
+
+    /**
+     * Pone a cero los contadores de todas las acciones (salvo las peticiones en curso).
+     */
+    public static void resetStats() {
+        STATS.values().forEach(stats -> {
+            stats.calls.reset();
+            stats.errors.reset();
+            stats.rejected.reset();
+            stats.timeouts.reset();
+            stats.coalesced.reset();
+            stats.cached.reset();
+            stats.totalNanos.reset();
+            stats.maxNanos.reset();
+            stats.maxInFlight.reset();
+        });
+    }
+
+    private void dispatch(Message<JsonObject> message) {
+        JsonObject body = message.body();
+        String name = body != null ? body.getString("action") : null;
+        Action action = name != null ? actions.get(name) : null;
+        if (action == null) {
+            fail(message, new BadRequestException("Unknown action: " + name));
+            return;
+        }
+
+        ActionStats stats = action.stats();
+        Singleflight coalescer = action.coalescer();
+        // una lectura pegada al primario tras su propia escritura no puede recibir la de una réplica
+        String key = coalescer != null && !ReadConsistency.isPrimary() ? Singleflight.key(body) : null;
+        // quien se une a una petición igual en curso no consulta nada, así que no cuenta para el límite
+        boolean shared = key != null && coalescer.isShared(key);
+
+        int running = stats.inFlight.incrementAndGet();
+        if (!shared && action.maxConcurrency() > 0 && running > action.maxConcurrency()) {
+            stats.inFlight.decrementAndGet();
+            stats.rejected.increment();
+            fail(message, new ServiceUnavailableException("Too many concurrent " + name + " requests"));
+            return;
+        }
+        stats.maxInFlight.accumulate(running);
+        stats.calls.increment();
+        long start = System.nanoTime();
+
+        Promise<Object> result = Promise.promise();
+        long timer = action.timeoutMs() > 0
+                ? vertx.setTimer(action.timeoutMs(), _ -> {
+                    if (result.tryFail(new ServiceUnavailableException("Action " + name + " timed out"))) {
+                        stats.timeouts.increment();
+                    }
+                })
+                : -1;
+
+        Future<?> future = key != null
+                ? coalescer.run(key, () -> invoke(action, body))
+                : invoke(action, body);
+        future.onComplete(ar -> {
+            // el hueco se libera cuando termina el trabajo real, aunque ya se haya contestado por timeout
+            stats.inFlight.decrementAndGet();
+            if (ar.succeeded()) result.tryComplete(ar.result());
+            else result.tryFail(ar.cause());
+        });
+
+        result.future().onComplete(ar -> {
+            if (timer >= 0) vertx.cancelTimer(timer);
+            long nanos = System.nanoTime() - start;
+            stats.totalNanos.add(nanos);
+            stats.maxNanos.accumulate(nanos);
+
+            if (ar.succeeded()) {
+                reply(message, ar.result());
+            } else {
+                stats.errors.increment();
+                fail(message, ar.cause());
+            }
+        });
+    }
+
+    private static Future<?> invoke(Action action, JsonObject body) {
+        try {
+            return action.handler().apply(body);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return Future.failedFuture(new BadRequestException(e.getMessage()));
+        } catch (RuntimeException e) {
+            return Future.failedFuture(e);
+        }
+    }
+
+    private ActionDispatcher register(String name, Function<JsonObject, Future<?>> handler, boolean read) {
+        ConfigManager config = ConfigManager.getInstance();
+        int maxConcurrency = Math.max(0, setting(config, "bus.maxConcurrency", name, 64));
+        long timeoutMs = Math.max(0, setting(config, "bus.timeoutMs", name, 25000));
+        boolean coalescing = read && setting(config, "bus.coalesce", name, 1) != 0;
+        long coalesceTtlMs = coalescing ? Math.max(0, setting(config, "bus.coalesceTtlMs", name, 0)) : 0;
+
+        ActionStats stats = STATS.computeIfAbsent(address + "#" + name, _ -> new ActionStats(address, name));
+        stats.maxConcurrency = maxConcurrency;
+        stats.timeoutMs = timeoutMs;
+        stats.coalescing = coalescing;
+        stats.coalesceTtlMs = coalesceTtlMs;
+
+        Singleflight coalescer = coalescing ? new Singleflight(coalesceTtlMs, stats.coalesced, stats.cached) : null;
+        if (actions.put(name, new Action(name, handler, maxConcurrency, timeoutMs, coalescer, stats)) != null) {
+            throw new IllegalStateException("Action " + name + " already registered on " + address);
+        }
+        return this;
+    }
+
+    private static void reply(Message<?> message, Object value) {
+        if (value instanceof JsonObject || value instanceof JsonArray || value instanceof String
+                || value instanceof Number || value instanceof Boolean || value instanceof Buffer
+                || value instanceof byte[] || value instanceof EntityMessage) {
+            message.reply(value);
+        } else {
+            message.reply(new EntityMessage(value));
+        }
+    }
+
+    private static void fail(Message<?> message, Throwable err) {
+        if (err instanceof ReplyException re) {
+            message.fail(re.failureCode(), re.getMessage());
+            return;
+        }
+        ApiStatus status = ApiStatus.fromException(err);
+        if (status == ApiStatus.INTERNAL_SERVER_ERROR) {
+            Constants.LOGGER.error("[Bus] Error en {}: {}", message.address(), err.getMessage(), err);
+        }
+        message.fail(status.getCode(), err.getMessage());
+    }
+
+    private static int setting(ConfigManager config, String key, String action, int defaultValue) {
+        String specific = config.getStringProperty(key + "." + action);
+        if (specific != null && !specific.isBlank()) {
+            try {
+                return Integer.parseInt(specific.trim());
+            } catch (NumberFormatException e) {
+                Constants.LOGGER.warn("[Bus] Valor no válido para {}.{}: {}", key, action, specific);
+            }
+        }
+        return config.getIntProperty(key, defaultValue);
+    }
+}
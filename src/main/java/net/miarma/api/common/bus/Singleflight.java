@@ -0,0 +1,142 @@
+package net.miarma.api.common.bus;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa las peticiones iguales de una acción de lectura para que compartan una sola ejecución.
+ * <p>
+ * Mientras una petición está en curso, las que llegan con la misma clave reciben el mismo
+ * {@link Future} en lugar de lanzar otra consulta. Si {@code ttlMs} es mayor que cero, el
+ * resultado correcto se sigue sirviendo durante ese tiempo después de completarse; los errores
+ * nunca se guardan. El resultado es la misma instancia para todos, así que quien lo reciba no
+ * debe modificarlo.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+final class Singleflight {
+
+    /**
+     * Número de claves a partir del cual se purgan las caducadas al añadir una nueva.
+     */
+    private static final int SWEEP_THRESHOLD = 256;
+
+    private final long ttlNanos;
+    private final LongAdder joined;
+    private final LongAdder hits;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        private final Promise<Object> promise = Promise.promise();
+        private volatile long expiresAt;
+    }
+
+    /**
+     * @param ttlMs  tiempo que se reutiliza un resultado ya completado (0 solo en curso)
+     * @param joined contador de peticiones que se unen a una ejecución en curso
+     * @param hits   contador de peticiones servidas con un resultado completado
+     */
+    Singleflight(long ttlMs, LongAdder joined, LongAdder hits) {
+        this.ttlNanos = Math.max(0, ttlMs) * 1_000_000L;
+        this.joined = joined;
+        this.hits = hits;
+    }
+
+    /**
+     * Clave de una petición: su cuerpo sin el campo {@code action} y con las claves ordenadas,
+     * de modo que el orden de los parámetros no cambie la clave.
+     *
+     * @param body cuerpo del mensaje
+     * @return la clave normalizada
+     */
+    static String key(JsonObject body) {
+        JsonObject params = body.copy();
+        params.remove("action");
+        return normalize(params).toString();
+    }
+
+    /**
+     * Indica si hay una ejecución en curso o un resultado vigente para la clave, es decir,
+     * si {@link #run(String, Supplier)} no va a ejecutar nada.
+     */
+    boolean isShared(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && !isExpired(entry, System.nanoTime());
+    }
+
+    /**
+     * Devuelve el resultado compartido para la clave o, si no hay ninguno, ejecuta
+     * {@code supplier} y lo comparte.
+     *
+     * @param key      clave de la petición ({@link #key(JsonObject)})
+     * @param supplier ejecución real de la acción
+     * @return el resultado, compartido con las peticiones iguales
+     */
+    Future<Object> run(String key, Supplier<Future<?>> supplier) {
+        long now = System.nanoTime();
+        boolean[] leader = {false};
+        Entry entry = entries.compute(key, (_, current) -> {
+            if (current != null && !isExpired(current, now)) return current;
+            leader[0] = true;
+            return new Entry();
+        });
+
+        if (!leader[0]) {
+            if (entry.promise.future().isComplete()) hits.increment();
+            else joined.increment();
+            return entry.promise.future();
+        }
+
+        if (entries.size() > SWEEP_THRESHOLD) {
+            entries.values().removeIf(other -> isExpired(other, now));
+        }
+
+        Future<?> result;
+        try {
+            result = supplier.get();
+        } catch (RuntimeException e) {
+            result = Future.failedFuture(e);
+        }
+        result.onComplete(ar -> {
+            entry.expiresAt = System.nanoTime() + (ar.succeeded() ? ttlNanos : 0);
+            if (ar.failed() || ttlNanos == 0) entries.remove(key, entry);
+            if (ar.succeeded()) entry.promise.complete(ar.result());
+            else entry.promise.fail(ar.cause());
+        });
+        return entry.promise.future();
+    }
+
+    /**
+     * Olvida todos los resultados. Las ejecuciones en curso siguen respondiendo a quienes ya
+     * las esperaban, pero las peticiones nuevas lanzan otra y su resultado no se guarda.
+     */
+    void invalidate() {
+        entries.clear();
+    }
+
+    private static boolean isExpired(Entry entry, long now) {
+        return entry.promise.future().isComplete() && now - entry.expiresAt >= 0;
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof JsonObject object) {
+            Map<String, Object> sorted = new TreeMap<>();
+            object.forEach(field -> sorted.put(field.getKey(), normalize(field.getValue())));
+            return new JsonObject(sorted);
+        }
+        if (value instanceof JsonArray array) {
+            JsonArray copy = new JsonArray();
+            array.forEach(item -> copy.add(normalize(item)));
+            return copy;
+        }
+        return value;
+    }
+}
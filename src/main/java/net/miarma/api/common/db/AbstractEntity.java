@@ -1,12 +1,19 @@
 package net.miarma.api.common.db;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
 import io.vertx.core.json.JsonObject;
 import io.vertx.sqlclient.Row;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.ValuableEnum;
 import net.miarma.api.common.annotations.APIDontReturn;
+import net.miarma.api.common.gson.EntityTypeAdapterFactory;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
+import java.util.Set;
 
 /**
  * Clase base para todas las entidades persistentes del sistema.
@@ -18,13 +25,19 @@ import java.lang.reflect.Field;
  *     <li>Generar una representación en texto</li>
  * </ul>
  *
- * Los campos se mapean por reflexión, lo que permite extender fácilmente las entidades
- * sin necesidad de escribir lógica de parsing repetitiva.
+ * Los campos se mapean con un {@link RowMapper} que se construye una sola vez por clase,
+ * lo que permite extender fácilmente las entidades sin necesidad de escribir lógica de
+ * parsing repetitiva.
+ * <p>
+ * Si la entidad se leyó con una consulta que solo pedía algunas columnas, recuerda cuáles
+ * ({@link #getSelectedColumns()}) y al serializarla se omiten las demás.
  *
  * @author José Manuel Amador Gallardo
  */
 public abstract class AbstractEntity {
 
+    private transient Set<String> selectedColumns;
+
     /**
      * Constructor por defecto. Requerido para instanciación sin datos.
      */
@@ -40,98 +53,50 @@ public abstract class AbstractEntity {
     }
 
     /**
-     * Rellena los campos del objeto usando reflexión a partir de una {@link Row} de Vert.x.
+     * Rellena los campos del objeto a partir de una {@link Row} de Vert.x usando el
+     * {@link RowMapper} precompilado de la clase.
      * Se soportan tipos básicos (String, int, boolean, etc.), enums con método estático {@code fromInt(int)},
      * y {@link java.math.BigDecimal} (a través del tipo {@code Numeric} de Vert.x).
-     * <p>
-     * Si un tipo no está soportado, se registra un error en el log y se ignora ese campo.
      *
      * @param row Fila de datos de la que extraer los valores.
      */
     private void populateFromRow(Row row) {
-        Field[] fields = this.getClass().getDeclaredFields();
-        for (Field field : fields) {
-            try {
-                field.setAccessible(true);
-                Class<?> type = field.getType();
-                String name = field.getName();
-
-                Object value;
-                if (type.isEnum()) {
-                    Integer intValue = row.getInteger(name);
-                    if (intValue != null) {
-                        try {
-                            var method = type.getMethod("fromInt", int.class);
-                            value = method.invoke(null, intValue);
-                        } catch (Exception e) {
-                            value = null;
-                        }
-                    } else {
-                        value = null;
-                    }
-                } else {
-                	value = switch (type.getSimpleName()) {
-	                    case "Integer", "int" -> row.getInteger(name);
-	                    case "String" -> row.getString(name);
-                        case "double", "Double" -> row.getDouble(name);
-	                    case "long", "Long" -> row.getLong(name);
-	                    case "boolean", "Boolean" -> row.getBoolean(name);
-	                    case "LocalDateTime" -> row.getLocalDateTime(name);
-	                    case "BigDecimal" -> {
-	                        try {
-	                            var numeric = row.get(io.vertx.sqlclient.data.Numeric.class, row.getColumnIndex(name));
-	                            yield numeric != null ? numeric.bigDecimalValue() : null;
-	                        } catch (Exception e) {
-	                            yield null;
-	                        }
-	                    }
-	                    default -> {
-                            Constants.LOGGER.error("Type not supported yet: {} for field {}", type.getName(), name);
-	                        yield null;
-	                    }
-	                };
+        RowMapper.of(this.getClass()).populate(this, row);
+    }
 
-                }
+    /**
+     * Columnas leídas de la base de datos cuando la consulta no pedía todas.
+     *
+     * @return los nombres de las columnas, o null si la entidad está completa
+     */
+    public Set<String> getSelectedColumns() {
+        return selectedColumns;
+    }
 
-                field.set(this, value);
-            } catch (Exception e) {
-                Constants.LOGGER.error("Error populating field {}: {}", field.getName(), e.getMessage());
-            }
-        }
+    void setSelectedColumns(Set<String> selectedColumns) {
+        this.selectedColumns = selectedColumns;
     }
 
     /**
-     * Codifica esta entidad como un objeto JSON, omitiendo los campos anotados con {@link APIDontReturn}.
+     * Codifica esta entidad como un objeto JSON, omitiendo los campos anotados con {@link APIDontReturn}
+     * y, si solo se leyeron algunas columnas, los que no se leyeron.
      *
-     * <p>Si un campo implementa {@link ValuableEnum}, se usará su valor en lugar del nombre del enum.</p>
+     * <p>Si un campo implementa {@link ValuableEnum}, se usará su valor en lugar del nombre del enum.
+     * Se usa el mismo adaptador compilado que {@link Constants#GSON} (ver {@link EntityTypeAdapterFactory}),
+     * pero escribiendo también los campos nulos.</p>
      *
      * @return Representación JSON de esta entidad.
      */
+    @SuppressWarnings("unchecked")
     public String encode() {
-        JsonObject json = new JsonObject();
-        Class<?> clazz = this.getClass();
-
-        while (clazz != null) {
-            for (Field field : clazz.getDeclaredFields()) {
-                if (field.isAnnotationPresent(APIDontReturn.class)) continue;
-
-                field.setAccessible(true);
-                try {
-                    Object value = field.get(this);
-
-                    if (value instanceof ValuableEnum ve) {
-                        json.put(field.getName(), ve.getValue());
-                    } else {
-                        json.put(field.getName(), value);
-                    }
-                } catch (IllegalAccessException e) {
-                    Constants.LOGGER.error("Error accessing field {}: {}", field.getName(), e.getMessage());
-                }
-            }
-            clazz = clazz.getSuperclass();
+        StringWriter json = new StringWriter();
+        try (JsonWriter writer = new JsonWriter(json)) {
+            writer.setSerializeNulls(true);
+            ((TypeAdapter<AbstractEntity>) Constants.GSON.getAdapter(this.getClass())).write(writer, this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        return json.encode();
+        return json.toString();
     }
 
     /**
@@ -0,0 +1,122 @@
+package net.miarma.api.common.db;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import net.miarma.api.common.Constants;
+import net.miarma.api.common.ValuableEnum;
+import net.miarma.api.common.db.EntityMetadata.Column;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Avisos de cambio publicados en el event bus tras cada escritura hecha con {@link QueryBuilder}
+ * ({@code insert}, {@code update}, {@code updateWithNulls}, {@code upsert} y {@code delete}).
+ * <p>
+ * Cada aviso es un {@link JsonObject} con la forma
+ * <pre>{"table":"huertos_incomes","op":"INSERT","key":{"income_id":42},"columns":["amount",...],"at":1700000000000}</pre>
+ * donde {@code key} son las columnas de clave de la fila (con el id generado en los INSERT)
+ * y {@code columns} las columnas que se escribieron. En las escrituras de varias filas
+ * ({@link QueryBuilder#updateWhere} y {@link QueryBuilder#deleteWhere}) {@code key} va vacío y
+ * se añade {@code filters} con los filtros usados. Se publica en
+ * {@link Constants#DB_CHANGES_EVENT_BUS} y en {@code db.changes.<tabla>} ({@link #address(String)}),
+ * para quien solo quiera los de una tabla.
+ * <p>
+ * Solo se avisa de las escrituras que afectaron a alguna fila. Dentro de una transacción los
+ * avisos se retienen hasta el commit y se descartan si se deshace. El SQL en texto no genera avisos.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public final class ChangeEvents {
+
+    private static volatile Vertx vertx;
+
+    private ChangeEvents() {}
+
+    /**
+     * Tipo de escritura.
+     */
+    public enum Operation {
+        INSERT, UPDATE, UPSERT, DELETE
+    }
+
+    /**
+     * Guarda la instancia de Vert.x con la que publicar. Debe llamarse una vez al arrancar;
+     * hasta entonces no se publica nada.
+     *
+     * @param vertx instancia de Vert.x
+     */
+    public static void install(Vertx vertx) {
+        ChangeEvents.vertx = vertx;
+    }
+
+    /**
+     * Dirección en la que se publican solo los avisos de la tabla dada.
+     *
+     * @param table tabla escrita
+     * @return la dirección del event bus
+     */
+    public static String address(String table) {
+        return Constants.DB_CHANGES_EVENT_BUS + "." + table;
+    }
+
+    /**
+     * Construye el aviso de una escritura ya ejecutada.
+     *
+     * @param query       escritura ejecutada
+     * @param generatedId id generado por el servidor, o null si no hubo
+     * @return el aviso, o null si la consulta no es una escritura de entidad
+     */
+    static JsonObject event(QueryBuilder query, Long generatedId) {
+        Operation operation = query.getOperation();
+        if (operation == null) return null;
+
+        JsonObject key = new JsonObject();
+        query.getKey().forEach((column, value) -> key.put(column, toJson(value)));
+
+        Column primaryKey = query.getMetadata().getPrimaryKey();
+        if (primaryKey != null && !key.containsKey(primaryKey.name())
+                && generatedId != null && generatedId > 0
+                && (operation == Operation.INSERT || operation == Operation.UPSERT)) {
+            key.put(primaryKey.name(), generatedId);
+        }
+
+        JsonObject event = new JsonObject()
+                .put("table", query.getTable())
+                .put("op", operation.name())
+                .put("key", key)
+                .put("columns", new JsonArray(List.copyOf(query.getChangedColumns())))
+                .put("at", System.currentTimeMillis());
+        if (query.getFilters() != null) {
+            JsonObject filters = new JsonObject();
+            query.getFilters().forEach(filters::put);
+            event.put("filters", filters);
+        }
+        return event;
+    }
+
+    /**
+     * Publica un aviso en la dirección general y en la de su tabla.
+     *
+     * @param event aviso construido con {@link #event(QueryBuilder, Long)}
+     */
+    static void publish(JsonObject event) {
+        Vertx current = vertx;
+        if (current == null || event == null) return;
+        current.eventBus().publish(Constants.DB_CHANGES_EVENT_BUS, event);
+        current.eventBus().publish(address(event.getString("table")), event);
+    }
+
+    private static Object toJson(Object value) {
+        return switch (value) {
+            case null -> null;
+            case ValuableEnum ve -> ve.getValue();
+            case Enum<?> e -> e.name();
+            case BigDecimal decimal -> decimal.toPlainString();
+            case Number number -> number;
+            case Boolean bool -> bool;
+            default -> value.toString();
+        };
+    }
+}
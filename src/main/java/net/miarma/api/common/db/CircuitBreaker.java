@@ -0,0 +1,174 @@
+package net.miarma.api.common.db;
+
+import io.vertx.core.Future;
+import io.vertx.mysqlclient.MySQLException;
+import io.vertx.sqlclient.ClosedConnectionException;
+import net.miarma.api.common.ConfigManager;
+import net.miarma.api.common.Constants;
+import net.miarma.api.common.exceptions.ServiceUnavailableException;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cortacircuitos de un pool de {@link DatabaseManager}.
+ * <p>
+ * Tras {@code db.breaker.failureThreshold} fallos seguidos (5 por defecto) por no poder hablar
+ * con la base de datos (conexión rechazada o cortada, servidor caído o saturado, espera de
+ * conexión agotada...) el circuito se abre: durante {@code db.breaker.openSeconds} segundos
+ * (10 por defecto) las consultas fallan al momento con {@link ServiceUnavailableException},
+ * sin ocupar una conexión ni esperar a que venza su timeout. Los errores de SQL (claves
+ * duplicadas, sintaxis...) demuestran que la base de datos responde y no cuentan.
+ * <p>
+ * Pasado ese tiempo se deja pasar una sola consulta de prueba; si sale bien el circuito se
+ * cierra y si no se vuelve a abrir. Así, cuando la base de datos vuelve, no le llega de golpe
+ * todo lo que se acumuló mientras estaba caída.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public final class CircuitBreaker {
+
+    /**
+     * Códigos de error de MariaDB que indican que el servidor no está disponible: demasiadas
+     * conexiones, apagándose, sin conexión, servidor desaparecido y conexión perdida.
+     */
+    private static final Set<Integer> UNAVAILABLE_CODES = Set.of(1040, 1053, 2002, 2003, 2006, 2013);
+
+    /**
+     * Estado del circuito.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    CircuitBreaker(String name) {
+        ConfigManager config = ConfigManager.getInstance();
+        this.name = name;
+        this.failureThreshold = Math.max(1, config.getIntProperty("db.breaker.failureThreshold", 5));
+        this.openMillis = Math.max(0, config.getIntProperty("db.breaker.openSeconds", 10)) * 1000L;
+    }
+
+    /**
+     * Ejecuta la operación si el circuito lo permite y anota su resultado. Si la operación
+     * falla por no poder hablar con la base de datos, el error se devuelve envuelto en una
+     * {@link ServiceUnavailableException}.
+     *
+     * @param operation operación a ejecutar; no se llama si el circuito está abierto
+     * @return el resultado de la operación, o un {@link Future} fallido si se rechaza
+     * @param <R> tipo del resultado
+     */
+    <R> Future<R> call(Supplier<Future<R>> operation) {
+        if (!allow()) {
+            rejected.increment();
+            return Future.failedFuture(new ServiceUnavailableException("Database unavailable"));
+        }
+        return operation.get().recover(err -> {
+            if (!isUnavailable(err)) {
+                onSuccess();
+                return Future.failedFuture(err);
+            }
+            onFailure(err);
+            return Future.failedFuture(err instanceof ServiceUnavailableException
+                    ? err : new ServiceUnavailableException("Database unavailable", err));
+        }).onSuccess(_ -> onSuccess());
+    }
+
+    /**
+     * Indica si el circuito está abierto y aún no toca probar, es decir, si una consulta
+     * lanzada ahora se rechazaría.
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.currentTimeMillis() - openedAt < openMillis;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Consultas rechazadas sin ejecutar por tener el circuito abierto, desde el arranque.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Veces que se ha abierto el circuito desde el arranque.
+     */
+    public long getTrips() {
+        return trips.sum();
+    }
+
+    /**
+     * Indica si un error se debe a que no se puede hablar con la base de datos (y no a la
+     * consulta en sí), revisando también sus causas.
+     *
+     * @param err error de una consulta
+     * @return {@code true} si el error indica que la base de datos no está disponible
+     */
+    public static boolean isUnavailable(Throwable err) {
+        for (Throwable t = err; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ServiceUnavailableException
+                    || t instanceof IOException
+                    || t instanceof TimeoutException
+                    || t instanceof ClosedConnectionException) {
+                return true;
+            }
+            if (t instanceof MySQLException e) {
+                return UNAVAILABLE_CODES.contains(e.getErrorCode());
+            }
+            String message = t.getMessage() != null ? t.getMessage().toLowerCase(Locale.ROOT) : "";
+            if (message.contains("timeout") || message.contains("timed out") || message.contains("max waiter")
+                    || message.contains("wait queue") || message.contains("connection refused")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized boolean allow() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (System.currentTimeMillis() - openedAt < openMillis) yield false;
+                // pasa solo esta consulta; las demás esperan a ver cómo le va
+                state = State.HALF_OPEN;
+                yield true;
+            }
+            case HALF_OPEN -> false;
+        };
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            Constants.LOGGER.info("[DB] Circuito de {} cerrado: la base de datos vuelve a responder", name);
+        }
+    }
+
+    private synchronized void onFailure(Throwable err) {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            trips.increment();
+            Constants.LOGGER.warn("[DB] Circuito de {} abierto durante {} s tras {} fallos seguidos: {}",
+                    name, openMillis / 1000, consecutiveFailures, err.getMessage());
+        }
+    }
+}
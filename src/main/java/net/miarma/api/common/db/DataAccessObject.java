@@ -2,7 +2,9 @@ package net.miarma.api.common.db;
 
 import io.vertx.core.Future;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interfaz genérica para operaciones CRUD básicas en una base de datos,
@@ -30,6 +32,15 @@ public interface DataAccessObject<T, ID> {
 	 */
 	Future<T> getById(ID id);
 
+	/**
+	 * Recupera varias entidades por sus identificadores en una única consulta {@code IN (...)}.
+	 *
+	 * @param ids Identificadores de las entidades.
+	 * @return Un {@link Future} con las entidades encontradas, sin orden garantizado; los
+	 * identificadores que no existen no aparecen.
+	 */
+	Future<List<T>> getByIds(Collection<ID> ids);
+
 	/**
 	 * Inserta una nueva entidad en la base de datos.
 	 *
@@ -55,6 +66,32 @@ public interface DataAccessObject<T, ID> {
 	 */
 	Future<T> update(T t);
 
+	/**
+	 * Inserta varias entidades en un único viaje por lote.
+	 *
+	 * @param list Entidades a insertar.
+	 * @return Un {@link Future} con los IDs generados, en el mismo orden que la lista.
+	 */
+	Future<List<Long>> insertAll(List<T> list);
+
+	/**
+	 * Inserta o actualiza varias entidades en un único viaje por lote.
+	 *
+	 * @param list Entidades a insertar o actualizar.
+	 * @param conflictKeys Claves que identifican el duplicado y no deben actualizarse.
+	 * @return Un {@link Future} con los IDs generados, en el mismo orden que la lista
+	 * (0 para las filas que ya existían).
+	 */
+	Future<List<Long>> upsertAll(List<T> list, String... conflictKeys);
+
+	/**
+	 * Actualiza varias entidades existentes en un único viaje por lote.
+	 *
+	 * @param list Entidades con los datos actualizados.
+	 * @return Un {@link Future} con el número total de filas actualizadas.
+	 */
+	Future<Integer> updateAll(List<T> list);
+
 	/**
 	 * Elimina una entidad por su identificador.
 	 *
@@ -63,6 +100,23 @@ public interface DataAccessObject<T, ID> {
 	 */
 	Future<Boolean> delete(ID id);
 
+	/**
+	 * Actualiza en una sola sentencia todas las entidades que cumplen los filtros.
+	 *
+	 * @param filters Filtros por columna, como en {@link QueryBuilder#where(Map)}; debe haber al menos uno válido.
+	 * @param changes Nuevo valor de cada columna a cambiar (las de clave no se pueden cambiar).
+	 * @return Un {@link Future} con el número de entidades actualizadas.
+	 */
+	Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes);
+
+	/**
+	 * Elimina en una sola sentencia todas las entidades que cumplen los filtros.
+	 *
+	 * @param filters Filtros por columna, como en {@link QueryBuilder#where(Map)}; debe haber al menos uno válido.
+	 * @return Un {@link Future} con el número de entidades eliminadas.
+	 */
+	Future<Integer> deleteWhere(Map<String, String> filters);
+
 	/**
 	 * Comprueba si existe una entidad con el identificador proporcionado.
 	 *
@@ -70,4 +124,20 @@ public interface DataAccessObject<T, ID> {
 	 * @return Un {@link Future} que contiene {@code true} si existe, o {@code false} si no.
 	 */
 	Future<Boolean> exists(ID id);
+
+	/**
+	 * Comprueba si existe alguna entidad que cumpla los filtros, sin leerla.
+	 *
+	 * @param filters Filtros por columna, como en {@link QueryBuilder#where(Map)}.
+	 * @return Un {@link Future} que contiene {@code true} si existe alguna, o {@code false} si no.
+	 */
+	Future<Boolean> exists(Map<String, String> filters);
+
+	/**
+	 * Cuenta las entidades que cumplen los filtros, sin leerlas.
+	 *
+	 * @param filters Filtros por columna, como en {@link QueryBuilder#where(Map)}; vacío para contar todas.
+	 * @return Un {@link Future} con el número de entidades.
+	 */
+	Future<Long> count(Map<String, String> filters);
 }
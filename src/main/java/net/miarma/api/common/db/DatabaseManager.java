@@ -2,50 +2,123 @@ package net.miarma.api.common.db;
 
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.mysqlclient.MySQLClient;
 import io.vertx.sqlclient.Pool;
 import io.vertx.sqlclient.Row;
 import io.vertx.sqlclient.RowSet;
-import net.miarma.api.common.Constants;
+import io.vertx.sqlclient.RowStream;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+import net.miarma.api.common.ConfigManager;
+import net.miarma.api.common.exceptions.ServiceUnavailableException;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Gestor centralizado de acceso a la base de datos utilizando Vert.x SQL Client.
  *
  * <p>
- * Esta clase sigue el patron Singleton para asegurar una sola instancia.
+ * Las consultas construidas con {@link QueryBuilder} se ejecutan como sentencias
+ * preparadas ({@code preparedQuery}) con sus parámetros enlazados, de forma que
+ * cada conexión del pool reutiliza la sentencia ya preparada en el servidor.
  *
+ * <p>
+ * Hay una instancia por {@link Pool}: los pools los reparte {@link PoolRegistry}
+ * y cada DAO obtiene aquí el gestor del suyo. Cada instancia lleva la cuenta de
+ * las consultas en curso, ejecutadas y fallidas de su pool, y cada ejecución se mide
+ * en {@link QueryMetrics}; una muestra de ellas se analiza con {@code EXPLAIN} en
+ * {@link QueryPlanAdvisor}.
+ *
+ * <p>
+ * Las operaciones de varios pasos se ejecutan con {@link #withTransaction(Function)}:
+ * todas las sentencias van por la misma conexión y se confirman o deshacen juntas.
+ * Los métodos que reciben un {@link SqlClient} permiten a los DAO ejecutar sobre esa
+ * conexión en lugar de pedir una nueva al pool.
+ *
+ * <p>
+ * Si el pool tiene réplicas de lectura ({@link PoolRegistry#replicasOf(Pool)}), las consultas
+ * {@code SELECT} construidas con {@link QueryBuilder} y los flujos se reparten entre ellas por
+ * turnos. Las escrituras, las transacciones y el SQL en texto van siempre al primario, y
+ * cualquier escritura deja la petición en curso pegada al primario para que sus lecturas
+ * siguientes vean lo que acaba de escribir (ver {@link ReadConsistency}).
+ *
+ * <p>
+ * Cada escritura vacía, antes de avisar al llamante, las {@link EntityCache} de la tabla escrita
+ * y de las vistas que dependen de ella; en una transacción se vuelven a vaciar al terminarla.
+ * El SQL en texto que no es un {@code SELECT} las vacía todas, porque no se sabe qué toca.
+ * Después se publica el aviso de la escritura en el event bus ({@link ChangeEvents}); los de
+ * una transacción esperan al commit.
+ *
+ * <p>
+ * Todas las consultas pasan por el {@link CircuitBreaker} del pool: si la base de datos deja de
+ * responder, fallan al momento con {@link ServiceUnavailableException} hasta que vuelve, y los
+ * endpoints de lectura marcados con {@link net.miarma.api.common.http.SnapshotStore} sirven
+ * entretanto su última respuesta buena.
  *
  * @author José Manuel Amador Gallardo
  */
 public class DatabaseManager {
 
-	private static DatabaseManager instance;
+	private static final Map<Pool, DatabaseManager> INSTANCES = new ConcurrentHashMap<>();
+
+	/**
+	 * Nombre con el que aparecen las transacciones en {@link QueryMetrics}.
+	 */
+	private static final String TRANSACTION = "TRANSACTION";
+
 	private final Pool pool;
+	private final List<Pool> replicas;
+	private final AtomicInteger nextReplica = new AtomicInteger();
+	private final int batchChunkSize;
+	private final int streamFetchSize;
+	private final int streamMaxOpen;
+	private final AtomicInteger openStreams = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final LongAdder executed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder replicaReads = new LongAdder();
+	private final Map<SqlClient, Transaction> transactions = new ConcurrentHashMap<>();
+	private final CircuitBreaker breaker;
 
 	/**
-	 * Constructor privado para seguir el patrón Singleton.
+	 * Tablas escritas y avisos pendientes de una transacción en curso.
+	 */
+	private record Transaction(Set<String> tables, List<JsonObject> events) {}
+
+	/**
+	 * Constructor privado: las instancias se obtienen con {@link #getInstance(Pool)}.
 	 *
 	 * @param pool el pool de conexiones proporcionado por Vert.x
 	 */
 	private DatabaseManager(Pool pool) {
 		this.pool = pool;
+		this.replicas = PoolRegistry.replicasOf(pool);
+		this.breaker = new CircuitBreaker(PoolRegistry.nameOf(pool));
+		this.batchChunkSize = Math.max(1, ConfigManager.getInstance().getIntProperty("db.batch.chunkSize", 500));
+		this.streamFetchSize = Math.max(1, ConfigManager.getInstance().getIntProperty("db.stream.fetchSize", 100));
+		this.streamMaxOpen = Math.max(0, ConfigManager.getInstance().getIntProperty("db.stream.maxOpen", 2));
 	}
 
 	/**
-	 * Devuelve la instancia única de {@link DatabaseManager}. Si no existe, la crea.
+	 * Devuelve el {@link DatabaseManager} asociado al pool dado. Si no existe, lo crea.
 	 *
 	 * @param pool el pool de conexiones a reutilizar
-	 * @return la instancia singleton de DatabaseManager
+	 * @return el gestor de ese pool
 	 */
-	public static synchronized DatabaseManager getInstance(Pool pool) {
-		if (instance == null) {
-			instance = new DatabaseManager(pool);
-		}
-		return instance;
+	public static DatabaseManager getInstance(Pool pool) {
+		return INSTANCES.computeIfAbsent(pool, DatabaseManager::new);
 	}
 
 	/**
@@ -57,6 +130,42 @@ public class DatabaseManager {
 		return pool;
 	}
 
+	/**
+	 * Consultas lanzadas sobre este pool que aún no han terminado, incluidas las que
+	 * esperan una conexión libre.
+	 */
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	/**
+	 * Consultas terminadas (con éxito o no) desde el arranque.
+	 */
+	public long getExecuted() {
+		return executed.sum();
+	}
+
+	/**
+	 * Consultas fallidas desde el arranque.
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	/**
+	 * Consultas enviadas a una réplica de lectura desde el arranque.
+	 */
+	public long getReplicaReads() {
+		return replicaReads.sum();
+	}
+
+	/**
+	 * Cortacircuitos de este pool.
+	 */
+	public CircuitBreaker getBreaker() {
+		return breaker;
+	}
+
 	/**
 	 * Realiza una consulta simple para verificar que la conexión con la base de datos funciona.
 	 *
@@ -66,8 +175,407 @@ public class DatabaseManager {
 		return pool.query("SELECT 1").execute();
 	}
 
+	/**
+	 * Ejecuta una consulta construida con {@link QueryBuilder} como sentencia preparada
+	 * y convierte cada fila en un objeto de tipo {@code T}.
+	 *
+	 * @param query     la consulta a ejecutar
+	 * @param clazz     clase del objeto a instanciar desde cada fila del resultado
+	 * @param onSuccess callback que se ejecuta si la consulta fue exitosa
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @param <T>       tipo del objeto a devolver
+	 * @return un {@link Future} con la lista de resultados convertidos
+	 */
+	public <T> Future<List<T>> execute(QueryBuilder query, Class<T> clazz, Handler<List<T>> onSuccess,
+									   Handler<Throwable> onFailure) {
+		return execute(route(query), query, clazz, onSuccess, onFailure);
+	}
+
+	/**
+	 * Ejecuta una sentencia preparada con los parámetros dados y convierte cada fila
+	 * en un objeto de tipo {@code T}.
+	 *
+	 * @param sql       la plantilla SQL con placeholders {@code ?}
+	 * @param params    los valores a enlazar, en orden
+	 * @param clazz     clase del objeto a instanciar desde cada fila del resultado
+	 * @param onSuccess callback que se ejecuta si la consulta fue exitosa
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @param <T>       tipo del objeto a devolver
+	 * @return un {@link Future} con la lista de resultados convertidos
+	 */
+	public <T> Future<List<T>> execute(String sql, Tuple params, Class<T> clazz, Handler<List<T>> onSuccess,
+									   Handler<Throwable> onFailure) {
+		onWrite();
+		return execute(pool, sql, params, clazz, false, null, afterWrite(sql), onSuccess, onFailure);
+	}
+
+	/**
+	 * Ejecuta una consulta construida con {@link QueryBuilder} sobre el cliente dado, normalmente
+	 * la conexión de una transacción abierta con {@link #withTransaction(Function)}.
+	 *
+	 * @param client    conexión o pool sobre el que ejecutar
+	 * @param query     la consulta a ejecutar
+	 * @param clazz     clase del objeto a instanciar desde cada fila del resultado
+	 * @param onSuccess callback que se ejecuta si la consulta fue exitosa
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @param <T>       tipo del objeto a devolver
+	 * @return un {@link Future} con la lista de resultados convertidos
+	 */
+	public <T> Future<List<T>> execute(SqlClient client, QueryBuilder query, Class<T> clazz,
+									   Handler<List<T>> onSuccess, Handler<Throwable> onFailure) {
+		if (query.getError() != null) return rejected(query, onFailure);
+		String sql = query.build();
+		return execute(client, sql, query.getParams(), clazz, query.isReversed(), query.getProjection(),
+				afterWrite(client, query), onSuccess, onFailure);
+	}
+
+	private <T> Future<List<T>> execute(SqlClient client, String sql, Tuple params, Class<T> clazz, boolean reversed,
+										Set<String> projection, Handler<RowSet<Row>> afterWrite,
+										Handler<List<T>> onSuccess, Handler<Throwable> onFailure) {
+		return track(client, sql, params, () -> client.preparedQuery(sql).execute(params))
+				.map(rows -> {
+					if (afterWrite != null) afterWrite.handle(rows);
+					List<T> list = mapAll(rows, clazz);
+					if (projection != null) list.forEach(entity -> project(entity, projection));
+					// las páginas pedidas con _before se leen al revés
+					if (reversed) Collections.reverse(list);
+					return list;
+				})
+				.onComplete(ar -> {
+					if (ar.succeeded()) {
+						onSuccess.handle(ar.result());
+					} else {
+						onFailure.handle(ar.cause());
+					}
+				});
+	}
+
+	/**
+	 * Ejecuta una consulta construida con {@link QueryBuilder} que devuelve como máximo
+	 * una fila y la convierte en un objeto de tipo {@code T}.
+	 *
+	 * @param query     la consulta a ejecutar
+	 * @param clazz     clase del objeto a instanciar desde la fila del resultado
+	 * @param onSuccess callback que se ejecuta si la consulta fue exitosa
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @param <T>       tipo del objeto a devolver
+	 * @return un {@link Future} con el objeto instanciado, o null si no hay resultados
+	 */
+	public <T> Future<T> executeOne(QueryBuilder query, Class<T> clazz, Handler<T> onSuccess,
+									Handler<Throwable> onFailure) {
+		return executeOne(route(query), query, clazz, onSuccess, onFailure);
+	}
+
+	/**
+	 * Ejecuta una sentencia preparada que devuelve como máximo una fila y la convierte
+	 * en un objeto de tipo {@code T}.
+	 *
+	 * @param sql       la plantilla SQL con placeholders {@code ?}
+	 * @param params    los valores a enlazar, en orden
+	 * @param clazz     clase del objeto a instanciar desde la fila del resultado
+	 * @param onSuccess callback que se ejecuta si la consulta fue exitosa
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @param <T>       tipo del objeto a devolver
+	 * @return un {@link Future} con el objeto instanciado, o null si no hay resultados
+	 */
+	public <T> Future<T> executeOne(String sql, Tuple params, Class<T> clazz, Handler<T> onSuccess,
+									Handler<Throwable> onFailure) {
+		onWrite();
+		return executeOne(pool, sql, params, clazz, null, afterWrite(sql), onSuccess, onFailure);
+	}
+
+	/**
+	 * Ejecuta sobre el cliente dado una consulta que devuelve como máximo una fila, normalmente
+	 * dentro de una transacción abierta con {@link #withTransaction(Function)}.
+	 *
+	 * @param client    conexión o pool sobre el que ejecutar
+	 * @param query     la consulta a ejecutar
+	 * @param clazz     clase del objeto a instanciar desde la fila del resultado
+	 * @param onSuccess callback que se ejecuta si la consulta fue exitosa
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @param <T>       tipo del objeto a devolver
+	 * @return un {@link Future} con el objeto instanciado, o null si no hay resultados
+	 */
+	public <T> Future<T> executeOne(SqlClient client, QueryBuilder query, Class<T> clazz, Handler<T> onSuccess,
+									Handler<Throwable> onFailure) {
+		if (query.getError() != null) return rejected(query, onFailure);
+		return executeOne(client, query.build(), query.getParams(), clazz, query.getProjection(),
+				afterWrite(client, query), onSuccess, onFailure);
+	}
+
+	private <T> Future<T> executeOne(SqlClient client, String sql, Tuple params, Class<T> clazz, Set<String> projection,
+									 Handler<RowSet<Row>> afterWrite, Handler<T> onSuccess,
+									 Handler<Throwable> onFailure) {
+		return track(client, sql, params, () -> client.preparedQuery(sql).execute(params))
+				.map(rows -> {
+					if (afterWrite != null) afterWrite.handle(rows);
+					return project(mapFirst(rows, clazz), projection);
+				})
+				.onComplete(ar -> {
+					if (ar.succeeded()) {
+						onSuccess.handle(ar.result());
+					} else {
+						onFailure.handle(ar.cause());
+					}
+				});
+	}
+
+	/**
+	 * Ejecuta una consulta construida con {@link QueryBuilder#count(Class)} y devuelve el número de filas.
+	 *
+	 * @param query     la consulta a ejecutar
+	 * @param onSuccess callback que se ejecuta si la consulta fue exitosa
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @return un {@link Future} con el número de filas que cumplen los filtros
+	 */
+	public Future<Long> count(QueryBuilder query, Handler<Long> onSuccess, Handler<Throwable> onFailure) {
+		if (query.getError() != null) return rejected(query, onFailure);
+		SqlClient client = route(query);
+		String sql = query.build();
+		return track(client, sql, query.getParams(), () -> client.preparedQuery(sql).execute(query.getParams()))
+				.map(rows -> rows.iterator().next().getLong(0))
+				.onComplete(ar -> {
+					if (ar.succeeded()) {
+						onSuccess.handle(ar.result());
+					} else {
+						onFailure.handle(ar.cause());
+					}
+				});
+	}
+
+	/**
+	 * Ejecuta una consulta construida con {@link QueryBuilder#exists(Class)} e indica si devolvió alguna fila.
+	 *
+	 * @param query     la consulta a ejecutar
+	 * @param onSuccess callback que se ejecuta si la consulta fue exitosa
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @return un {@link Future} con {@code true} si existe al menos una fila
+	 */
+	public Future<Boolean> exists(QueryBuilder query, Handler<Boolean> onSuccess, Handler<Throwable> onFailure) {
+		if (query.getError() != null) return rejected(query, onFailure);
+		SqlClient client = route(query);
+		String sql = query.build();
+		return track(client, sql, query.getParams(), () -> client.preparedQuery(sql).execute(query.getParams()))
+				.map(rows -> rows.size() > 0)
+				.onComplete(ar -> {
+					if (ar.succeeded()) {
+						onSuccess.handle(ar.result());
+					} else {
+						onFailure.handle(ar.cause());
+					}
+				});
+	}
+
+	/**
+	 * Ejecuta una escritura construida con {@link QueryBuilder}, normalmente
+	 * {@link QueryBuilder#updateWhere(Class, Map, Map)} o {@link QueryBuilder#deleteWhere(Class, Map)},
+	 * y devuelve el número de filas afectadas.
+	 *
+	 * @param query     la escritura a ejecutar
+	 * @param onSuccess callback que se ejecuta si la escritura fue exitosa
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @return un {@link Future} con el número de filas afectadas
+	 */
+	public Future<Integer> executeUpdate(QueryBuilder query, Handler<Integer> onSuccess, Handler<Throwable> onFailure) {
+		return executeUpdate(route(query), query, onSuccess, onFailure);
+	}
+
+	/**
+	 * Igual que {@link #executeUpdate(QueryBuilder, Handler, Handler)} sobre el cliente dado,
+	 * normalmente la conexión de una transacción abierta con {@link #withTransaction(Function)}.
+	 *
+	 * @param client    conexión o pool sobre el que ejecutar
+	 * @param query     la escritura a ejecutar
+	 * @param onSuccess callback que se ejecuta si la escritura fue exitosa
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @return un {@link Future} con el número de filas afectadas
+	 */
+	public Future<Integer> executeUpdate(SqlClient client, QueryBuilder query, Handler<Integer> onSuccess,
+										 Handler<Throwable> onFailure) {
+		if (query.getError() != null) return rejected(query, onFailure);
+		String sql = query.build();
+		Handler<RowSet<Row>> afterWrite = afterWrite(client, query);
+		return track(client, sql, query.getParams(), () -> client.preparedQuery(sql).execute(query.getParams()))
+				.map(rows -> {
+					if (afterWrite != null) afterWrite.handle(rows);
+					return rows.rowCount();
+				})
+				.onComplete(ar -> {
+					if (ar.succeeded()) {
+						onSuccess.handle(ar.result());
+					} else {
+						onFailure.handle(ar.cause());
+					}
+				});
+	}
+
+	/**
+	 * Abre un cursor sobre una consulta construida con {@link QueryBuilder} y devuelve sus
+	 * filas como un flujo de entidades, en lugar de reunirlas en una lista.
+	 * <p>
+	 * El cursor necesita una conexión propia durante toda la lectura, dentro de una
+	 * transacción de solo lectura; se devuelve al pool cuando el flujo termina, falla o
+	 * se cierra. Las filas se piden al servidor en bloques de {@code db.stream.fetchSize}
+	 * (100 por defecto) según el consumidor las va aceptando.
+	 * <p>
+	 * Como cada cursor retiene su conexión mientras el cliente lee, como mucho hay
+	 * {@code db.stream.maxOpen} (2 por defecto) abiertos a la vez en el pool. Por encima de ese
+	 * límite la consulta se ejecuta como un listado normal y el flujo entrega la lista ya leída,
+	 * así que el resto del pool sigue libre para las demás consultas.
+	 * <p>
+	 * El {@link CircuitBreaker} y las métricas solo cubren la apertura del cursor: una vez
+	 * abierto, lo que tarde el cliente en leer no cuenta como latencia de la base de datos.
+	 *
+	 * @param query la consulta a ejecutar
+	 * @param clazz clase de las entidades del flujo
+	 * @param <T>   tipo de la entidad
+	 * @return un {@link Future} con el flujo, listo para establecer su handler
+	 */
+	public <T> Future<EntityStream<T>> stream(QueryBuilder query, Class<T> clazz) {
+		if (query.getError() != null) return Future.failedFuture(query.getError());
+		if (openStreams.incrementAndGet() > streamMaxOpen) {
+			openStreams.decrementAndGet();
+			return execute(query, clazz, _ -> {}, _ -> {}).map(EntityStream::of);
+		}
+		String sql = query.build();
+		Tuple params = query.getParams();
+
+		Future<EntityStream<T>> stream = track(sql, () -> reader().getConnection().compose(conn -> conn.begin()
+				.compose(tx -> conn.prepare(sql).map(statement -> {
+					RowStream<Row> rows = statement.createStream(streamFetchSize, params);
+					Function<Row, T> mapper = RowMapper.of(clazz).mapper();
+					Set<String> projection = query.getProjection();
+					return new EntityStream<T>(rows, row -> project(mapper.apply(row), projection), query.isReversed(), _ -> {
+						openStreams.decrementAndGet();
+						statement.close();
+						tx.commit().onComplete(_ -> conn.close());
+					});
+				}))
+				.onFailure(_ -> conn.close())));
+		return stream.onFailure(_ -> openStreams.decrementAndGet());
+	}
+
+	/**
+	 * Ejecuta una unidad de trabajo dentro de una transacción.
+	 * <p>
+	 * Se toma una única conexión del pool, se abre la transacción y se le pasa la conexión
+	 * a {@code work}, que debe encadenar todos sus pasos sobre ella (ver las sobrecargas de
+	 * los DAO que reciben una {@link SqlConnection}). Si el {@link Future} devuelto termina
+	 * bien se hace commit; si falla, rollback. La conexión vuelve al pool en ambos casos.
+	 * <p>
+	 * La transacción entera pasa por el {@link CircuitBreaker} como una sola consulta (y sale
+	 * en {@link QueryMetrics} como {@value #TRANSACTION}): no se abre con el circuito abierto,
+	 * y si no se puede conseguir la conexión, abrirla o confirmarla cuenta como fallo.
+	 *
+	 * @param work pasos a ejecutar con la conexión de la transacción
+	 * @param <T>  tipo del resultado
+	 * @return un {@link Future} con el resultado de {@code work} una vez confirmada la transacción
+	 */
+	public <T> Future<T> withTransaction(Function<SqlConnection, Future<T>> work) {
+		onWrite();
+		Transaction tx = new Transaction(ConcurrentHashMap.newKeySet(), Collections.synchronizedList(new ArrayList<>()));
+		return track(TRANSACTION, () -> pool.withTransaction(conn -> {
+			transactions.put(conn, tx);
+			return work.apply(conn).onComplete(_ -> transactions.remove(conn));
+		})).onComplete(ar -> {
+			tx.tables().forEach(EntityCache::invalidate);
+			if (ar.succeeded()) tx.events().forEach(ChangeEvents::publish);
+		});
+	}
+
+	/**
+	 * Resultado de una ejecución por lotes.
+	 *
+	 * @param generatedIds id autogenerado por cada sentencia, en el mismo orden en que se pasaron
+	 *                     (0 si la sentencia no generó ninguno)
+	 * @param affectedRows total de filas afectadas
+	 */
+	public record BatchResult(List<Long> generatedIds, int affectedRows) {}
+
+	/**
+	 * Ejecuta varias sentencias en un único viaje por lote usando {@code executeBatch}.
+	 * <p>
+	 * Las sentencias consecutivas con la misma plantilla se agrupan en lotes de como mucho
+	 * {@code db.batch.chunkSize} (500 por defecto). Todo se ejecuta dentro de una misma
+	 * transacción: si un lote falla no queda nada aplicado. Si alguna sentencia tiene filtros
+	 * inválidos ({@link QueryBuilder#getError()}) no se ejecuta ninguna.
+	 * <p>
+	 * Como en las escrituras sueltas, solo se publica el aviso de cambio
+	 * ({@link ChangeEvents}) de las sentencias que afectaron a alguna fila.
+	 *
+	 * @param queries   sentencias a ejecutar, normalmente INSERT/UPDATE de la misma entidad
+	 * @param onSuccess callback que se ejecuta si todas las sentencias fueron exitosas
+	 * @param onFailure callback que se ejecuta si ocurre un error
+	 * @return un {@link Future} con los ids generados y las filas afectadas
+	 */
+	public Future<BatchResult> executeBatch(List<QueryBuilder> queries, Handler<BatchResult> onSuccess,
+											Handler<Throwable> onFailure) {
+		if (queries.isEmpty()) {
+			BatchResult empty = new BatchResult(List.of(), 0);
+			onSuccess.handle(empty);
+			return Future.succeededFuture(empty);
+		}
+		for (QueryBuilder query : queries) {
+			if (query.getError() != null) return rejected(query, onFailure);
+		}
+
+		onWrite();
+		List<String> templates = new ArrayList<>();
+		List<List<Tuple>> batches = new ArrayList<>();
+		Set<String> written = new HashSet<>();
+		for (QueryBuilder query : queries) {
+			if (!query.isRead()) written.add(query.getTable());
+			String sql = query.build();
+			if (templates.isEmpty() || !templates.getLast().equals(sql) || batches.getLast().size() >= batchChunkSize) {
+				templates.add(sql);
+				batches.add(new ArrayList<>());
+			}
+			batches.getLast().add(query.getParams());
+		}
+
+		List<Integer> rowCounts = new ArrayList<>(queries.size());
+		return track(templates.getFirst(), () -> pool.withTransaction(conn -> {
+			List<Long> generatedIds = new ArrayList<>(queries.size());
+			rowCounts.clear();
+			int[] affectedRows = {0};
+
+			Future<Void> chain = Future.succeededFuture();
+			for (int i = 0; i < templates.size(); i++) {
+				String sql = templates.get(i);
+				List<Tuple> batch = batches.get(i);
+				chain = chain.compose(_ -> conn.preparedQuery(sql).executeBatch(batch)
+						.onSuccess(rows -> {
+							for (RowSet<Row> result = rows; result != null; result = result.next()) {
+								Long id = result.property(MySQLClient.LAST_INSERTED_ID);
+								generatedIds.add(id != null ? id : 0L);
+								rowCounts.add(result.rowCount());
+								affectedRows[0] += result.rowCount();
+							}
+						})
+						.mapEmpty());
+			}
+			return chain.map(_ -> new BatchResult(generatedIds, affectedRows[0]));
+		})).onComplete(ar -> {
+			written.forEach(EntityCache::invalidate);
+			if (ar.succeeded()) {
+				List<Long> ids = ar.result().generatedIds();
+				for (int i = 0; i < queries.size() && i < rowCounts.size(); i++) {
+					if (rowCounts.get(i) <= 0) continue;
+					JsonObject event = ChangeEvents.event(queries.get(i), ids.get(i));
+					if (event != null) ChangeEvents.publish(event);
+				}
+				onSuccess.handle(ar.result());
+			} else {
+				onFailure.handle(ar.cause());
+			}
+		});
+	}
+
 	/**
 	 * Ejecuta una consulta SQL que devuelve múltiples resultados y los convierte en objetos de tipo {@code T}.
+	 * <p>
+	 * Usa el protocolo de texto: reservado para SQL sin parámetros. Para todo lo demás
+	 * usar {@link #execute(QueryBuilder, Class, Handler, Handler)}.
 	 *
 	 * @param query     la consulta SQL a ejecutar
 	 * @param clazz     clase del objeto a instanciar desde cada fila del resultado
@@ -78,18 +586,11 @@ public class DatabaseManager {
 	 */
 	public <T> Future<List<T>> execute(String query, Class<T> clazz, Handler<List<T>> onSuccess,
 									   Handler<Throwable> onFailure) {
-		return pool.query(query).execute().map(rows -> {
-			List<T> results = new ArrayList<>();
-			for (Row row : rows) {
-				try {
-					Constructor<T> constructor = clazz.getConstructor(Row.class);
-					results.add(constructor.newInstance(row));
-				} catch (NoSuchMethodException | InstantiationException | IllegalAccessException
-						 | InvocationTargetException e) {
-					Constants.LOGGER.error("Error instantiating class: {}", e.getMessage());
-				}
-			}
-			return results;
+		onWrite();
+		Handler<RowSet<Row>> afterWrite = afterWrite(query);
+		return track(query, () -> pool.query(query).execute()).map(rows -> {
+			if (afterWrite != null) afterWrite.handle(rows);
+			return mapAll(rows, clazz);
 		}).onComplete(ar -> {
 			if (ar.succeeded()) {
 				onSuccess.handle(ar.result());
@@ -101,6 +602,9 @@ public class DatabaseManager {
 
 	/**
 	 * Ejecuta una consulta SQL que devuelve como máximo una fila y la convierte en un objeto de tipo {@code T}.
+	 * <p>
+	 * Usa el protocolo de texto: reservado para SQL sin parámetros. Para todo lo demás
+	 * usar {@link #executeOne(QueryBuilder, Class, Handler, Handler)}.
 	 *
 	 * @param query     la consulta SQL a ejecutar
 	 * @param clazz     clase del objeto a instanciar desde la fila del resultado
@@ -110,16 +614,11 @@ public class DatabaseManager {
 	 * @return un {@link Future} con el objeto instanciado, o null si no hay resultados
 	 */
 	public <T> Future<T> executeOne(String query, Class<T> clazz, Handler<T> onSuccess, Handler<Throwable> onFailure) {
-		return pool.query(query).execute().map(rows -> {
-			for (Row row : rows) {
-				try {
-					Constructor<T> constructor = clazz.getConstructor(Row.class);
-					return constructor.newInstance(row);
-				} catch (Exception e) {
-                    Constants.LOGGER.error("Error instantiating class: {}", e.getMessage());
-				}
-			}
-			return null; // Si no hay filas
+		onWrite();
+		Handler<RowSet<Row>> afterWrite = afterWrite(query);
+		return track(query, () -> pool.query(query).execute()).map(rows -> {
+			if (afterWrite != null) afterWrite.handle(rows);
+			return mapFirst(rows, clazz);
 		}).onComplete(ar -> {
 			if (ar.succeeded()) {
 				onSuccess.handle(ar.result());
@@ -128,4 +627,146 @@ public class DatabaseManager {
 			}
 		});
 	}
+
+	/**
+	 * Elige dónde ejecutar una consulta: las lecturas van a una réplica salvo que la petición
+	 * esté pegada al primario; las escrituras van al primario y pegan la petición a él.
+	 */
+	private SqlClient route(QueryBuilder query) {
+		if (!query.isRead()) {
+			onWrite();
+			return pool;
+		}
+		return reader();
+	}
+
+	/**
+	 * Pool del que leer: una réplica por turnos, o el primario si no hay réplicas o la
+	 * petición en curso debe leer de él.
+	 */
+	private Pool reader() {
+		if (replicas.isEmpty() || ReadConsistency.isPrimary()) {
+			return pool;
+		}
+		replicaReads.increment();
+		return replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+	}
+
+	/**
+	 * Una escritura pega la petición en curso al primario y descarta las entidades que
+	 * {@link EntityLoader} tenía cargadas para ella.
+	 */
+	private static void onWrite() {
+		ReadConsistency.markPrimary();
+		EntityLoader.clearRequestCache();
+	}
+
+	/**
+	 * Lo que hay que hacer cuando termina bien una consulta construida con {@link QueryBuilder},
+	 * antes de avisar al llamante: nada si es una lectura; si es una escritura, vaciar las cachés
+	 * de su tabla y publicar su aviso si afectó a alguna fila. Dentro de una transacción la tabla
+	 * se anota para vaciarla otra vez al terminar y el aviso se guarda hasta el commit.
+	 */
+	private Handler<RowSet<Row>> afterWrite(SqlClient client, QueryBuilder query) {
+		if (query.isRead()) return null;
+		String table = query.getTable();
+		Transaction tx = transactions.get(client);
+		if (tx != null && table != null) tx.tables().add(table);
+
+		return rows -> {
+			EntityCache.invalidate(table);
+			if (rows.rowCount() <= 0) return;
+			JsonObject event = ChangeEvents.event(query, rows.property(MySQLClient.LAST_INSERTED_ID));
+			if (event == null) return;
+			if (tx != null) {
+				tx.events().add(event);
+			} else {
+				ChangeEvents.publish(event);
+			}
+		};
+	}
+
+	/**
+	 * Igual que {@link #afterWrite(SqlClient, QueryBuilder)} para SQL en texto: si no es un
+	 * {@code SELECT} vacía todas las cachés, porque no se sabe qué tablas toca. No publica avisos.
+	 */
+	private static Handler<RowSet<Row>> afterWrite(String sql) {
+		if (sql.stripLeading().regionMatches(true, 0, "SELECT", 0, 6)) return null;
+		return _ -> EntityCache.invalidate(EntityCache.ALL_TABLES);
+	}
+
+	/**
+	 * Rechaza sin ejecutarla una consulta con filtros inválidos ({@link QueryBuilder#getError()}).
+	 */
+	private static <R> Future<R> rejected(QueryBuilder query, Handler<Throwable> onFailure) {
+		onFailure.handle(query.getError());
+		return Future.failedFuture(query.getError());
+	}
+
+	/**
+	 * Lanza una consulta si el {@link CircuitBreaker} lo permite, la contabiliza hasta que
+	 * termina y registra su latencia en {@link QueryMetrics}. Debe llamarse desde el método
+	 * del DAO que lanza la consulta, sin saltos asíncronos de por medio, para que quede
+	 * anotado como su origen.
+	 */
+	private <R> Future<R> track(String sql, Supplier<Future<R>> execution) {
+		return breaker.call(() -> measure(sql, execution));
+	}
+
+	/**
+	 * Igual que {@link #track(String, Supplier)} para sentencias preparadas sobre el cliente
+	 * dado; si termina bien, {@link QueryPlanAdvisor} puede analizar su plan en segundo plano
+	 * (en una réplica si hay). Las sentencias de una transacción abierta con
+	 * {@link #withTransaction(Function)} no vuelven a pasar por el circuito: ya lo hizo la
+	 * transacción, y en semiabierto se quedarían sin paso detrás de ella.
+	 */
+	private <R> Future<R> track(SqlClient client, String sql, Tuple params, Supplier<Future<R>> execution) {
+		Future<R> result = transactions.containsKey(client) ? measure(sql, execution) : track(sql, execution);
+		return result.onSuccess(_ ->
+				QueryPlanAdvisor.maybeSample(replicas.isEmpty() ? pool : replicas.getFirst(), sql, params));
+	}
+
+	/**
+	 * Contabiliza una ejecución hasta que termina y registra su latencia en {@link QueryMetrics}.
+	 */
+	private <R> Future<R> measure(String sql, Supplier<Future<R>> execution) {
+		inFlight.incrementAndGet();
+		QueryMetrics.Sample sample = QueryMetrics.start(sql);
+		return execution.get().onComplete(ar -> {
+			inFlight.decrementAndGet();
+			executed.increment();
+			if (ar.failed()) failed.increment();
+			QueryMetrics.finish(sample, ar.succeeded() ? rowCount(ar.result()) : -1, ar.failed());
+		});
+	}
+
+	/**
+	 * Filas devueltas o afectadas por una ejecución, o -1 si no se conocen.
+	 */
+	private static long rowCount(Object result) {
+		return switch (result) {
+			case RowSet<?> rows -> rows.columnsNames() != null && !rows.columnsNames().isEmpty() ? rows.size() : rows.rowCount();
+			case BatchResult batch -> batch.affectedRows();
+			case null, default -> -1;
+		};
+	}
+
+	/**
+	 * Anota en la entidad las columnas que pidió la consulta, para que al serializarla
+	 * se omitan las demás.
+	 */
+	private static <T> T project(T entity, Set<String> projection) {
+		if (projection != null && entity instanceof AbstractEntity abstractEntity) {
+			abstractEntity.setSelectedColumns(projection);
+		}
+		return entity;
+	}
+
+	private static <T> List<T> mapAll(RowSet<Row> rows, Class<T> clazz) {
+		return RowMapper.of(clazz).mapAll(rows);
+	}
+
+	private static <T> T mapFirst(RowSet<Row> rows, Class<T> clazz) {
+		return RowMapper.of(clazz).mapFirst(rows);
+	}
 }
@@ -6,13 +6,19 @@ import io.vertx.sqlclient.Pool;
 import io.vertx.sqlclient.PoolOptions;
 import net.miarma.api.common.ConfigManager;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Factoría de {@link Pool} para conexiones MySQL usando Vert.x.
  *
  * <p>
  * Se apoya en {@link ConfigManager} para extraer la configuración de la BBDD
- * (host, puerto, nombre, usuario y contraseña) y crea un pool con un tamaño
- * máximo de 10 conexiones.
+ * (host, puerto, nombre, usuario y contraseña) y el tamaño del pool. Cada conexión
+ * mantiene su propia caché de sentencias preparadas.
+ * </p>
+ * <p>
+ * No debe usarse directamente desde los verticles: los pools se piden a
+ * {@link PoolRegistry}, que se encarga de compartirlos.
  * </p>
  *
  * @author José Manuel Amador Gallardo
@@ -30,20 +36,73 @@ public class DatabaseProvider {
      *                   <li><b>db.name</b> – nombre de la base de datos</li>
      *                   <li><b>db.user</b> – usuario de la base</li>
      *                   <li><b>db.password</b> – contraseña del usuario</li>
+     *                   <li><b>db.preparedStatementCacheMaxSize</b> – sentencias preparadas cacheadas por conexión</li>
+     *                   <li><b>db.preparedStatementCacheSqlLimit</b> – longitud máxima de SQL que se cachea</li>
      *               </ul>
+     * @param options opciones del pool, normalmente las de {@link #poolOptions(ConfigManager, String)}
+     * @return un {@link Pool} listo para usarse en consultas Vert.x
+     */
+    public static Pool createPool(Vertx vertx, ConfigManager config, PoolOptions options) {
+        return createPool(vertx, config, options, config.getStringProperty("db.host"), config.getIntProperty("db.port"));
+    }
+
+    /**
+     * Crea un pool de conexiones MySQL contra un host concreto, por ejemplo una réplica
+     * de lectura. El resto de parámetros (base de datos, credenciales, caché de sentencias)
+     * son los mismos que en {@link #createPool(Vertx, ConfigManager, PoolOptions)}.
+     *
+     * @param vertx   instancia principal de Vert.x
+     * @param config  gestor de configuración
+     * @param options opciones del pool
+     * @param host    host o IP del servidor
+     * @param port    puerto del servidor
      * @return un {@link Pool} listo para usarse en consultas Vert.x
      */
-    public static Pool createPool(Vertx vertx, ConfigManager config) {
+    public static Pool createPool(Vertx vertx, ConfigManager config, PoolOptions options, String host, int port) {
         MySQLConnectOptions connectOptions = new MySQLConnectOptions()
-                .setPort(config.getIntProperty("db.port"))
-                .setHost(config.getStringProperty("db.host"))
+                .setPort(port)
+                .setHost(host)
                 .setDatabase(config.getStringProperty("db.name"))
                 .setUser(config.getStringProperty("db.user"))
-                .setPassword(config.getStringProperty("db.password"));
+                .setPassword(config.getStringProperty("db.password"))
+                .setCachePreparedStatements(true)
+                .setPreparedStatementCacheMaxSize(config.getIntProperty("db.preparedStatementCacheMaxSize", 256))
+                .setPreparedStatementCacheSqlLimit(config.getIntProperty("db.preparedStatementCacheSqlLimit", 2048));
+
+        return Pool.pool(vertx, connectOptions, options);
+    }
 
-        PoolOptions poolOptions = new PoolOptions()
-                .setMaxSize(10);
+    /**
+     * Construye las opciones de un pool con nombre a partir de la configuración.
+     * Cada clave admite un valor específico por pool con el sufijo {@code .<nombre>}
+     * (por ejemplo {@code dp.poolSize.huertos}).
+     *
+     * <ul>
+     *     <li><b>dp.poolSize</b> – conexiones máximas (por defecto 10)</li>
+     *     <li><b>db.pool.maxWaitQueueSize</b> – peticiones en espera de conexión antes de fallar (-1 sin límite)</li>
+     *     <li><b>db.pool.idleTimeout</b> – segundos que una conexión ociosa sigue abierta (0 nunca se cierra)</li>
+     *     <li><b>db.pool.connectionTimeout</b> – segundos de espera por una conexión libre antes de fallar (30 por defecto)</li>
+     *     <li><b>db.pool.eventLoopSize</b> – event loops que reparten las conexiones (0 usa el del creador)</li>
+     * </ul>
+     *
+     * @param config gestor de configuración
+     * @param name   nombre del pool
+     * @return las opciones del pool
+     */
+    public static PoolOptions poolOptions(ConfigManager config, String name) {
+        return new PoolOptions()
+                .setName(name)
+                .setShared(true)
+                .setMaxSize(property(config, "dp.poolSize", name, 10))
+                .setMaxWaitQueueSize(property(config, "db.pool.maxWaitQueueSize", name, -1))
+                .setIdleTimeout(property(config, "db.pool.idleTimeout", name, 0))
+                .setIdleTimeoutUnit(TimeUnit.SECONDS)
+                .setConnectionTimeout(property(config, "db.pool.connectionTimeout", name, 30))
+                .setConnectionTimeoutUnit(TimeUnit.SECONDS)
+                .setEventLoopSize(property(config, "db.pool.eventLoopSize", name, 0));
+    }
 
-        return Pool.pool(vertx, connectOptions, poolOptions);
+    private static int property(ConfigManager config, String key, String name, int defaultValue) {
+        return config.getIntProperty(key + "." + name, config.getIntProperty(key, defaultValue));
     }
 }
@@ -0,0 +1,279 @@
+package net.miarma.api.common.db;
+
+import io.vertx.core.Future;
+import net.miarma.api.common.ConfigManager;
+import net.miarma.api.common.annotations.DependsOn;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché de lectura de entidades, compartida por todos los DAO de una misma clase de entidad.
+ * <p>
+ * Guarda como mucho {@code db.cache.maxSize} entidades (0 la desactiva, que es el valor por
+ * defecto) durante {@code db.cache.ttlSeconds} segundos (300 por defecto); ambos admiten un
+ * valor específico por tabla con el sufijo {@code .<tabla>}, por ejemplo
+ * {@code db.cache.maxSize.v_huertos_members}. Al llenarse se descarta la entrada usada hace
+ * más tiempo.
+ * <p>
+ * {@link DatabaseManager} invalida la caché entera tras cada escritura en la tabla de la
+ * entidad o en cualquiera de las tablas declaradas con {@link DependsOn}, así que nunca se
+ * sirve un dato anterior a una escritura hecha por esta API. Una carga que empezó antes de una
+ * invalidación no se guarda, y con réplicas configuradas tampoco se guarda nada durante los
+ * {@code db.replica.stickyMs} milisegundos siguientes, mientras la réplica puede ir con retraso.
+ * <p>
+ * Las entidades se guardan y se entregan como copias, de modo que modificar la que devuelve
+ * {@link #get(Object, Supplier)} no altera la cacheada.
+ *
+ * @param <T> tipo de la entidad
+ * @author José Manuel Amador Gallardo
+ */
+public final class EntityCache<T> {
+
+    /**
+     * Valor de {@link #invalidate(String)} que vacía todas las cachés.
+     */
+    public static final String ALL_TABLES = "*";
+
+    private static final Map<Class<?>, EntityCache<?>> CACHES = new ConcurrentHashMap<>();
+
+    private final Class<T> type;
+    private final String table;
+    private final Set<String> dependsOn;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long replicaLagMillis;
+    private final EntityMetadata meta;
+    private final Map<Object, Entry<T>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private long generation;
+    private long lastInvalidation;
+
+    private record Entry<T>(T value, long expiresAt) {}
+
+    /**
+     * Estado de la caché de una entidad.
+     *
+     * @param entity        clase de la entidad
+     * @param table         tabla o vista de la entidad
+     * @param dependsOn     tablas cuyas escrituras también la invalidan
+     * @param size          entradas guardadas
+     * @param maxSize       entradas máximas
+     * @param ttlSeconds    segundos que dura cada entrada
+     * @param hits          lecturas servidas desde la caché
+     * @param misses        lecturas que fueron a la base de datos
+     * @param hitRatio      proporción de aciertos, entre 0 y 1
+     * @param evictions     entradas descartadas por falta de espacio
+     * @param invalidations veces que se ha vaciado por una escritura
+     */
+    public record CacheStats(String entity, String table, Set<String> dependsOn, int size, int maxSize,
+                             long ttlSeconds, long hits, long misses, double hitRatio, long evictions,
+                             long invalidations) {}
+
+    private EntityCache(Class<T> type) {
+        EntityMetadata meta = EntityMetadata.of(type);
+        ConfigManager config = ConfigManager.getInstance();
+        DependsOn deps = type.getAnnotation(DependsOn.class);
+        String replicas = config.getStringProperty("db.replicas");
+
+        this.type = type;
+        this.table = meta.getTable();
+        this.dependsOn = deps != null ? Set.of(deps.value()) : Set.of();
+        this.maxSize = property("db.cache.maxSize", 0);
+        this.ttlMillis = property("db.cache.ttlSeconds", 300) * 1000L;
+        this.replicaLagMillis = replicas != null && !replicas.isBlank()
+                ? config.getIntProperty("db.replica.stickyMs", 5000) : 0;
+        this.meta = meta;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry<T>> eldest) {
+                if (size() <= maxSize) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Devuelve la caché de la clase dada, creándola la primera vez que se pide.
+     *
+     * @param type clase de la entidad, anotada con {@link net.miarma.api.common.annotations.Table}
+     * @return la caché compartida para esa clase
+     * @param <T> tipo de la entidad
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityCache<T> of(Class<T> type) {
+        return (EntityCache<T>) CACHES.computeIfAbsent(type, _ -> new EntityCache<>(type));
+    }
+
+    /**
+     * Indica si la caché está activa para esta entidad.
+     */
+    public boolean isEnabled() {
+        return maxSize > 0 && ttlMillis > 0;
+    }
+
+    /**
+     * Lee una entidad de la caché o, si no está, la carga y la guarda. Los resultados null
+     * no se guardan.
+     *
+     * @param key    clave de la entidad en la caché
+     * @param loader consulta que carga la entidad
+     * @return un {@link Future} con la entidad, o null si no existe
+     */
+    public Future<T> get(Object key, Supplier<Future<T>> loader) {
+        if (!isEnabled()) return loader.get();
+
+        T cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return Future.succeededFuture(cached);
+        }
+
+        misses.increment();
+        long loadGeneration = generation();
+        return loader.get().onSuccess(entity -> {
+            if (entity != null) store(key, entity, loadGeneration);
+        });
+    }
+
+    /**
+     * Lee varias entidades de la caché y carga las que falten en una sola consulta.
+     *
+     * @param keys   claves de las entidades
+     * @param loader consulta que carga varias entidades por clave
+     * @param keyOf  clave de una entidad cargada
+     * @return un {@link Future} con las entidades encontradas, sin orden definido
+     * @param <K> tipo de la clave
+     */
+    public <K> Future<List<T>> getAll(Collection<K> keys, Function<List<K>, Future<List<T>>> loader,
+                                      Function<T, K> keyOf) {
+        if (!isEnabled()) return loader.apply(new ArrayList<>(keys));
+
+        List<T> found = new ArrayList<>(keys.size());
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+            T cached = lookup(key);
+            if (cached != null) {
+                found.add(cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        hits.add(found.size());
+        misses.add(missing.size());
+        if (missing.isEmpty()) return Future.succeededFuture(found);
+
+        long loadGeneration = generation();
+        return loader.apply(missing).map(loaded -> {
+            for (T entity : loaded) {
+                store(keyOf.apply(entity), entity, loadGeneration);
+                found.add(entity);
+            }
+            return found;
+        });
+    }
+
+    /**
+     * Vacía la caché de esta entidad.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        lastInvalidation = System.currentTimeMillis();
+        entries.clear();
+        invalidations.increment();
+    }
+
+    /**
+     * Vacía las cachés afectadas por una escritura en la tabla dada: la de la entidad de esa
+     * tabla y las de las entidades que la declaran en {@link DependsOn}.
+     *
+     * @param table tabla escrita, {@link #ALL_TABLES} para vaciarlas todas o null para ninguna
+     */
+    public static void invalidate(String table) {
+        if (table == null) return;
+        boolean all = ALL_TABLES.equals(table);
+        for (EntityCache<?> cache : CACHES.values()) {
+            if (cache.isEnabled() && (all || cache.table.equals(table) || cache.dependsOn.contains(table))) {
+                cache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Estado de todas las cachés creadas, de mayor a menor número de lecturas.
+     */
+    public static List<CacheStats> getStats() {
+        List<CacheStats> result = new ArrayList<>();
+        for (EntityCache<?> cache : CACHES.values()) {
+            long hits = cache.hits.sum();
+            long misses = cache.misses.sum();
+            result.add(new CacheStats(
+                    cache.type.getSimpleName(),
+                    cache.table,
+                    cache.dependsOn,
+                    cache.size(),
+                    cache.maxSize,
+                    cache.ttlMillis / 1000,
+                    hits,
+                    misses,
+                    hits + misses > 0 ? (double) hits / (hits + misses) : 0,
+                    cache.evictions.sum(),
+                    cache.invalidations.sum()
+            ));
+        }
+        result.sort(Comparator.comparingLong((CacheStats s) -> s.hits() + s.misses()).reversed());
+        return result;
+    }
+
+    private synchronized T lookup(Object key) {
+        Entry<T> entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return copy(entry.value());
+    }
+
+    private synchronized void store(Object key, T entity, long loadGeneration) {
+        long now = System.currentTimeMillis();
+        if (loadGeneration != generation || now - lastInvalidation < replicaLagMillis) return;
+        entries.put(key, new Entry<>(copy(entity), now + ttlMillis));
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Copia superficial de la entidad, para aislar la copia cacheada (ver
+     * {@link EntityMetadata#copy(Object)}).
+     */
+    private T copy(T entity) {
+        return meta.copy(entity);
+    }
+
+    private int property(String key, int defaultValue) {
+        ConfigManager config = ConfigManager.getInstance();
+        return config.getIntProperty(key + "." + table, config.getIntProperty(key, defaultValue));
+    }
+}
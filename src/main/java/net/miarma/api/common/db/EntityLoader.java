@@ -0,0 +1,200 @@
+package net.miarma.api.common.db;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.sqlclient.Pool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cargador de entidades por id que agrupa y deduplica las consultas.
+ * <p>
+ * Las llamadas a {@link #load(Object)} no consultan la base de datos al momento: los ids
+ * pedidos durante la misma vuelta del event loop se acumulan y se resuelven juntos en la
+ * siguiente con una sola consulta {@code IN (...)} (normalmente
+ * {@link DataAccessObject#getByIds(java.util.Collection)}). Cada event loop tiene su propia
+ * tanda, que se consulta y se completa en ese mismo event loop, y cada llamada recibe su
+ * resultado en el contexto desde el que la hizo.
+ * <p>
+ * Dentro de una misma petición (contexto duplicado de Vert.x) cada id se carga una sola
+ * vez. Esta caché se descarta en cuanto la petición escribe en la base de datos (ver
+ * {@link #clearRequestCache()}), para no devolver datos anteriores a su propio cambio.
+ * <p>
+ * Cada llamada recibe su propia copia de la entidad ({@link EntityMetadata#copy(Object)}),
+ * así que puede modificarla sin afectar a las demás. Las lecturas que deben ir al primario
+ * ({@link ReadConsistency#isPrimary()}) no se agrupan: se consultan al momento desde el
+ * contexto de la petición, que es el que lleva esa marca.
+ * <p>
+ * Hay un cargador por pool y tipo de entidad ({@link #of(Pool, Class, Function, Function)}),
+ * compartido por todos los servicios que consultan en ese pool.
+ *
+ * @param <ID> tipo del identificador
+ * @param <T>  tipo de la entidad
+ * @author José Manuel Amador Gallardo
+ */
+public final class EntityLoader<ID, T> {
+
+    private static final String REQUEST_CACHE_KEY = "db.loader.cache";
+
+    private static final Map<LoaderKey, EntityLoader<?, ?>> LOADERS = new ConcurrentHashMap<>();
+
+    private record LoaderKey(Pool pool, Class<?> type) {}
+
+    private final EntityMetadata meta;
+    private final Function<List<ID>, Future<List<T>>> batchLoader;
+    private final Function<T, ID> keyOf;
+
+    /**
+     * Tanda pendiente de cada event loop (contexto no duplicado). Solo se toca desde el hilo
+     * de ese contexto.
+     */
+    private final Map<Context, Map<ID, Promise<T>>> pending = new ConcurrentHashMap<>();
+
+    private EntityLoader(Class<T> type, Function<List<ID>, Future<List<T>>> batchLoader,
+                         Function<T, ID> keyOf) {
+        this.meta = EntityMetadata.of(type);
+        this.batchLoader = batchLoader;
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Devuelve el cargador de ese tipo de entidad en el pool dado, creándolo la primera vez.
+     * Las llamadas siguientes con el mismo pool y tipo reciben el mismo cargador e ignoran
+     * {@code batchLoader} y {@code keyOf}.
+     *
+     * @param pool        pool en el que consulta {@code batchLoader}
+     * @param type        clase de la entidad
+     * @param batchLoader consulta que carga varias entidades por id
+     * @param keyOf       id de una entidad cargada
+     * @return el cargador compartido
+     * @param <ID> tipo del identificador
+     * @param <T>  tipo de la entidad
+     */
+    @SuppressWarnings("unchecked")
+    public static <ID, T> EntityLoader<ID, T> of(Pool pool, Class<T> type,
+                                                  Function<List<ID>, Future<List<T>>> batchLoader,
+                                                  Function<T, ID> keyOf) {
+        return (EntityLoader<ID, T>) LOADERS.computeIfAbsent(new LoaderKey(pool, type),
+                _ -> new EntityLoader<>(type, batchLoader, keyOf));
+    }
+
+    /**
+     * Carga una entidad por su id.
+     *
+     * @param id identificador de la entidad
+     * @return un {@link Future} con una copia de la entidad, o null si no existe
+     */
+    public Future<T> load(ID id) {
+        if (id == null) {
+            return Future.succeededFuture();
+        }
+
+        Map<ID, Future<T>> cache = requestCache();
+        Future<T> future = cache != null ? cache.get(id) : null;
+        if (future == null) {
+            future = ReadConsistency.isPrimary() ? loadNow(id) : enqueue(id);
+            if (cache != null) cache.put(id, future);
+        }
+        return future.map(meta::copy);
+    }
+
+    /**
+     * Carga varias entidades por id en la misma tanda.
+     *
+     * @param ids identificadores de las entidades
+     * @return un {@link Future} con las entidades en el orden de los ids (null para las que no existen)
+     */
+    public Future<List<T>> loadMany(List<ID> ids) {
+        List<Future<T>> futures = new ArrayList<>(ids.size());
+        for (ID id : ids) futures.add(load(id));
+        return Future.all(futures).map(composite -> composite.list());
+    }
+
+    /**
+     * Descarta las entidades cargadas en la petición en curso. {@link DatabaseManager} lo
+     * llama en cada escritura.
+     */
+    public static void clearRequestCache() {
+        Context context = Vertx.currentContext();
+        if (context instanceof ContextInternal internal && internal.isDuplicate()) {
+            context.removeLocal(REQUEST_CACHE_KEY);
+        }
+    }
+
+    private Future<T> enqueue(ID id) {
+        if (!(Vertx.currentContext() instanceof ContextInternal caller)) {
+            // fuera de Vert.x no hay vuelta del event loop que esperar
+            Map<ID, Promise<T>> batch = new LinkedHashMap<>();
+            Promise<T> promise = Promise.promise();
+            batch.put(id, promise);
+            flush(batch);
+            return promise.future();
+        }
+
+        ContextInternal loop = caller.unwrap();
+        Map<ID, Promise<T>> batch = pending.get(loop);
+        if (batch == null) {
+            batch = new LinkedHashMap<>();
+            pending.put(loop, batch);
+            loop.runOnContext(_ -> flush(pending.remove(loop)));
+        }
+
+        Promise<T> shared = batch.computeIfAbsent(id, _ -> loop.promise());
+        Promise<T> result = caller.promise();
+        shared.future().onComplete(result);
+        return result.future();
+    }
+
+    private Future<T> loadNow(ID id) {
+        return batchLoader.apply(List.of(id)).map(entities -> {
+            for (T entity : entities) {
+                if (id.equals(keyOf.apply(entity))) return entity;
+            }
+            return null;
+        });
+    }
+
+    private void flush(Map<ID, Promise<T>> batch) {
+        if (batch == null || batch.isEmpty()) return;
+
+        batchLoader.apply(new ArrayList<>(batch.keySet())).onComplete(ar -> {
+            if (ar.failed()) {
+                batch.values().forEach(promise -> promise.tryFail(ar.cause()));
+                return;
+            }
+
+            Map<ID, T> found = new HashMap<>();
+            for (T entity : ar.result()) {
+                found.putIfAbsent(keyOf.apply(entity), entity);
+            }
+            batch.forEach((id, promise) -> promise.tryComplete(found.get(id)));
+        });
+    }
+
+    /**
+     * Caché de la petición en curso para este cargador, o null fuera de una petición.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<ID, Future<T>> requestCache() {
+        Context context = Vertx.currentContext();
+        if (!(context instanceof ContextInternal internal) || !internal.isDuplicate()) {
+            return null;
+        }
+
+        Map<EntityLoader<?, ?>, Map<Object, Future<?>>> caches = context.getLocal(REQUEST_CACHE_KEY);
+        if (caches == null) {
+            caches = new HashMap<>();
+            context.putLocal(REQUEST_CACHE_KEY, caches);
+        }
+        return (Map<ID, Future<T>>) (Map<?, ?>) caches.computeIfAbsent(this, _ -> new HashMap<>());
+    }
+}
@@ -0,0 +1,305 @@
+package net.miarma.api.common.db;
+
+import net.miarma.api.common.annotations.Table;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metadatos SQL de una entidad, calculados una única vez por clase.
+ * <p>
+ * Guarda el nombre de la tabla (de {@link Table}), las columnas con sus accesores
+ * ({@link MethodHandle}), las columnas identificadoras (terminadas en {@code _id})
+ * y las plantillas fijas de SELECT, INSERT, UPDATE y UPSERT. {@link QueryBuilder}
+ * y {@link RowMapper} parten de aquí en vez de recorrer la clase por reflexión en
+ * cada consulta.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public final class EntityMetadata {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<EntityMetadata> CACHE = new ClassValue<>() {
+        @Override
+        protected EntityMetadata computeValue(Class<?> type) {
+            return new EntityMetadata(type);
+        }
+    };
+
+    /**
+     * Columna de la entidad: un campo de instancia con el mismo nombre que la columna SQL.
+     *
+     * @param name   nombre de la columna (y del campo)
+     * @param type   tipo Java del campo
+     * @param field  campo reflejado, ya accesible
+     * @param getter accesor de lectura, de tipo {@code (Object)Object}
+     * @param setter accesor de escritura, de tipo {@code (Object,Object)void}
+     * @param id     si la columna forma parte de la clave (termina en {@code _id})
+     */
+    public record Column(String name, Class<?> type, Field field, MethodHandle getter, MethodHandle setter,
+                         boolean id) {
+
+        /**
+         * Lee el valor de esta columna en la entidad dada.
+         */
+        public Object get(Object entity) {
+            try {
+                return getter.invoke(entity);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Error reading field " + name, e);
+            }
+        }
+
+        /**
+         * Asigna el valor de esta columna en la entidad dada.
+         */
+        public void set(Object entity, Object value) {
+            try {
+                setter.invoke(entity, value);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Error writing field " + name, e);
+            }
+        }
+    }
+
+    private final Class<?> type;
+    private final String table;
+    private final List<Column> columns;
+    private final Map<String, Column> columnsByName;
+    private final List<Column> idColumns;
+    private final Column primaryKey;
+    private final MethodHandle constructor;
+    private final String selectAll;
+    private final String insert;
+    private final String updateWithNulls;
+    private final Map<String, String> upserts = new ConcurrentHashMap<>();
+
+    private EntityMetadata(Class<?> type) {
+        this.type = type;
+        Table annotation = type.getAnnotation(Table.class);
+        this.table = annotation != null ? annotation.value() : null;
+
+        List<Column> all = new ArrayList<>();
+        List<Column> ids = new ArrayList<>();
+        Map<String, Column> byName = new HashMap<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            Column column = toColumn(field);
+            all.add(column);
+            byName.put(column.name(), column);
+            if (column.id()) ids.add(column);
+        }
+        this.columns = Collections.unmodifiableList(all);
+        this.columnsByName = Collections.unmodifiableMap(byName);
+        this.idColumns = Collections.unmodifiableList(ids);
+        this.primaryKey = byName.containsKey("id") ? byName.get("id") : (ids.isEmpty() ? null : ids.getFirst());
+        this.constructor = findConstructor(type);
+
+        if (table != null) {
+            this.selectAll = "SELECT * FROM " + table + " ";
+
+            StringJoiner names = new StringJoiner(", ");
+            StringJoiner marks = new StringJoiner(", ");
+            for (Column column : all) {
+                names.add(column.name());
+                marks.add("?");
+            }
+            this.insert = "INSERT INTO " + table + " (" + names + ") VALUES (" + marks + ") ";
+
+            if (ids.isEmpty()) {
+                this.updateWithNulls = null;
+            } else {
+                StringJoiner set = new StringJoiner(", ");
+                StringJoiner where = new StringJoiner(" AND ");
+                for (Column column : all) {
+                    if (column.id()) where.add(column.name() + " = ?");
+                    else set.add(column.name() + " = ?");
+                }
+                this.updateWithNulls = "UPDATE " + table + " SET " + set + " WHERE " + where;
+            }
+        } else {
+            this.selectAll = null;
+            this.insert = null;
+            this.updateWithNulls = null;
+        }
+    }
+
+    /**
+     * Devuelve los metadatos de la clase dada, calculándolos la primera vez.
+     *
+     * @param type clase de la entidad
+     * @return los metadatos compartidos de esa clase
+     */
+    public static EntityMetadata of(Class<?> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Class cannot be null");
+        }
+        return CACHE.get(type);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Nombre de la tabla o vista, tomado de {@link Table}.
+     *
+     * @throws IllegalArgumentException si la clase no tiene la anotación
+     */
+    public String getTable() {
+        if (table == null) {
+            throw new IllegalArgumentException("Class does not have @Table annotation");
+        }
+        return table;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public Column getColumn(String name) {
+        return columnsByName.get(name);
+    }
+
+    /**
+     * Indica si la entidad tiene una columna con ese nombre. Es la validación que
+     * se aplica a los campos de filtros y ordenación.
+     */
+    public boolean hasColumn(String name) {
+        return columnsByName.containsKey(name);
+    }
+
+    /**
+     * Copia superficial de las columnas de la entidad. Sus valores (textos, números, fechas
+     * y enums) son inmutables, así que basta para que la copia pueda modificarse sin afectar
+     * al original. Si la clase no tiene constructor sin argumentos devuelve la misma instancia.
+     *
+     * @param entity entidad de esta clase
+     * @return una instancia nueva con los mismos valores
+     */
+    public <T> T copy(T entity) {
+        if (constructor == null || entity == null) return entity;
+        try {
+            Object copy = constructor.invoke();
+            for (Column column : columns) {
+                column.set(copy, column.get(entity));
+            }
+            @SuppressWarnings("unchecked")
+            T result = (T) copy;
+            return result;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Error copying " + type.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Columnas terminadas en {@code _id}, en orden de declaración. Son las que
+     * {@link QueryBuilder#update(Object)} usa para el WHERE.
+     */
+    public List<Column> getIdColumns() {
+        return idColumns;
+    }
+
+    /**
+     * Columna que identifica a cada fila: {@code id} si existe o, si no, la primera
+     * columna terminada en {@code _id}. Puede ser null.
+     */
+    public Column getPrimaryKey() {
+        return primaryKey;
+    }
+
+    /**
+     * {@code SELECT * FROM tabla }
+     */
+    public String getSelectAll() {
+        getTable();
+        return selectAll;
+    }
+
+    /**
+     * {@code INSERT INTO tabla (c1, c2, ...) VALUES (?, ?, ...) }, con un placeholder
+     * por columna en el orden de {@link #getColumns()}.
+     */
+    public String getInsert() {
+        getTable();
+        return insert;
+    }
+
+    /**
+     * {@code UPDATE tabla SET c = ?, ... WHERE x_id = ? AND ...}: primero los
+     * placeholders de las columnas normales y después los de las identificadoras.
+     *
+     * @throws IllegalArgumentException si la entidad no tiene columnas terminadas en {@code _id}
+     */
+    public String getUpdateWithNulls() {
+        getTable();
+        if (updateWithNulls == null) {
+            throw new IllegalArgumentException("No ID field (ending with _id) found for WHERE clause");
+        }
+        return updateWithNulls;
+    }
+
+    /**
+     * {@code INSERT ... ON DUPLICATE KEY UPDATE} para las claves de conflicto dadas.
+     * Se cachea una plantilla por combinación de claves.
+     */
+    public String getUpsert(String... conflictKeys) {
+        String insertPart = getInsert().trim();
+        if (conflictKeys.length == 0) {
+            return insertPart;
+        }
+        return upserts.computeIfAbsent(String.join(",", conflictKeys), _ -> {
+            StringJoiner updateSet = new StringJoiner(", ");
+            for (Column column : columns) {
+                boolean isConflictKey = false;
+                for (String key : conflictKeys) {
+                    if (key.equals(column.name())) {
+                        isConflictKey = true;
+                        break;
+                    }
+                }
+                // VALUES(col) reutiliza el valor ya enlazado en el INSERT
+                if (!isConflictKey) updateSet.add(column.name() + " = VALUES(" + column.name() + ")");
+            }
+            return updateSet.length() == 0
+                    ? insertPart
+                    : insertPart + " ON DUPLICATE KEY UPDATE " + updateSet;
+        });
+    }
+
+    private static MethodHandle findConstructor(Class<?> type) {
+        try {
+            Constructor<?> ctor = type.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Column toColumn(Field field) {
+        try {
+            field.setAccessible(true);
+            MethodHandle getter = LOOKUP.unreflectGetter(field)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            MethodHandle setter = LOOKUP.unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return new Column(field.getName(), field.getType(), field, getter, setter,
+                    field.getName().endsWith("_id"));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access field " + field.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package net.miarma.api.common.db;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowStream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Flujo de entidades leído fila a fila de un cursor de la base de datos.
+ * <p>
+ * Envuelve un {@link RowStream} y convierte cada fila con {@link RowMapper}. El
+ * servidor entrega las filas por bloques de {@code db.stream.fetchSize}, y
+ * {@link #pause()} / {@link #resume()} dejan de pedir bloques mientras el consumidor
+ * no puede seguir, así que la memoria usada no depende del tamaño del resultado.
+ * <p>
+ * La conexión que sostiene el cursor se libera al terminar, al fallar o al llamar a
+ * {@link #close()}; quien consuma el flujo debe cerrarlo si lo abandona antes del final.
+ * <p>
+ * Las páginas pedidas con {@code _before} se leen en orden inverso: en ese caso las filas
+ * (como mucho una página) se acumulan y se entregan al revés al llegar al final.
+ * <p>
+ * Cuando no queda hueco para otro cursor, {@link DatabaseManager#stream} lee la página de una
+ * vez y la entrega con un flujo en memoria ({@link #of(List)}), que se consume igual.
+ *
+ * @param <T> tipo de la entidad
+ * @author José Manuel Amador Gallardo
+ */
+public class EntityStream<T> implements ReadStream<T> {
+
+    private final RowStream<Row> rows;
+    private final Function<Row, T> mapper;
+    private final boolean reversed;
+    private final Handler<Throwable> onClose;
+    private final List<T> buffer;
+
+    private Handler<T> handler;
+    private Handler<Void> endHandler;
+    private Handler<Throwable> exceptionHandler;
+    private boolean closed;
+
+    /**
+     * Solo en los flujos en memoria: siguiente entidad a entregar, entidades pedidas
+     * ({@link Long#MAX_VALUE} si no está pausado) y si se están entregando ahora.
+     */
+    private int next;
+    private long demand = Long.MAX_VALUE;
+    private boolean emitting;
+
+    /**
+     * @param rows     cursor abierto sobre la consulta
+     * @param mapper   conversor de filas a entidades
+     * @param reversed si las filas llegan en orden inverso al pedido
+     * @param onClose  se llama una vez al liberar el cursor, con la causa si terminó por error
+     */
+    EntityStream(RowStream<Row> rows, Function<Row, T> mapper, boolean reversed, Handler<Throwable> onClose) {
+        this.rows = rows;
+        this.mapper = mapper;
+        this.reversed = reversed;
+        this.onClose = onClose;
+        this.buffer = new ArrayList<>();
+
+        rows.endHandler(_ -> {
+            if (reversed && handler != null) {
+                for (int i = buffer.size() - 1; i >= 0; i--) {
+                    handler.handle(buffer.get(i));
+                }
+                buffer.clear();
+            }
+            release(null);
+            if (endHandler != null) endHandler.handle(null);
+        });
+        rows.exceptionHandler(err -> {
+            release(err);
+            if (exceptionHandler != null) exceptionHandler.handle(err);
+        });
+    }
+
+    private EntityStream(List<T> items) {
+        this.rows = null;
+        this.mapper = null;
+        this.reversed = false;
+        this.onClose = _ -> {};
+        this.buffer = items;
+    }
+
+    /**
+     * Flujo en memoria sobre entidades ya leídas, con la misma interfaz que el de un cursor.
+     *
+     * @param items entidades a entregar, en orden
+     * @return el flujo
+     * @param <T> tipo de la entidad
+     */
+    static <T> EntityStream<T> of(List<T> items) {
+        return new EntityStream<>(items);
+    }
+
+    @Override
+    public EntityStream<T> exceptionHandler(Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+    /**
+     * Establece el consumidor de entidades. La lectura del cursor empieza al establecerlo.
+     */
+    @Override
+    public EntityStream<T> handler(Handler<T> handler) {
+        this.handler = handler;
+        if (rows == null) {
+            emit();
+        } else if (handler == null) {
+            rows.handler(null);
+        } else {
+            rows.handler(row -> {
+                T entity = mapper.apply(row);
+                if (reversed) buffer.add(entity);
+                else this.handler.handle(entity);
+            });
+        }
+        return this;
+    }
+
+    @Override
+    public EntityStream<T> pause() {
+        if (rows == null) demand = 0;
+        else rows.pause();
+        return this;
+    }
+
+    @Override
+    public EntityStream<T> resume() {
+        if (rows == null) {
+            demand = Long.MAX_VALUE;
+            emit();
+        } else {
+            rows.resume();
+        }
+        return this;
+    }
+
+    @Override
+    public EntityStream<T> fetch(long amount) {
+        if (rows == null) {
+            demand = demand > Long.MAX_VALUE - amount ? Long.MAX_VALUE : demand + amount;
+            emit();
+        } else {
+            rows.fetch(amount);
+        }
+        return this;
+    }
+
+    @Override
+    public EntityStream<T> endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+
+    /**
+     * Cierra el cursor antes de llegar al final y libera la conexión.
+     *
+     * @return un {@link Future} que se completa al cerrar el cursor
+     */
+    public Future<Void> close() {
+        if (closed || rows == null) {
+            release(null);
+            return Future.succeededFuture();
+        }
+        return rows.close().onComplete(_ -> release(null));
+    }
+
+    /**
+     * Entrega las entidades del flujo en memoria mientras haya demanda y, al acabar,
+     * avisa del final.
+     */
+    private void emit() {
+        if (emitting || closed || handler == null) return;
+        emitting = true;
+        try {
+            while (!closed && demand > 0 && next < buffer.size() && handler != null) {
+                if (demand != Long.MAX_VALUE) demand--;
+                handler.handle(buffer.get(next++));
+            }
+        } finally {
+            emitting = false;
+        }
+        if (next == buffer.size() && !closed) {
+            release(null);
+            if (endHandler != null) endHandler.handle(null);
+        }
+    }
+
+    private void release(Throwable cause) {
+        if (closed) return;
+        closed = true;
+        onClose.handle(cause);
+    }
+}
@@ -0,0 +1,208 @@
+package net.miarma.api.common.db;
+
+import io.vertx.core.json.JsonArray;
+import net.miarma.api.common.ConfigManager;
+import net.miarma.api.common.ValuableEnum;
+import net.miarma.api.common.db.EntityMetadata.Column;
+import net.miarma.api.common.exceptions.BadRequestException;
+import net.miarma.api.common.http.QueryFilters;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Paginación por cursor (keyset) y límites de tamaño de página.
+ * <p>
+ * Un cursor identifica una fila por el valor de la columna de ordenación y el de la
+ * clave primaria de la entidad ({@link EntityMetadata#getPrimaryKey()}), que desempata
+ * las filas con el mismo valor. {@link QueryBuilder#page(QueryFilters)} lo convierte en
+ * una condición {@code WHERE (orden, clave) > (?, ?)}, de modo que pasar de página cuesta
+ * lo mismo sea cual sea la profundidad, al contrario que con OFFSET.
+ * <p>
+ * Para el cliente el cursor es opaco: un JSON {@code [columna, valor, clave]} en base64.
+ * Si no es válido o no corresponde a la ordenación actual la consulta se rechaza con un {@code 400}.
+ * <p>
+ * El tamaño de página se configura con {@code db.page.defaultSize} y {@code db.page.maxSize},
+ * ambos con valor específico por tabla con el sufijo {@code .<tabla>}
+ * (por ejemplo {@code db.page.maxSize.huertos_incomes}).
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public final class Pagination {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String PREV_CURSOR_HEADER = "X-Prev-Cursor";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private Pagination() {}
+
+    /**
+     * Posición decodificada de un cursor.
+     *
+     * @param value valor de la columna de ordenación (puede ser null)
+     * @param key   valor de la clave primaria
+     */
+    public record Cursor(Object value, Object key) {}
+
+    /**
+     * Cursores de una página ya leída; cada uno es null si no hay página en esa dirección.
+     *
+     * @param next cursor para pedir la página siguiente con {@code _after}
+     * @param prev cursor para pedir la página anterior con {@code _before}
+     */
+    public record PageCursors(String next, String prev) {}
+
+    /**
+     * Tamaño de página efectivo. Para filtros no paginados (uso interno) es el {@code _limit}
+     * pedido, o null si no hay; para los que vienen de HTTP se aplica el tamaño por defecto
+     * si no se pidió ninguno y nunca se supera el máximo.
+     *
+     * @param meta    metadatos de la entidad consultada
+     * @param filters filtros de la petición
+     * @return número de filas de la página, o null si no hay límite
+     */
+    public static Integer pageSize(EntityMetadata meta, QueryFilters filters) {
+        Integer requested = filters.getLimit().filter(l -> l > 0).orElse(null);
+        if (!filters.isPaged()) {
+            return requested;
+        }
+
+        int defaultSize = property("db.page.defaultSize", meta, 500);
+        int maxSize = property("db.page.maxSize", meta, 1000);
+        int size = requested != null ? requested : defaultSize;
+        return maxSize > 0 ? Math.min(size, maxSize) : size;
+    }
+
+    /**
+     * Columna por la que se ordena: la pedida en {@code _sort} si existe en la entidad o,
+     * si no, la clave primaria.
+     */
+    static Column sortColumn(EntityMetadata meta, QueryFilters filters) {
+        return filters.getSort()
+                .map(meta::getColumn)
+                .orElse(meta.getPrimaryKey());
+    }
+
+    /**
+     * Calcula los cursores de una página devuelta por una consulta construida con
+     * {@link QueryBuilder#page(QueryFilters)} usando los mismos filtros.
+     * <p>
+     * Hay página siguiente si la actual está completa (o si se llegó con {@code _before});
+     * hay anterior si se llegó con {@code _after} u {@code _offset}, o con {@code _before}
+     * y la página está completa.
+     *
+     * @param page    filas devueltas, en el orden en que se entregan
+     * @param type    clase de la entidad
+     * @param filters filtros con los que se hizo la consulta
+     * @return los cursores de la página
+     * @param <T> tipo de la entidad
+     */
+    public static <T> PageCursors cursors(List<T> page, Class<T> type, QueryFilters filters) {
+        if (page == null || page.isEmpty()) {
+            return new PageCursors(null, null);
+        }
+        return cursors(page.getFirst(), page.getLast(), page.size(), type, filters);
+    }
+
+    /**
+     * Igual que {@link #cursors(List, Class, QueryFilters)} para una página que no se ha
+     * guardado entera (por ejemplo al enviarla en streaming): basta con la primera fila,
+     * la última y cuántas hubo.
+     *
+     * @param first   primera fila entregada
+     * @param last    última fila entregada
+     * @param count   número de filas entregadas
+     * @param type    clase de la entidad
+     * @param filters filtros con los que se hizo la consulta
+     * @return los cursores de la página
+     * @param <T> tipo de la entidad
+     */
+    public static <T> PageCursors cursors(T first, T last, int count, Class<T> type, QueryFilters filters) {
+        EntityMetadata meta = EntityMetadata.of(type);
+        Column key = meta.getPrimaryKey();
+        Integer size = pageSize(meta, filters);
+        if (key == null || size == null || count == 0) {
+            return new PageCursors(null, null);
+        }
+
+        Column sort = sortColumn(meta, filters);
+        boolean full = count >= size;
+        boolean backwards = filters.getAfter().isEmpty() && filters.getBefore().isPresent();
+        boolean hasNext = backwards || full;
+        boolean hasPrev = backwards ? full : filters.getAfter().isPresent() || filters.getOffset().orElse(0) > 0;
+
+        return new PageCursors(
+                hasNext ? encode(sort, key, last) : null,
+                hasPrev ? encode(sort, key, first) : null
+        );
+    }
+
+    /**
+     * Codifica la posición de una fila como cursor.
+     */
+    static String encode(Column sort, Column key, Object entity) {
+        JsonArray json = new JsonArray()
+                .add(sort.name())
+                .add(toJson(sort.get(entity)))
+                .add(toJson(key.get(entity)));
+        return ENCODER.encodeToString(json.encode().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor para la ordenación dada.
+     *
+     * @return la posición
+     * @throws BadRequestException si el cursor no es válido o es de otra ordenación
+     */
+    static Cursor decode(String token, Column sort, Column key) {
+        JsonArray json;
+        try {
+            json = new JsonArray(new String(DECODER.decode(token), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+        if (json.size() != 3 || !sort.name().equals(json.getValue(0)) || json.getValue(2) == null) {
+            throw new BadRequestException("Cursor does not match sort " + sort.name() + ": " + token);
+        }
+        try {
+            return new Cursor(fromJson(json.getValue(1), sort.type()), fromJson(json.getValue(2), key.type()));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+    }
+
+    private static Object toJson(Object value) {
+        return switch (value) {
+            case null -> null;
+            case ValuableEnum ve -> ve.getValue();
+            case Enum<?> e -> e.name();
+            case BigDecimal decimal -> decimal.toPlainString();
+            case LocalDateTime dateTime -> dateTime.toString();
+            case Number number -> number;
+            case Boolean bool -> bool;
+            default -> value.toString();
+        };
+    }
+
+    private static Object fromJson(Object value, Class<?> type) {
+        if (value == null) return null;
+        if (type == Integer.class || type == int.class) return ((Number) value).intValue();
+        if (type == Long.class || type == long.class) return ((Number) value).longValue();
+        if (type == Double.class || type == double.class) return ((Number) value).doubleValue();
+        if (type == BigDecimal.class) return new BigDecimal(value.toString());
+        if (type == LocalDateTime.class) return LocalDateTime.parse(value.toString());
+        if (type == Boolean.class || type == boolean.class) return value;
+        // enums: se enlazan tal cual, como entero (ValuableEnum) o como nombre
+        return value;
+    }
+
+    private static int property(String key, EntityMetadata meta, int defaultValue) {
+        ConfigManager config = ConfigManager.getInstance();
+        return config.getIntProperty(key + "." + meta.getTable(), config.getIntProperty(key, defaultValue));
+    }
+}
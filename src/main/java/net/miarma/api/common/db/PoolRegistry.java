@@ -0,0 +1,156 @@
+package net.miarma.api.common.db;
+
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PoolOptions;
+import net.miarma.api.common.ConfigManager;
+import net.miarma.api.common.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de pools de conexiones con nombre.
+ * <p>
+ * Los verticles piden su pool con {@link #get(Vertx, String)} indicando el servicio
+ * al que pertenecen. Según {@code db.pool.scope} se devuelve:
+ * <ul>
+ *     <li><b>shared</b> (por defecto) – un único pool para toda la base de datos,
+ *     compartido por todos los verticles</li>
+ *     <li><b>service</b> – un pool por servicio (core, huertos, cine, mmc), compartido
+ *     entre su verticle de datos y el de lógica</li>
+ * </ul>
+ * El tamaño y demás límites se leen de la configuración (ver
+ * {@link DatabaseProvider#poolOptions(ConfigManager, String)}).
+ * <p>
+ * Si {@code db.replicas} lista réplicas de lectura ({@code host[:puerto]} separados por
+ * comas), cada pool lleva además un pool por réplica con las mismas opciones, que
+ * {@link DatabaseManager} usa para las consultas de solo lectura (ver {@link #replicasOf(Pool)}).
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public class PoolRegistry {
+
+    public static final String SHARED_POOL = "shared";
+
+    private record Entry(Pool pool, PoolOptions options, List<Pool> replicas) {}
+
+    private static final Map<String, Entry> POOLS = new ConcurrentHashMap<>();
+
+    private PoolRegistry() {}
+
+    /**
+     * Devuelve el pool que corresponde al servicio dado, creándolo la primera vez.
+     *
+     * @param vertx   instancia de Vert.x
+     * @param service nombre del servicio que lo pide
+     * @return el pool compartido
+     */
+    public static Pool get(Vertx vertx, String service) {
+        ConfigManager config = ConfigManager.getInstance();
+        String name = "service".equalsIgnoreCase(config.getStringProperty("db.pool.scope")) ? service : SHARED_POOL;
+
+        return POOLS.computeIfAbsent(name, n -> {
+            PoolOptions options = DatabaseProvider.poolOptions(config, n);
+            Constants.LOGGER.info("Creating DB pool '{}' (maxSize={}, maxWaitQueueSize={}, idleTimeout={}s)",
+                    n, options.getMaxSize(), options.getMaxWaitQueueSize(), options.getIdleTimeout());
+            return new Entry(DatabaseProvider.createPool(vertx, config, options), options, createReplicas(vertx, config, n));
+        }).pool();
+    }
+
+    /**
+     * Devuelve los pools de réplica asociados a un pool del registro.
+     *
+     * @param pool pool primario
+     * @return sus réplicas, o una lista vacía si no hay ninguna configurada
+     */
+    public static List<Pool> replicasOf(Pool pool) {
+        return POOLS.values().stream()
+                .filter(entry -> entry.pool() == pool)
+                .findFirst()
+                .map(Entry::replicas)
+                .orElse(List.of());
+    }
+
+    /**
+     * Nombre con el que se registró un pool, o {@code "unregistered"} si no es del registro.
+     */
+    static String nameOf(Pool pool) {
+        return POOLS.entrySet().stream()
+                .filter(entry -> entry.getValue().pool() == pool)
+                .findFirst()
+                .map(Map.Entry::getKey)
+                .orElse("unregistered");
+    }
+
+    private static List<Pool> createReplicas(Vertx vertx, ConfigManager config, String name) {
+        String hosts = config.getStringProperty("db.replicas");
+        if (hosts == null || hosts.isBlank()) {
+            return List.of();
+        }
+
+        List<Pool> replicas = new ArrayList<>();
+        for (String host : hosts.split(",")) {
+            host = host.trim();
+            if (host.isEmpty()) continue;
+
+            int separator = host.lastIndexOf(':');
+            String address = separator > 0 ? host.substring(0, separator) : host;
+            int port = separator > 0 ? Integer.parseInt(host.substring(separator + 1)) : config.getIntProperty("db.port");
+
+            PoolOptions options = DatabaseProvider.poolOptions(config, name).setName(name + "-replica-" + replicas.size());
+            Constants.LOGGER.info("Creating DB replica pool '{}' on {}:{}", options.getName(), address, port);
+            replicas.add(DatabaseProvider.createPool(vertx, config, options, address, port));
+        }
+        return List.copyOf(replicas);
+    }
+
+    /**
+     * Estadísticas en vivo de todos los pools registrados.
+     *
+     * @return una entrada por pool
+     */
+    public static List<PoolStats> getStats() {
+        List<PoolStats> stats = new ArrayList<>();
+        POOLS.forEach((name, entry) -> {
+            DatabaseManager db = DatabaseManager.getInstance(entry.pool());
+            stats.add(new PoolStats(
+                    name,
+                    entry.options().getMaxSize(),
+                    entry.options().getMaxWaitQueueSize(),
+                    entry.pool().size(),
+                    db.getInFlight(),
+                    db.getExecuted(),
+                    db.getFailed(),
+                    entry.replicas().size(),
+                    db.getReplicaReads(),
+                    db.getBreaker().getState().name(),
+                    db.getBreaker().getTrips(),
+                    db.getBreaker().getRejected()
+            ));
+        });
+        return stats;
+    }
+
+    /**
+     * Fotografía del estado de un pool.
+     *
+     * @param name             nombre del pool
+     * @param maxSize          conexiones máximas
+     * @param maxWaitQueueSize peticiones en cola permitidas (-1 sin límite)
+     * @param size             conexiones abiertas ahora mismo
+     * @param inFlight         consultas en curso (en ejecución o esperando conexión)
+     * @param executed         consultas ejecutadas desde el arranque
+     * @param failed           consultas fallidas desde el arranque
+     * @param replicas         réplicas de lectura asociadas
+     * @param replicaReads     consultas enviadas a una réplica desde el arranque
+     * @param breaker          estado del {@link CircuitBreaker} del pool
+     * @param breakerTrips     veces que se ha abierto el circuito desde el arranque
+     * @param breakerRejected  consultas rechazadas con el circuito abierto desde el arranque
+     */
+    public record PoolStats(String name, int maxSize, int maxWaitQueueSize, int size, int inFlight,
+                            long executed, long failed, int replicas, long replicaReads,
+                            String breaker, long breakerTrips, long breakerRejected) {}
+}
@@ -1,49 +1,86 @@
 package net.miarma.api.common.db;
 
+import io.vertx.sqlclient.Tuple;
 import net.miarma.api.common.Constants;
+import net.miarma.api.common.ValuableEnum;
+import net.miarma.api.common.ValuableEnumRegistry;
 import net.miarma.api.common.annotations.Table;
+import net.miarma.api.common.db.EntityMetadata.Column;
+import net.miarma.api.common.exceptions.BadRequestException;
+import net.miarma.api.common.http.QueryFilters;
 
-import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
- * Clase utilitaria para construir queries SQL dinámicamente mediante reflexión,
- * usando entidades anotadas con {@link Table}.
+ * Clase utilitaria para construir queries SQL dinámicamente a partir de entidades
+ * anotadas con {@link Table}.
  * <p>
- * Soporta operaciones SELECT, INSERT, UPDATE (con y sin valores nulos), y UPSERT.
- * También permite aplicar filtros desde un mapa o directamente desde un objeto.
+ * La información de cada clase (tabla, columnas, claves y plantillas fijas) se
+ * calcula una sola vez en {@link EntityMetadata}; aquí solo se añaden las partes
+ * variables de cada consulta.
+ * <p>
+ * Soporta operaciones SELECT, INSERT, UPDATE (con y sin valores nulos), y UPSERT,
+ * además de COUNT y EXISTS para contar o comprobar filas sin traerlas, y UPDATE y DELETE
+ * de todas las filas que cumplan unos filtros en una sola sentencia.
+ * También permite aplicar filtros desde un mapa o directamente desde un objeto; los del mapa
+ * admiten operadores como {@code amount[gte]} o {@code type[ne]} (ver {@link #where(Map)}).
+ * <p>
+ * Los valores nunca se concatenan en el SQL: cada uno se sustituye por un
+ * placeholder {@code ?} y se acumula en orden para enlazarlo después con
+ * {@link #getParams()}. Así la plantilla es estable entre ejecuciones y el pool
+ * puede reutilizar la sentencia preparada.
+ * <p>
+ * Los listados se paginan con {@link #page(QueryFilters)}, que admite tanto
+ * {@code _limit}/{@code _offset} como cursores {@code _after}/{@code _before}
+ * (ver {@link Pagination}).
+ * <p>
+ * Las consultas pueden leer solo algunas columnas ({@link #select(Class, String...)} o
+ * {@code _fields} con {@link #select(Class, QueryFilters, String...)}). Las entidades
+ * resultantes recuerdan qué columnas se pidieron y solo esas se devuelven en JSON.
+ * <p>
+ * Las escrituras construidas a partir de una entidad recuerdan su tipo, la clave de la fila
+ * y las columnas que escriben, para el aviso que publica {@link ChangeEvents}.
  * <p>
  * ¡Ojo! No ejecuta la query, solo la construye.
  *
  * @author José Manuel Amador Gallardo
  */
 public class QueryBuilder {
+    private static final Pattern FILTER_OPERATOR = Pattern.compile("^(\\w+)\\[(\\w+)]$");
+    private static final Pattern DATE_ONLY = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$");
+    private static final Pattern INTEGER = Pattern.compile("^-?(0|[1-9]\\d{0,8})$");
+
     private final StringBuilder query;
+    private final List<Object> params;
     private String sort;
-    private String order;
-    private String limit;
-    private Class<?> entityClass;
+    private Integer limit;
+    private Integer offset;
+    private boolean hasWhere;
+    private boolean reversed;
+    private boolean read;
+    private boolean forUpdate;
+    private Set<String> projection;
+    private EntityMetadata meta;
+    private ChangeEvents.Operation operation;
+    private Map<String, Object> key;
+    private List<String> changedColumns;
+    private Map<String, String> filters;
+    private BadRequestException error;
 
     public QueryBuilder() {
         this.query = new StringBuilder();
+        this.params = new ArrayList<>();
     }
 
-    /**
-     * Obtiene el nombre de la tabla desde la anotación @Table de la clase dada.
-     */
-    private static <T> String getTableName(Class<T> clazz) {
-        if (clazz == null) {
-            throw new IllegalArgumentException("Class cannot be null");
-        }
-
-        if (clazz.isAnnotationPresent(Table.class)) {
-            Table annotation = clazz.getAnnotation(Table.class);
-            return annotation.value();
-        }
-        throw new IllegalArgumentException("Class does not have @Table annotation");
+    private QueryBuilder(EntityMetadata meta) {
+        this();
+        this.meta = meta;
     }
 
     /**
@@ -53,76 +90,242 @@ public class QueryBuilder {
         return query.toString();
     }
 
+    /**
+     * Devuelve los valores a enlazar con los placeholders de la consulta, en el
+     * mismo orden en el que aparecen en el SQL generado por {@link #build()}.
+     *
+     * @return una {@link Tuple} con los parámetros de la consulta
+     */
+    public Tuple getParams() {
+        return Tuple.from(params);
+    }
+
+    /**
+     * Indica si las filas vuelven en orden inverso al pedido y hay que darles la vuelta
+     * tras leerlas. Ocurre al paginar hacia atrás con {@code _before}.
+     */
+    public boolean isReversed() {
+        return reversed;
+    }
+
+    /**
+     * Indica si es una consulta de solo lectura (creada con {@link #select(Class, String...)}),
+     * que {@link DatabaseManager} puede enviar a una réplica.
+     */
+    public boolean isRead() {
+        return read;
+    }
+
+    /**
+     * Columnas que se pidieron expresamente, o null si se leen todas. Las entidades
+     * leídas con esta consulta solo devuelven estas columnas en JSON.
+     */
+    public Set<String> getProjection() {
+        return projection;
+    }
+
+    /**
+     * Tabla sobre la que opera la consulta, o null si no se construyó a partir de una entidad.
+     */
+    public String getTable() {
+        return meta != null ? meta.getTable() : null;
+    }
+
+    /**
+     * Tipo de escritura, o null si la consulta no es una escritura construida a partir de una entidad.
+     */
+    public ChangeEvents.Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Columnas de clave (terminadas en {@code _id}) de la fila escrita y sus valores.
+     */
+    public Map<String, Object> getKey() {
+        return key != null ? key : Map.of();
+    }
+
+    /**
+     * Filtros de las escrituras de varias filas ({@link #updateWhere(Class, Map, Map)} y
+     * {@link #deleteWhere(Class, Map)}), o null en las de una sola fila.
+     */
+    public Map<String, String> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Columnas que escribe la consulta; vacío en los DELETE.
+     */
+    public List<String> getChangedColumns() {
+        return changedColumns != null ? changedColumns : List.of();
+    }
+
+    /**
+     * Primer error encontrado al construir la consulta (un filtro inválido en {@link #where(Map)}
+     * o un cambio inválido en {@link #updateWhere(Class, Map, Map)}), o null si no hubo ninguno.
+     * Una consulta con error no debe ejecutarse.
+     */
+    public BadRequestException getError() {
+        return error;
+    }
+
+    EntityMetadata getMetadata() {
+        return meta;
+    }
+
     /**
      * Extrae el valor de un campo, manejando enums y tipos especiales.
-     * Si es un Enum y tiene getValue(), lo usa; si no, devuelve el name().
-     * Si es un LocalDateTime, lo convierte a String en formato SQL.
+     * Si es un {@link ValuableEnum} usa su valor entero; si es otro Enum, devuelve el name().
+     * Los LocalDateTime se devuelven tal cual: el driver los envía como DATETIME.
      */
     private static Object extractValue(Object fieldValue) {
-        if (fieldValue instanceof Enum<?>) {
-            try {
-                var method = fieldValue.getClass().getMethod("getValue");
-                return method.invoke(fieldValue);
-            } catch (Exception e) {
-                return ((Enum<?>) fieldValue).name();
-            }
+        if (fieldValue instanceof ValuableEnum ve) {
+            return ve.getValue();
         }
 
-        if (fieldValue instanceof LocalDateTime ldt) {
-            return ldt.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        if (fieldValue instanceof Enum<?> e) {
+            return e.name();
         }
 
         return fieldValue;
     }
 
     /**
-     * Escapa los caracteres especiales en una cadena para evitar inyecciones SQL.
-     * @param value the string value to escape
-     * @return the escaped string
+     * Añade un valor a la lista de parámetros y devuelve su placeholder.
      */
-    private static String escapeSql(String value) {
-        return value.replace("'", "''");
+    private String bind(Object value) {
+        params.add(extractValue(value));
+        return "?";
     }
 
     /**
-     * Construye una consulta SELECT para la clase dada, con columnas opcionales.
+     * Construye una consulta SELECT para la clase dada, con columnas opcionales. Los nombres
+     * que no son columnas de la entidad se ignoran, como en {@link #select(Class, QueryFilters, String...)},
+     * para que nunca se concatene en el SQL algo que no sea una columna conocida.
      * @param clazz the entity class to query
-     * @param columns optional columns to select; if empty, selects all columns
+     * @param columns optional columns to select; if empty (or none is valid), selects all columns
      * @return the current QueryBuilder instance
      * @param <T> the type of the entity class
      */
     public static <T> QueryBuilder select(Class<T> clazz, String... columns) {
-        if (clazz == null) {
-            throw new IllegalArgumentException("Class cannot be null");
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(clazz));
+        qb.read = true;
+
+        Set<String> projection = new LinkedHashSet<>();
+        for (String column : columns) {
+            if (column == null) continue;
+            if (qb.meta.hasColumn(column)) {
+                projection.add(column);
+            } else {
+                Constants.LOGGER.warn("[QueryBuilder] Ignorando campo invalido en SELECT: {}", column);
+            }
+        }
+        if (projection.isEmpty()) {
+            qb.query.append(qb.meta.getSelectAll());
+            return qb;
         }
 
-        QueryBuilder qb = new QueryBuilder();
-        qb.entityClass = clazz;
-        String tableName = getTableName(clazz);
-
-        qb.query.append("SELECT ");
+        qb.query.append("SELECT ").append(String.join(", ", projection))
+                .append(" FROM ").append(qb.meta.getTable()).append(" ");
+        qb.projection = Collections.unmodifiableSet(projection);
+        return qb;
+    }
 
-        if (columns.length == 0) {
-            qb.query.append("* ");
-        } else {
-            StringJoiner joiner = new StringJoiner(", ");
-            for (String column : columns) {
-                if (column != null) {
-                    joiner.add(column);
-                }
+    /**
+     * Construye una consulta SELECT con las columnas pedidas en {@code _fields}, o con
+     * todas si no se pidió ninguna. Los nombres que no son columnas de la entidad se ignoran.
+     * <p>
+     * Además de las pedidas se leen las indicadas en {@code required} (las que el servicio
+     * necesita para su propia lógica) y la clave primaria y la columna de ordenación, que
+     * hacen falta para los cursores de {@link #page(QueryFilters)}. Estas columnas extra no
+     * se devuelven en JSON.
+     *
+     * @param clazz    clase de la entidad
+     * @param filters  filtros de la petición
+     * @param required columnas que se leen siempre
+     * @return el QueryBuilder actual para encadenar más métodos
+     * @param <T> tipo de la entidad
+     */
+    public static <T> QueryBuilder select(Class<T> clazz, QueryFilters filters, String... required) {
+        EntityMetadata meta = EntityMetadata.of(clazz);
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : filters.getFields().orElse(List.of())) {
+            if (meta.hasColumn(field)) {
+                requested.add(field);
+            } else {
+                Constants.LOGGER.warn("[QueryBuilder] Ignorando campo invalido en SELECT: {}", field);
             }
-            qb.query.append(joiner).append(" ");
+        }
+        if (requested.isEmpty()) {
+            return select(clazz);
         }
 
-        qb.query.append("FROM ").append(tableName).append(" ");
+        Set<String> columns = new LinkedHashSet<>(requested);
+        columns.addAll(Arrays.asList(required));
+        if (meta.getPrimaryKey() != null) {
+            columns.add(meta.getPrimaryKey().name());
+            columns.add(Pagination.sortColumn(meta, filters).name());
+        }
+
+        QueryBuilder qb = select(clazz, columns.toArray(new String[0]));
+        qb.projection = Collections.unmodifiableSet(requested);
+        return qb;
+    }
+
+    /**
+     * Construye una consulta {@code SELECT COUNT(*)} sobre la tabla de la clase dada.
+     * Se combina con {@link #where(Map)} para contar solo las filas que cumplen los filtros.
+     *
+     * @param clazz clase de la entidad
+     * @return el QueryBuilder actual para encadenar más métodos
+     * @param <T> tipo de la entidad
+     */
+    public static <T> QueryBuilder count(Class<T> clazz) {
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(clazz));
+        qb.read = true;
+        qb.query.append("SELECT COUNT(*) FROM ").append(qb.meta.getTable()).append(" ");
+        return qb;
+    }
+
+    /**
+     * Construye una consulta {@code SELECT 1 ... LIMIT 1} sobre la tabla de la clase dada:
+     * la base de datos se detiene en la primera fila que cumpla los filtros.
+     *
+     * @param clazz clase de la entidad
+     * @return el QueryBuilder actual para encadenar más métodos
+     * @param <T> tipo de la entidad
+     */
+    public static <T> QueryBuilder exists(Class<T> clazz) {
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(clazz));
+        qb.read = true;
+        qb.query.append("SELECT 1 FROM ").append(qb.meta.getTable()).append(" ");
+        qb.limit = 1;
         return qb;
     }
 
     /**
      * Añade una cláusula WHERE a la consulta actual, filtrando por los campos del mapa.
-     * Los valores pueden ser números o cadenas, y se manejan adecuadamente.
+     * <p>
+     * Sin sufijo se compara por igualdad ({@code campo=valor}, o {@code campo=(a,b)} para un IN).
+     * Con un operador entre corchetes tras el campo se admiten también:
+     * <ul>
+     *     <li>{@code campo[ne]=v}: distinto de {@code v}</li>
+     *     <li>{@code campo[gt]}, {@code [gte]}, {@code [lt]}, {@code [lte]}: comparaciones de rango.
+     *     En las fechas se admite solo el día ({@code 2025-01-31}); {@code [lte]} y {@code [gt]}
+     *     cubren entonces el día entero</li>
+     *     <li>{@code campo[in]=a,b,c}: cualquiera de los valores</li>
+     *     <li>{@code campo[like]=texto}: patrón de {@code LIKE}; sin comodines busca el texto en
+     *     cualquier posición</li>
+     *     <li>{@code campo[null]=true|false}: {@code IS NULL} o {@code IS NOT NULL}</li>
+     * </ul>
+     * Con operador, los valores se convierten al tipo de la columna (números, fechas, booleanos y
+     * enums, por nombre o por valor) antes de enlazarlos. Los campos que no son columnas de la
+     * entidad se ignoran; un operador desconocido o un valor que no encaja con la columna deja la
+     * consulta marcada con {@link BadRequestException} (ver {@link #getError()}), y
+     * {@link DatabaseManager} la rechaza sin ejecutarla.
      *
-     * @param filters un mapa de filtros donde la clave es el nombre del campo y el valor es el valor a filtrar
+     * @param filters un mapa de filtros donde la clave es el nombre del campo (con o sin operador)
+     *                y el valor es el valor a filtrar
      * @return el QueryBuilder actual para encadenar más métodos
      */
     public QueryBuilder where(Map<String, String> filters) {
@@ -130,40 +333,197 @@ public class QueryBuilder {
             return this;
         }
 
-        Set<String> validFields = entityClass != null
-            ? Arrays.stream(entityClass.getDeclaredFields()).map(Field::getName).collect(Collectors.toSet())
-            : Collections.emptySet();
-
-        List<String> conditions = new ArrayList<>();
-
         for (Map.Entry<String, String> entry : filters.entrySet()) {
             String key = entry.getKey();
             String value = entry.getValue();
+            String column = key;
+            String operator = "eq";
 
-            if (!validFields.contains(key)) {
+            Matcher matcher = FILTER_OPERATOR.matcher(key);
+            if (matcher.matches()) {
+                column = matcher.group(1);
+                operator = matcher.group(2).toLowerCase();
+            }
+
+            if (meta == null || !meta.hasColumn(column)) {
                 Constants.LOGGER.warn("[QueryBuilder] Ignorando campo invalido en WHERE: {}", key);
                 continue;
             }
+            if (value == null) {
+                continue;
+            }
+
+            try {
+                String condition = condition(meta.getColumn(column), operator, value);
+                query.append(hasWhere ? "AND " : "WHERE ").append(condition).append(" ");
+                hasWhere = true;
+            } catch (BadRequestException e) {
+                reject(e);
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Construye la condición de un filtro y enlaza sus valores.
+     */
+    private String condition(Column column, String operator, String value) {
+        String name = column.name();
+        return switch (operator) {
+            case "eq" -> {
+                if (value.startsWith("(") && value.endsWith(")")) {
+                    StringJoiner items = new StringJoiner(", ", name + " IN (", ")");
+                    for (String item : value.substring(1, value.length() - 1).split(",")) {
+                        items.add(bind(unquote(item.trim())));
+                    }
+                    yield items.toString();
+                }
+                yield name + " = " + bind(value);
+            }
+            case "ne" -> name + " <> " + bind(typed(column, value));
+            case "gt", "gte", "lt", "lte" -> {
+                Object bound = typed(column, value);
+                String comparison = switch (operator) {
+                    case "gt" -> ">";
+                    case "gte" -> ">=";
+                    case "lt" -> "<";
+                    default -> "<=";
+                };
+                // "hasta el día X" incluye todo el día X, y "después del día X" empieza al siguiente
+                if (bound instanceof LocalDateTime date && DATE_ONLY.matcher(value.trim()).matches()
+                        && (operator.equals("lte") || operator.equals("gt"))) {
+                    bound = date.plusDays(1);
+                    comparison = operator.equals("lte") ? "<" : ">=";
+                }
+                yield name + " " + comparison + " " + bind(bound);
+            }
+            case "in" -> {
+                String list = value.startsWith("(") && value.endsWith(")")
+                        ? value.substring(1, value.length() - 1) : value;
+                List<Object> values = new ArrayList<>();
+                for (String item : list.split(",")) {
+                    if (!item.isBlank()) values.add(typed(column, item));
+                }
+                if (values.isEmpty()) {
+                    throw new BadRequestException("Empty list in filter " + name + "[in]");
+                }
+                StringJoiner items = new StringJoiner(", ", name + " IN (", ")");
+                values.forEach(item -> items.add(bind(item)));
+                yield items.toString();
+            }
+            case "like" -> {
+                String pattern = unquote(value);
+                if (pattern.indexOf('%') < 0 && pattern.indexOf('_') < 0) pattern = "%" + pattern + "%";
+                yield name + " LIKE " + bind(pattern);
+            }
+            case "null" -> {
+                Boolean isNull = parseBoolean(value);
+                if (isNull == null) {
+                    throw new BadRequestException("Invalid value for " + name + "[null]: " + value);
+                }
+                yield name + (isNull ? " IS NULL" : " IS NOT NULL");
+            }
+            default -> throw new BadRequestException("Unknown filter operator: " + name + "[" + operator + "]");
+        };
+    }
 
-            if (value.startsWith("(") && value.endsWith(")")) {
-                conditions.add(key + " IN " + value);
-            } else if (value.matches("-?\\d+(\\.\\d+)?")) {
-                conditions.add(key + " = " + value);
+    /**
+     * Convierte el valor de un filtro al tipo de la columna.
+     *
+     * @throws BadRequestException si el valor no se puede convertir
+     */
+    private static Object typed(Column column, String raw) {
+        String value = unquote(raw.trim());
+        Class<?> type = column.type();
+        try {
+            if (type == Integer.class || type == int.class) return Integer.valueOf(value);
+            if (type == Long.class || type == long.class) return Long.valueOf(value);
+            if (type == Double.class || type == double.class) return Double.valueOf(value);
+            if (type == BigDecimal.class) return new BigDecimal(value);
+            if (type == LocalDate.class) return LocalDate.parse(value);
+            if (type == LocalDateTime.class) {
+                return DATE_ONLY.matcher(value).matches()
+                        ? LocalDate.parse(value).atStartOfDay()
+                        : LocalDateTime.parse(value.replace(' ', 'T'));
+            }
+            if (type == Boolean.class || type == boolean.class) {
+                Boolean bool = parseBoolean(value);
+                if (bool != null) return bool;
+            } else if (ValuableEnumRegistry.supports(type)) {
+                Object constant = ValuableEnumRegistry.findByName(type, value);
+                if (constant == null && INTEGER.matcher(value).matches()) {
+                    constant = ValuableEnumRegistry.find(type, Integer.parseInt(value));
+                }
+                if (constant != null) return constant;
+            } else if (type.isEnum()) {
+                for (Object constant : type.getEnumConstants()) {
+                    if (((Enum<?>) constant).name().equalsIgnoreCase(value)) return constant;
+                }
             } else {
-                conditions.add(key + " = '" + value + "'");
+                return value;
             }
+        } catch (NumberFormatException | DateTimeParseException ignored) {
+            // se informa abajo
         }
+        throw new BadRequestException("Invalid value for " + column.name() + ": " + raw);
+    }
+
+    private static Boolean parseBoolean(String value) {
+        return switch (value.trim().toLowerCase()) {
+            case "true", "1" -> Boolean.TRUE;
+            case "false", "0" -> Boolean.FALSE;
+            default -> null;
+        };
+    }
 
-        if (!conditions.isEmpty()) {
-            query.append("WHERE ").append(String.join(" AND ", conditions)).append(" ");
+    /**
+     * Añade una condición {@code columna IN (?, ?, ...)} con los valores dados, enlazados
+     * como parámetros. Si ya hay una cláusula WHERE se combina con {@code AND}; si no hay
+     * valores la condición no se cumple para ninguna fila.
+     *
+     * @param column columna a comparar
+     * @param values valores admitidos
+     * @return el QueryBuilder actual para encadenar más métodos
+     */
+    public QueryBuilder whereIn(String column, Collection<?> values) {
+        if (meta == null || !meta.hasColumn(column)) {
+            Constants.LOGGER.warn("[QueryBuilder] Ignorando campo invalido en WHERE: {}", column);
+            return this;
+        }
+
+        query.append(hasWhere ? "AND " : "WHERE ");
+        hasWhere = true;
+
+        if (values.isEmpty()) {
+            query.append("1 = 0 ");
+            return this;
         }
 
+        query.append(column).append(" IN (");
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) query.append(", ");
+            query.append(bind(value));
+            first = false;
+        }
+        query.append(") ");
         return this;
     }
 
+    /**
+     * Quita las comillas simples que envuelven un valor, si las tiene.
+     */
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("'") && value.endsWith("'")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
     /**
      * Añade una cláusula WHERE a la consulta actual, filtrando por los campos del objeto.
-     * Los valores se extraen mediante reflexión y se manejan adecuadamente.
+     * Los valores se leen con los accesores de {@link EntityMetadata}.
      *
      * @param object el objeto del cual se extraerán los campos para filtrar
      * @return el QueryBuilder actual para encadenar más métodos
@@ -173,83 +533,65 @@ public class QueryBuilder {
             throw new IllegalArgumentException("Object cannot be null");
         }
 
-        Set<String> validFields = entityClass != null
-            ? Arrays.stream(entityClass.getDeclaredFields()).map(Field::getName).collect(Collectors.toSet())
-            : Collections.emptySet();
-
         this.query.append("WHERE ");
-        StringJoiner joiner = new StringJoiner(" AND ");
-        for (Field field : object.getClass().getDeclaredFields()) {
-            field.setAccessible(true);
-            try {
-                Object fieldValue = field.get(object);
-                if (fieldValue != null) {
-                    String key = field.getName();
-                    if (!validFields.contains(key)) {
-                        Constants.LOGGER.warn("[QueryBuilder] Ignorando campo invalido en WHERE: {}", key);
-                        continue;
-                    }
-                    Object value = extractValue(fieldValue);
-                    if (value instanceof String || value instanceof LocalDateTime) {
-                        joiner.add(key + " = '" + value + "'");
-                    } else {
-                        joiner.add(key + " = " + value.toString());
-                    }
-                }
-            } catch (IllegalArgumentException | IllegalAccessException e) {
-                Constants.LOGGER.error("(REFLECTION) Error reading field: {}", e.getMessage());
+        this.hasWhere = true;
+        boolean first = true;
+        for (Column column : EntityMetadata.of(object.getClass()).getColumns()) {
+            Object fieldValue = column.get(object);
+            if (fieldValue == null) continue;
+
+            String key = column.name();
+            if (meta == null || !meta.hasColumn(key)) {
+                Constants.LOGGER.warn("[QueryBuilder] Ignorando campo invalido en WHERE: {}", key);
+                continue;
             }
+            if (!first) this.query.append(" AND ");
+            this.query.append(key).append(" = ").append(bind(fieldValue));
+            first = false;
         }
-        this.query.append(joiner).append(" ");
+        this.query.append(" ");
         return this;
     }
 
     /**
      * Construye una consulta INSERT para el objeto dado, insertando todos sus campos.
-     * Los valores se extraen mediante reflexión y se manejan adecuadamente.
+     * La plantilla es fija por clase; solo se enlazan los valores.
      *
      * @param object el objeto a insertar
      * @return el QueryBuilder actual para encadenar más métodos
      * @param <T> el tipo del objeto a insertar
      */
     public static <T> QueryBuilder insert(T object) {
+        return insert(object, true);
+    }
+
+    /**
+     * Construye una consulta INSERT para el objeto dado, con o sin {@code RETURNING *}.
+     * Sin RETURNING el servidor responde solo con el id generado, que es lo que se
+     * quiere al insertar por lotes.
+     *
+     * @param object    el objeto a insertar
+     * @param returning si se debe devolver la fila insertada
+     * @return el QueryBuilder actual para encadenar más métodos
+     * @param <T> el tipo del objeto a insertar
+     */
+    public static <T> QueryBuilder insert(T object, boolean returning) {
         if (object == null) {
             throw new IllegalArgumentException("Object cannot be null");
         }
 
-        QueryBuilder qb = new QueryBuilder();
-        String table = getTableName(object.getClass());
-        qb.query.append("INSERT INTO ").append(table).append(" ");
-        qb.query.append("(");
-        StringJoiner columns = new StringJoiner(", ");
-        StringJoiner values = new StringJoiner(", ");
-        for (Field field : object.getClass().getDeclaredFields()) {
-            field.setAccessible(true);
-            try {
-                columns.add(field.getName());
-                Object fieldValue = field.get(object);
-                if (fieldValue != null) {
-                    Object value = extractValue(fieldValue);
-                    if (value instanceof String || value instanceof LocalDateTime) {
-                        values.add("'" + escapeSql((String) value) + "'");
-                    } else {
-                        values.add(value.toString());
-                    }
-                } else {
-                    values.add("NULL");
-                }
-            } catch (IllegalArgumentException | IllegalAccessException e) {
-                Constants.LOGGER.error("(REFLECTION) Error reading field: {}", e.getMessage());
-            }
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(object.getClass()));
+        qb.query.append(qb.meta.getInsert());
+        if (returning) {
+            qb.query.append("RETURNING * ");
         }
-        qb.query.append(columns).append(") ");
-        qb.query.append("VALUES (").append(values).append(") RETURNING * ");
+        qb.bindAll(object);
+        qb.recordChange(ChangeEvents.Operation.INSERT, object, false);
         return qb;
     }
 
     /**
-     * Construye una consulta UPDATE para el objeto dado, actualizando todos sus campos.
-     * Los valores se extraen mediante reflexión y se manejan adecuadamente.
+     * Construye una consulta UPDATE para el objeto dado, actualizando sus campos no nulos.
      * Requiere que el objeto tenga un campo ID (terminado en _id) para la cláusula WHERE.
      *
      * @param object el objeto a actualizar
@@ -261,43 +603,77 @@ public class QueryBuilder {
             throw new IllegalArgumentException("Object cannot be null");
         }
 
-        QueryBuilder qb = new QueryBuilder();
-        String table = getTableName(object.getClass());
-        qb.query.append("UPDATE ").append(table).append(" SET ");
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(object.getClass()));
+        qb.query.append("UPDATE ").append(qb.meta.getTable()).append(" SET ");
 
-        StringJoiner setJoiner = new StringJoiner(", ");
-        StringJoiner whereJoiner = new StringJoiner(" AND ");
+        boolean first = true;
+        for (Column column : qb.meta.getColumns()) {
+            if (column.id()) continue;
+            Object fieldValue = column.get(object);
+            if (fieldValue == null) continue;
 
-        Field idField = null;
+            if (!first) qb.query.append(", ");
+            qb.query.append(column.name()).append(" = ").append(qb.bind(fieldValue));
+            first = false;
+        }
 
-        for (Field field : object.getClass().getDeclaredFields()) {
-            field.setAccessible(true);
-            try {
-                Object fieldValue = field.get(object);
-                if (fieldValue == null) continue;
+        // los valores del WHERE van detrás de los del SET en el SQL
+        first = true;
+        for (Column column : qb.meta.getIdColumns()) {
+            Object fieldValue = column.get(object);
+            if (fieldValue == null) continue;
 
-                String fieldName = field.getName();
-                Object value = extractValue(fieldValue);
+            qb.query.append(first ? " WHERE " : " AND ");
+            qb.query.append(column.name()).append(" = ").append(qb.bind(fieldValue));
+            first = false;
+        }
 
-                if (fieldName.endsWith("_id")) {
-                    idField = field;
-                    whereJoiner.add(fieldName + " = " + (value instanceof String
-                    		|| value instanceof LocalDateTime ? "'" + value + "'" : value));
-                    continue;
-                }
+        if (first) {
+            throw new IllegalArgumentException("No ID field (ending with _id) found for WHERE clause");
+        }
+        qb.recordChange(ChangeEvents.Operation.UPDATE, object, false);
+        return qb;
+    }
 
-                setJoiner.add(fieldName + " = " + (value instanceof String
-                		|| value instanceof LocalDateTime ? "'" + value + "'" : value));
-            } catch (Exception e) {
-                Constants.LOGGER.error("(REFLECTION) Error reading field: {}", e.getMessage());
-            }
+    /**
+     * Construye una consulta UPDATE que suma a cada columna la cantidad dada
+     * ({@code SET columna = columna + ?}) sin leer antes la fila. Como la suma la hace el
+     * servidor, dos escrituras concurrentes sobre la misma fila no se pisan.
+     *
+     * @param clazz  clase de la entidad
+     * @param deltas cantidad a sumar a cada columna (negativa para restar)
+     * @param key    columnas y valores que identifican la fila
+     * @return el QueryBuilder actual para encadenar más métodos
+     * @param <T> el tipo de la entidad
+     */
+    public static <T> QueryBuilder increment(Class<T> clazz, Map<String, ? extends Number> deltas, Map<String, ?> key) {
+        if (deltas == null || deltas.isEmpty() || key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("Deltas and key cannot be empty");
         }
 
-        if (idField == null) {
-            throw new IllegalArgumentException("No ID field (ending with _id) found for WHERE clause");
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(clazz));
+        qb.query.append("UPDATE ").append(qb.meta.getTable()).append(" SET ");
+
+        boolean first = true;
+        for (Map.Entry<String, ? extends Number> entry : deltas.entrySet()) {
+            String column = qb.requireColumn(entry.getKey());
+            if (!first) qb.query.append(", ");
+            qb.query.append(column).append(" = ").append(column).append(" + ").append(qb.bind(entry.getValue()));
+            first = false;
+        }
+
+        first = true;
+        for (Map.Entry<String, ?> entry : key.entrySet()) {
+            String column = qb.requireColumn(entry.getKey());
+            qb.query.append(first ? " WHERE " : " AND ");
+            qb.query.append(column).append(" = ").append(qb.bind(entry.getValue()));
+            first = false;
         }
+        qb.hasWhere = true;
 
-        qb.query.append(setJoiner).append(" WHERE ").append(whereJoiner);
+        qb.operation = ChangeEvents.Operation.UPDATE;
+        qb.key = new LinkedHashMap<>(key);
+        qb.changedColumns = new ArrayList<>(deltas.keySet());
         return qb;
     }
 
@@ -314,44 +690,16 @@ public class QueryBuilder {
             throw new IllegalArgumentException("Object cannot be null");
         }
 
-        QueryBuilder qb = new QueryBuilder();
-        String table = getTableName(object.getClass());
-        qb.query.append("UPDATE ").append(table).append(" SET ");
-
-        StringJoiner setJoiner = new StringJoiner(", ");
-        StringJoiner whereJoiner = new StringJoiner(" AND ");
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(object.getClass()));
+        qb.query.append(qb.meta.getUpdateWithNulls());
 
-        Field idField = null;
-
-        for (Field field : object.getClass().getDeclaredFields()) {
-            field.setAccessible(true);
-            try {
-                String fieldName = field.getName();
-                Object fieldValue = field.get(object);
-
-                if (fieldName.endsWith("_id")) {
-                    idField = field;
-                    Object value = extractValue(fieldValue);
-                    whereJoiner.add(fieldName + " = " + (value instanceof String || value instanceof LocalDateTime ? "'" + value + "'" : value));
-                    continue;
-                }
-
-                if (fieldValue == null) {
-                    setJoiner.add(fieldName + " = NULL");
-                } else {
-                    Object value = extractValue(fieldValue);
-                    setJoiner.add(fieldName + " = " + (value instanceof String || value instanceof LocalDateTime ? "'" + value + "'" : value));
-                }
-            } catch (Exception e) {
-                Constants.LOGGER.error("(REFLECTION) Error reading field: {}", e.getMessage());
-            }
+        for (Column column : qb.meta.getColumns()) {
+            if (!column.id()) qb.bind(column.get(object));
         }
-
-        if (idField == null) {
-            throw new IllegalArgumentException("No ID field (ending with _id) found for WHERE clause");
+        for (Column column : qb.meta.getIdColumns()) {
+            qb.bind(column.get(object));
         }
-
-        qb.query.append(setJoiner).append(" WHERE ").append(whereJoiner);
+        qb.recordChange(ChangeEvents.Operation.UPDATE, object, true);
         return qb;
     }
 
@@ -367,52 +715,15 @@ public class QueryBuilder {
     public static <T> QueryBuilder upsert(T object, String... conflictKeys) {
         if (object == null) throw new IllegalArgumentException("Object cannot be null");
 
-        QueryBuilder qb = new QueryBuilder();
-        String table = getTableName(object.getClass());
-        qb.query.append("INSERT INTO ").append(table).append(" ");
-
-        StringJoiner columns = new StringJoiner(", ");
-        StringJoiner values = new StringJoiner(", ");
-        Map<String, String> updates = new HashMap<>();
-
-        for (Field field : object.getClass().getDeclaredFields()) {
-            field.setAccessible(true);
-            try {
-                Object fieldValue = field.get(object);
-                String columnName = field.getName();
-                columns.add(columnName);
-
-                Object value = extractValue(fieldValue);
-                String valueStr = value == null ? "NULL"
-                        : (value instanceof String || value instanceof LocalDateTime ? "'" + value + "'" : value.toString());
-                values.add(valueStr);
-
-                // no actualizamos la clave duplicada
-                boolean isConflictKey = Arrays.asList(conflictKeys).contains(columnName);
-                if (!isConflictKey) {
-                    updates.put(columnName, valueStr);
-                }
-
-            } catch (Exception e) {
-                Constants.LOGGER.error("(REFLECTION) Error reading field: {}", e.getMessage());
-            }
-        }
-
-        qb.query.append("(").append(columns).append(") VALUES (").append(values).append(")");
-
-        if (conflictKeys.length > 0 && !updates.isEmpty()) {
-            qb.query.append(" ON DUPLICATE KEY UPDATE ");
-            StringJoiner updateSet = new StringJoiner(", ");
-            updates.forEach((k, v) -> updateSet.add(k + " = " + v));
-            qb.query.append(updateSet);
-        }
-
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(object.getClass()));
+        qb.query.append(qb.meta.getUpsert(conflictKeys));
+        qb.bindAll(object);
+        qb.recordChange(ChangeEvents.Operation.UPSERT, object, false);
         return qb;
     }
 
     /**
      * Construye una consulta DELETE para el objeto dado, eliminando registros que coincidan con sus campos.
-     * Los valores se extraen mediante reflexión y se manejan adecuadamente.
      *
      * @param object el objeto a eliminar
      * @return el QueryBuilder actual para encadenar más métodos
@@ -421,29 +732,171 @@ public class QueryBuilder {
     public static <T> QueryBuilder delete(T object) {
         if (object == null) throw new IllegalArgumentException("Object cannot be null");
 
-        QueryBuilder qb = new QueryBuilder();
-        String table = getTableName(object.getClass());
-        qb.query.append("DELETE FROM ").append(table).append(" WHERE ");
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(object.getClass()));
+        qb.query.append("DELETE FROM ").append(qb.meta.getTable()).append(" WHERE ");
 
-        StringJoiner joiner = new StringJoiner(" AND ");
-        for (Field field : object.getClass().getDeclaredFields()) {
-            field.setAccessible(true);
-            try {
-                Object fieldValue = field.get(object);
-                if (fieldValue != null) {
-                    Object value = extractValue(fieldValue);
-                    joiner.add(field.getName() + " = " + (value instanceof String
-                    		|| value instanceof LocalDateTime ? "'" + value + "'" : value.toString()));
+        boolean first = true;
+        for (Column column : qb.meta.getColumns()) {
+            Object fieldValue = column.get(object);
+            if (fieldValue == null) continue;
+
+            if (!first) qb.query.append(" AND ");
+            qb.query.append(column.name()).append(" = ").append(qb.bind(fieldValue));
+            first = false;
+        }
+
+        qb.query.append(" ");
+        qb.recordChange(ChangeEvents.Operation.DELETE, object, false);
+        return qb;
+    }
+
+    /**
+     * Construye una consulta UPDATE que cambia las columnas dadas en todas las filas que
+     * cumplen los filtros, en una sola sentencia. Los valores se convierten al tipo de cada
+     * columna como en {@link #where(Map)}.
+     * <p>
+     * Para no tocar la tabla entera por error, hace falta al menos un filtro válido. Sin él, con
+     * una columna desconocida o de clave entre los cambios, o con un valor que no encaja, la
+     * consulta queda marcada con {@link #getError()} y no se ejecuta.
+     *
+     * @param clazz   clase de la entidad
+     * @param filters filtros de las filas a cambiar, como en {@link #where(Map)}
+     * @param changes nuevo valor de cada columna
+     * @return el QueryBuilder actual para encadenar más métodos
+     * @param <T> tipo de la entidad
+     */
+    public static <T> QueryBuilder updateWhere(Class<T> clazz, Map<String, String> filters, Map<String, ?> changes) {
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(clazz));
+        qb.query.append("UPDATE ").append(qb.meta.getTable()).append(" SET ");
+
+        StringJoiner assignments = new StringJoiner(", ");
+        if (changes != null) {
+            for (Map.Entry<String, ?> entry : changes.entrySet()) {
+                Column column = qb.meta.getColumn(entry.getKey());
+                if (column == null || column.id()) {
+                    qb.reject(new BadRequestException("Column cannot be updated: " + entry.getKey()));
+                    continue;
+                }
+                try {
+                    assignments.add(column.name() + " = " + qb.bind(changeValue(column, entry.getValue())));
+                } catch (BadRequestException e) {
+                    qb.reject(e);
                 }
-            } catch (Exception e) {
-                Constants.LOGGER.error("(REFLECTION) Error reading field: {}", e.getMessage());
             }
         }
+        if (changes == null || changes.isEmpty()) {
+            qb.reject(new BadRequestException("No columns to update"));
+        }
+        qb.query.append(assignments).append(" ");
 
-        qb.query.append(joiner).append(" ");
+        qb.where(filters).requireWhere();
+        qb.operation = ChangeEvents.Operation.UPDATE;
+        qb.filters = filters;
+        qb.changedColumns = changes != null ? new ArrayList<>(changes.keySet()) : List.of();
         return qb;
     }
 
+    /**
+     * Construye una consulta DELETE que elimina todas las filas que cumplen los filtros, en una
+     * sola sentencia. Como en {@link #updateWhere(Class, Map, Map)}, hace falta al menos un
+     * filtro válido.
+     *
+     * @param clazz   clase de la entidad
+     * @param filters filtros de las filas a eliminar, como en {@link #where(Map)}
+     * @return el QueryBuilder actual para encadenar más métodos
+     * @param <T> tipo de la entidad
+     */
+    public static <T> QueryBuilder deleteWhere(Class<T> clazz, Map<String, String> filters) {
+        QueryBuilder qb = new QueryBuilder(EntityMetadata.of(clazz));
+        qb.query.append("DELETE FROM ").append(qb.meta.getTable()).append(" ");
+        qb.where(filters).requireWhere();
+        qb.operation = ChangeEvents.Operation.DELETE;
+        qb.filters = filters;
+        return qb;
+    }
+
+    /**
+     * Valor de una columna en {@link #updateWhere(Class, Map, Map)}: se deja tal cual si ya es
+     * del tipo de la columna y si no se convierte desde su texto.
+     */
+    private static Object changeValue(Column column, Object value) {
+        if (value == null || column.type().isInstance(value)) {
+            return value;
+        }
+        return typed(column, value.toString());
+    }
+
+    /**
+     * Marca la consulta como inválida si no tiene WHERE, para que una escritura por filtros
+     * no afecte nunca a la tabla entera.
+     */
+    private void requireWhere() {
+        if (!hasWhere) {
+            reject(new BadRequestException("At least one valid filter is required"));
+        }
+    }
+
+    /**
+     * Guarda el primer error encontrado al construir la consulta.
+     */
+    private void reject(BadRequestException e) {
+        if (error == null) error = e;
+    }
+
+    /**
+     * Bloquea las filas leídas hasta que termine la transacción ({@code FOR UPDATE}). Solo
+     * tiene sentido sobre la conexión de {@link DatabaseManager#withTransaction}; la consulta
+     * deja de contar como lectura para que nunca vaya a una réplica.
+     *
+     * @return el QueryBuilder actual para encadenar más métodos
+     */
+    public QueryBuilder forUpdate() {
+        this.forUpdate = true;
+        this.read = false;
+        return this;
+    }
+
+    /**
+     * Devuelve el nombre de la columna si existe en la entidad; si no, lanza una excepción.
+     */
+    private String requireColumn(String column) {
+        if (!meta.hasColumn(column)) {
+            throw new IllegalArgumentException("Unknown column " + column + " in " + meta.getTable());
+        }
+        return column;
+    }
+
+    /**
+     * Enlaza el valor de todas las columnas del objeto, en orden de declaración.
+     */
+    private void bindAll(Object object) {
+        for (Column column : meta.getColumns()) {
+            bind(column.get(object));
+        }
+    }
+
+    /**
+     * Anota la clave y las columnas que escribe esta consulta. Los INSERT y UPSERT escriben
+     * todas las columnas con valor; los UPDATE, las que no son clave (con valor, salvo que
+     * también se escriban los nulos); los DELETE, ninguna.
+     */
+    private void recordChange(ChangeEvents.Operation operation, Object object, boolean withNulls) {
+        this.operation = operation;
+        this.key = new LinkedHashMap<>();
+        this.changedColumns = new ArrayList<>();
+        for (Column column : meta.getColumns()) {
+            Object value = column.get(object);
+            if (column.id() && value != null) key.put(column.name(), value);
+
+            boolean written = switch (operation) {
+                case INSERT, UPSERT -> value != null;
+                case UPDATE -> !column.id() && (withNulls || value != null);
+                case DELETE -> false;
+            };
+            if (written) changedColumns.add(column.name());
+        }
+    }
+
     /**
      * Añade una cláusula ORDER BY a la consulta actual, ordenando por la columna y el orden especificados.
      * Si la columna no es válida, se ignora.
@@ -454,23 +907,105 @@ public class QueryBuilder {
      */
     public QueryBuilder orderBy(Optional<String> column, Optional<String> order) {
         column.ifPresent(c -> {
-            if (entityClass != null) {
-                boolean isValid = Arrays.stream(entityClass.getDeclaredFields())
-                    .map(Field::getName)
-                    .anyMatch(f -> f.equals(c));
-
-                if (!isValid) {
-                    Constants.LOGGER.warn("[QueryBuilder] Ignorando campo invalido en ORDER BY: {}", c);
-                    return;
-                }
+            if (meta != null && !meta.hasColumn(c)) {
+                Constants.LOGGER.warn("[QueryBuilder] Ignorando campo invalido en ORDER BY: {}", c);
+                return;
             }
 
             sort = "ORDER BY " + c + " ";
-            order.ifPresent(o -> sort += o.equalsIgnoreCase("asc") ? "ASC" : "DESC" + " ");
+            order.ifPresent(o -> sort += (o.equalsIgnoreCase("asc") ? "ASC" : "DESC") + " ");
         });
         return this;
     }
 
+    /**
+     * Aplica la ordenación y paginación de los filtros de una petición.
+     * <p>
+     * El tamaño de página se calcula con {@link Pagination#pageSize(EntityMetadata, QueryFilters)}.
+     * Si la entidad tiene clave primaria se ordena siempre por la columna pedida y después
+     * por la clave, de forma que el orden es total y los cursores son estables:
+     * <ul>
+     *     <li>{@code _after} – filas posteriores al cursor en el orden pedido</li>
+     *     <li>{@code _before} – filas anteriores al cursor; se leen en orden inverso y
+     *     se les da la vuelta al ejecutar (ver {@link #isReversed()})</li>
+     *     <li>sin cursor – primera página, o la que indique {@code _offset}</li>
+     * </ul>
+     * Con cursor se ignora {@code _offset}; un cursor inválido rechaza la consulta
+     * ({@link #getError()}). Las filas con la columna de ordenación a NULL
+     * se sitúan donde las coloca MySQL: al principio en ASC y al final en DESC.
+     * <p>
+     * Debe llamarse después de {@link #where(Map)}.
+     *
+     * @param filters filtros de la petición
+     * @return el QueryBuilder actual para encadenar más métodos
+     */
+    public QueryBuilder page(QueryFilters filters) {
+        Column key = meta != null ? meta.getPrimaryKey() : null;
+        if (key == null) {
+            return orderBy(filters.getSort(), filters.getOrder())
+                    .limit(Optional.ofNullable(meta != null ? Pagination.pageSize(meta, filters) : filters.getLimit().orElse(null)))
+                    .offset(filters.getOffset());
+        }
+
+        Column column = Pagination.sortColumn(meta, filters);
+        if (filters.getSort().isPresent() && !filters.getSort().get().equals(column.name())) {
+            Constants.LOGGER.warn("[QueryBuilder] Ignorando campo invalido en ORDER BY: {}", filters.getSort().get());
+        }
+        boolean ascending = filters.getOrder().map(o -> o.equalsIgnoreCase("asc")).orElse(true);
+
+        // un cursor inválido o de otra ordenación es un 400, no la primera página otra vez
+        Pagination.Cursor cursor = null;
+        try {
+            if (filters.getAfter().isPresent()) {
+                cursor = Pagination.decode(filters.getAfter().get(), column, key);
+            } else if (filters.getBefore().isPresent()) {
+                cursor = Pagination.decode(filters.getBefore().get(), column, key);
+                reversed = true;
+            }
+        } catch (BadRequestException e) {
+            reject(e);
+        }
+
+        // hacia atrás se recorre en el sentido contrario y luego se invierte
+        boolean scanAscending = ascending != reversed;
+        if (cursor != null) {
+            query.append(hasWhere ? "AND " : "WHERE ");
+            hasWhere = true;
+            appendKeyset(column, key, cursor, scanAscending);
+        }
+
+        String direction = scanAscending ? "ASC" : "DESC";
+        sort = column == key
+                ? "ORDER BY " + key.name() + " " + direction + " "
+                : "ORDER BY " + column.name() + " " + direction + ", " + key.name() + " " + direction + " ";
+        limit = Pagination.pageSize(meta, filters);
+        offset = cursor == null ? filters.getOffset().orElse(null) : null;
+        return this;
+    }
+
+    /**
+     * Condición de "fila posterior al cursor" en el sentido de recorrido indicado.
+     */
+    private void appendKeyset(Column column, Column key, Pagination.Cursor cursor, boolean ascending) {
+        String c = column.name();
+        String k = key.name();
+        String cmp = ascending ? " > " : " < ";
+
+        if (column == key) {
+            query.append(k).append(cmp).append(bind(cursor.key())).append(" ");
+        } else if (cursor.value() == null) {
+            // NULL va antes que cualquier valor en ASC y después en DESC
+            query.append(ascending
+                    ? "(" + c + " IS NOT NULL OR " + k + " > " + bind(cursor.key()) + ") "
+                    : "(" + c + " IS NULL AND " + k + " < " + bind(cursor.key()) + ") ");
+        } else {
+            query.append("(").append(c).append(cmp).append(bind(cursor.value()))
+                    .append(" OR (").append(c).append(" = ").append(bind(cursor.value()))
+                    .append(" AND ").append(k).append(cmp).append(bind(cursor.key())).append(")")
+                    .append(ascending ? ") " : " OR " + c + " IS NULL) ");
+        }
+    }
+
     /**
      * Añade una cláusula LIMIT a la consulta actual, limitando el número de resultados.
      * Si se especifica un offset, se añade también.
@@ -479,7 +1014,7 @@ public class QueryBuilder {
      * @return el QueryBuilder actual para encadenar más métodos
      */
     public QueryBuilder limit(Optional<Integer> limitParam) {
-        limitParam.ifPresent(param -> limit = "LIMIT " + param + " ");
+        limitParam.ifPresent(param -> limit = param);
         return this;
     }
 
@@ -491,26 +1026,32 @@ public class QueryBuilder {
      * @return el QueryBuilder actual para encadenar más métodos
      */
     public QueryBuilder offset(Optional<Integer> offsetParam) {
-        offsetParam.ifPresent(param -> limit += "OFFSET " + param + " ");
+        offsetParam.ifPresent(param -> offset = param);
         return this;
     }
 
     /**
-     * Construye y devuelve la consulta SQL completa.
+     * Construye y devuelve la plantilla SQL completa, con un {@code ?} por cada valor.
      * Si no se han añadido cláusulas ORDER BY, LIMIT o OFFSET, las omite.
+     * <p>
+     * LIMIT y OFFSET también se enlazan como parámetros para que la plantilla no
+     * cambie entre páginas. Solo debe llamarse una vez por instancia.
      *
      * @return la consulta SQL construida
      */
     public String build() {
-        if (order != null && !order.isEmpty()) {
-            query.append(order);
-        }
         if (sort != null && !sort.isEmpty()) {
             query.append(sort);
         }
-        if (limit != null && !limit.isEmpty()) {
-            query.append(limit);
+        if (limit != null || offset != null) {
+            query.append("LIMIT ").append(bind(limit != null ? limit : Integer.MAX_VALUE)).append(" ");
+            if (offset != null) {
+                query.append("OFFSET ").append(bind(offset)).append(" ");
+            }
+        }
+        if (forUpdate) {
+            query.append("FOR UPDATE ");
         }
-        return query.toString().trim() + ";";
+        return query.toString().trim();
     }
 }
\ No newline at end of file
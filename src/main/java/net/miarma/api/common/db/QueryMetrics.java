@@ -0,0 +1,264 @@
+package net.miarma.api.common.db;
+
+import net.miarma.api.common.ConfigManager;
+import net.miarma.api.common.Constants;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Métricas de latencia de las consultas ejecutadas por {@link DatabaseManager}.
+ * <p>
+ * Cada ejecución se agrupa por la huella de su SQL ({@link #fingerprint(String)}: la
+ * plantilla sin literales ni espacios de más) y se anota su duración, las filas devueltas
+ * o afectadas y, en una de cada 64 ejecuciones (y siempre en la primera),
+ * el método del DAO que la lanzó: recorrer la pila en cada consulta sería caro. Por cada huella se mantiene un histograma
+ * de latencias en milisegundos con cubos fijos, del que se estiman los percentiles.
+ * <p>
+ * Las consultas que tardan {@code db.slowQueryMs} milisegundos o más (500 por defecto;
+ * 0 lo desactiva; se lee una vez al arrancar) se escriben en el log como una línea
+ * {@code clave=valor}, con los métodos conocidos que lanzan esa consulta.
+ * <p>
+ * Se guardan como mucho {@value #MAX_FINGERPRINTS} huellas; a partir de ahí las nuevas se
+ * suman a una entrada común {@value #OTHER}, para que el SQL generado con formas muy
+ * variadas no haga crecer las métricas sin límite.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public final class QueryMetrics {
+
+    /**
+     * Límites superiores (en ms) de los cubos del histograma; el último cubo no tiene límite.
+     */
+    private static final long[] BUCKETS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    private static final int MAX_CACHED_FINGERPRINTS = 2048;
+    private static final int MAX_FINGERPRINTS = 512;
+    private static final String OTHER = "other";
+    private static final int MAX_CALLERS = 16;
+    private static final int CALLER_SAMPLE_RATE = 64;
+
+    private static final Pattern STRINGS = Pattern.compile("'(?:[^'\\\\]|\\\\.)*'");
+    private static final Pattern NUMBERS = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PLACEHOLDER_LISTS = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    private static final String DB_PACKAGE = QueryMetrics.class.getPackageName() + ".";
+
+    private static final Map<String, String> FINGERPRINTS = new ConcurrentHashMap<>();
+    private static final Map<String, Stats> STATS = new ConcurrentHashMap<>();
+
+    private static final long SLOW_QUERY_MS = ConfigManager.getInstance().getIntProperty("db.slowQueryMs", 500);
+
+    private QueryMetrics() {}
+
+    /**
+     * Acumuladores de una huella.
+     */
+    private static final class Stats {
+        private final AtomicLong started = new AtomicLong();
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] histogram = new LongAdder[BUCKETS.length + 1];
+        private final Set<String> callers = ConcurrentHashMap.newKeySet();
+
+        private Stats() {
+            for (int i = 0; i < histogram.length; i++) histogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Resumen de una huella.
+     *
+     * @param fingerprint SQL normalizado
+     * @param callers     métodos que la lanzan (como mucho 16)
+     * @param count       ejecuciones
+     * @param errors      ejecuciones fallidas
+     * @param rows        filas devueltas o afectadas en total
+     * @param totalMs     tiempo total
+     * @param avgMs       tiempo medio
+     * @param maxMs       tiempo máximo
+     * @param p50Ms       mediana estimada (límite superior de su cubo)
+     * @param p95Ms       percentil 95 estimado
+     * @param p99Ms       percentil 99 estimado
+     * @param histogram   ejecuciones por cubo, con clave {@code <=N} o {@code >N} en ms
+     */
+    public record QueryStats(String fingerprint, List<String> callers, long count, long errors, long rows,
+                             double totalMs, double avgMs, double maxMs, long p50Ms, long p95Ms, long p99Ms,
+                             Map<String, Long> histogram) {}
+
+    /**
+     * Momento en que empezó una ejecución y quién la lanzó (null si no se muestreó). Se obtiene con {@link #start(String)}
+     * al lanzar la consulta y se cierra con {@link #finish(Sample, long, boolean)}.
+     */
+    public record Sample(String fingerprint, String caller, long startNanos) {}
+
+    /**
+     * Empieza a medir una ejecución. Debe llamarse en el mismo hilo que la lanza, para
+     * poder localizar al DAO que la pidió.
+     *
+     * @param sql SQL que se va a ejecutar
+     * @return la medición en curso
+     */
+    public static Sample start(String sql) {
+        String fingerprint = fingerprint(sql);
+        Stats stats = stats(fingerprint);
+        String caller = stats.started.getAndIncrement() % CALLER_SAMPLE_RATE == 0 ? caller() : null;
+        return new Sample(fingerprint, caller, System.nanoTime());
+    }
+
+    /**
+     * Termina una medición y la suma a las métricas de su huella.
+     *
+     * @param sample medición devuelta por {@link #start(String)}
+     * @param rows   filas devueltas o afectadas, o -1 si no se conocen
+     * @param failed si la ejecución falló
+     */
+    public static void finish(Sample sample, long rows, boolean failed) {
+        long nanos = System.nanoTime() - sample.startNanos();
+        long millis = nanos / 1_000_000;
+
+        Stats stats = stats(sample.fingerprint());
+        stats.count.increment();
+        stats.totalNanos.add(nanos);
+        stats.maxNanos.accumulate(nanos);
+        stats.histogram[bucket(millis)].increment();
+        if (failed) stats.errors.increment();
+        if (rows > 0) stats.rows.add(rows);
+        if (sample.caller() != null && stats.callers.size() < MAX_CALLERS) stats.callers.add(sample.caller());
+
+        if (SLOW_QUERY_MS > 0 && millis >= SLOW_QUERY_MS) {
+            Constants.LOGGER.warn("[SlowQuery] ms={} rows={} failed={} caller={} sql=\"{}\"",
+                    millis, rows, failed, sample.caller() != null ? sample.caller() : stats.callers,
+                    sample.fingerprint());
+        }
+    }
+
+    /**
+     * Resumen de todas las huellas, de mayor a menor tiempo total.
+     */
+    public static List<QueryStats> snapshot() {
+        List<QueryStats> result = new ArrayList<>();
+        STATS.forEach((fingerprint, stats) -> {
+            long count = stats.count.sum();
+            long[] histogram = new long[stats.histogram.length];
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = stats.histogram[i].sum();
+                buckets.put(i < BUCKETS.length ? "<=" + BUCKETS[i] : ">" + BUCKETS[BUCKETS.length - 1], histogram[i]);
+            }
+            double totalMs = stats.totalNanos.sum() / 1_000_000.0;
+
+            result.add(new QueryStats(
+                    fingerprint,
+                    List.copyOf(stats.callers),
+                    count,
+                    stats.errors.sum(),
+                    stats.rows.sum(),
+                    totalMs,
+                    count > 0 ? totalMs / count : 0,
+                    stats.maxNanos.get() / 1_000_000.0,
+                    percentile(histogram, count, 0.50),
+                    percentile(histogram, count, 0.95),
+                    percentile(histogram, count, 0.99),
+                    buckets
+            ));
+        });
+        result.sort(Comparator.comparingDouble(QueryStats::totalMs).reversed());
+        return result;
+    }
+
+    /**
+     * Ejecuciones anotadas de una huella.
+     *
+     * @param fingerprint huella devuelta por {@link #fingerprint(String)}
+     * @return el número de ejecuciones, o 0 si no hay ninguna
+     */
+    public static long executions(String fingerprint) {
+        Stats stats = STATS.get(fingerprint);
+        return stats != null ? stats.count.sum() : 0;
+    }
+
+    /**
+     * Borra todas las métricas acumuladas.
+     */
+    public static void reset() {
+        STATS.clear();
+    }
+
+    /**
+     * Normaliza un SQL para agrupar las ejecuciones de la misma consulta: sustituye los
+     * literales por {@code ?}, reduce las listas de placeholders ({@code IN (?, ?, ?)}) a
+     * uno solo y colapsa los espacios.
+     *
+     * @param sql SQL ejecutado
+     * @return la huella del SQL
+     */
+    public static String fingerprint(String sql) {
+        String cached = FINGERPRINTS.get(sql);
+        if (cached != null) return cached;
+
+        String fingerprint = STRINGS.matcher(sql).replaceAll("?");
+        fingerprint = NUMBERS.matcher(fingerprint).replaceAll("?");
+        fingerprint = PLACEHOLDER_LISTS.matcher(fingerprint).replaceAll("?");
+        fingerprint = WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+
+        if (FINGERPRINTS.size() < MAX_CACHED_FINGERPRINTS) FINGERPRINTS.put(sql, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * Acumuladores de una huella, o los de {@value #OTHER} si es nueva y ya no caben más.
+     */
+    private static Stats stats(String fingerprint) {
+        Stats stats = STATS.get(fingerprint);
+        if (stats != null) return stats;
+        String key = STATS.size() < MAX_FINGERPRINTS ? fingerprint : OTHER;
+        return STATS.computeIfAbsent(key, _ -> new Stats());
+    }
+
+    /**
+     * Primer método de la pila fuera de la capa de base de datos, normalmente el del DAO.
+     */
+    private static String caller() {
+        return WALKER.walk(frames -> frames
+                .filter(frame -> !frame.getClassName().startsWith(DB_PACKAGE))
+                .findFirst()
+                .map(frame -> {
+                    String className = frame.getClassName();
+                    return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+                })
+                .orElse("unknown"));
+    }
+
+    private static int bucket(long millis) {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            if (millis <= BUCKETS[i]) return i;
+        }
+        return BUCKETS.length;
+    }
+
+    private static long percentile(long[] histogram, long count, double quantile) {
+        if (count == 0) return 0;
+        long target = (long) Math.ceil(count * quantile);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= target) return i < BUCKETS.length ? BUCKETS[i] : BUCKETS[BUCKETS.length - 1];
+        }
+        return BUCKETS[BUCKETS.length - 1];
+    }
+}
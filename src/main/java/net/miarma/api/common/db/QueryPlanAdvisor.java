@@ -0,0 +1,248 @@
+package net.miarma.api.common.db;
+
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.Tuple;
+import net.miarma.api.common.ConfigManager;
+import net.miarma.api.common.Constants;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Muestreo de planes de ejecución y sugerencia de índices.
+ * <p>
+ * Tras una fracción {@code db.explain.sampleRate} de las consultas ejecutadas con
+ * {@link QueryBuilder} (0 por defecto, desactivado; por ejemplo 0.01 para una de cada cien)
+ * se lanza en segundo plano un {@code EXPLAIN} de la misma sentencia con los mismos
+ * parámetros. Cada huella ({@link QueryMetrics#fingerprint(String)}) se analiza como mucho
+ * una vez cada {@code db.explain.minIntervalSeconds} segundos (300 por defecto) y nunca
+ * con dos {@code EXPLAIN} a la vez.
+ * <p>
+ * Se marcan los planes que recorren una tabla entera ({@code type=ALL}) o un índice entero
+ * ({@code type=index}), y los que ordenan en memoria o usan tablas temporales. Para ellos
+ * se sugiere un índice con las columnas comparadas por igualdad en el WHERE seguidas de la
+ * de ordenación (o, si no se ordena, de la primera comparada por rango). Es solo una pista:
+ * en las vistas hay que trasladarlo a la tabla base que aparece en el plan.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public final class QueryPlanAdvisor {
+
+    private static final int MAX_FINGERPRINTS = 1024;
+
+    private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*(SELECT|UPDATE|DELETE)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE = Pattern.compile("\\b(?:FROM|UPDATE)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE = Pattern.compile("\\bWHERE\\s+(.*?)(?:\\s+ORDER BY\\b|\\s+LIMIT\\b|\\s+FOR UPDATE\\b|$)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ORDER_BY = Pattern.compile("\\bORDER BY\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern EQUALITY = Pattern.compile("\\b(\\w+)\\s*(?:=|\\bIN\\b|\\bIS\\b)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern RANGE = Pattern.compile("\\b(\\w+)\\s*(?:[<>]=?|\\bLIKE\\b|\\bBETWEEN\\b)", Pattern.CASE_INSENSITIVE);
+
+    private static final Map<String, PlanStats> PLANS = new ConcurrentHashMap<>();
+
+    private QueryPlanAdvisor() {}
+
+    /**
+     * Último plan conocido de una huella.
+     */
+    private static final class PlanStats {
+        private final LongAdder samples = new LongAdder();
+        private final AtomicLong lastSampled = new AtomicLong();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile Analysis analysis;
+    }
+
+    private record Analysis(List<String> issues, List<String> tables, long estimatedRows, String suggestedIndex,
+                            List<Map<String, Object>> plan, LocalDateTime sampledAt) {}
+
+    /**
+     * Resumen del plan de una huella.
+     *
+     * @param fingerprint    SQL normalizado
+     * @param executions     ejecuciones anotadas en {@link QueryMetrics}
+     * @param samples        veces que se ha analizado
+     * @param issues         problemas del último plan ({@code FULL_SCAN tabla}, {@code FULL_INDEX_SCAN tabla},
+     *                       {@code FILESORT}, {@code TEMPORARY}); vacío si no hay ninguno
+     * @param tables         tablas que aparecen en el plan
+     * @param estimatedRows  filas que el optimizador espera examinar (el máximo de las del plan)
+     * @param suggestedIndex índice sugerido, o null si no hay problemas o no se deduce ninguno
+     * @param plan           filas del último {@code EXPLAIN}
+     * @param sampledAt      momento del último análisis
+     */
+    public record PlanReport(String fingerprint, long executions, long samples, List<String> issues,
+                             List<String> tables, long estimatedRows, String suggestedIndex,
+                             List<Map<String, Object>> plan, LocalDateTime sampledAt) {}
+
+    /**
+     * Decide si analizar esta ejecución y, si toca, lanza el {@code EXPLAIN} sin esperar
+     * a su resultado.
+     *
+     * @param client pool sobre el que lanzar el {@code EXPLAIN}
+     * @param sql    SQL ejecutado
+     * @param params parámetros con los que se ejecutó
+     */
+    static void maybeSample(SqlClient client, String sql, Tuple params) {
+        double rate = sampleRate();
+        if (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate) return;
+        if (!EXPLAINABLE.matcher(sql).lookingAt()) return;
+
+        String fingerprint = QueryMetrics.fingerprint(sql);
+        PlanStats stats = PLANS.get(fingerprint);
+        if (stats == null) {
+            if (PLANS.size() >= MAX_FINGERPRINTS) return;
+            stats = PLANS.computeIfAbsent(fingerprint, _ -> new PlanStats());
+        }
+
+        long now = System.currentTimeMillis();
+        long minInterval = ConfigManager.getInstance().getIntProperty("db.explain.minIntervalSeconds", 300) * 1000L;
+        long last = stats.lastSampled.get();
+        if ((last > 0 && now - last < minInterval) || !stats.running.compareAndSet(false, true)) return;
+        stats.lastSampled.set(now);
+
+        PlanStats target = stats;
+        client.preparedQuery("EXPLAIN " + sql).execute(params).onComplete(ar -> {
+            target.running.set(false);
+            if (ar.failed()) {
+                Constants.LOGGER.warn("[QueryPlan] No se pudo analizar \"{}\": {}", fingerprint, ar.cause().getMessage());
+                return;
+            }
+            target.samples.increment();
+            target.analysis = analyze(fingerprint, ar.result());
+            if (!target.analysis.issues().isEmpty()) {
+                Constants.LOGGER.warn("[QueryPlan] issues={} rows={} suggest=\"{}\" sql=\"{}\"",
+                        target.analysis.issues(), target.analysis.estimatedRows(),
+                        target.analysis.suggestedIndex(), fingerprint);
+            }
+        });
+    }
+
+    /**
+     * Planes analizados: primero los que tienen problemas, de mayor a menor coste
+     * (ejecuciones por filas examinadas).
+     */
+    public static List<PlanReport> report() {
+        List<PlanReport> result = new ArrayList<>();
+        PLANS.forEach((fingerprint, stats) -> {
+            Analysis analysis = stats.analysis;
+            if (analysis == null) return;
+            result.add(new PlanReport(
+                    fingerprint,
+                    QueryMetrics.executions(fingerprint),
+                    stats.samples.sum(),
+                    analysis.issues(),
+                    analysis.tables(),
+                    analysis.estimatedRows(),
+                    analysis.suggestedIndex(),
+                    analysis.plan(),
+                    analysis.sampledAt()
+            ));
+        });
+        result.sort(Comparator
+                .comparing((PlanReport r) -> r.issues().isEmpty())
+                .thenComparing(Comparator.comparingDouble(
+                        (PlanReport r) -> (double) r.executions() * Math.max(1, r.estimatedRows())).reversed()));
+        return result;
+    }
+
+    /**
+     * Borra todos los planes analizados.
+     */
+    public static void reset() {
+        PLANS.clear();
+    }
+
+    private static Analysis analyze(String fingerprint, RowSet<Row> rows) {
+        List<Map<String, Object>> plan = new ArrayList<>();
+        Set<String> issues = new LinkedHashSet<>();
+        Set<String> tables = new LinkedHashSet<>();
+        long estimatedRows = 0;
+        boolean filesort = false;
+
+        for (Row row : rows) {
+            Map<String, Object> step = new LinkedHashMap<>();
+            for (int i = 0; i < row.size(); i++) {
+                step.put(row.getColumnName(i), row.getValue(i) instanceof Number n ? n : String.valueOf(row.getValue(i)));
+            }
+            plan.add(step);
+
+            String table = text(step.get("table"));
+            String type = text(step.get("type"));
+            String extra = text(step.get("Extra"));
+            if (step.get("rows") instanceof Number n) estimatedRows = Math.max(estimatedRows, n.longValue());
+            if (table != null) tables.add(table);
+
+            if ("ALL".equalsIgnoreCase(type)) issues.add("FULL_SCAN " + table);
+            if ("index".equalsIgnoreCase(type)) issues.add("FULL_INDEX_SCAN " + table);
+            if (extra != null && extra.contains("Using filesort")) {
+                issues.add("FILESORT");
+                filesort = true;
+            }
+            if (extra != null && extra.contains("Using temporary")) issues.add("TEMPORARY");
+        }
+
+        String suggestion = issues.isEmpty() ? null : suggestIndex(fingerprint, filesort);
+        return new Analysis(List.copyOf(issues), List.copyOf(tables), estimatedRows, suggestion, plan,
+                LocalDateTime.now());
+    }
+
+    /**
+     * Índice con las columnas del WHERE comparadas por igualdad y, detrás, la de ordenación si
+     * el plan ordena en memoria o, si no, la primera comparada por rango.
+     */
+    static String suggestIndex(String sql, boolean filesort) {
+        Matcher table = TABLE.matcher(sql);
+        if (!table.find()) return null;
+
+        Set<String> columns = new LinkedHashSet<>();
+        String range = null;
+        Matcher where = WHERE.matcher(sql);
+        if (where.find()) {
+            String conditions = where.group(1);
+            Matcher equality = EQUALITY.matcher(conditions);
+            while (equality.find()) columns.add(equality.group(1));
+            Matcher ranges = RANGE.matcher(conditions);
+            if (ranges.find()) range = ranges.group(1);
+        }
+
+        Matcher order = ORDER_BY.matcher(sql);
+        if (filesort && order.find()) {
+            columns.add(order.group(1));
+        } else if (range != null) {
+            columns.add(range);
+        }
+        if (columns.isEmpty()) return null;
+
+        String name = table.group(1);
+        return "CREATE INDEX idx_" + name + "_" + String.join("_", columns)
+                + " ON " + name + " (" + String.join(", ", columns) + ")";
+    }
+
+    private static String text(Object value) {
+        return value == null || "null".equals(value) ? null : value.toString();
+    }
+
+    private static double sampleRate() {
+        String rate = ConfigManager.getInstance().getStringProperty("db.explain.sampleRate");
+        if (rate == null || rate.isBlank()) return 0;
+        try {
+            return Double.parseDouble(rate.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
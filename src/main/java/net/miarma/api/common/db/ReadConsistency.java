@@ -0,0 +1,120 @@
+package net.miarma.api.common.db;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.ext.web.RoutingContext;
+import net.miarma.api.common.ConfigManager;
+import net.miarma.api.common.security.JWTManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decide si las lecturas de la petición en curso pueden ir a una réplica o deben ir al primario.
+ * <p>
+ * Una petición queda "pegada al primario" cuando:
+ * <ul>
+ *     <li>es una escritura (POST, PUT, PATCH o DELETE), o ya ha escrito algo en la base de datos</li>
+ *     <li>trae la cabecera {@code X-Read-Primary: true}</li>
+ *     <li>la hace un usuario que escribió hace menos de {@code db.replica.stickyMs} milisegundos
+ *     (5000 por defecto), para que vea su propio cambio aunque la réplica vaya con retraso</li>
+ * </ul>
+ * La marca se guarda en los datos locales del contexto duplicado de la petición, así que no
+ * se mezcla con otras peticiones del mismo event loop. Al enviar un mensaje por el event bus
+ * viaja como cabecera y se vuelve a marcar en el verticle que lo recibe (ver {@link #install(Vertx)}).
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public class ReadConsistency {
+
+    public static final String PRIMARY_HEADER = "X-Read-Primary";
+
+    private static final String LOCAL_KEY = "db.primary";
+    private static final String EVENT_BUS_HEADER = "db-primary";
+    private static final Map<Integer, Long> RECENT_WRITERS = new ConcurrentHashMap<>();
+
+    private ReadConsistency() {}
+
+    /**
+     * Registra los interceptores del event bus que propagan la marca entre verticles.
+     * Debe llamarse una vez al arrancar.
+     *
+     * @param vertx instancia de Vert.x
+     */
+    public static void install(Vertx vertx) {
+        vertx.eventBus().addOutboundInterceptor(delivery -> {
+            if (isPrimary()) {
+                delivery.message().headers().set(EVENT_BUS_HEADER, "true");
+            }
+            delivery.next();
+        });
+        vertx.eventBus().addInboundInterceptor(delivery -> {
+            if ("true".equals(delivery.message().headers().get(EVENT_BUS_HEADER))) {
+                markPrimary();
+            }
+            delivery.next();
+        });
+    }
+
+    /**
+     * Middleware que marca la petición según su método, sus cabeceras y las escrituras
+     * recientes del usuario autenticado.
+     *
+     * @return el handler a montar en el router
+     */
+    public static Handler<RoutingContext> handler() {
+        return ctx -> {
+            HttpMethod method = ctx.request().method();
+            boolean write = method == HttpMethod.POST || method == HttpMethod.PUT
+                    || method == HttpMethod.PATCH || method == HttpMethod.DELETE;
+            int userId = userId(ctx);
+
+            if (write) {
+                markPrimary();
+                if (userId > 0) RECENT_WRITERS.put(userId, System.currentTimeMillis());
+            } else if ("true".equalsIgnoreCase(ctx.request().getHeader(PRIMARY_HEADER)) || wroteRecently(userId)) {
+                markPrimary();
+            }
+            ctx.next();
+        };
+    }
+
+    /**
+     * Marca la petición en curso para que el resto de sus lecturas vayan al primario.
+     * Fuera de una petición (contexto no duplicado) no hace nada.
+     */
+    public static void markPrimary() {
+        Context context = Vertx.currentContext();
+        if (context instanceof ContextInternal internal && internal.isDuplicate()) {
+            context.putLocal(LOCAL_KEY, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Indica si la petición en curso debe leer del primario.
+     */
+    public static boolean isPrimary() {
+        Context context = Vertx.currentContext();
+        return context != null && Boolean.TRUE.equals(context.getLocal(LOCAL_KEY));
+    }
+
+    private static boolean wroteRecently(int userId) {
+        if (userId <= 0) return false;
+        Long lastWrite = RECENT_WRITERS.get(userId);
+        if (lastWrite == null) return false;
+
+        long window = ConfigManager.getInstance().getIntProperty("db.replica.stickyMs", 5000);
+        if (System.currentTimeMillis() - lastWrite < window) return true;
+        RECENT_WRITERS.remove(userId, lastWrite);
+        return false;
+    }
+
+    private static int userId(RoutingContext ctx) {
+        String authHeader = ctx.request().getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) return -1;
+        return JWTManager.getInstance().getUserId(authHeader.substring(7));
+    }
+}
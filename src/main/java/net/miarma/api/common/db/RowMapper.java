@@ -0,0 +1,268 @@
+package net.miarma.api.common.db;
+
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.data.Numeric;
+import net.miarma.api.common.Constants;
+import net.miarma.api.common.ValuableEnumRegistry;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Conversor precompilado de {@link Row} a entidad.
+ * <p>
+ * Se construye una única vez por clase (ver {@link #of(Class)}) a partir de su
+ * {@link EntityMetadata}: los setters ({@link MethodHandle}) y los conversores de
+ * enums (con {@link ValuableEnumRegistry}) se resuelven al crear el mapper, de modo que convertir una fila solo consiste en
+ * leer cada columna por índice y asignarla. Los índices de columna se resuelven
+ * una vez por {@link RowSet}, no una vez por fila.
+ * <p>
+ * Las columnas que no vienen en el resultado se ignoran y el campo queda a null.
+ *
+ * @param <T> tipo de la entidad
+ * @author José Manuel Amador Gallardo
+ */
+public final class RowMapper<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<RowMapper<?>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected RowMapper<?> computeValue(Class<?> type) {
+            return new RowMapper<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final MethodHandle rowConstructor;
+    private final Column[] columns;
+
+    /**
+     * Lee el valor de una columna ya convertido al tipo del campo.
+     */
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(Row row, int index);
+    }
+
+    private record Column(String name, MethodHandle setter, ColumnReader reader) {}
+
+    private RowMapper(Class<T> type) {
+        this.type = type;
+        this.constructor = AbstractEntity.class.isAssignableFrom(type) ? findConstructor(type) : null;
+        this.rowConstructor = constructor == null ? findRowConstructor(type) : null;
+        this.columns = constructor != null ? resolveColumns(type) : new Column[0];
+    }
+
+    /**
+     * Devuelve el mapper de la clase dada, creándolo la primera vez que se pide.
+     *
+     * @param type clase de la entidad
+     * @return el mapper compartido para esa clase
+     * @param <T> tipo de la entidad
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> of(Class<T> type) {
+        return (RowMapper<T>) MAPPERS.get(type);
+    }
+
+    /**
+     * Convierte todas las filas de un resultado.
+     *
+     * @param rows resultado de la consulta
+     * @return lista de entidades, en el orden del resultado
+     */
+    public List<T> mapAll(RowSet<Row> rows) {
+        List<T> results = new ArrayList<>(rows.size());
+        if (rows.size() == 0) return results;
+
+        int[] indexes = resolveIndexes(rows.columnsNames());
+        for (Row row : rows) {
+            T entity = newInstance(row, indexes);
+            if (entity != null) results.add(entity);
+        }
+        return results;
+    }
+
+    /**
+     * Convierte la primera fila de un resultado.
+     *
+     * @param rows resultado de la consulta
+     * @return la entidad, o null si no hay filas
+     */
+    public T mapFirst(RowSet<Row> rows) {
+        if (rows.size() == 0) return null;
+        int[] indexes = resolveIndexes(rows.columnsNames());
+        return newInstance(rows.iterator().next(), indexes);
+    }
+
+    /**
+     * Convierte una fila suelta. Resuelve los índices de columna para esa fila,
+     * así que para resultados completos es preferible {@link #mapAll(RowSet)}.
+     *
+     * @param row fila a convertir
+     * @return la entidad
+     */
+    public T map(Row row) {
+        return newInstance(row, resolveIndexes(row));
+    }
+
+    /**
+     * Devuelve un conversor para las filas de un mismo resultado leído fila a fila
+     * (por ejemplo un {@link io.vertx.sqlclient.RowStream}). Los índices de columna se
+     * resuelven con la primera fila y se reutilizan para las demás.
+     *
+     * @return función que convierte cada fila del resultado
+     */
+    public Function<Row, T> mapper() {
+        int[][] indexes = new int[1][];
+        return row -> {
+            if (indexes[0] == null) indexes[0] = resolveIndexes(row);
+            return newInstance(row, indexes[0]);
+        };
+    }
+
+    /**
+     * Rellena una instancia ya creada con los valores de la fila.
+     *
+     * @param target entidad a rellenar
+     * @param row    fila de la que leer los valores
+     */
+    public void populate(Object target, Row row) {
+        populate(target, row, resolveIndexes(row));
+    }
+
+    private T newInstance(Row row, int[] indexes) {
+        try {
+            if (constructor == null) {
+                return type.cast(rowConstructor.invoke(row));
+            }
+            Object entity = constructor.invoke();
+            populate(entity, row, indexes);
+            return type.cast(entity);
+        } catch (Throwable e) {
+            Constants.LOGGER.error("Error instantiating class: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void populate(Object target, Row row, int[] indexes) {
+        for (int i = 0; i < columns.length; i++) {
+            int index = indexes[i];
+            if (index < 0) continue;
+
+            Column column = columns[i];
+            try {
+                column.setter().invoke(target, column.reader().read(row, index));
+            } catch (Throwable e) {
+                Constants.LOGGER.error("Error populating field {}: {}", column.name(), e.getMessage());
+            }
+        }
+    }
+
+    private int[] resolveIndexes(List<String> columnNames) {
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indexes[i] = columnNames != null ? columnNames.indexOf(columns[i].name()) : -1;
+        }
+        return indexes;
+    }
+
+    private int[] resolveIndexes(Row row) {
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indexes[i] = row.getColumnIndex(columns[i].name());
+        }
+        return indexes;
+    }
+
+    private static MethodHandle findConstructor(Class<?> type) {
+        try {
+            Constructor<?> ctor = type.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle findRowConstructor(Class<?> type) {
+        try {
+            Constructor<?> ctor = type.getConstructor(Row.class);
+            return LOOKUP.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class, Row.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Class " + type.getName() + " cannot be built from a Row", e);
+        }
+    }
+
+    private static Column[] resolveColumns(Class<?> type) {
+        List<Column> columns = new ArrayList<>();
+        for (EntityMetadata.Column column : EntityMetadata.of(type).getColumns()) {
+            ColumnReader reader = readerFor(column.type());
+            if (reader == null) {
+                Constants.LOGGER.error("Type not supported yet: {} for field {}", column.type().getName(), column.name());
+                continue;
+            }
+            columns.add(new Column(column.name(), column.setter(), reader));
+        }
+        return columns.toArray(new Column[0]);
+    }
+
+    private static ColumnReader readerFor(Class<?> type) {
+        if (ValuableEnumRegistry.supports(type)) {
+            // valores desconocidos quedan a null, igual que cuando fromInt lanzaba
+            return (row, index) -> {
+                Integer value = row.getInteger(index);
+                return value != null ? ValuableEnumRegistry.find(type, value) : null;
+            };
+        }
+        if (type.isEnum()) {
+            MethodHandle fromInt = findFromInt(type);
+            if (fromInt == null) return null;
+            return (row, index) -> {
+                Integer value = row.getInteger(index);
+                if (value == null) return null;
+                try {
+                    return fromInt.invoke((int) value);
+                } catch (Throwable e) {
+                    return null;
+                }
+            };
+        }
+
+        if (type == Integer.class || type == int.class) return Row::getInteger;
+        if (type == String.class) return Row::getString;
+        if (type == Double.class || type == double.class) return Row::getDouble;
+        if (type == Long.class || type == long.class) return Row::getLong;
+        if (type == Boolean.class || type == boolean.class) return Row::getBoolean;
+        if (type == LocalDateTime.class) return Row::getLocalDateTime;
+        if (type == BigDecimal.class) {
+            return (row, index) -> switch (row.getValue(index)) {
+                case Numeric numeric -> numeric.bigDecimalValue();
+                case BigDecimal decimal -> decimal;
+                case Number number -> new BigDecimal(number.toString());
+                case null, default -> null;
+            };
+        }
+        return null;
+    }
+
+    private static MethodHandle findFromInt(Class<?> enumType) {
+        try {
+            return LOOKUP.findStatic(enumType, "fromInt", MethodType.methodType(enumType, int.class))
+                    .asType(MethodType.methodType(Object.class, int.class));
+        } catch (ReflectiveOperationException e) {
+            Constants.LOGGER.error("Enum {} has no static fromInt(int) method", enumType.getName());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package net.miarma.api.common.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import net.miarma.api.common.ValuableEnum;
+import net.miarma.api.common.ValuableEnumRegistry;
+import net.miarma.api.common.annotations.APIDontReturn;
+import net.miarma.api.common.db.AbstractEntity;
+import net.miarma.api.common.db.EntityMetadata;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fábrica de adaptadores para Gson que compila, una vez por clase, un lector y un escritor
+ * para cada entidad ({@link AbstractEntity}) a partir de su {@link EntityMetadata}.
+ * <p>
+ * En lugar del adaptador reflexivo de Gson, cada columna se lee y se escribe con los
+ * {@link MethodHandle} de los metadatos y con un escritor elegido según su tipo al compilar:
+ * textos, números y booleanos se escriben directamente, los {@link ValuableEnum} como su
+ * valor y las fechas en formato ISO. Al serializar:
+ * <ul>
+ *     <li>se omiten los campos anotados con {@link APIDontReturn}</li>
+ *     <li>si la entidad se leyó con una consulta parcial
+ *     ({@link AbstractEntity#getSelectedColumns()}), se omiten las columnas no leídas, sin
+ *     pasar por un árbol intermedio</li>
+ *     <li>los nulos se escriben o no según {@link JsonWriter#getSerializeNulls()}</li>
+ * </ul>
+ * Al leer, los campos desconocidos se ignoran, los {@link ValuableEnum} se resuelven con
+ * {@link ValuableEnumRegistry} y el resto de valores se convierte con el adaptador registrado
+ * en Gson para su tipo.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public class EntityTypeAdapterFactory implements TypeAdapterFactory {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * Escribe el valor (no nulo) de una columna.
+     */
+    @FunctionalInterface
+    private interface ValueWriter {
+        void write(JsonWriter out, Object value) throws IOException;
+    }
+
+    private record Property(String name, EntityMetadata.Column column, boolean hidden, boolean primitive,
+                            ValueWriter writer, TypeAdapter<?> reader) {}
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (!AbstractEntity.class.isAssignableFrom(raw) || raw == AbstractEntity.class) {
+            return null;
+        }
+
+        TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        MethodHandle constructor = findConstructor(raw);
+
+        Property[] properties = EntityMetadata.of(raw).getColumns().stream()
+                .map(column -> new Property(
+                        column.name(),
+                        column,
+                        column.field().isAnnotationPresent(APIDontReturn.class),
+                        column.type().isPrimitive(),
+                        writerFor(gson, column.type()),
+                        readerFor(gson, column.type())))
+                .toArray(Property[]::new);
+        Map<String, Property> byName = new HashMap<>();
+        for (Property property : properties) byName.put(property.name(), property);
+
+        return new TypeAdapter<>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                if (value == null) {
+                    out.nullValue();
+                    return;
+                }
+
+                Set<String> selected = ((AbstractEntity) value).getSelectedColumns();
+                out.beginObject();
+                for (Property property : properties) {
+                    if (property.hidden()) continue;
+                    if (selected != null && !selected.contains(property.name())) continue;
+
+                    Object fieldValue = property.column().get(value);
+                    out.name(property.name());
+                    if (fieldValue == null) out.nullValue();
+                    else property.writer().write(out, fieldValue);
+                }
+                out.endObject();
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                if (constructor == null) {
+                    return delegate.read(in);
+                }
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    return null;
+                }
+
+                T entity = newInstance(constructor, raw);
+                in.beginObject();
+                while (in.hasNext()) {
+                    Property property = byName.get(in.nextName());
+                    if (property == null) {
+                        in.skipValue();
+                        continue;
+                    }
+                    Object fieldValue = property.reader().read(in);
+                    if (fieldValue == null && property.primitive()) continue;
+                    property.column().set(entity, fieldValue);
+                }
+                in.endObject();
+                return entity;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ValueWriter writerFor(Gson gson, Class<?> type) {
+        if (type == String.class) return (out, value) -> out.value((String) value);
+        if (type == Boolean.class || type == boolean.class) return (out, value) -> out.value((Boolean) value);
+        if (type == Integer.class || type == int.class || type == Long.class || type == long.class
+                || type == Double.class || type == double.class || type == BigDecimal.class) {
+            return (out, value) -> out.value((Number) value);
+        }
+        if (ValuableEnum.class.isAssignableFrom(type)) return (out, value) -> out.value(((ValuableEnum) value).getValue());
+        if (type == LocalDateTime.class) {
+            return (out, value) -> out.value(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime) value));
+        }
+
+        TypeAdapter<Object> adapter = (TypeAdapter<Object>) gson.getAdapter(type);
+        return adapter::write;
+    }
+
+    private static TypeAdapter<?> readerFor(Gson gson, Class<?> type) {
+        if (!ValuableEnumRegistry.supports(type)) return gson.getAdapter(type);
+
+        return new TypeAdapter<Object>() {
+            @Override
+            public void write(JsonWriter out, Object value) throws IOException {
+                if (value == null) out.nullValue();
+                else out.value(((ValuableEnum) value).getValue());
+            }
+
+            @Override
+            public Object read(JsonReader in) throws IOException {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    return null;
+                }
+                int value = in.nextInt();
+                Object constant = ValuableEnumRegistry.find(type, value);
+                if (constant == null) {
+                    throw new JsonParseException("Invalid enum value: " + value);
+                }
+                return constant;
+            }
+        };
+    }
+
+    private static MethodHandle findConstructor(Class<?> type) {
+        try {
+            Constructor<?> ctor = type.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newInstance(MethodHandle constructor, Class<?> type) {
+        try {
+            return (T) constructor.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot instantiate " + type.getName(), e);
+        }
+    }
+}
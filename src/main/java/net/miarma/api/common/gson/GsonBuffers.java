@@ -0,0 +1,115 @@
+package net.miarma.api.common.gson;
+
+import io.vertx.core.buffer.Buffer;
+import net.miarma.api.common.Constants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serialización con {@link Constants#GSON} directamente sobre un {@link Buffer} de Vert.x,
+ * sin pasar por un {@link String} intermedio ni en la escritura ni en la lectura.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public final class GsonBuffers {
+
+    private GsonBuffers() {}
+
+    /**
+     * Serializa un objeto en un {@link Buffer} nuevo.
+     *
+     * @param value objeto a serializar
+     * @return el JSON en UTF-8
+     */
+    public static Buffer toBuffer(Object value) {
+        Buffer buffer = Buffer.buffer();
+        write(buffer, value);
+        return buffer;
+    }
+
+    /**
+     * Serializa un objeto al final de un {@link Buffer}.
+     *
+     * @param buffer buffer de destino
+     * @param value  objeto a serializar
+     */
+    public static void write(Buffer buffer, Object value) {
+        try (Writer writer = new OutputStreamWriter(new BufferOutputStream(buffer), StandardCharsets.UTF_8)) {
+            Constants.GSON.toJson(value, value != null ? value.getClass() : Object.class, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lee un objeto de un {@link Buffer} con JSON en UTF-8.
+     *
+     * @param buffer buffer a leer; si es null o está vacío se devuelve null
+     * @param type   clase del objeto
+     * @return el objeto leído
+     */
+    public static <T> T fromBuffer(Buffer buffer, Class<T> type) {
+        if (buffer == null || buffer.length() == 0) return null;
+        try (Reader reader = new InputStreamReader(new BufferInputStream(buffer), StandardCharsets.UTF_8)) {
+            return Constants.GSON.fromJson(reader, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class BufferInputStream extends InputStream {
+        private final Buffer buffer;
+        private int position;
+
+        private BufferInputStream(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return position < buffer.length() ? buffer.getByte(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) return 0;
+            int available = buffer.length() - position;
+            if (available <= 0) return -1;
+            int count = Math.min(length, available);
+            buffer.getBytes(position, position + count, bytes, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.length() - position;
+        }
+    }
+
+    private static final class BufferOutputStream extends OutputStream {
+        private final Buffer buffer;
+
+        private BufferOutputStream(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.appendByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            buffer.appendBytes(bytes, offset, length);
+        }
+    }
+}
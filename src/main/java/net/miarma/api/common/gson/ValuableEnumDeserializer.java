@@ -5,13 +5,14 @@ import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import net.miarma.api.common.ValuableEnum;
+import net.miarma.api.common.ValuableEnumRegistry;
 
 import java.lang.reflect.Type;
-import java.util.Arrays;
 
 /**
  * Deserializador de Gson para enumeraciones que implementan ValuableEnum.
- * Este deserializador convierte un valor entero en una instancia de la enumeración correspondiente.
+ * Este deserializador convierte un valor entero en una instancia de la enumeración correspondiente,
+ * buscándola en {@link ValuableEnumRegistry}.
  *
  * @author José Manuel Amador Gallardo
  */
@@ -22,9 +23,10 @@ public class ValuableEnumDeserializer implements JsonDeserializer<ValuableEnum>
         Class<?> enumClass = (Class<?>) typeOfT;
         int value = json.getAsInt();
 
-        return (ValuableEnum) Arrays.stream(enumClass.getEnumConstants())
-                .filter(e -> ((ValuableEnum) e).getValue() == value)
-                .findFirst()
-                .orElseThrow(() -> new JsonParseException("Invalid enum value: " + value));
+        Object constant = ValuableEnumRegistry.find(enumClass, value);
+        if (constant == null) {
+            throw new JsonParseException("Invalid enum value: " + value);
+        }
+        return (ValuableEnum) constant;
     }
 }
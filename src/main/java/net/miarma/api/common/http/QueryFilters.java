@@ -2,12 +2,25 @@ package net.miarma.api.common.http;
 
 import io.vertx.ext.web.RoutingContext;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Representa los filtros de consulta para una solicitud HTTP.
  * Esta clase encapsula los parámetros de ordenamiento, límite y desplazamiento
  * que se pueden aplicar a una consulta.
+ * <p>
+ * Además de {@code _offset} admite paginación por cursor: {@code _after} y
+ * {@code _before} reciben el cursor opaco que la respuesta anterior devolvió en las
+ * cabeceras {@code X-Next-Cursor} y {@code X-Prev-Cursor} (ver
+ * {@link net.miarma.api.common.db.Pagination}). Los filtros que llegan por HTTP
+ * ({@link #from(RoutingContext)}) quedan marcados como paginados, y a ellos se les
+ * aplica el tamaño de página por defecto y máximo de la entidad.
+ * <p>
+ * {@code _fields} limita las columnas devueltas a las indicadas, separadas por comas
+ * (por ejemplo {@code _fields=display_name,avatar}); ver
+ * {@link net.miarma.api.common.db.QueryBuilder#select(Class, QueryFilters, String...)}.
  *
  * @author José Manuel Amador Gallardo
  */
@@ -17,6 +30,10 @@ public class QueryFilters {
     private Optional<String> order = Optional.of("ASC");
     private Optional<Integer> limit = Optional.empty();
     private Optional<Integer> offset = Optional.empty();
+    private Optional<String> after = Optional.empty();
+    private Optional<String> before = Optional.empty();
+    private Optional<List<String>> fields = Optional.empty();
+    private boolean paged = false;
 
     public QueryFilters() {}
 
@@ -59,6 +76,48 @@ public class QueryFilters {
         this.offset = Optional.ofNullable(offset);
     }
 
+    public Optional<String> getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = Optional.ofNullable(after).filter(a -> !a.isBlank());
+    }
+
+    public Optional<String> getBefore() {
+        return before;
+    }
+
+    public void setBefore(String before) {
+        this.before = Optional.ofNullable(before).filter(b -> !b.isBlank());
+    }
+
+    public Optional<List<String>> getFields() {
+        return fields;
+    }
+
+    public void setFields(String fields) {
+        this.fields = Optional.ofNullable(fields)
+                .map(f -> Arrays.stream(f.split(","))
+                        .map(String::trim)
+                        .filter(name -> !name.isEmpty())
+                        .toList())
+                .filter(list -> !list.isEmpty());
+    }
+
+    /**
+     * Indica si estos filtros vienen de una petición HTTP y por tanto se les aplican
+     * los límites de página configurados. Los que se crean en el código para uso
+     * interno no están paginados y devuelven todas las filas.
+     */
+    public boolean isPaged() {
+        return paged;
+    }
+
+    public void setPaged(boolean paged) {
+        this.paged = paged;
+    }
+
     @Override
     public String toString() {
         return "QueryFilters{" +
@@ -66,6 +125,10 @@ public class QueryFilters {
                 ", order=" + order +
                 ", limit=" + limit +
                 ", offset=" + offset +
+                ", after=" + after +
+                ", before=" + before +
+                ", fields=" + fields +
+                ", paged=" + paged +
                 '}';
     }
 
@@ -75,6 +138,10 @@ public class QueryFilters {
 		filters.setOrder(ctx.request().getParam("_order"));
 		filters.setLimit(ctx.request().getParam("_limit") != null ? Integer.parseInt(ctx.request().getParam("_limit")) : null);
 		filters.setOffset(ctx.request().getParam("_offset") != null ? Integer.parseInt(ctx.request().getParam("_offset")) : null);
+		filters.setAfter(ctx.request().getParam("_after"));
+		filters.setBefore(ctx.request().getParam("_before"));
+		filters.setFields(ctx.request().getParam("_fields"));
+		filters.setPaged(true);
 		return filters;
 	}
 }
@@ -1,12 +1,13 @@
 package net.miarma.api.common.http;
 
 import io.vertx.ext.web.RoutingContext;
+import net.miarma.api.common.db.EntityMetadata;
+import net.miarma.api.common.db.Pagination;
 
-import java.lang.reflect.Field;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -52,12 +53,12 @@ public class QueryParams {
     }
     
     public static QueryParams filterForEntity(QueryParams original, Class<?> entityClass, String prefix) {
-        Set<String> validKeys = getFieldNames(entityClass);
+        EntityMetadata meta = EntityMetadata.of(entityClass);
 
         Map<String, String> filtered = original.getFilters().entrySet().stream()
             .filter(e -> {
                 String key = e.getKey();
-                return key.startsWith(prefix + ".") && validKeys.contains(key.substring(prefix.length() + 1));
+                return key.startsWith(prefix + ".") && meta.hasColumn(column(key.substring(prefix.length() + 1)));
             })
             .collect(Collectors.toMap(
                 e -> e.getKey().substring(prefix.length() + 1), // quitar el prefijo
@@ -67,12 +68,40 @@ public class QueryParams {
         return new QueryParams(filtered, original.getQueryFilters());
     }
 
+    /**
+     * Parámetros que cambian la respuesta de un listado de la entidad dada, en forma canónica,
+     * para usarlos como clave de {@link SnapshotStore}: los filtros sobre sus columnas, la
+     * ordenación, la página y los campos pedidos que existen. Lo demás no se incluye, así que
+     * añadir parámetros desconocidos o campos inválidos no crea claves nuevas.
+     *
+     * @param entityClass clase de la entidad listada
+     * @return la parte de la clave que corresponde a estos parámetros
+     */
+    public String snapshotKey(Class<?> entityClass) {
+        EntityMetadata meta = EntityMetadata.of(entityClass);
+        Map<String, String> key = new TreeMap<>();
+        filters.forEach((name, value) -> {
+            if (meta.hasColumn(column(name))) key.put(name, value);
+        });
+        queryFilters.getSort().filter(meta::hasColumn).ifPresent(sort -> key.put("_sort", sort));
+        key.put("_order", queryFilters.getOrder().map(o -> o.equalsIgnoreCase("asc")).orElse(true) ? "asc" : "desc");
+        Integer limit = Pagination.pageSize(meta, queryFilters);
+        if (limit != null) key.put("_limit", limit.toString());
+        queryFilters.getOffset().ifPresent(offset -> key.put("_offset", offset.toString()));
+        queryFilters.getAfter().ifPresent(after -> key.put("_after", after));
+        queryFilters.getBefore().ifPresent(before -> key.put("_before", before));
+        List<String> fields = queryFilters.getFields().orElse(List.of()).stream()
+                .filter(meta::hasColumn).distinct().sorted().toList();
+        if (!fields.isEmpty()) key.put("_fields", String.join(",", fields));
+        return key.toString();
+    }
 
-    
-    private static Set<String> getFieldNames(Class<?> clazz) {
-        return Arrays.stream(clazz.getDeclaredFields())
-            .map(Field::getName)
-            .collect(Collectors.toSet());
+    /**
+     * Nombre de la columna de un filtro, sin el operador ({@code amount[gte]} → {@code amount}).
+     */
+    public static String column(String key) {
+        int bracket = key.indexOf('[');
+        return bracket > 0 && key.endsWith("]") ? key.substring(0, bracket) : key;
     }
 
     @Override
@@ -0,0 +1,99 @@
+package net.miarma.api.common.http;
+
+import io.vertx.core.Future;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.ext.web.RoutingContext;
+import net.miarma.api.common.ConfigManager;
+import net.miarma.api.common.Constants;
+import net.miarma.api.common.db.CircuitBreaker;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Última respuesta buena de los endpoints de lectura que pueden seguir sirviéndose, algo
+ * desactualizados, mientras la base de datos no está disponible (ver {@link CircuitBreaker}).
+ * <p>
+ * Cada respuesta correcta de un endpoint envuelto con {@link #serve(RoutingContext, String, Supplier)}
+ * se guarda con la clave que indica quien lo llama, que debe incluir solo los parámetros que
+ * cambian la respuesta (no la query string entera). Si luego la lectura falla porque la base de datos no
+ * responde (un {@code 503}, o el verticle de datos no contesta a tiempo), se devuelve la guardada
+ * con las cabeceras {@link #STALE_HEADER}, {@code Age} (segundos desde que se guardó) y
+ * {@code Warning: 110}. Se guardan como mucho {@code db.snapshot.maxEntries} respuestas (256 por
+ * defecto), descartando la usada hace más tiempo al llegar al límite, y no se sirven las de más de {@code db.snapshot.maxAgeSeconds} segundos (3600 por
+ * defecto; 0 lo desactiva).
+ * <p>
+ * Solo deben usarlo endpoints públicos o iguales para todos los usuarios: la respuesta no se
+ * guarda por usuario.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public final class SnapshotStore {
+
+    public static final String STALE_HEADER = "X-Data-Stale";
+
+    private static final int MAX_ENTRIES =
+            Math.max(1, ConfigManager.getInstance().getIntProperty("db.snapshot.maxEntries", 256));
+
+    private static final Map<String, Snapshot> SNAPSHOTS = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            });
+
+    private record Snapshot(Object value, long storedAt) {}
+
+    private SnapshotStore() {}
+
+    /**
+     * Lee con {@code loader} y guarda el resultado; si falla por no haber base de datos,
+     * devuelve el último guardado y marca la respuesta como desactualizada.
+     *
+     * @param ctx    contexto de la petición, para las cabeceras
+     * @param key    clave de la respuesta: el nombre del endpoint más los parámetros que la cambian
+     * @param loader lectura normal del endpoint
+     * @return un {@link Future} con el resultado fresco o, si no hay base de datos, el guardado
+     * @param <T> tipo del resultado
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Future<T> serve(RoutingContext ctx, String key, Supplier<Future<T>> loader) {
+        ConfigManager config = ConfigManager.getInstance();
+        long maxAgeMillis = config.getIntProperty("db.snapshot.maxAgeSeconds", 3600) * 1000L;
+        if (maxAgeMillis <= 0) return loader.get();
+
+        return loader.get().onSuccess(value -> {
+            if (value != null) SNAPSHOTS.put(key, new Snapshot(value, System.currentTimeMillis()));
+        }).recover(err -> {
+            Snapshot snapshot = SNAPSHOTS.get(key);
+            long age = snapshot != null ? System.currentTimeMillis() - snapshot.storedAt() : Long.MAX_VALUE;
+            if (!isUnavailable(err) || age > maxAgeMillis) {
+                return Future.failedFuture(err);
+            }
+
+            Constants.LOGGER.warn("[Snapshot] Sirviendo {} con {} s de antigüedad: {}", key, age / 1000, err.getMessage());
+            ctx.response()
+                    .putHeader(STALE_HEADER, "true")
+                    .putHeader("Age", String.valueOf(age / 1000))
+                    .putHeader("Warning", "110 - \"Response is Stale\"");
+            return Future.succeededFuture((T) snapshot.value());
+        });
+    }
+
+    /**
+     * Indica si un error de lectura se debe a que la base de datos (o el verticle que la
+     * consulta) no está disponible.
+     */
+    private static boolean isUnavailable(Throwable err) {
+        if (err instanceof ReplyException re) {
+            return re.failureCode() == ApiStatus.SERVICE_UNAVAILABLE.getCode()
+                    || re.failureType() == ReplyFailure.TIMEOUT
+                    || re.failureType() == ReplyFailure.NO_HANDLERS;
+        }
+        return CircuitBreaker.isUnavailable(err);
+    }
+}
@@ -0,0 +1,18 @@
+package net.miarma.api.common.vertx;
+
+/**
+ * Respuesta del event bus que lleva una entidad, una lista de entidades o cualquier otro
+ * objeto tal cual, sin convertirlo antes a {@link io.vertx.core.json.JsonObject}.
+ * <p>
+ * Dentro de la misma JVM {@link EntityMessageCodec} entrega la misma referencia, así que la
+ * entidad solo se serializa una vez, al escribir la respuesta HTTP. Si el mensaje sale del
+ * nodo (event bus en cluster) se envía como JSON y al otro lado {@link #value()} es un
+ * {@link io.vertx.core.json.JsonObject}, un {@link io.vertx.core.json.JsonArray} o un valor simple.
+ * <p>
+ * Como emisor y receptor comparten el objeto, no debe modificarse después de responder.
+ *
+ * @param value objeto de la respuesta; puede ser null
+ * @author José Manuel Amador Gallardo
+ */
+public record EntityMessage(Object value) {
+}
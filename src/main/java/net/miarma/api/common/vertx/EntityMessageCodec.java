@@ -0,0 +1,66 @@
+package net.miarma.api.common.vertx;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.json.Json;
+import net.miarma.api.common.Constants;
+import net.miarma.api.common.gson.GsonBuffers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec de {@link EntityMessage} para el event bus.
+ * <p>
+ * En local ({@link #transform(EntityMessage)}) pasa la misma instancia, sin copiarla ni
+ * serializarla. Solo cuando el mensaje tiene que cruzar a otro nodo se codifica con
+ * {@link Constants#GSON}, de modo que se respetan {@code @APIDontReturn} y los enums con valor
+ * igual que en las respuestas HTTP.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public class EntityMessageCodec implements MessageCodec<EntityMessage, EntityMessage> {
+
+    public static final String NAME = "entity-message";
+
+    /**
+     * Registra el codec como el de por defecto para {@link EntityMessage}. Debe llamarse una
+     * vez al arrancar.
+     *
+     * @param vertx instancia de Vert.x
+     */
+    public static void install(Vertx vertx) {
+        vertx.eventBus().registerDefaultCodec(EntityMessage.class, new EntityMessageCodec());
+    }
+
+    @Override
+    public void encodeToWire(Buffer buffer, EntityMessage message) {
+        // se reserva la longitud y se rellena cuando se sabe cuánto ocupa el JSON
+        int start = buffer.length();
+        buffer.appendInt(0);
+        GsonBuffers.write(buffer, message.value());
+        buffer.setInt(start, buffer.length() - start - 4);
+    }
+
+    @Override
+    public EntityMessage decodeFromWire(int pos, Buffer buffer) {
+        int length = buffer.getInt(pos);
+        String json = buffer.getString(pos + 4, pos + 4 + length, StandardCharsets.UTF_8.name());
+        return new EntityMessage(Json.decodeValue(json));
+    }
+
+    @Override
+    public EntityMessage transform(EntityMessage message) {
+        return message;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+}
@@ -5,11 +5,13 @@ import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
+import net.miarma.api.common.db.EntityStream;
 import net.miarma.api.common.db.QueryBuilder;
 import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.core.entities.FileEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -29,10 +31,9 @@ public class FileDAO implements DataAccessObject<FileEntity, Integer> {
     @Override
     public Future<FileEntity> getById(Integer id) {
         Promise<FileEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(FileEntity.class)
-                .where(Map.of("file_id", id.toString()))
-                .build();
+                .where(Map.of("file_id", id.toString()));
 
         db.executeOne(query, FileEntity.class,
                 promise::complete,
@@ -42,15 +43,31 @@ public class FileDAO implements DataAccessObject<FileEntity, Integer> {
         return promise.future();
     }
 
-    public Future<List<FileEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<FileEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
         Promise<List<FileEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(FileEntity.class)
+                .whereIn("file_id", ids);
+
+        db.execute(query, FileEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<FileEntity>> getAll(QueryParams params) {
+        Promise<List<FileEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(FileEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, FileEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -60,12 +77,20 @@ public class FileDAO implements DataAccessObject<FileEntity, Integer> {
         return promise.future();
     }
 
+    public Future<EntityStream<FileEntity>> stream(QueryParams params) {
+        QueryBuilder query = QueryBuilder
+                .select(FileEntity.class, params.getQueryFilters())
+                .where(params.getFilters())
+                .page(params.getQueryFilters());
+
+        return db.stream(query, FileEntity.class);
+    }
+
     public Future<List<FileEntity>> getUserFiles(Integer userId) {
         Promise<List<FileEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(FileEntity.class)
-                .where(Map.of("uploaded_by", userId.toString()))
-                .build();
+                .where(Map.of("uploaded_by", userId.toString()));
 
         db.execute(query, FileEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -78,7 +103,7 @@ public class FileDAO implements DataAccessObject<FileEntity, Integer> {
     @Override
     public Future<FileEntity> insert(FileEntity file) {
         Promise<FileEntity> promise = Promise.promise();
-        String query = QueryBuilder.insert(file).build();
+        QueryBuilder query = QueryBuilder.insert(file);
 
         db.executeOne(query, FileEntity.class,
                 promise::complete,
@@ -91,7 +116,7 @@ public class FileDAO implements DataAccessObject<FileEntity, Integer> {
     @Override
     public Future<FileEntity> upsert(FileEntity file, String... conflictKeys) {
         Promise<FileEntity> promise = Promise.promise();
-        String query = QueryBuilder.upsert(file, conflictKeys).build();
+        QueryBuilder query = QueryBuilder.upsert(file, conflictKeys);
 
         db.executeOne(query, FileEntity.class,
                 promise::complete,
@@ -104,7 +129,7 @@ public class FileDAO implements DataAccessObject<FileEntity, Integer> {
     @Override
     public Future<FileEntity> update(FileEntity file) {
         Promise<FileEntity> promise = Promise.promise();
-        String query = QueryBuilder.update(file).build();
+        QueryBuilder query = QueryBuilder.update(file);
 
         db.executeOne(query, FileEntity.class,
                 promise::complete,
@@ -117,13 +142,115 @@ public class FileDAO implements DataAccessObject<FileEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(FileEntity.class)
-                .where(Map.of("file_id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(FileEntity.class)
+                .where(Map.of("file_id", id.toString()));
 
-        db.executeOne(query, FileEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(FileEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(FileEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .updateWhere(FileEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .deleteWhere(FileEntity.class, filters);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> insertAll(List<FileEntity> files) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = files.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<FileEntity> files, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = files.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<FileEntity> files) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = files.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
                 promise::fail
         );
 
@@ -136,7 +263,7 @@ public class FileDAO implements DataAccessObject<FileEntity, Integer> {
         FileEntity file = new FileEntity();
         file.setFile_id(id);
 
-        String query = QueryBuilder.delete(file).build();
+        QueryBuilder query = QueryBuilder.delete(file);
 
         db.executeOne(query, FileEntity.class,
                 result -> promise.complete(result != null),
@@ -3,19 +3,23 @@ package net.miarma.api.microservices.core.dao;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
+import net.miarma.api.common.db.EntityCache;
 import net.miarma.api.common.db.QueryBuilder;
 import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.core.entities.UserEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 public class UserDAO implements DataAccessObject<UserEntity, Integer> {
 
     private final DatabaseManager db;
+    private final EntityCache<UserEntity> cache = EntityCache.of(UserEntity.class);
 
     public UserDAO(Pool pool) {
         this.db = DatabaseManager.getInstance(pool);
@@ -28,11 +32,14 @@ public class UserDAO implements DataAccessObject<UserEntity, Integer> {
 
     @Override
     public Future<UserEntity> getById(Integer id) {
+        return cache.get(id, () -> loadById(id));
+    }
+
+    private Future<UserEntity> loadById(Integer id) {
         Promise<UserEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(UserEntity.class)
-                .where(Map.of("user_id", id.toString()))
-                .build();
+                .where(Map.of("user_id", id.toString()));
 
         db.executeOne(query, UserEntity.class,
                 promise::complete,
@@ -42,15 +49,35 @@ public class UserDAO implements DataAccessObject<UserEntity, Integer> {
         return promise.future();
     }
 
-    public Future<List<UserEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<UserEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
+        return cache.getAll(ids, this::loadByIds, UserEntity::getUser_id);
+    }
+
+    private Future<List<UserEntity>> loadByIds(Collection<Integer> ids) {
         Promise<List<UserEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(UserEntity.class)
+                .whereIn("user_id", ids);
+
+        db.execute(query, UserEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<UserEntity>> getAll(QueryParams params) {
+        Promise<List<UserEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(UserEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, UserEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -61,11 +88,14 @@ public class UserDAO implements DataAccessObject<UserEntity, Integer> {
     }
 
     public Future<UserEntity> getByEmail(String email) {
+        return cache.get("email:" + email, () -> loadByEmail(email));
+    }
+
+    private Future<UserEntity> loadByEmail(String email) {
         Promise<UserEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(UserEntity.class)
-                .where(Map.of("email", email))
-                .build();
+                .where(Map.of("email", email));
 
         db.executeOne(query, UserEntity.class,
                 promise::complete,
@@ -76,11 +106,14 @@ public class UserDAO implements DataAccessObject<UserEntity, Integer> {
     }
 
     public Future<UserEntity> getByUserName(String userName) {
+        return cache.get("user_name:" + userName, () -> loadByUserName(userName));
+    }
+
+    private Future<UserEntity> loadByUserName(String userName) {
         Promise<UserEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(UserEntity.class)
-                .where(Map.of("user_name", userName))
-                .build();
+                .where(Map.of("user_name", userName));
 
         db.executeOne(query, UserEntity.class,
                 promise::complete,
@@ -93,7 +126,7 @@ public class UserDAO implements DataAccessObject<UserEntity, Integer> {
     @Override
     public Future<UserEntity> insert(UserEntity user) {
         Promise<UserEntity> promise = Promise.promise();
-        String query = QueryBuilder.insert(user).build();
+        QueryBuilder query = QueryBuilder.insert(user);
 
         db.executeOne(query, UserEntity.class,
                 promise::complete,
@@ -103,10 +136,22 @@ public class UserDAO implements DataAccessObject<UserEntity, Integer> {
         return promise.future();
     }
 
+    public Future<UserEntity> insert(UserEntity user, SqlConnection conn) {
+        Promise<UserEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.insert(user);
+
+        db.executeOne(conn, query, UserEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<UserEntity> upsert(UserEntity userEntity, String... conflictKeys) {
         Promise<UserEntity> promise = Promise.promise();
-        String query = QueryBuilder.upsert(userEntity, conflictKeys).build();
+        QueryBuilder query = QueryBuilder.upsert(userEntity, conflictKeys);
 
         db.executeOne(query, UserEntity.class,
                 promise::complete,
@@ -119,7 +164,7 @@ public class UserDAO implements DataAccessObject<UserEntity, Integer> {
     @Override
     public Future<UserEntity> update(UserEntity user) {
         Promise<UserEntity> promise = Promise.promise();
-        String query = QueryBuilder.update(user).build();
+        QueryBuilder query = QueryBuilder.update(user);
 
         db.executeOne(query, UserEntity.class,
                 _ -> promise.complete(user),
@@ -129,13 +174,70 @@ public class UserDAO implements DataAccessObject<UserEntity, Integer> {
         return promise.future();
     }
 
+    public Future<UserEntity> update(UserEntity user, SqlConnection conn) {
+        Promise<UserEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.update(user);
+
+        db.executeOne(conn, query, UserEntity.class,
+                _ -> promise.complete(user),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> insertAll(List<UserEntity> users) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = users.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<UserEntity> users, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = users.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<UserEntity> users) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = users.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         UserEntity user = new UserEntity();
         user.setUser_id(id);
 
-        String query = QueryBuilder.delete(user).build();
+        QueryBuilder query = QueryBuilder.delete(user);
 
         db.executeOne(query, UserEntity.class,
                 result -> promise.complete(result != null),
@@ -145,16 +247,88 @@ public class UserDAO implements DataAccessObject<UserEntity, Integer> {
         return promise.future();
     }
 
+    public Future<Boolean> delete(Integer id, SqlConnection conn) {
+        Promise<Boolean> promise = Promise.promise();
+        UserEntity user = new UserEntity();
+        user.setUser_id(id);
+
+        QueryBuilder query = QueryBuilder.delete(user);
+
+        db.executeOne(conn, query, UserEntity.class,
+                result -> promise.complete(result != null),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(UserEntity.class)
-                .where(Map.of("user_id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(UserEntity.class)
+                .where(Map.of("user_id", id.toString()));
 
-        db.executeOne(query, UserEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(UserEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(UserEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .updateWhere(UserEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .deleteWhere(UserEntity.class, filters);
+
+        db.executeUpdate(query,
+                promise::complete,
                 promise::fail
         );
 
@@ -0,0 +1,18 @@
+package net.miarma.api.microservices.core.handlers;
+
+import io.vertx.ext.web.RoutingContext;
+import net.miarma.api.common.bus.ActionDispatcher;
+import net.miarma.api.common.http.ApiStatus;
+import net.miarma.api.util.JsonUtil;
+
+public class BusAdminHandler {
+
+	public void getActions(RoutingContext ctx) {
+		JsonUtil.sendJson(ctx, ApiStatus.OK, ActionDispatcher.getStats());
+	}
+
+	public void resetActions(RoutingContext ctx) {
+		ActionDispatcher.resetStats();
+		JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null);
+	}
+}
@@ -0,0 +1,43 @@
+package net.miarma.api.microservices.core.handlers;
+
+import io.vertx.ext.web.RoutingContext;
+import net.miarma.api.common.db.EntityCache;
+import net.miarma.api.common.db.PoolRegistry;
+import net.miarma.api.common.db.QueryMetrics;
+import net.miarma.api.common.db.QueryPlanAdvisor;
+import net.miarma.api.common.http.ApiStatus;
+import net.miarma.api.util.JsonUtil;
+
+public class DatabaseAdminHandler {
+
+	public void getPools(RoutingContext ctx) {
+		JsonUtil.sendJson(ctx, ApiStatus.OK, PoolRegistry.getStats());
+	}
+
+	public void getQueries(RoutingContext ctx) {
+		JsonUtil.sendJson(ctx, ApiStatus.OK, QueryMetrics.snapshot());
+	}
+
+	public void resetQueries(RoutingContext ctx) {
+		QueryMetrics.reset();
+		JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null);
+	}
+
+	public void getPlans(RoutingContext ctx) {
+		JsonUtil.sendJson(ctx, ApiStatus.OK, QueryPlanAdvisor.report());
+	}
+
+	public void resetPlans(RoutingContext ctx) {
+		QueryPlanAdvisor.reset();
+		JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null);
+	}
+
+	public void getCaches(RoutingContext ctx) {
+		JsonUtil.sendJson(ctx, ApiStatus.OK, EntityCache.getStats());
+	}
+
+	public void clearCaches(RoutingContext ctx) {
+		EntityCache.invalidate(EntityCache.ALL_TABLES);
+		JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null);
+	}
+}
@@ -29,8 +29,8 @@ public class FileDataHandler {
     public void getAll(RoutingContext ctx) {
         QueryParams params = QueryParams.from(ctx);
 
-        fileService.getAll(params)
-            .onSuccess(files -> JsonUtil.sendJson(ctx, ApiStatus.OK, files))
+        fileService.stream(params)
+            .onSuccess(files -> JsonUtil.streamPage(ctx, ApiStatus.OK, files, FileEntity.class, params.getQueryFilters()))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
 
@@ -74,7 +74,7 @@ public class FileDataHandler {
 
 
     public void update(RoutingContext ctx) {
-        FileEntity file = Constants.GSON.fromJson(ctx.body().asString(), FileEntity.class);
+        FileEntity file = JsonUtil.fromBody(ctx, FileEntity.class);
 
         fileService.update(file)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.OK, result))
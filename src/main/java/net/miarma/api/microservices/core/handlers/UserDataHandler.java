@@ -2,7 +2,6 @@ package net.miarma.api.microservices.core.handlers;
 
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.sqlclient.Pool;
-import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.core.entities.UserEntity;
@@ -22,7 +21,7 @@ public class UserDataHandler {
     	QueryParams params = QueryParams.from(ctx);
     	
         userService.getAll(params)
-	        .onSuccess(users -> JsonUtil.sendJson(ctx, ApiStatus.OK, users)).onFailure(err -> {
+	        .onSuccess(users -> JsonUtil.sendPage(ctx, ApiStatus.OK, users, UserEntity.class, params.getQueryFilters())).onFailure(err -> {
 	        	ApiStatus status = ApiStatus.fromException(err);
 	        	JsonUtil.sendJson(ctx, status, null, err.getMessage());
 	        });
@@ -39,7 +38,7 @@ public class UserDataHandler {
     }
 
     public void create(RoutingContext ctx) {
-        UserEntity user = Constants.GSON.fromJson(ctx.body().asString(), UserEntity.class);
+        UserEntity user = JsonUtil.fromBody(ctx, UserEntity.class);
         
         userService.register(user)
 	        .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result)).onFailure(err -> {
@@ -49,7 +48,7 @@ public class UserDataHandler {
     }
 
     public void update(RoutingContext ctx) {
-        UserEntity user = Constants.GSON.fromJson(ctx.body().asString(), UserEntity.class);
+        UserEntity user = JsonUtil.fromBody(ctx, UserEntity.class);
         
         userService.update(user)
 	        .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, result)).onFailure(err -> {
@@ -139,8 +139,7 @@ public class UserLogicHandler {
                 .put("userId", userId), ar -> {
 
                 if (ar.succeeded()) {
-                    JsonObject userJson = (JsonObject) ar.result().body();
-                    UserEntity user = Constants.GSON.fromJson(userJson.encode(), UserEntity.class);
+                    UserEntity user = EventBusUtil.bodyAs(ar.result(), UserEntity.class);
                     String newToken = jwt.generateToken(user, false);
 
                     JsonUtil.sendJson(ctx, ApiStatus.OK, new JsonObject().put("token", newToken));
@@ -9,6 +9,8 @@ import net.miarma.api.common.http.ApiResponse;
 import net.miarma.api.common.http.ApiStatus;
 import net.miarma.api.common.middlewares.AuthGuard;
 import net.miarma.api.common.security.SusPather;
+import net.miarma.api.microservices.core.handlers.BusAdminHandler;
+import net.miarma.api.microservices.core.handlers.DatabaseAdminHandler;
 import net.miarma.api.microservices.core.handlers.FileDataHandler;
 import net.miarma.api.microservices.core.handlers.UserDataHandler;
 
@@ -16,6 +18,8 @@ public class CoreDataRouter {
 	public static void mount(Router router, Vertx vertx, Pool pool) {
 		UserDataHandler hUserData = new UserDataHandler(pool);
 		FileDataHandler hFileData = new FileDataHandler(pool);
+		DatabaseAdminHandler hDatabaseAdmin = new DatabaseAdminHandler();
+		BusAdminHandler hBusAdmin = new BusAdminHandler();
 			
 		router.route().handler(BodyHandler.create());
 		
@@ -48,5 +52,16 @@ public class CoreDataRouter {
 		router.put(CoreEndpoints.FILE).handler(AuthGuard.check()).handler(hFileData::update);
 		router.delete(CoreEndpoints.FILE).handler(AuthGuard.check()).handler(hFileData::delete);
 		
+		router.get(CoreEndpoints.DB_POOLS).handler(AuthGuard.admin()).handler(hDatabaseAdmin::getPools);
+		router.get(CoreEndpoints.DB_QUERIES).handler(AuthGuard.admin()).handler(hDatabaseAdmin::getQueries);
+		router.delete(CoreEndpoints.DB_QUERIES).handler(AuthGuard.admin()).handler(hDatabaseAdmin::resetQueries);
+		router.get(CoreEndpoints.DB_PLANS).handler(AuthGuard.admin()).handler(hDatabaseAdmin::getPlans);
+		router.delete(CoreEndpoints.DB_PLANS).handler(AuthGuard.admin()).handler(hDatabaseAdmin::resetPlans);
+		router.get(CoreEndpoints.DB_CACHES).handler(AuthGuard.admin()).handler(hDatabaseAdmin::getCaches);
+		router.delete(CoreEndpoints.DB_CACHES).handler(AuthGuard.admin()).handler(hDatabaseAdmin::clearCaches);
+		
+		router.get(CoreEndpoints.BUS_ACTIONS).handler(AuthGuard.admin()).handler(hBusAdmin::getActions);
+		router.delete(CoreEndpoints.BUS_ACTIONS).handler(AuthGuard.admin()).handler(hBusAdmin::resetActions);
+		
 	}
 }
@@ -25,6 +25,15 @@ public class CoreEndpoints {
 	public static final String FILE_DOWNLOAD = Constants.CORE_PREFIX + "/files/:file_id/download"; // GET
 	public static final String USER_FILES = Constants.CORE_PREFIX + "/files/myfiles"; // GET
 	
+	// Base de datos (admin)
+	public static final String DB_POOLS = Constants.CORE_PREFIX + "/admin/db/pools"; // GET
+	public static final String DB_QUERIES = Constants.CORE_PREFIX + "/admin/db/queries"; // GET, DELETE
+	public static final String DB_PLANS = Constants.CORE_PREFIX + "/admin/db/plans"; // GET, DELETE
+	public static final String DB_CACHES = Constants.CORE_PREFIX + "/admin/db/caches"; // GET, DELETE
+	
+	// Event bus (admin)
+	public static final String BUS_ACTIONS = Constants.CORE_PREFIX + "/admin/bus/actions"; // GET, DELETE
+	
 	/*
 	 * RUTAS DE LA API DE LOGICA 
 	 * DE NEGOCIO DEL SSO
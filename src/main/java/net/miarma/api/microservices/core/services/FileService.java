@@ -5,6 +5,7 @@ import io.vertx.sqlclient.Pool;
 import net.miarma.api.common.ConfigManager;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.OSType;
+import net.miarma.api.common.db.EntityStream;
 import net.miarma.api.common.exceptions.NotFoundException;
 import net.miarma.api.common.exceptions.ValidationException;
 import net.miarma.api.common.http.QueryParams;
@@ -32,6 +33,10 @@ public class FileService {
         return fileDAO.getAll(params);
     }
 
+    public Future<EntityStream<FileEntity>> stream(QueryParams params) {
+        return fileDAO.stream(params);
+    }
+
     public Future<FileEntity> getById(Integer id) {
         return fileDAO.getById(id).compose(file -> {
             if (file == null) {
@@ -1,6 +1,7 @@
 package net.miarma.api.microservices.core.verticles;
 
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
@@ -9,16 +10,18 @@ import net.miarma.api.common.ConfigManager;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.Constants.CoreUserGlobalStatus;
 import net.miarma.api.common.Constants.CoreUserRole;
-import net.miarma.api.common.db.DatabaseProvider;
+import net.miarma.api.common.bus.ActionDispatcher;
+import net.miarma.api.common.db.PoolRegistry;
+import net.miarma.api.common.db.ReadConsistency;
 import net.miarma.api.microservices.core.entities.UserEntity;
 import net.miarma.api.microservices.core.routing.CoreDataRouter;
 import net.miarma.api.microservices.core.services.FileService;
 import net.miarma.api.microservices.core.services.UserService;
-import net.miarma.api.util.EventBusUtil;
 import net.miarma.api.util.RouterUtil;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 @SuppressWarnings("unused")
 public class CoreDataVerticle extends AbstractVerticle {
@@ -29,11 +32,12 @@ public class CoreDataVerticle extends AbstractVerticle {
     @Override
     public void start(Promise<Void> startPromise) {
         configManager = ConfigManager.getInstance();
-        Pool pool = DatabaseProvider.createPool(vertx, configManager);
+        Pool pool = PoolRegistry.get(vertx, "core");
         userService = new UserService(pool);
         fileService = new FileService(pool);
         Router router = Router.router(vertx);
         RouterUtil.attachLogger(router);
+        router.route().handler(ReadConsistency.handler());
         CoreDataRouter.mount(router, vertx, pool);
         registerLogicVerticleConsumer();
 
@@ -46,151 +50,67 @@ public class CoreDataVerticle extends AbstractVerticle {
     }
 
     private void registerLogicVerticleConsumer() {
-        vertx.eventBus().consumer(Constants.AUTH_EVENT_BUS, message -> {
-            JsonObject body = (JsonObject) message.body();
-            String action = body.getString("action");
-
-            switch (action) {
-                case "login" -> {
-                	String email = body.getString("email");
-                	String userName = body.getString("userName");
-                	String password = body.getString("password");
-                	boolean keepLoggedIn = body.getBoolean("keepLoggedIn", false);
-                	
-                	userService.login(email != null ? email : userName, password, keepLoggedIn)
-		                .onSuccess(message::reply)
-		                .onFailure(EventBusUtil.fail(message));
-                }
-
-                case "register" -> {
-                    UserEntity user = new UserEntity();
-                    user.setUser_name(body.getString("userName"));
-                    user.setEmail(body.getString("email"));
-                    user.setDisplay_name(body.getString("displayName"));
-                    user.setPassword(body.getString("password"));
-
-                    userService.register(user)
-	                    .onSuccess(message::reply)
-	                    .onFailure(EventBusUtil.fail(message));
-                }
-
-                case "changePassword" -> {
-                	Integer userId = body.getInteger("userId");
-                	String newPassword = body.getString("newPassword");
-                	
-                	userService.changePassword(userId, newPassword)
-		                .onSuccess(user -> {
-		                	String userJson = Constants.GSON.toJson(user);
-		                	message.reply(new JsonObject(userJson));
-		                })
-		                .onFailure(EventBusUtil.fail(message));
-                }
-
-                case "validateToken" -> {
-                	String token = body.getString("token");
-                	
-                    userService.validateToken(token)
-	            		.onSuccess(message::reply)
-		                .onFailure(EventBusUtil.fail(message));
-                }
-
-                case "getInfo", "getById" -> {
-                	Integer userId = body.getInteger("userId");
-                	
-                	userService.getById(userId)
-	                    .onSuccess(message::reply)
-	                    .onFailure(EventBusUtil.fail(message));
-                }
-
-                case "userExists" -> {
-                    Integer userId = body.getInteger("userId");
-
-                    userService.getById(userId)
-                        .onSuccess(user -> {
-                            Map<String, Object> result = new HashMap<>();
-                            result.put("user_id", userId);
-                            result.put("exists", user != null);
-                            message.reply(result);
-                        })
-                        .onFailure(EventBusUtil.fail(message));
-                }
-
-                case "getByEmail" -> userService.getByEmail(body.getString("email"))
-                    .onSuccess(message::reply)
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "getByUserName" -> userService.getByUserName(body.getString("userName"))
-                    .onSuccess(message::reply)
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "getStatus" -> userService.getById(body.getInteger("userId"))
-                    .onSuccess(user -> {
-                        Map<String, Object> result = new HashMap<>();
-                        result.put("user_id", user.getUser_id());
-                        result.put("status", user.getGlobal_status());
-                        message.reply(result);
-                    })
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "getRole" -> userService.getById(body.getInteger("userId"))
-                    .onSuccess(user -> {
-                        Map<String, Object> result = new HashMap<>();
-                        result.put("user_id", user.getUser_id());
-                        result.put("role", user.getRole());
-                        message.reply(result);
-                    })
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "getAvatar" -> userService.getById(body.getInteger("userId"))
-                    .onSuccess(user -> {
-                        Map<String, Object> result = new HashMap<>();
-                        result.put("user_id", user.getUser_id());
-                        result.put("avatar", user.getAvatar());
-                        message.reply(result);
-                    })
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "updateStatus" -> userService.updateStatus(
-                        body.getInteger("userId"),
-                        CoreUserGlobalStatus.fromInt(body.getInteger("status")))
-                    .onSuccess(res -> message.reply("Status updated successfully"))
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "updateRole" -> userService.updateRole(
-                        body.getInteger("userId"),
-                        CoreUserRole.fromInt(body.getInteger("role")))
-                    .onSuccess(res -> message.reply("Role updated successfully"))
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "getUserFiles" -> fileService.getUserFiles(body.getInteger("userId"))
-                    .onSuccess(message::reply)
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "downloadFile" -> fileService.downloadFile(body.getInteger("fileId"))
-                    .onSuccess(message::reply)
-                    .onFailure(EventBusUtil.fail(message));
-                
-                case "getUserById" -> userService.getById(body.getInteger("userId"))
-					.onSuccess(user -> {
-						String userJson = Constants.GSON.toJson(user);
-						message.reply(new JsonObject(userJson));
-					})
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "loginValidate" -> {
-					Integer userId = body.getInteger("userId");
-					String password = body.getString("password");
-					
-					userService.loginValidate(userId, password)
-						.onSuccess(user -> {
-							String userJson = Constants.GSON.toJson(user);
-							message.reply(new JsonObject(userJson));
-						})
-						.onFailure(EventBusUtil.fail(message));
-				}
-
-                default -> EventBusUtil.fail(message);
-            }
-        });
+        Function<JsonObject, Future<UserEntity>> getById = body -> userService.getById(body.getInteger("userId"));
+
+        ActionDispatcher.on(vertx, Constants.AUTH_EVENT_BUS)
+            .action("login", body -> {
+                String email = body.getString("email");
+                String userName = body.getString("userName");
+                return userService.login(email != null ? email : userName, body.getString("password"),
+                    body.getBoolean("keepLoggedIn", false));
+            })
+            .action("register", body -> {
+                UserEntity user = new UserEntity();
+                user.setUser_name(body.getString("userName"));
+                user.setEmail(body.getString("email"));
+                user.setDisplay_name(body.getString("displayName"));
+                user.setPassword(body.getString("password"));
+                return userService.register(user);
+            })
+            .action("changePassword", body -> userService.changePassword(body.getInteger("userId"),
+                body.getString("newPassword")))
+            .action("validateToken", body -> userService.validateToken(body.getString("token")))
+            .action("getInfo", getById)
+            .action("getById", getById)
+            .action("getUserById", getById)
+            .action("userExists", body -> getById.apply(body).map(user -> {
+                Map<String, Object> result = new HashMap<>();
+                result.put("user_id", body.getInteger("userId"));
+                result.put("exists", user != null);
+                return result;
+            }))
+            .action("getByEmail", body -> userService.getByEmail(body.getString("email")))
+            .action("getByUserName", body -> userService.getByUserName(body.getString("userName")))
+            .action("getStatus", body -> getById.apply(body).map(user -> {
+                Map<String, Object> result = new HashMap<>();
+                result.put("user_id", user.getUser_id());
+                result.put("status", user.getGlobal_status());
+                return result;
+            }))
+            .action("getRole", body -> getById.apply(body).map(user -> {
+                Map<String, Object> result = new HashMap<>();
+                result.put("user_id", user.getUser_id());
+                result.put("role", user.getRole());
+                return result;
+            }))
+            .action("getAvatar", body -> getById.apply(body).map(user -> {
+                Map<String, Object> result = new HashMap<>();
+                result.put("user_id", user.getUser_id());
+                result.put("avatar", user.getAvatar());
+                return result;
+            }))
+            .action("updateStatus", body -> userService.updateStatus(
+                    body.getInteger("userId"),
+                    CoreUserGlobalStatus.fromInt(body.getInteger("status")))
+                .map("Status updated successfully"))
+            .action("updateRole", body -> userService.updateRole(
+                    body.getInteger("userId"),
+                    CoreUserRole.fromInt(body.getInteger("role")))
+                .map("Role updated successfully"))
+            .action("getUserFiles", body -> fileService.getUserFiles(body.getInteger("userId")))
+            .action("downloadFile", body -> fileService.downloadFile(body.getInteger("fileId")))
+            .action("loginValidate", body -> userService.loginValidate(body.getInteger("userId"),
+                body.getString("password")))
+            .listen();
     }
-}
\ No newline at end of file
+}
@@ -5,7 +5,8 @@ import io.vertx.core.Promise;
 import io.vertx.ext.web.Router;
 import io.vertx.sqlclient.Pool;
 import net.miarma.api.common.ConfigManager;
-import net.miarma.api.common.db.DatabaseProvider;
+import net.miarma.api.common.db.PoolRegistry;
+import net.miarma.api.common.db.ReadConsistency;
 import net.miarma.api.microservices.core.routing.CoreLogicRouter;
 import net.miarma.api.util.RouterUtil;
 
@@ -15,9 +16,10 @@ public class CoreLogicVerticle extends AbstractVerticle {
 	@Override 
 	public void start(Promise<Void> startPromise) {
 		configManager = ConfigManager.getInstance();
-		Pool pool = DatabaseProvider.createPool(vertx, configManager);
+		Pool pool = PoolRegistry.get(vertx, "core");
 		Router router = Router.router(vertx);
 		RouterUtil.attachLogger(router);
+		router.route().handler(ReadConsistency.handler());
 		CoreLogicRouter.mount(router, vertx, pool);
 				
 		vertx.createHttpServer()
@@ -10,6 +10,7 @@ import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.AnnouncementEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -29,10 +30,9 @@ public class AnnouncementDAO implements DataAccessObject<AnnouncementEntity, Int
     @Override
     public Future<AnnouncementEntity> getById(Integer id) {
         Promise<AnnouncementEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(AnnouncementEntity.class)
-                .where(Map.of("announce_id", id.toString()))
-                .build();
+                .where(Map.of("announce_id", id.toString()));
 
         db.executeOne(query, AnnouncementEntity.class,
                 promise::complete,
@@ -42,15 +42,31 @@ public class AnnouncementDAO implements DataAccessObject<AnnouncementEntity, Int
         return promise.future();
     }
 
-    public Future<List<AnnouncementEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<AnnouncementEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
         Promise<List<AnnouncementEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(AnnouncementEntity.class)
+                .whereIn("announce_id", ids);
+
+        db.execute(query, AnnouncementEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<AnnouncementEntity>> getAll(QueryParams params) {
+        Promise<List<AnnouncementEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(AnnouncementEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, AnnouncementEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -63,7 +79,7 @@ public class AnnouncementDAO implements DataAccessObject<AnnouncementEntity, Int
     @Override
     public Future<AnnouncementEntity> insert(AnnouncementEntity announce) {
         Promise<AnnouncementEntity> promise = Promise.promise();
-        String query = QueryBuilder.insert(announce).build();
+        QueryBuilder query = QueryBuilder.insert(announce);
 
         db.execute(query, AnnouncementEntity.class,
                 list -> promise.complete(list.isEmpty() ? null : list.getFirst()),
@@ -76,7 +92,7 @@ public class AnnouncementDAO implements DataAccessObject<AnnouncementEntity, Int
     @Override
     public Future<AnnouncementEntity> upsert(AnnouncementEntity announcementEntity, String... conflictKeys) {
         Promise<AnnouncementEntity> promise = Promise.promise();
-        String query = QueryBuilder.upsert(announcementEntity, conflictKeys).build();
+        QueryBuilder query = QueryBuilder.upsert(announcementEntity, conflictKeys);
 
         db.executeOne(query, AnnouncementEntity.class,
                 promise::complete,
@@ -89,7 +105,7 @@ public class AnnouncementDAO implements DataAccessObject<AnnouncementEntity, Int
     @Override
     public Future<AnnouncementEntity> update(AnnouncementEntity announce) {
         Promise<AnnouncementEntity> promise = Promise.promise();
-        String query = QueryBuilder.update(announce).build();
+        QueryBuilder query = QueryBuilder.update(announce);
 
         db.executeOne(query, AnnouncementEntity.class,
                 promise::complete,
@@ -99,13 +115,58 @@ public class AnnouncementDAO implements DataAccessObject<AnnouncementEntity, Int
         return promise.future();
     }
 
+    @Override
+    public Future<List<Long>> insertAll(List<AnnouncementEntity> announcements) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = announcements.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<AnnouncementEntity> announcements, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = announcements.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<AnnouncementEntity> announcements) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = announcements.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         AnnouncementEntity announce = new AnnouncementEntity();
         announce.setAnnounce_id(id);
 
-        String query = QueryBuilder.delete(announce).build();
+        QueryBuilder query = QueryBuilder.delete(announce);
 
         db.executeOne(query, AnnouncementEntity.class,
                 result -> promise.complete(result != null),
@@ -118,13 +179,70 @@ public class AnnouncementDAO implements DataAccessObject<AnnouncementEntity, Int
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(AnnouncementEntity.class)
-                .where(Map.of("announce_id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(AnnouncementEntity.class)
+                .where(Map.of("announce_id", id.toString()));
 
-        db.executeOne(query, AnnouncementEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(AnnouncementEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(AnnouncementEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .updateWhere(AnnouncementEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .deleteWhere(AnnouncementEntity.class, filters);
+
+        db.executeUpdate(query,
+                promise::complete,
                 promise::fail
         );
 
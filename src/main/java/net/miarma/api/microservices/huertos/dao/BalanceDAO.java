@@ -3,12 +3,14 @@ package net.miarma.api.microservices.huertos.dao;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
 import net.miarma.api.common.db.QueryBuilder;
 import net.miarma.api.microservices.huertos.entities.BalanceEntity;
 import net.miarma.api.microservices.huertos.entities.ViewBalanceWithTotals;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -23,7 +25,7 @@ public class BalanceDAO implements DataAccessObject<BalanceEntity, Integer> {
     @Override
     public Future<List<BalanceEntity>> getAll() {
         Promise<List<BalanceEntity>> promise = Promise.promise();
-        String query = QueryBuilder.select(BalanceEntity.class).build();
+        QueryBuilder query = QueryBuilder.select(BalanceEntity.class);
 
         db.execute(query, BalanceEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -36,10 +38,9 @@ public class BalanceDAO implements DataAccessObject<BalanceEntity, Integer> {
     @Override
     public Future<BalanceEntity> getById(Integer id) {
         Promise<BalanceEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(BalanceEntity.class)
-                .where(Map.of("id", id.toString()))
-                .build();
+                .where(Map.of("id", id.toString()));
 
         db.executeOne(query, BalanceEntity.class,
                 promise::complete,
@@ -49,9 +50,28 @@ public class BalanceDAO implements DataAccessObject<BalanceEntity, Integer> {
         return promise.future();
     }
 
+    @Override
+    public Future<List<BalanceEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
+        Promise<List<BalanceEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(BalanceEntity.class)
+                .whereIn("id", ids);
+
+        db.execute(query, BalanceEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     public Future<List<ViewBalanceWithTotals>> getAllWithTotals() {
         Promise<List<ViewBalanceWithTotals>> promise = Promise.promise();
-        String query = QueryBuilder.select(ViewBalanceWithTotals.class).build();
+        QueryBuilder query = QueryBuilder.select(ViewBalanceWithTotals.class);
 
         db.execute(query, ViewBalanceWithTotals.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -61,10 +81,22 @@ public class BalanceDAO implements DataAccessObject<BalanceEntity, Integer> {
         return promise.future();
     }
 
+    public Future<List<ViewBalanceWithTotals>> getAllWithTotals(SqlConnection conn) {
+        Promise<List<ViewBalanceWithTotals>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.select(ViewBalanceWithTotals.class);
+
+        db.execute(conn, query, ViewBalanceWithTotals.class,
+                list -> promise.complete(list.isEmpty() ? List.of() : list),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<BalanceEntity> insert(BalanceEntity balance) {
         Promise<BalanceEntity> promise = Promise.promise();
-        String query = QueryBuilder.insert(balance).build();
+        QueryBuilder query = QueryBuilder.insert(balance);
 
         db.execute(query, BalanceEntity.class,
                 list -> promise.complete(list.isEmpty() ? null : list.getFirst()),
@@ -77,7 +109,7 @@ public class BalanceDAO implements DataAccessObject<BalanceEntity, Integer> {
     @Override
     public Future<BalanceEntity> upsert(BalanceEntity balanceEntity, String... conflictKeys) {
         Promise<BalanceEntity> promise = Promise.promise();
-        String query = QueryBuilder.upsert(balanceEntity, conflictKeys).build();
+        QueryBuilder query = QueryBuilder.upsert(balanceEntity, conflictKeys);
 
         db.executeOne(query, BalanceEntity.class,
                 promise::complete,
@@ -90,7 +122,7 @@ public class BalanceDAO implements DataAccessObject<BalanceEntity, Integer> {
     @Override
     public Future<BalanceEntity> update(BalanceEntity balance) {
         Promise<BalanceEntity> promise = Promise.promise();
-        String query = QueryBuilder.update(balance).build();
+        QueryBuilder query = QueryBuilder.update(balance);
 
         db.executeOne(query, BalanceEntity.class,
                 _ -> promise.complete(balance),
@@ -100,13 +132,58 @@ public class BalanceDAO implements DataAccessObject<BalanceEntity, Integer> {
         return promise.future();
     }
 
+    @Override
+    public Future<List<Long>> insertAll(List<BalanceEntity> balances) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = balances.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<BalanceEntity> balances, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = balances.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<BalanceEntity> balances) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = balances.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         BalanceEntity balance = new BalanceEntity();
         balance.setId(id);
 
-        String query = QueryBuilder.delete(balance).build();
+        QueryBuilder query = QueryBuilder.delete(balance);
 
         db.executeOne(query, BalanceEntity.class,
                 result -> promise.complete(result != null),
@@ -119,13 +196,70 @@ public class BalanceDAO implements DataAccessObject<BalanceEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(BalanceEntity.class)
-                .where(Map.of("id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(BalanceEntity.class)
+                .where(Map.of("id", id.toString()));
 
-        db.executeOne(query, BalanceEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(BalanceEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(BalanceEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .updateWhere(BalanceEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .deleteWhere(BalanceEntity.class, filters);
+
+        db.executeUpdate(query,
+                promise::complete,
                 promise::fail
         );
 
@@ -3,6 +3,7 @@ package net.miarma.api.microservices.huertos.dao;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
 import net.miarma.api.common.db.QueryBuilder;
@@ -10,6 +11,7 @@ import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.ExpenseEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -29,10 +31,9 @@ public class ExpenseDAO implements DataAccessObject<ExpenseEntity, Integer> {
     @Override
     public Future<ExpenseEntity> getById(Integer id) {
         Promise<ExpenseEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(ExpenseEntity.class)
-                .where(Map.of("expense_id", id.toString()))
-                .build();
+                .where(Map.of("expense_id", id.toString()));
 
         db.executeOne(query, ExpenseEntity.class,
                 promise::complete,
@@ -42,15 +43,31 @@ public class ExpenseDAO implements DataAccessObject<ExpenseEntity, Integer> {
         return promise.future();
     }
 
-    public Future<List<ExpenseEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<ExpenseEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
         Promise<List<ExpenseEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(ExpenseEntity.class)
+                .whereIn("expense_id", ids);
+
+        db.execute(query, ExpenseEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<ExpenseEntity>> getAll(QueryParams params) {
+        Promise<List<ExpenseEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(ExpenseEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, ExpenseEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -63,7 +80,7 @@ public class ExpenseDAO implements DataAccessObject<ExpenseEntity, Integer> {
     @Override
     public Future<ExpenseEntity> insert(ExpenseEntity expense) {
         Promise<ExpenseEntity> promise = Promise.promise();
-        String query = QueryBuilder.insert(expense).build();
+        QueryBuilder query = QueryBuilder.insert(expense);
 
         db.execute(query, ExpenseEntity.class,
                 list -> promise.complete(list.isEmpty() ? null : list.getFirst()),
@@ -76,7 +93,7 @@ public class ExpenseDAO implements DataAccessObject<ExpenseEntity, Integer> {
     @Override
     public Future<ExpenseEntity> upsert(ExpenseEntity expenseEntity, String... conflictKeys) {
         Promise<ExpenseEntity> promise = Promise.promise();
-        String query = QueryBuilder.upsert(expenseEntity, conflictKeys).build();
+        QueryBuilder query = QueryBuilder.upsert(expenseEntity, conflictKeys);
 
         db.executeOne(query, ExpenseEntity.class,
                 promise::complete,
@@ -89,7 +106,7 @@ public class ExpenseDAO implements DataAccessObject<ExpenseEntity, Integer> {
     @Override
     public Future<ExpenseEntity> update(ExpenseEntity expense) {
         Promise<ExpenseEntity> promise = Promise.promise();
-        String query = QueryBuilder.update(expense).build();
+        QueryBuilder query = QueryBuilder.update(expense);
 
         db.executeOne(query, ExpenseEntity.class,
                 _ -> promise.complete(expense),
@@ -99,13 +116,83 @@ public class ExpenseDAO implements DataAccessObject<ExpenseEntity, Integer> {
         return promise.future();
     }
 
+    public Future<ExpenseEntity> lockById(Integer id, SqlConnection conn) {
+        Promise<ExpenseEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(ExpenseEntity.class)
+                .where(Map.of("expense_id", id.toString()))
+                .forUpdate();
+
+        db.executeOne(conn, query, ExpenseEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<ExpenseEntity> insert(ExpenseEntity expense, SqlConnection conn) {
+        Promise<ExpenseEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.insert(expense);
+
+        db.execute(conn, query, ExpenseEntity.class,
+                list -> promise.complete(list.isEmpty() ? null : list.getFirst()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<ExpenseEntity> update(ExpenseEntity expense, SqlConnection conn) {
+        Promise<ExpenseEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.update(expense);
+
+        db.executeOne(conn, query, ExpenseEntity.class,
+                _ -> promise.complete(expense),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<Boolean> delete(Integer id, SqlConnection conn) {
+        Promise<Boolean> promise = Promise.promise();
+        ExpenseEntity expense = new ExpenseEntity();
+        expense.setExpense_id(id);
+
+        QueryBuilder query = QueryBuilder.delete(expense);
+
+        db.executeOne(conn, query, ExpenseEntity.class,
+                _ -> promise.complete(true),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> insertAll(List<ExpenseEntity> expenses) {
+        // el ledger solo se mantiene en las escrituras de una fila de ExpenseService
+        throw new UnsupportedOperationException("Bulk insert not supported: it would bypass the huertos ledger");
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<ExpenseEntity> expenses, String... conflictKeys) {
+        throw new UnsupportedOperationException("Bulk upsert not supported: it would bypass the huertos ledger");
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<ExpenseEntity> expenses) {
+        throw new UnsupportedOperationException("Bulk update not supported: it would bypass the huertos ledger");
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         ExpenseEntity expense = new ExpenseEntity();
         expense.setExpense_id(id);
 
-        String query = QueryBuilder.delete(expense).build();
+        QueryBuilder query = QueryBuilder.delete(expense);
 
         db.executeOne(query, ExpenseEntity.class,
                 result -> promise.complete(result != null),
@@ -118,16 +205,55 @@ public class ExpenseDAO implements DataAccessObject<ExpenseEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(ExpenseEntity.class)
-                .where(Map.of("expense_id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(ExpenseEntity.class)
+                .where(Map.of("expense_id", id.toString()));
 
-        db.executeOne(query, ExpenseEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
                 promise::fail
         );
 
         return promise.future();
     }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(ExpenseEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(ExpenseEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        throw new UnsupportedOperationException("Bulk update not supported: it would bypass the huertos ledger");
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        throw new UnsupportedOperationException("Bulk delete not supported: it would bypass the huertos ledger");
+    }
 }
@@ -3,14 +3,17 @@ package net.miarma.api.microservices.huertos.dao;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
+import net.miarma.api.common.db.EntityStream;
 import net.miarma.api.common.db.QueryBuilder;
 import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.IncomeEntity;
 import net.miarma.api.microservices.huertos.entities.ViewIncomesWithFullNames;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -30,10 +33,9 @@ public class IncomeDAO implements DataAccessObject<IncomeEntity, Integer> {
     @Override
     public Future<IncomeEntity> getById(Integer id) {
         Promise<IncomeEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(IncomeEntity.class)
-                .where(Map.of("income_id", id.toString()))
-                .build();
+                .where(Map.of("income_id", id.toString()));
 
         db.executeOne(query, IncomeEntity.class,
                 promise::complete,
@@ -43,15 +45,31 @@ public class IncomeDAO implements DataAccessObject<IncomeEntity, Integer> {
         return promise.future();
     }
 
-    public Future<List<IncomeEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<IncomeEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
         Promise<List<IncomeEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(IncomeEntity.class)
+                .whereIn("income_id", ids);
+
+        db.execute(query, IncomeEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<IncomeEntity>> getAll(QueryParams params) {
+        Promise<List<IncomeEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(IncomeEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, IncomeEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -61,19 +79,25 @@ public class IncomeDAO implements DataAccessObject<IncomeEntity, Integer> {
         return promise.future();
     }
 
+    public Future<EntityStream<IncomeEntity>> stream(QueryParams params) {
+        QueryBuilder query = QueryBuilder
+                .select(IncomeEntity.class, params.getQueryFilters())
+                .where(params.getFilters())
+                .page(params.getQueryFilters());
+
+        return db.stream(query, IncomeEntity.class);
+    }
+
     public Future<List<ViewIncomesWithFullNames>> getAllWithNames() {
         return getAllWithNames(new QueryParams(Map.of(), new QueryFilters()));
     }
 
     public Future<List<ViewIncomesWithFullNames>> getAllWithNames(QueryParams params) {
         Promise<List<ViewIncomesWithFullNames>> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(ViewIncomesWithFullNames.class)
+        QueryBuilder query = QueryBuilder
+                .select(ViewIncomesWithFullNames.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, ViewIncomesWithFullNames.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -85,10 +109,9 @@ public class IncomeDAO implements DataAccessObject<IncomeEntity, Integer> {
 
     public Future<List<IncomeEntity>> getUserIncomes(Integer memberNumber) {
         Promise<List<IncomeEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(IncomeEntity.class)
-                .where(Map.of("member_number", memberNumber.toString()))
-                .build();
+                .where(Map.of("member_number", memberNumber.toString()));
 
         db.execute(query, IncomeEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -101,7 +124,7 @@ public class IncomeDAO implements DataAccessObject<IncomeEntity, Integer> {
     @Override
     public Future<IncomeEntity> insert(IncomeEntity income) {
         Promise<IncomeEntity> promise = Promise.promise();
-        String query = QueryBuilder.insert(income).build();
+        QueryBuilder query = QueryBuilder.insert(income);
 
         db.execute(query, IncomeEntity.class,
                 list -> promise.complete(list.isEmpty() ? null : list.getFirst()),
@@ -114,7 +137,7 @@ public class IncomeDAO implements DataAccessObject<IncomeEntity, Integer> {
     @Override
     public Future<IncomeEntity> upsert(IncomeEntity incomeEntity, String... conflictKeys) {
         Promise<IncomeEntity> promise = Promise.promise();
-        String query = QueryBuilder.upsert(incomeEntity, conflictKeys).build();
+        QueryBuilder query = QueryBuilder.upsert(incomeEntity, conflictKeys);
 
         db.executeOne(query, IncomeEntity.class,
                 promise::complete,
@@ -127,7 +150,7 @@ public class IncomeDAO implements DataAccessObject<IncomeEntity, Integer> {
     @Override
     public Future<IncomeEntity> update(IncomeEntity income) {
         Promise<IncomeEntity> promise = Promise.promise();
-        String query = QueryBuilder.update(income).build();
+        QueryBuilder query = QueryBuilder.update(income);
 
         db.executeOne(query, IncomeEntity.class,
                 _ -> promise.complete(income),
@@ -137,13 +160,83 @@ public class IncomeDAO implements DataAccessObject<IncomeEntity, Integer> {
         return promise.future();
     }
 
+    public Future<IncomeEntity> lockById(Integer id, SqlConnection conn) {
+        Promise<IncomeEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(IncomeEntity.class)
+                .where(Map.of("income_id", id.toString()))
+                .forUpdate();
+
+        db.executeOne(conn, query, IncomeEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<IncomeEntity> insert(IncomeEntity income, SqlConnection conn) {
+        Promise<IncomeEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.insert(income);
+
+        db.execute(conn, query, IncomeEntity.class,
+                list -> promise.complete(list.isEmpty() ? null : list.getFirst()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<IncomeEntity> update(IncomeEntity income, SqlConnection conn) {
+        Promise<IncomeEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.update(income);
+
+        db.executeOne(conn, query, IncomeEntity.class,
+                _ -> promise.complete(income),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<Boolean> delete(Integer id, SqlConnection conn) {
+        Promise<Boolean> promise = Promise.promise();
+        IncomeEntity income = new IncomeEntity();
+        income.setIncome_id(id);
+
+        QueryBuilder query = QueryBuilder.delete(income);
+
+        db.executeOne(conn, query, IncomeEntity.class,
+                _ -> promise.complete(true),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> insertAll(List<IncomeEntity> incomes) {
+        // el ledger solo se mantiene en las escrituras de una fila de IncomeService
+        throw new UnsupportedOperationException("Bulk insert not supported: it would bypass the huertos ledger");
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<IncomeEntity> incomes, String... conflictKeys) {
+        throw new UnsupportedOperationException("Bulk upsert not supported: it would bypass the huertos ledger");
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<IncomeEntity> incomes) {
+        throw new UnsupportedOperationException("Bulk update not supported: it would bypass the huertos ledger");
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         IncomeEntity income = new IncomeEntity();
         income.setIncome_id(id);
 
-        String query = QueryBuilder.delete(income).build();
+        QueryBuilder query = QueryBuilder.delete(income);
 
         db.executeOne(query, IncomeEntity.class,
                 result -> promise.complete(result != null),
@@ -156,16 +249,55 @@ public class IncomeDAO implements DataAccessObject<IncomeEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(IncomeEntity.class)
-                .where(Map.of("income_id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(IncomeEntity.class)
+                .where(Map.of("income_id", id.toString()));
 
-        db.executeOne(query, IncomeEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
                 promise::fail
         );
 
         return promise.future();
     }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(IncomeEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(IncomeEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        throw new UnsupportedOperationException("Bulk update not supported: it would bypass the huertos ledger");
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        throw new UnsupportedOperationException("Bulk delete not supported: it would bypass the huertos ledger");
+    }
 }
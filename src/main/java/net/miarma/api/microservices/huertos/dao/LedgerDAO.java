@@ -0,0 +1,301 @@
+package net.miarma.api.microservices.huertos.dao;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
+import net.miarma.api.common.db.DataAccessObject;
+import net.miarma.api.common.db.DatabaseManager;
+import net.miarma.api.common.db.QueryBuilder;
+import net.miarma.api.common.exceptions.InternalServerErrorException;
+import net.miarma.api.microservices.huertos.entities.LedgerEntity;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class LedgerDAO implements DataAccessObject<LedgerEntity, Integer> {
+
+    private final DatabaseManager db;
+
+    public LedgerDAO(Pool pool) {
+        this.db = DatabaseManager.getInstance(pool);
+    }
+
+    @Override
+    public Future<List<LedgerEntity>> getAll() {
+        Promise<List<LedgerEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.select(LedgerEntity.class);
+
+        db.execute(query, LedgerEntity.class,
+                list -> promise.complete(list.isEmpty() ? List.of() : list),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<LedgerEntity> getById(Integer id) {
+        Promise<LedgerEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(LedgerEntity.class)
+                .where(Map.of("ledger_id", id.toString()));
+
+        db.executeOne(query, LedgerEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<LedgerEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
+        Promise<List<LedgerEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(LedgerEntity.class)
+                .whereIn("ledger_id", ids);
+
+        db.execute(query, LedgerEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<LedgerEntity> getById(Integer id, SqlConnection conn) {
+        Promise<LedgerEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(LedgerEntity.class)
+                .where(Map.of("ledger_id", id.toString()));
+
+        db.executeOne(conn, query, LedgerEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<LedgerEntity> lockById(Integer id, SqlConnection conn) {
+        Promise<LedgerEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(LedgerEntity.class)
+                .where(Map.of("ledger_id", id.toString()))
+                .forUpdate();
+
+        db.executeOne(conn, query, LedgerEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<Void> increment(Integer id, Map<String, BigDecimal> deltas, SqlConnection conn) {
+        Promise<Void> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.increment(LedgerEntity.class, deltas, Map.of("ledger_id", id));
+
+        db.executeUpdate(conn, query,
+                rows -> {
+                    if (rows == 1) promise.complete();
+                    else promise.fail(new InternalServerErrorException("Ledger row " + id + " not updated (" + rows + " rows)"));
+                },
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<LedgerEntity> upsert(LedgerEntity ledger, SqlConnection conn) {
+        Promise<LedgerEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.upsert(ledger, "ledger_id");
+
+        db.executeOne(conn, query, LedgerEntity.class,
+                _ -> promise.complete(ledger),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<LedgerEntity> insert(LedgerEntity ledger) {
+        Promise<LedgerEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.insert(ledger);
+
+        db.execute(query, LedgerEntity.class,
+                list -> promise.complete(list.isEmpty() ? null : list.getFirst()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<LedgerEntity> upsert(LedgerEntity ledgerEntity, String... conflictKeys) {
+        Promise<LedgerEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.upsert(ledgerEntity, conflictKeys);
+
+        db.executeOne(query, LedgerEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<LedgerEntity> update(LedgerEntity ledger) {
+        Promise<LedgerEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.update(ledger);
+
+        db.executeOne(query, LedgerEntity.class,
+                _ -> promise.complete(ledger),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> insertAll(List<LedgerEntity> ledgers) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = ledgers.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<LedgerEntity> ledgers, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = ledgers.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<LedgerEntity> ledgers) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = ledgers.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> delete(Integer id) {
+        Promise<Boolean> promise = Promise.promise();
+        LedgerEntity ledger = new LedgerEntity();
+        ledger.setLedger_id(id);
+
+        QueryBuilder query = QueryBuilder.delete(ledger);
+
+        db.executeOne(query, LedgerEntity.class,
+                result -> promise.complete(result != null),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Integer id) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(LedgerEntity.class)
+                .where(Map.of("ledger_id", id.toString()));
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(LedgerEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(LedgerEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .updateWhere(LedgerEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .deleteWhere(LedgerEntity.class, filters);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+}
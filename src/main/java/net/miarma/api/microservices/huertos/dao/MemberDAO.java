@@ -3,14 +3,17 @@ package net.miarma.api.microservices.huertos.dao;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
+import net.miarma.api.common.db.EntityCache;
 import net.miarma.api.common.db.QueryBuilder;
 import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.MemberEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -18,6 +21,7 @@ import java.util.Optional;
 public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
 
     private final DatabaseManager db;
+    private final EntityCache<MemberEntity> cache = EntityCache.of(MemberEntity.class);
 
     public MemberDAO(Pool pool) {
         this.db = DatabaseManager.getInstance(pool);
@@ -30,11 +34,14 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
 
     @Override
     public Future<MemberEntity> getById(Integer id) {
+        return cache.get(id, () -> loadById(id));
+    }
+
+    private Future<MemberEntity> loadById(Integer id) {
         Promise<MemberEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class)
-                .where(Map.of("user_id", id.toString()))
-                .build();
+                .where(Map.of("user_id", id.toString()));
 
         db.executeOne(query, MemberEntity.class,
                 promise::complete,
@@ -44,15 +51,49 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
         return promise.future();
     }
 
-    public Future<List<MemberEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<MemberEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
+        return cache.getAll(ids, this::loadByIds, MemberEntity::getUser_id);
+    }
+
+    private Future<List<MemberEntity>> loadByIds(Collection<Integer> ids) {
         Promise<List<MemberEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
+                .select(MemberEntity.class)
+                .whereIn("user_id", ids);
+
+        db.execute(query, MemberEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<MemberEntity> getById(Integer id, SqlConnection conn) {
+        Promise<MemberEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class)
+                .where(Map.of("user_id", id.toString()));
+
+        db.executeOne(conn, query, MemberEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<MemberEntity>> getAll(QueryParams params) {
+        Promise<List<MemberEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(MemberEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
         db.execute(query, MemberEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
                 promise::fail
@@ -62,10 +103,9 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
 
     public Future<MemberEntity> getByMemberNumber(Integer memberNumber) {
         Promise<MemberEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class)
-                .where(Map.of("member_number", memberNumber.toString()))
-                .build();
+                .where(Map.of("member_number", memberNumber.toString()));
 
         db.executeOne(query, MemberEntity.class,
                 promise::complete,
@@ -77,10 +117,9 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
 
     public Future<MemberEntity> getByPlotNumber(Integer plotNumber) {
         Promise<MemberEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class)
-                .where(Map.of("plot_number", plotNumber.toString()))
-                .build();
+                .where(Map.of("plot_number", plotNumber.toString()));
 
         db.executeOne(query, MemberEntity.class,
                 promise::complete,
@@ -92,10 +131,9 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
 
     public Future<MemberEntity> getByEmail(String email) {
         Promise<MemberEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class)
-                .where(Map.of("email", email))
-                .build();
+                .where(Map.of("email", email));
 
         db.executeOne(query, MemberEntity.class,
                 promise::complete,
@@ -107,10 +145,9 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
 
     public Future<MemberEntity> getByDni(String dni) {
         Promise<MemberEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class)
-                .where(Map.of("dni", dni))
-                .build();
+                .where(Map.of("dni", dni));
 
         db.executeOne(query, MemberEntity.class,
                 promise::complete,
@@ -122,10 +159,9 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
 
     public Future<MemberEntity> getByPhone(Integer phone) {
         Promise<MemberEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class)
-                .where(Map.of("phone", phone.toString()))
-                .build();
+                .where(Map.of("phone", phone.toString()));
 
         db.executeOne(query, MemberEntity.class,
                 promise::complete,
@@ -137,10 +173,26 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
 
     public Future<List<MemberEntity>> getWaitlist() {
         Promise<List<MemberEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class)
-                .where(Map.of("type", "0", "status", String.valueOf(Constants.HuertosUserStatus.ACTIVE.getValue())))
-                .build();
+                .where(Map.of("type", "0", "status", String.valueOf(Constants.HuertosUserStatus.ACTIVE.getValue())));
+
+        db.execute(query, MemberEntity.class,
+                list -> promise.complete(list.isEmpty() ? List.of() : list),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    /**
+     * Lista de espera pública: solo las columnas que se muestran sin iniciar sesión.
+     */
+    public Future<List<MemberEntity>> getLimitedWaitlist() {
+        Promise<List<MemberEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(MemberEntity.class, "display_name", "avatar", "created_at", "assigned_at", "deactivated_at")
+                .where(Map.of("type", "0", "status", String.valueOf(Constants.HuertosUserStatus.ACTIVE.getValue())));
 
         db.execute(query, MemberEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -152,11 +204,10 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
 
     public Future<Integer> getLastMemberNumber() {
         Promise<Integer> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class, "member_number")
                 .orderBy(Optional.of("member_number"), Optional.of("DESC"))
-                .limit(Optional.of(1))
-                .build();
+                .limit(Optional.of(1));
 
         db.executeOne(query, MemberEntity.class,
                 result -> promise.complete(result != null ? result.getMember_number() : 0),
@@ -167,28 +218,30 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
     }
 
     public Future<Boolean> hasCollaborator(Integer plotNumber) {
-        Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
+        return exists(Map.of("plot_number", plotNumber.toString(), "type", String.valueOf(Constants.HuertosUserType.COLLABORATOR.getValue())));
+    }
+
+    public Future<MemberEntity> getCollaborator(Integer plotNumber) {
+        Promise<MemberEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class)
-                .where(Map.of("plot_number", plotNumber.toString(), "type", String.valueOf(Constants.HuertosUserType.COLLABORATOR.getValue())))
-                .build();
+                .where(Map.of("plot_number", plotNumber.toString(), "type", String.valueOf(Constants.HuertosUserType.COLLABORATOR.getValue())));
 
         db.executeOne(query, MemberEntity.class,
-                result -> promise.complete(result != null),
+                promise::complete,
                 promise::fail
         );
 
         return promise.future();
     }
 
-    public Future<MemberEntity> getCollaborator(Integer plotNumber) {
+    public Future<MemberEntity> getCollaborator(Integer plotNumber, SqlConnection conn) {
         Promise<MemberEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MemberEntity.class)
-                .where(Map.of("plot_number", plotNumber.toString(), "type", String.valueOf(Constants.HuertosUserType.COLLABORATOR.getValue())))
-                .build();
+                .where(Map.of("plot_number", plotNumber.toString(), "type", String.valueOf(Constants.HuertosUserType.COLLABORATOR.getValue())));
 
-        db.executeOne(query, MemberEntity.class,
+        db.executeOne(conn, query, MemberEntity.class,
                 promise::complete,
                 promise::fail
         );
@@ -211,6 +264,21 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
         throw new UnsupportedOperationException("Update not supported on view-based DAO");
     }
 
+    @Override
+    public Future<List<Long>> insertAll(List<MemberEntity> members) {
+        throw new UnsupportedOperationException("Insert not supported on view-based DAO");
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<MemberEntity> members, String... conflictKeys) {
+        throw new UnsupportedOperationException("Upsert not supported on view-based DAO");
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<MemberEntity> members) {
+        throw new UnsupportedOperationException("Update not supported on view-based DAO");
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         throw new UnsupportedOperationException("Delete not supported on view-based DAO");
@@ -219,17 +287,56 @@ public class MemberDAO implements DataAccessObject<MemberEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(MemberEntity.class)
-                .where(Map.of("user_id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(MemberEntity.class)
+                .where(Map.of("user_id", id.toString()));
 
-        db.executeOne(query, MemberEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(MemberEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(MemberEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
                 promise::fail
         );
 
         return promise.future();
     }
 
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        throw new UnsupportedOperationException("Update not supported on view-based DAO");
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        throw new UnsupportedOperationException("Delete not supported on view-based DAO");
+    }
+
 }
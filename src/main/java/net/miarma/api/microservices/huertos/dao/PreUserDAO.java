@@ -3,6 +3,7 @@ package net.miarma.api.microservices.huertos.dao;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
 import net.miarma.api.common.db.QueryBuilder;
@@ -10,6 +11,7 @@ import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.PreUserEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -29,10 +31,9 @@ public class PreUserDAO implements DataAccessObject<PreUserEntity, Integer> {
     @Override
     public Future<PreUserEntity> getById(Integer id) {
         Promise<PreUserEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(PreUserEntity.class)
-                .where(Map.of("pre_user_id", id.toString()))
-                .build();
+                .where(Map.of("pre_user_id", id.toString()));
 
         db.executeOne(query, PreUserEntity.class,
                 promise::complete,
@@ -42,12 +43,30 @@ public class PreUserDAO implements DataAccessObject<PreUserEntity, Integer> {
         return promise.future();
     }
 
+    @Override
+    public Future<List<PreUserEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
+        Promise<List<PreUserEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(PreUserEntity.class)
+                .whereIn("pre_user_id", ids);
+
+        db.execute(query, PreUserEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     public Future<PreUserEntity> getByRequestId(Integer requestId) {
         Promise<PreUserEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(PreUserEntity.class)
-                .where(Map.of("request_id", requestId.toString()))
-                .build();
+                .where(Map.of("request_id", requestId.toString()));
 
         db.executeOne(query, PreUserEntity.class,
                 promise::complete,
@@ -57,15 +76,26 @@ public class PreUserDAO implements DataAccessObject<PreUserEntity, Integer> {
         return promise.future();
     }
 
+    public Future<PreUserEntity> getByRequestId(Integer requestId, SqlConnection conn) {
+        Promise<PreUserEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(PreUserEntity.class)
+                .where(Map.of("request_id", requestId.toString()));
+
+        db.executeOne(conn, query, PreUserEntity.class,
+                promise::complete,
+            promise::fail
+        );
+
+        return promise.future();
+    }
+
     public Future<List<PreUserEntity>> getAll(QueryParams params) {
         Promise<List<PreUserEntity>> promise = Promise.promise();
-        String query = QueryBuilder
-        		.select(PreUserEntity.class)
+        QueryBuilder query = QueryBuilder
+        		.select(PreUserEntity.class, params.getQueryFilters())
 				.where(params.getFilters())
-				.orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-				.limit(params.getQueryFilters().getLimit())
-				.offset(params.getQueryFilters().getOffset())
-				.build();
+				.page(params.getQueryFilters());
 
         db.execute(query, PreUserEntity.class,
             list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -78,7 +108,7 @@ public class PreUserDAO implements DataAccessObject<PreUserEntity, Integer> {
     @Override
     public Future<PreUserEntity> insert(PreUserEntity preUser) {
         Promise<PreUserEntity> promise = Promise.promise();
-        String query = QueryBuilder.insert(preUser).build();
+        QueryBuilder query = QueryBuilder.insert(preUser);
 
         db.execute(query, PreUserEntity.class,
             list -> promise.complete(list.isEmpty() ? null : list.getFirst()),
@@ -91,7 +121,7 @@ public class PreUserDAO implements DataAccessObject<PreUserEntity, Integer> {
     @Override
     public Future<PreUserEntity> upsert(PreUserEntity preUserEntity, String... conflictKeys) {
         Promise<PreUserEntity> promise = Promise.promise();
-        String query = QueryBuilder.upsert(preUserEntity, conflictKeys).build();
+        QueryBuilder query = QueryBuilder.upsert(preUserEntity, conflictKeys);
 
         db.execute(query, PreUserEntity.class,
             list -> promise.complete(list.isEmpty() ? null : list.getFirst()),
@@ -104,7 +134,7 @@ public class PreUserDAO implements DataAccessObject<PreUserEntity, Integer> {
     @Override
     public Future<PreUserEntity> update(PreUserEntity preUser) {
         Promise<PreUserEntity> promise = Promise.promise();
-        String query = QueryBuilder.update(preUser).build();
+        QueryBuilder query = QueryBuilder.update(preUser);
 
         db.executeOne(query, PreUserEntity.class,
             _ -> promise.complete(preUser),
@@ -114,13 +144,58 @@ public class PreUserDAO implements DataAccessObject<PreUserEntity, Integer> {
         return promise.future();
     }
 
+    @Override
+    public Future<List<Long>> insertAll(List<PreUserEntity> preUsers) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = preUsers.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<PreUserEntity> preUsers, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = preUsers.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<PreUserEntity> preUsers) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = preUsers.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         PreUserEntity preUser = new PreUserEntity();
         preUser.setPre_user_id(id);
 
-        String query = QueryBuilder.delete(preUser).build();
+        QueryBuilder query = QueryBuilder.delete(preUser);
 
         db.executeOne(query, PreUserEntity.class,
             result -> promise.complete(result != null),
@@ -130,17 +205,89 @@ public class PreUserDAO implements DataAccessObject<PreUserEntity, Integer> {
         return promise.future();
     }
 
+    public Future<Boolean> delete(Integer id, SqlConnection conn) {
+        Promise<Boolean> promise = Promise.promise();
+        PreUserEntity preUser = new PreUserEntity();
+        preUser.setPre_user_id(id);
+
+        QueryBuilder query = QueryBuilder.delete(preUser);
+
+        db.executeOne(conn, query, PreUserEntity.class,
+            result -> promise.complete(result != null),
+            promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(PreUserEntity.class)
-                .where(Map.of("pre_user_id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(PreUserEntity.class)
+                .where(Map.of("pre_user_id", id.toString()));
 
-        db.execute(query, PreUserEntity.class,
-            list -> promise.complete(!list.isEmpty()),
-            promise::fail
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(PreUserEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(PreUserEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .updateWhere(PreUserEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .deleteWhere(PreUserEntity.class, filters);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
         );
 
         return promise.future();
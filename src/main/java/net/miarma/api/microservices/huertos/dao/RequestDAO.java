@@ -3,6 +3,7 @@ package net.miarma.api.microservices.huertos.dao;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
 import net.miarma.api.common.db.QueryBuilder;
@@ -11,6 +12,7 @@ import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.RequestEntity;
 import net.miarma.api.microservices.huertos.entities.ViewRequestsWithPreUsers;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -30,10 +32,9 @@ public class RequestDAO implements DataAccessObject<RequestEntity, Integer> {
     @Override
     public Future<RequestEntity> getById(Integer id) {
         Promise<RequestEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(RequestEntity.class)
-                .where(Map.of("request_id", id.toString()))
-                .build();
+                .where(Map.of("request_id", id.toString()));
 
         db.executeOne(query, RequestEntity.class,
                 promise::complete,
@@ -43,15 +44,45 @@ public class RequestDAO implements DataAccessObject<RequestEntity, Integer> {
         return promise.future();
     }
 
-    public Future<List<RequestEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<RequestEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
         Promise<List<RequestEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
+                .select(RequestEntity.class)
+                .whereIn("request_id", ids);
+
+        db.execute(query, RequestEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<RequestEntity> getById(Integer id, SqlConnection conn) {
+        Promise<RequestEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
                 .select(RequestEntity.class)
+                .where(Map.of("request_id", id.toString()));
+
+        db.executeOne(conn, query, RequestEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<RequestEntity>> getAll(QueryParams params) {
+        Promise<List<RequestEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(RequestEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, RequestEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -63,9 +94,8 @@ public class RequestDAO implements DataAccessObject<RequestEntity, Integer> {
 
     public Future<List<ViewRequestsWithPreUsers>> getRequestsWithPreUsers() {
         Promise<List<ViewRequestsWithPreUsers>> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(ViewRequestsWithPreUsers.class)
-                .build();
+        QueryBuilder query = QueryBuilder
+                .select(ViewRequestsWithPreUsers.class);
 
         db.execute(query, ViewRequestsWithPreUsers.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -77,10 +107,9 @@ public class RequestDAO implements DataAccessObject<RequestEntity, Integer> {
 
     public Future<ViewRequestsWithPreUsers> getRequestWithPreUserById(Integer id) {
         Promise<ViewRequestsWithPreUsers> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(ViewRequestsWithPreUsers.class)
-                .where(Map.of("request_id", id.toString()))
-                .build();
+                .where(Map.of("request_id", id.toString()));
         db.executeOne(query, ViewRequestsWithPreUsers.class,
                 promise::complete,
                 promise::fail
@@ -90,10 +119,9 @@ public class RequestDAO implements DataAccessObject<RequestEntity, Integer> {
 
     public Future<List<RequestEntity>> getByUserId(Integer userId) {
         Promise<List<RequestEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(RequestEntity.class)
-                .where(Map.of("requested_by", userId.toString()))
-                .build();
+                .where(Map.of("requested_by", userId.toString()));
 
         db.execute(query, RequestEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -106,7 +134,7 @@ public class RequestDAO implements DataAccessObject<RequestEntity, Integer> {
     @Override
     public Future<RequestEntity> insert(RequestEntity request) {
         Promise<RequestEntity> promise = Promise.promise();
-        String query = QueryBuilder.insert(request).build();
+        QueryBuilder query = QueryBuilder.insert(request);
 
         db.execute(query, RequestEntity.class,
                 list -> promise.complete(list.isEmpty() ? null : list.getFirst()),
@@ -119,7 +147,7 @@ public class RequestDAO implements DataAccessObject<RequestEntity, Integer> {
     @Override
     public Future<RequestEntity> upsert(RequestEntity requestEntity, String... conflictKeys) {
         Promise<RequestEntity> promise = Promise.promise();
-        String query = QueryBuilder.upsert(requestEntity, conflictKeys).build();
+        QueryBuilder query = QueryBuilder.upsert(requestEntity, conflictKeys);
 
         db.executeOne(query, RequestEntity.class,
                 promise::complete,
@@ -132,7 +160,7 @@ public class RequestDAO implements DataAccessObject<RequestEntity, Integer> {
     @Override
     public Future<RequestEntity> update(RequestEntity request) {
         Promise<RequestEntity> promise = Promise.promise();
-        String query = QueryBuilder.update(request).build();
+        QueryBuilder query = QueryBuilder.update(request);
 
         db.executeOne(query, RequestEntity.class,
                 _ -> promise.complete(request),
@@ -142,13 +170,70 @@ public class RequestDAO implements DataAccessObject<RequestEntity, Integer> {
         return promise.future();
     }
 
+    public Future<RequestEntity> update(RequestEntity request, SqlConnection conn) {
+        Promise<RequestEntity> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder.update(request);
+
+        db.executeOne(conn, query, RequestEntity.class,
+                _ -> promise.complete(request),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> insertAll(List<RequestEntity> requests) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = requests.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<RequestEntity> requests, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = requests.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<RequestEntity> requests) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = requests.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         RequestEntity request = new RequestEntity();
         request.setRequest_id(id);
 
-        String query = QueryBuilder.delete(request).build();
+        QueryBuilder query = QueryBuilder.delete(request);
 
         db.executeOne(query, RequestEntity.class,
                 result -> promise.complete(result != null),
@@ -161,13 +246,70 @@ public class RequestDAO implements DataAccessObject<RequestEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(RequestEntity.class)
-                .where(Map.of("request_id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(RequestEntity.class)
+                .where(Map.of("request_id", id.toString()));
 
-        db.executeOne(query, RequestEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(RequestEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(RequestEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .updateWhere(RequestEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .deleteWhere(RequestEntity.class, filters);
+
+        db.executeUpdate(query,
+                promise::complete,
                 promise::fail
         );
 
@@ -3,6 +3,7 @@ package net.miarma.api.microservices.huertos.dao;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
 import net.miarma.api.common.db.QueryBuilder;
@@ -10,6 +11,7 @@ import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.UserMetadataEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -30,10 +32,9 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
 	public Future<UserMetadataEntity> getById(Integer id) {
 		Promise<UserMetadataEntity> promise = Promise.promise();
 
-		String query = QueryBuilder
+		QueryBuilder query = QueryBuilder
 				.select(UserMetadataEntity.class)
-				.where(Map.of("user_id", id.toString()))
-				.build();
+				.where(Map.of("user_id", id.toString()));
 
 		db.executeOne(query, UserMetadataEntity.class,
                 promise::complete,
@@ -43,15 +44,31 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
 		return promise.future();
 	}
 
-	public Future<List<UserMetadataEntity>> getAll(QueryParams params) {
+	@Override
+	public Future<List<UserMetadataEntity>> getByIds(Collection<Integer> ids) {
+		if (ids.isEmpty()) {
+			return Future.succeededFuture(List.of());
+		}
+
 		Promise<List<UserMetadataEntity>> promise = Promise.promise();
-		String query = QueryBuilder
+		QueryBuilder query = QueryBuilder
 				.select(UserMetadataEntity.class)
+				.whereIn("user_id", ids);
+
+		db.execute(query, UserMetadataEntity.class,
+				promise::complete,
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
+	public Future<List<UserMetadataEntity>> getAll(QueryParams params) {
+		Promise<List<UserMetadataEntity>> promise = Promise.promise();
+		QueryBuilder query = QueryBuilder
+				.select(UserMetadataEntity.class, params.getQueryFilters())
 				.where(params.getFilters())
-				.orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-				.limit(params.getQueryFilters().getLimit())
-				.offset(params.getQueryFilters().getOffset())
-				.build();
+				.page(params.getQueryFilters());
 
 		db.execute(query, UserMetadataEntity.class,
 				list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -64,7 +81,7 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
 	@Override
 	public Future<UserMetadataEntity> insert(UserMetadataEntity user) {
 		Promise<UserMetadataEntity> promise = Promise.promise();
-		String query = QueryBuilder.insert(user).build();
+		QueryBuilder query = QueryBuilder.insert(user);
 
 		db.executeOne(query, UserMetadataEntity.class,
                 promise::complete,
@@ -74,10 +91,22 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
 		return promise.future();
 	}
 
+	public Future<UserMetadataEntity> insert(UserMetadataEntity user, SqlConnection conn) {
+		Promise<UserMetadataEntity> promise = Promise.promise();
+		QueryBuilder query = QueryBuilder.insert(user);
+
+		db.executeOne(conn, query, UserMetadataEntity.class,
+                promise::complete,
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
 	@Override
 	public Future<UserMetadataEntity> upsert(UserMetadataEntity userMetadataEntity, String... conflictKeys) {
 		Promise<UserMetadataEntity> promise = Promise.promise();
-		String query = QueryBuilder.upsert(userMetadataEntity, conflictKeys).build();
+		QueryBuilder query = QueryBuilder.upsert(userMetadataEntity, conflictKeys);
 
 		db.executeOne(query, UserMetadataEntity.class,
                 promise::complete,
@@ -90,7 +119,7 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
 	@Override
 	public Future<UserMetadataEntity> update(UserMetadataEntity user) {
 		Promise<UserMetadataEntity> promise = Promise.promise();
-		String query = QueryBuilder.update(user).build();
+		QueryBuilder query = QueryBuilder.update(user);
 
 		db.executeOne(query, UserMetadataEntity.class,
 				_ -> promise.complete(user),
@@ -100,9 +129,21 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
 		return promise.future();
 	}
 
+	public Future<UserMetadataEntity> update(UserMetadataEntity user, SqlConnection conn) {
+		Promise<UserMetadataEntity> promise = Promise.promise();
+		QueryBuilder query = QueryBuilder.update(user);
+
+		db.executeOne(conn, query, UserMetadataEntity.class,
+				_ -> promise.complete(user),
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
 	public Future<UserMetadataEntity> updateWithNulls(UserMetadataEntity user) {
 		Promise<UserMetadataEntity> promise = Promise.promise();
-		String query = QueryBuilder.updateWithNulls(user).build();
+		QueryBuilder query = QueryBuilder.updateWithNulls(user);
 
 		db.executeOne(query, UserMetadataEntity.class,
 				_ -> promise.complete(user),
@@ -112,13 +153,58 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
 		return promise.future();
 	}
 
+	@Override
+	public Future<List<Long>> insertAll(List<UserMetadataEntity> metadataList) {
+		Promise<List<Long>> promise = Promise.promise();
+		List<QueryBuilder> queries = metadataList.stream()
+				.map(e -> QueryBuilder.insert(e, false))
+				.toList();
+
+		db.executeBatch(queries,
+				result -> promise.complete(result.generatedIds()),
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
+	@Override
+	public Future<List<Long>> upsertAll(List<UserMetadataEntity> metadataList, String... conflictKeys) {
+		Promise<List<Long>> promise = Promise.promise();
+		List<QueryBuilder> queries = metadataList.stream()
+				.map(e -> QueryBuilder.upsert(e, conflictKeys))
+				.toList();
+
+		db.executeBatch(queries,
+				result -> promise.complete(result.generatedIds()),
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
+	@Override
+	public Future<Integer> updateAll(List<UserMetadataEntity> metadataList) {
+		Promise<Integer> promise = Promise.promise();
+		List<QueryBuilder> queries = metadataList.stream()
+				.map(QueryBuilder::update)
+				.toList();
+
+		db.executeBatch(queries,
+				result -> promise.complete(result.affectedRows()),
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
 	@Override
 	public Future<Boolean> delete(Integer id) {
 		Promise<Boolean> promise = Promise.promise();
 		UserMetadataEntity user = new UserMetadataEntity();
 		user.setUser_id(id);
 
-		String query = QueryBuilder.delete(user).build();
+		QueryBuilder query = QueryBuilder.delete(user);
 
 		db.executeOne(query, UserMetadataEntity.class,
 				result -> promise.complete(result != null),
@@ -128,16 +214,88 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
 		return promise.future();
 	}
 
+	public Future<Boolean> delete(Integer id, SqlConnection conn) {
+		Promise<Boolean> promise = Promise.promise();
+		UserMetadataEntity user = new UserMetadataEntity();
+		user.setUser_id(id);
+
+		QueryBuilder query = QueryBuilder.delete(user);
+
+		db.executeOne(conn, query, UserMetadataEntity.class,
+				result -> promise.complete(result != null),
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
 	@Override
 	public Future<Boolean> exists(Integer id) {
 		Promise<Boolean> promise = Promise.promise();
-		String query = QueryBuilder
-				.select(UserMetadataEntity.class)
-				.where(Map.of("user_id", id.toString()))
-				.build();
+		QueryBuilder query = QueryBuilder
+				.exists(UserMetadataEntity.class)
+				.where(Map.of("user_id", id.toString()));
 
-		db.executeOne(query, UserMetadataEntity.class,
-				result -> promise.complete(result != null),
+		db.exists(query,
+				promise::complete,
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
+	@Override
+	public Future<Boolean> exists(Map<String, String> filters) {
+		Promise<Boolean> promise = Promise.promise();
+		QueryBuilder query = QueryBuilder
+				.exists(UserMetadataEntity.class)
+				.where(filters);
+
+		db.exists(query,
+				promise::complete,
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
+	@Override
+	public Future<Long> count(Map<String, String> filters) {
+		Promise<Long> promise = Promise.promise();
+		QueryBuilder query = QueryBuilder
+				.count(UserMetadataEntity.class)
+				.where(filters);
+
+		db.count(query,
+				promise::complete,
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
+	@Override
+	public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+		Promise<Integer> promise = Promise.promise();
+		QueryBuilder query = QueryBuilder
+				.updateWhere(UserMetadataEntity.class, filters, changes);
+
+		db.executeUpdate(query,
+				promise::complete,
+				promise::fail
+		);
+
+		return promise.future();
+	}
+
+	@Override
+	public Future<Integer> deleteWhere(Map<String, String> filters) {
+		Promise<Integer> promise = Promise.promise();
+		QueryBuilder query = QueryBuilder
+				.deleteWhere(UserMetadataEntity.class, filters);
+
+		db.executeUpdate(query,
+				promise::complete,
 				promise::fail
 		);
 
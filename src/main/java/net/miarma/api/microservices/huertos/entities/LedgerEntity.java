@@ -0,0 +1,83 @@
+package net.miarma.api.microservices.huertos.entities;
+
+import io.vertx.sqlclient.Row;
+import net.miarma.api.common.annotations.Table;
+import net.miarma.api.common.db.AbstractEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Totales acumulados de ingresos y gastos por banco y caja. Hay una sola fila, que se
+ * actualiza en la misma transacción que cada ingreso o gasto.
+ * <p>
+ * La tabla se define en {@code sql/huertos_ledger.sql}, que {@code LedgerService.verify()}
+ * aplica al arrancar.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+@Table("huertos_ledger")
+public class LedgerEntity extends AbstractEntity {
+	private Integer ledger_id;
+	private BigDecimal total_bank_incomes;
+	private BigDecimal total_cash_incomes;
+	private BigDecimal total_bank_expenses;
+	private BigDecimal total_cash_expenses;
+	private LocalDateTime updated_at;
+
+	public LedgerEntity() {
+		super();
+	}
+
+	public LedgerEntity(Row row) {
+		super(row);
+	}
+
+	public Integer getLedger_id() {
+		return ledger_id;
+	}
+
+	public void setLedger_id(Integer ledger_id) {
+		this.ledger_id = ledger_id;
+	}
+
+	public BigDecimal getTotal_bank_incomes() {
+		return total_bank_incomes;
+	}
+
+	public void setTotal_bank_incomes(BigDecimal total_bank_incomes) {
+		this.total_bank_incomes = total_bank_incomes;
+	}
+
+	public BigDecimal getTotal_cash_incomes() {
+		return total_cash_incomes;
+	}
+
+	public void setTotal_cash_incomes(BigDecimal total_cash_incomes) {
+		this.total_cash_incomes = total_cash_incomes;
+	}
+
+	public BigDecimal getTotal_bank_expenses() {
+		return total_bank_expenses;
+	}
+
+	public void setTotal_bank_expenses(BigDecimal total_bank_expenses) {
+		this.total_bank_expenses = total_bank_expenses;
+	}
+
+	public BigDecimal getTotal_cash_expenses() {
+		return total_cash_expenses;
+	}
+
+	public void setTotal_cash_expenses(BigDecimal total_cash_expenses) {
+		this.total_cash_expenses = total_cash_expenses;
+	}
+
+	public LocalDateTime getUpdated_at() {
+		return updated_at;
+	}
+
+	public void setUpdated_at(LocalDateTime updated_at) {
+		this.updated_at = updated_at;
+	}
+}
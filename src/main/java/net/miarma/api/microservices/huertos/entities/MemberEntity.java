@@ -3,6 +3,7 @@ package net.miarma.api.microservices.huertos.entities;
 import io.vertx.sqlclient.Row;
 import net.miarma.api.common.Constants.*;
 import net.miarma.api.common.annotations.APIDontReturn;
+import net.miarma.api.common.annotations.DependsOn;
 import net.miarma.api.common.annotations.Table;
 import net.miarma.api.common.db.AbstractEntity;
 import net.miarma.api.microservices.core.entities.UserEntity;
@@ -10,6 +11,7 @@ import net.miarma.api.microservices.core.entities.UserEntity;
 import java.time.LocalDateTime;
 
 @Table("v_huertos_members")
+@DependsOn({"users", "huertos_user_metadata"})
 public class MemberEntity extends AbstractEntity {
 
     private Integer user_id;
@@ -26,6 +26,19 @@ public class ViewBalanceWithTotals extends AbstractEntity{
 		super(row);
 	}
 
+	public static ViewBalanceWithTotals from(BalanceEntity balance, LedgerEntity ledger) {
+		ViewBalanceWithTotals view = new ViewBalanceWithTotals();
+		view.setId(balance.getId());
+		view.setInitial_bank(balance.getInitial_bank());
+		view.setInitial_cash(balance.getInitial_cash());
+		view.setCreated_at(balance.getCreated_at());
+		view.setTotal_bank_incomes(ledger.getTotal_bank_incomes());
+		view.setTotal_cash_incomes(ledger.getTotal_cash_incomes());
+		view.setTotal_bank_expenses(ledger.getTotal_bank_expenses());
+		view.setTotal_cash_expenses(ledger.getTotal_cash_expenses());
+		return view;
+	}
+
 	public Integer getId() {
 		return id;
 	}
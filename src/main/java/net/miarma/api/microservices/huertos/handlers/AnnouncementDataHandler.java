@@ -1,8 +1,8 @@
 package net.miarma.api.microservices.huertos.handlers;
 
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.sqlclient.Pool;
-import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.AnnouncementEntity;
@@ -21,7 +21,7 @@ public class AnnouncementDataHandler {
         QueryParams params = QueryParams.from(ctx);
 
         announcementService.getAll(params)
-            .onSuccess(announces -> JsonUtil.sendJson(ctx, ApiStatus.OK, announces))
+            .onSuccess(announces -> JsonUtil.sendPage(ctx, ApiStatus.OK, announces, AnnouncementEntity.class, params.getQueryFilters()))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
 
@@ -34,7 +34,7 @@ public class AnnouncementDataHandler {
     }
 
     public void create(RoutingContext ctx) {
-        AnnouncementEntity announce = Constants.GSON.fromJson(ctx.body().asString(), AnnouncementEntity.class);
+        AnnouncementEntity announce = JsonUtil.fromBody(ctx, AnnouncementEntity.class);
 
         announcementService.create(announce)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
@@ -42,13 +42,21 @@ public class AnnouncementDataHandler {
     }
 
     public void update(RoutingContext ctx) {
-        AnnouncementEntity announce = Constants.GSON.fromJson(ctx.body().asString(), AnnouncementEntity.class);
+        AnnouncementEntity announce = JsonUtil.fromBody(ctx, AnnouncementEntity.class);
 
         announcementService.update(announce)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
 
+    public void deleteWhere(RoutingContext ctx) {
+        QueryParams params = QueryParams.from(ctx);
+
+        announcementService.deleteWhere(params.getFilters())
+            .onSuccess(affected -> JsonUtil.sendJson(ctx, ApiStatus.OK, new JsonObject().put("affected", affected)))
+            .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
+    }
+
     public void delete(RoutingContext ctx) {
         Integer announcementId = Integer.parseInt(ctx.pathParam("announce_id"));
 
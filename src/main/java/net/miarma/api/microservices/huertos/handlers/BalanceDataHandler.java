@@ -2,7 +2,6 @@ package net.miarma.api.microservices.huertos.handlers;
 
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.sqlclient.Pool;
-import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
 import net.miarma.api.microservices.huertos.entities.BalanceEntity;
 import net.miarma.api.microservices.huertos.services.BalanceService;
@@ -23,7 +22,7 @@ public class BalanceDataHandler {
     }
 
     public void create(RoutingContext ctx) {
-        BalanceEntity balance = Constants.GSON.fromJson(ctx.body().asString(), BalanceEntity.class);
+        BalanceEntity balance = JsonUtil.fromBody(ctx, BalanceEntity.class);
 
         balanceService.create(balance)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
@@ -31,10 +30,22 @@ public class BalanceDataHandler {
     }
 
     public void update(RoutingContext ctx) {
-        BalanceEntity balance = Constants.GSON.fromJson(ctx.body().asString(), BalanceEntity.class);
+        BalanceEntity balance = JsonUtil.fromBody(ctx, BalanceEntity.class);
 
         balanceService.update(balance)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
+
+    public void reconcileLedger(RoutingContext ctx) {
+        balanceService.reconcileLedger()
+            .onSuccess(report -> JsonUtil.sendJson(ctx, ApiStatus.OK, report))
+            .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
+    }
+
+    public void rebuildLedger(RoutingContext ctx) {
+        balanceService.rebuildLedger()
+            .onSuccess(ledger -> JsonUtil.sendJson(ctx, ApiStatus.OK, ledger))
+            .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
+    }
 }
\ No newline at end of file
@@ -2,7 +2,6 @@ package net.miarma.api.microservices.huertos.handlers;
 
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.sqlclient.Pool;
-import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.ExpenseEntity;
@@ -21,7 +20,7 @@ public class ExpenseDataHandler {
         QueryParams params = QueryParams.from(ctx);
 
         expenseService.getAll(params)
-            .onSuccess(expenses -> JsonUtil.sendJson(ctx, ApiStatus.OK, expenses))
+            .onSuccess(expenses -> JsonUtil.sendPage(ctx, ApiStatus.OK, expenses, ExpenseEntity.class, params.getQueryFilters()))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
 
@@ -34,7 +33,7 @@ public class ExpenseDataHandler {
     }
 
     public void create(RoutingContext ctx) {
-        ExpenseEntity expense = Constants.GSON.fromJson(ctx.body().asString(), ExpenseEntity.class);
+        ExpenseEntity expense = JsonUtil.fromBody(ctx, ExpenseEntity.class);
 
         expenseService.create(expense)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
@@ -42,7 +41,7 @@ public class ExpenseDataHandler {
     }
 
     public void update(RoutingContext ctx) {
-        ExpenseEntity expense = Constants.GSON.fromJson(ctx.body().asString(), ExpenseEntity.class);
+        ExpenseEntity expense = JsonUtil.fromBody(ctx, ExpenseEntity.class);
 
         expenseService.update(expense)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null))
@@ -2,10 +2,10 @@ package net.miarma.api.microservices.huertos.handlers;
 
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.sqlclient.Pool;
-import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.IncomeEntity;
+import net.miarma.api.microservices.huertos.entities.ViewIncomesWithFullNames;
 import net.miarma.api.microservices.huertos.services.IncomeService;
 import net.miarma.api.util.JsonUtil;
 
@@ -20,8 +20,8 @@ public class IncomeDataHandler {
     public void getAll(RoutingContext ctx) {
         QueryParams params = QueryParams.from(ctx);
 
-        incomeService.getAll(params)
-            .onSuccess(incomes -> JsonUtil.sendJson(ctx, ApiStatus.OK, incomes))
+        incomeService.stream(params)
+            .onSuccess(incomes -> JsonUtil.streamPage(ctx, ApiStatus.OK, incomes, IncomeEntity.class, params.getQueryFilters()))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
     
@@ -29,7 +29,7 @@ public class IncomeDataHandler {
 		QueryParams params = QueryParams.from(ctx);
 
 		incomeService.getIncomesWithNames(params)
-			.onSuccess(incomes -> JsonUtil.sendJson(ctx, ApiStatus.OK, incomes))
+			.onSuccess(incomes -> JsonUtil.sendPage(ctx, ApiStatus.OK, incomes, ViewIncomesWithFullNames.class, params.getQueryFilters()))
 			.onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
 	}
 
@@ -42,7 +42,7 @@ public class IncomeDataHandler {
     }
 
     public void create(RoutingContext ctx) {
-        IncomeEntity income = Constants.GSON.fromJson(ctx.body().asString(), IncomeEntity.class);
+        IncomeEntity income = JsonUtil.fromBody(ctx, IncomeEntity.class);
 
         incomeService.create(income)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
@@ -50,7 +50,7 @@ public class IncomeDataHandler {
     }
 
     public void update(RoutingContext ctx) {
-        IncomeEntity income = Constants.GSON.fromJson(ctx.body().asString(), IncomeEntity.class);
+        IncomeEntity income = JsonUtil.fromBody(ctx, IncomeEntity.class);
 
         incomeService.update(income)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null))
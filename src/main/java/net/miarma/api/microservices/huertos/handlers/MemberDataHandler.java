@@ -1,14 +1,16 @@
 package net.miarma.api.microservices.huertos.handlers;
 
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.sqlclient.Pool;
-import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertos.entities.MemberEntity;
 import net.miarma.api.microservices.huertos.services.MemberService;
 import net.miarma.api.util.JsonUtil;
 
+import java.util.Map;
+
 @SuppressWarnings("unused")
 public class MemberDataHandler {
     private final MemberService memberService;
@@ -21,7 +23,7 @@ public class MemberDataHandler {
         QueryParams params = QueryParams.from(ctx);
 
         memberService.getAll(params)
-            .onSuccess(members -> JsonUtil.sendJson(ctx, ApiStatus.OK, members))
+            .onSuccess(members -> JsonUtil.sendPage(ctx, ApiStatus.OK, members, MemberEntity.class, params.getQueryFilters()))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
 
@@ -40,7 +42,7 @@ public class MemberDataHandler {
     }
 
     public void create(RoutingContext ctx) {
-        MemberEntity member = Constants.GSON.fromJson(ctx.body().asString(), MemberEntity.class);
+        MemberEntity member = JsonUtil.fromBody(ctx, MemberEntity.class);
 
         memberService.create(member)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
@@ -48,13 +50,22 @@ public class MemberDataHandler {
     }
 
     public void update(RoutingContext ctx) {
-        MemberEntity member = Constants.GSON.fromJson(ctx.body().asString(), MemberEntity.class);
+        MemberEntity member = JsonUtil.fromBody(ctx, MemberEntity.class);
 
         memberService.update(member)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
 
+    public void updateWhere(RoutingContext ctx) {
+        QueryParams params = QueryParams.from(ctx);
+        JsonObject changes = ctx.body().asJsonObject();
+
+        memberService.updateWhere(params.getFilters(), changes != null ? changes.getMap() : Map.of())
+            .onSuccess(affected -> JsonUtil.sendJson(ctx, ApiStatus.OK, new JsonObject().put("affected", affected)))
+            .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
+    }
+
     public void delete(RoutingContext ctx) {
         Integer id = Integer.parseInt(ctx.request().getParam("user_id"));
 
@@ -1,10 +1,12 @@
 package net.miarma.api.microservices.huertos.handlers;
 
 import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
+import net.miarma.api.common.http.SnapshotStore;
 import net.miarma.api.microservices.huertos.entities.PreUserEntity;
 import net.miarma.api.util.EventBusUtil;
 import net.miarma.api.util.JsonUtil;
@@ -91,10 +93,12 @@ public class MemberLogicHandler {
     
     public void getLimitedWaitlist(RoutingContext ctx) {
 		JsonObject request = new JsonObject().put("action", "getLimitedWaitlist");
-		vertx.eventBus().request(Constants.HUERTOS_EVENT_BUS, request, ar -> {
-			if (ar.succeeded()) JsonUtil.sendJson(ctx, ApiStatus.OK, ar.result().body());
-			else EventBusUtil.handleReplyError(ctx, ar.cause(), "Waitlist not found");
-		});
+		SnapshotStore.serve(ctx, "huertos.waitlist.limited",
+				() -> vertx.eventBus().request(Constants.HUERTOS_EVENT_BUS, request).map(Message::body))
+			.onComplete(ar -> {
+				if (ar.succeeded()) JsonUtil.sendJson(ctx, ApiStatus.OK, ar.result());
+				else EventBusUtil.handleReplyError(ctx, ar.cause(), "Waitlist not found");
+			});
 	}
 
     public void getLastMemberNumber(RoutingContext ctx) {
@@ -177,7 +181,7 @@ public class MemberLogicHandler {
     }
     
     public void validatePreUser(RoutingContext ctx) {
-        PreUserEntity preUser = Constants.GSON.fromJson(ctx.body().asJsonObject().encode(), PreUserEntity.class);
+        PreUserEntity preUser = JsonUtil.fromBody(ctx, PreUserEntity.class);
         JsonObject request = new JsonObject()
             .put("action", "validatePreUser")
             .put("preUser", Constants.GSON.toJson(preUser));
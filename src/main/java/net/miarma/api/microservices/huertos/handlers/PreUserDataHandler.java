@@ -20,7 +20,7 @@ public class PreUserDataHandler {
         QueryParams params = QueryParams.from(ctx);
 
         preUserService.getAll(params)
-            .onSuccess(preUsers -> JsonUtil.sendJson(ctx, ApiStatus.OK, preUsers))
+            .onSuccess(preUsers -> JsonUtil.sendPage(ctx, ApiStatus.OK, preUsers, PreUserEntity.class, params.getQueryFilters()))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
 
@@ -33,7 +33,7 @@ public class PreUserDataHandler {
     }
 
     public void create(RoutingContext ctx) {
-        PreUserEntity preUser = net.miarma.api.common.Constants.GSON.fromJson(ctx.body().asString(), PreUserEntity.class);
+        PreUserEntity preUser = JsonUtil.fromBody(ctx, PreUserEntity.class);
 
         preUserService.create(preUser)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
@@ -41,7 +41,7 @@ public class PreUserDataHandler {
     }
 
     public void update(RoutingContext ctx) {
-        PreUserEntity preUser = net.miarma.api.common.Constants.GSON.fromJson(ctx.body().asString(), PreUserEntity.class);
+        PreUserEntity preUser = JsonUtil.fromBody(ctx, PreUserEntity.class);
 
         preUserService.update(preUser)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.OK, result))
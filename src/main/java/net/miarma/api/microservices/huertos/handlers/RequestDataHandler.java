@@ -20,7 +20,7 @@ public class RequestDataHandler {
         QueryParams params = QueryParams.from(ctx);
 
         requestService.getAll(params)
-            .onSuccess(requests -> JsonUtil.sendJson(ctx, ApiStatus.OK, requests))
+            .onSuccess(requests -> JsonUtil.sendPage(ctx, ApiStatus.OK, requests, RequestEntity.class, params.getQueryFilters()))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
 
@@ -33,7 +33,7 @@ public class RequestDataHandler {
     }
 
     public void create(RoutingContext ctx) {
-        RequestEntity request = net.miarma.api.common.Constants.GSON.fromJson(ctx.body().asString(), RequestEntity.class);
+        RequestEntity request = JsonUtil.fromBody(ctx, RequestEntity.class);
         
         requestService.create(request)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
@@ -41,7 +41,7 @@ public class RequestDataHandler {
     }
 
     public void update(RoutingContext ctx) {
-        RequestEntity request = net.miarma.api.common.Constants.GSON.fromJson(ctx.body().asString(), RequestEntity.class);
+        RequestEntity request = JsonUtil.fromBody(ctx, RequestEntity.class);
 
         requestService.update(request)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null))
@@ -40,6 +40,7 @@ public class HuertosDataRouter {
 		});
 				
 		router.get(HuertosEndpoints.ANNOUNCES).handler(AuthGuard.check()).handler(hAnnounceData::getAll);
+		router.delete(HuertosEndpoints.ANNOUNCES_BATCH).handler(AuthGuard.huertosAdmin(memberService)).handler(hAnnounceData::deleteWhere);
 		router.get(HuertosEndpoints.ANNOUNCE).handler(AuthGuard.check()).handler(hAnnounceData::getById);
 		router.post(HuertosEndpoints.ANNOUNCES).handler(AuthGuard.huertosAdmin(memberService)).handler(hAnnounceData::create);
 		router.put(HuertosEndpoints.ANNOUNCE).handler(AuthGuard.huertosAdmin(memberService)).handler(hAnnounceData::update);
@@ -48,6 +49,8 @@ public class HuertosDataRouter {
 		router.get(HuertosEndpoints.BALANCE).handler(AuthGuard.huertosAdmin(memberService)).handler(hBalanceData::getBalance);
 		router.post(HuertosEndpoints.BALANCE).handler(AuthGuard.huertosAdmin(memberService)).handler(hBalanceData::update);
 		router.delete(HuertosEndpoints.BALANCE).handler(AuthGuard.huertosAdmin(memberService)).handler(hBalanceData::create);
+		router.get(HuertosEndpoints.BALANCE_LEDGER).handler(AuthGuard.huertosAdmin(memberService)).handler(hBalanceData::reconcileLedger);
+		router.post(HuertosEndpoints.BALANCE_LEDGER_REBUILD).handler(AuthGuard.huertosAdmin(memberService)).handler(hBalanceData::rebuildLedger);
 		
 		router.get(HuertosEndpoints.EXPENSES).handler(AuthGuard.huertosAdmin(memberService)).handler(hExpenseData::getAll);
 		router.get(HuertosEndpoints.EXPENSE).handler(AuthGuard.huertosAdmin(memberService)).handler(hExpenseData::getById);
@@ -63,6 +66,7 @@ public class HuertosDataRouter {
 		router.get(HuertosEndpoints.INCOMES_WITH_NAMES).handler(AuthGuard.huertosAdmin(memberService)).handler(hIncomeData::getIncomesWithNames);
 		
 		router.get(HuertosEndpoints.MEMBERS).handler(AuthGuard.huertosAdmin(memberService)).handler(hMemberData::getAll);
+		router.put(HuertosEndpoints.MEMBERS_BATCH).handler(AuthGuard.huertosAdmin(memberService)).handler(hMemberData::updateWhere);
 		router.get(HuertosEndpoints.MEMBER).handler(AuthGuard.huertosAdmin(memberService)).handler(hMemberData::getById);
 		router.post(HuertosEndpoints.MEMBERS).handler(AuthGuard.huertosAdmin(memberService)).handler(hMemberData::create);
 		router.put(HuertosEndpoints.MEMBER).handler(AuthGuard.huertosAdmin(memberService)).handler(hMemberData::update);
@@ -9,6 +9,7 @@ public class HuertosEndpoints {
 	// socios -> GET, POST, PUT, DELETE
 	public static final String MEMBERS = Constants.HUERTOS_PREFIX + "/members";                        // GET, POST, PUT, DELETE
 	public static final String MEMBER = Constants.HUERTOS_PREFIX + "/members/:user_id";        // GET, POST, PUT, DELETE por id
+	public static final String MEMBERS_BATCH = Constants.HUERTOS_PREFIX + "/members/batch";      // PUT cambiar a la vez los socios que cumplen los filtros
 	public static final String MEMBER_BY_NUMBER = Constants.HUERTOS_PREFIX + "/members/number/:member_number"; // GET por número de socio
 	public static final String MEMBER_BY_PLOT = Constants.HUERTOS_PREFIX + "/members/plot/:plot_number";      // GET por número de parcela
 	public static final String MEMBER_BY_DNI = Constants.HUERTOS_PREFIX + "/members/dni/:dni";         // GET por DNI
@@ -38,10 +39,13 @@ public class HuertosEndpoints {
 	// balance -> GET, POST, PUT, DELETE
 	public static final String BALANCE = Constants.HUERTOS_PREFIX + "/balance";
 	public static final String BALANCE_WITH_TOTALS = Constants.HUERTOS_PREFIX + "/balance/with-totals";
+	public static final String BALANCE_LEDGER = Constants.HUERTOS_PREFIX + "/balance/ledger"; // GET
+	public static final String BALANCE_LEDGER_REBUILD = Constants.HUERTOS_PREFIX + "/balance/ledger/rebuild"; // POST
 	
 	// anuncios -> GET, POST, PUT, DELETE
 	public static final String ANNOUNCES = Constants.HUERTOS_PREFIX + "/announces";
 	public static final String ANNOUNCE = Constants.HUERTOS_PREFIX + "/announces/:announce_id";
+	public static final String ANNOUNCES_BATCH = Constants.HUERTOS_PREFIX + "/announces/batch"; // DELETE borrar a la vez los anuncios que cumplen los filtros
 	
 	// solicitudes -> GET, POST, PUT, DELETE
 	public static final String REQUESTS = Constants.HUERTOS_PREFIX + "/requests";
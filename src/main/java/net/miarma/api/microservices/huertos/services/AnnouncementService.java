@@ -11,6 +11,7 @@ import net.miarma.api.microservices.huertos.entities.AnnouncementEntity;
 import net.miarma.api.microservices.huertos.validators.AnnouncementValidator;
 
 import java.util.List;
+import java.util.Map;
 
 public class AnnouncementService {
 
@@ -66,4 +67,14 @@ public class AnnouncementService {
 			return announcementDAO.delete(id);
 		});
 	}
+
+	/**
+	 * Borra en una sola sentencia los anuncios que cumplen los filtros (por ejemplo
+	 * {@code created_at[lt]=2025-01-01}).
+	 *
+	 * @return el número de anuncios borrados
+	 */
+	public Future<Integer> deleteWhere(Map<String, String> filters) {
+		return announcementDAO.deleteWhere(filters);
+	}
 }
@@ -7,15 +7,18 @@ import net.miarma.api.common.exceptions.NotFoundException;
 import net.miarma.api.common.exceptions.ValidationException;
 import net.miarma.api.microservices.huertos.dao.BalanceDAO;
 import net.miarma.api.microservices.huertos.entities.BalanceEntity;
+import net.miarma.api.microservices.huertos.entities.LedgerEntity;
 import net.miarma.api.microservices.huertos.entities.ViewBalanceWithTotals;
 import net.miarma.api.microservices.huertos.validators.BalanceValidator;
 
 public class BalanceService {
 	private final BalanceDAO balanceDAO;
+	private final LedgerService ledgerService;
 	private final BalanceValidator balanceValidator;
 
 	public BalanceService(Pool pool) {
 		this.balanceDAO = new BalanceDAO(pool);
+		this.ledgerService = new LedgerService(pool);
 		this.balanceValidator = new BalanceValidator();
 	}
 
@@ -28,7 +31,31 @@ public class BalanceService {
 		});
 	}
 	
+	/**
+	 * Balance con los totales de ingresos y gastos, leídos del ledger (dos lecturas por clave).
+	 * Si el ledger aún no existe o no se puede leer se calculan desde los movimientos con la vista.
+	 */
 	public Future<ViewBalanceWithTotals> getBalanceWithTotals() {
+		return ledgerService.get().recover(err -> {
+			Constants.LOGGER.warn("[Ledger] No se pudo leer, se usa la vista: {}", err.getMessage());
+			return Future.succeededFuture(null);
+		}).compose(ledger -> {
+			if (ledger == null) {
+				return getBalanceWithTotalsFromView();
+			}
+			return getBalance().map(balance -> ViewBalanceWithTotals.from(balance, ledger));
+		});
+	}
+
+	public Future<LedgerService.LedgerReport> reconcileLedger() {
+		return ledgerService.reconcile();
+	}
+
+	public Future<LedgerEntity> rebuildLedger() {
+		return ledgerService.rebuild();
+	}
+
+	private Future<ViewBalanceWithTotals> getBalanceWithTotalsFromView() {
 		return balanceDAO.getAllWithTotals().compose(balanceList -> {
 			if (balanceList.isEmpty()) {
 				return Future.failedFuture(new NotFoundException("Balance in the database"));
@@ -3,6 +3,7 @@ package net.miarma.api.microservices.huertos.services;
 import io.vertx.core.Future;
 import io.vertx.sqlclient.Pool;
 import net.miarma.api.common.Constants;
+import net.miarma.api.common.db.DatabaseManager;
 import net.miarma.api.common.exceptions.NotFoundException;
 import net.miarma.api.common.exceptions.ValidationException;
 import net.miarma.api.common.http.QueryParams;
@@ -14,11 +15,15 @@ import java.util.List;
 
 public class ExpenseService {
 
+	private final DatabaseManager db;
 	private final ExpenseDAO expenseDAO;
+	private final LedgerService ledgerService;
 	private final ExpenseValidator expenseValidator;
 
 	public ExpenseService(Pool pool) {
+		this.db = DatabaseManager.getInstance(pool);
 		this.expenseDAO = new ExpenseDAO(pool);
+		this.ledgerService = new LedgerService(pool);
 		this.expenseValidator = new ExpenseValidator();
 	}
 
@@ -44,7 +49,11 @@ public class ExpenseService {
 			if (!validation.isValid()) {
 			    return Future.failedFuture(new ValidationException(Constants.GSON.toJson(validation.getErrors())));
 			}
-			return expenseDAO.insert(expense);
+			// el gasto y su efecto en el ledger se confirman juntos
+			return db.withTransaction(conn -> expenseDAO.insert(expense, conn).compose(created -> {
+				ExpenseEntity saved = created != null ? created : expense;
+				return ledgerService.recordExpense(null, saved, conn).map(saved);
+			}));
 		});
 	}
 
@@ -58,7 +67,13 @@ public class ExpenseService {
 				if (!validation.isValid()) {
 				    return Future.failedFuture(new ValidationException(Constants.GSON.toJson(validation.getErrors())));
 				}
-				return expenseDAO.update(expense);
+				return db.withTransaction(conn -> expenseDAO.lockById(expense.getExpense_id(), conn).compose(before -> {
+					if (before == null) {
+						return Future.failedFuture(new NotFoundException("Expense in the database"));
+					}
+					return expenseDAO.update(expense, conn).compose(updated ->
+							ledgerService.recordExpense(before, expense, conn).map(updated));
+				}));
 			});
 		});
 	}
@@ -68,7 +83,13 @@ public class ExpenseService {
 			if (expense == null) {
 				return Future.failedFuture(new NotFoundException("Expense with id " + id + " not found"));
 			}
-			return expenseDAO.delete(id);
+			return db.withTransaction(conn -> expenseDAO.lockById(id, conn).compose(locked -> {
+				if (locked == null) {
+					return Future.failedFuture(new NotFoundException("Expense with id " + id + " not found"));
+				}
+				return expenseDAO.delete(id, conn).compose(deleted ->
+						ledgerService.recordExpense(locked, null, conn).map(deleted));
+			}));
 		});
 	}
 }
@@ -3,6 +3,8 @@ package net.miarma.api.microservices.huertos.services;
 import io.vertx.core.Future;
 import io.vertx.sqlclient.Pool;
 import net.miarma.api.common.Constants;
+import net.miarma.api.common.db.DatabaseManager;
+import net.miarma.api.common.db.EntityStream;
 import net.miarma.api.common.exceptions.NotFoundException;
 import net.miarma.api.common.exceptions.ValidationException;
 import net.miarma.api.common.http.QueryParams;
@@ -16,19 +18,27 @@ import java.util.List;
 
 public class IncomeService {
 
+	private final DatabaseManager db;
 	private final IncomeDAO incomeDAO;
 	private final MemberService memberService;
+	private final LedgerService ledgerService;
 	private final IncomeValidator incomeValidator;
 
 	public IncomeService(Pool pool) {
+		this.db = DatabaseManager.getInstance(pool);
 		this.incomeDAO = new IncomeDAO(pool);
 		this.memberService = new MemberService(pool);
+		this.ledgerService = new LedgerService(pool);
 		this.incomeValidator = new IncomeValidator();
 	}
 
 	public Future<List<IncomeEntity>> getAll(QueryParams params) {
 		return incomeDAO.getAll(params);
 	}
+
+	public Future<EntityStream<IncomeEntity>> stream(QueryParams params) {
+		return incomeDAO.stream(params);
+	}
 	
 	public Future<List<ViewIncomesWithFullNames>> getIncomesWithNames(QueryParams params) {
 		return incomeDAO.getAllWithNames(params);
@@ -60,7 +70,11 @@ public class IncomeService {
 			if (!validation.isValid()) {
 			    return Future.failedFuture(new ValidationException(Constants.GSON.toJson(validation.getErrors())));
 			}
-			return incomeDAO.insert(income);
+			// el ingreso y su efecto en el ledger se confirman juntos
+			return db.withTransaction(conn -> incomeDAO.insert(income, conn).compose(created -> {
+				IncomeEntity saved = created != null ? created : income;
+				return ledgerService.recordIncome(null, saved, conn).map(saved);
+			}));
 		});
 	}
 
@@ -74,7 +88,13 @@ public class IncomeService {
 				if (!validation.isValid()) {
 				    return Future.failedFuture(new ValidationException(Constants.GSON.toJson(validation.getErrors())));
 				}
-				return incomeDAO.update(income);
+				return db.withTransaction(conn -> incomeDAO.lockById(income.getIncome_id(), conn).compose(before -> {
+					if (before == null) {
+						return Future.failedFuture(new NotFoundException("Income in the database"));
+					}
+					return incomeDAO.update(income, conn).compose(updated ->
+							ledgerService.recordIncome(before, income, conn).map(updated));
+				}));
 			});
 		});
 	}
@@ -84,7 +104,13 @@ public class IncomeService {
 			if (income == null) {
 				return Future.failedFuture(new NotFoundException("Income with id " + id + " not found"));
 			}
-			return incomeDAO.delete(id);
+			return db.withTransaction(conn -> incomeDAO.lockById(id, conn).compose(locked -> {
+				if (locked == null) {
+					return Future.failedFuture(new NotFoundException("Income with id " + id + " not found"));
+				}
+				return incomeDAO.delete(id, conn).compose(deleted ->
+						ledgerService.recordIncome(locked, null, conn).map(deleted));
+			}));
 		});
 	}
 
@@ -0,0 +1,214 @@
+package net.miarma.api.microservices.huertos.services;
+
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
+import net.miarma.api.common.Constants;
+import net.miarma.api.common.Constants.HuertosPaymentType;
+import net.miarma.api.common.db.DatabaseManager;
+import net.miarma.api.microservices.huertos.dao.BalanceDAO;
+import net.miarma.api.microservices.huertos.dao.LedgerDAO;
+import net.miarma.api.microservices.huertos.entities.ExpenseEntity;
+import net.miarma.api.microservices.huertos.entities.IncomeEntity;
+import net.miarma.api.microservices.huertos.entities.LedgerEntity;
+import net.miarma.api.microservices.huertos.entities.ViewBalanceWithTotals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mantiene los totales de ingresos y gastos de {@code huertos_ledger} al día.
+ * <p>
+ * {@link IncomeService} y {@link ExpenseService} llaman a {@link #recordIncome} y
+ * {@link #recordExpense} dentro de la misma transacción en la que escriben el movimiento,
+ * con el estado anterior y el nuevo; aquí se calcula la diferencia y se suma en el servidor
+ * ({@code SET total = total + ?}), así que leer el balance cuesta lo mismo haya los
+ * movimientos que haya.
+ * <p>
+ * {@link #rebuild()} recalcula los totales desde las tablas de movimientos (vía
+ * {@code v_balance_with_totals}) y {@link #reconcile()} los compara sin tocar nada. La tabla
+ * se crea con {@code sql/huertos_ledger.sql} desde {@link #verify()}.
+ *
+ * @author José Manuel Amador Gallardo
+ */
+public class LedgerService {
+
+	public static final int LEDGER_ID = 1;
+
+	private static final String SCHEMA = "sql/huertos_ledger.sql";
+
+	private final DatabaseManager db;
+	private final LedgerDAO ledgerDAO;
+	private final BalanceDAO balanceDAO;
+
+	/**
+	 * Resultado de comparar el ledger con los totales calculados desde los movimientos.
+	 *
+	 * @param consistent  si todos los totales coinciden
+	 * @param ledger      totales guardados, o null si aún no existe la fila
+	 * @param expected    totales calculados desde los movimientos
+	 * @param differences diferencia (guardado menos calculado) de cada total que no coincide
+	 */
+	public record LedgerReport(boolean consistent, LedgerEntity ledger, LedgerEntity expected,
+							   Map<String, BigDecimal> differences) {}
+
+	public LedgerService(Pool pool) {
+		this.db = DatabaseManager.getInstance(pool);
+		this.ledgerDAO = new LedgerDAO(pool);
+		this.balanceDAO = new BalanceDAO(pool);
+	}
+
+	public Future<LedgerEntity> get() {
+		return ledgerDAO.getById(LEDGER_ID);
+	}
+
+	/**
+	 * Aplica al ledger el cambio de un ingreso.
+	 *
+	 * @param before ingreso antes del cambio, o null si es nuevo
+	 * @param after  ingreso después del cambio (solo con los campos modificados en un update),
+	 *               o null si se ha borrado
+	 * @param conn   conexión de la transacción en la que se escribe el ingreso
+	 */
+	public Future<Void> recordIncome(IncomeEntity before, IncomeEntity after, SqlConnection conn) {
+		Map<String, BigDecimal> deltas = new LinkedHashMap<>();
+		if (before != null) {
+			add(deltas, "incomes", before.getType(), before.getAmount(), true);
+		}
+		if (after != null) {
+			add(deltas, "incomes",
+					after.getType() != null || before == null ? after.getType() : before.getType(),
+					after.getAmount() != null || before == null ? after.getAmount() : before.getAmount(),
+					false);
+		}
+		return apply(deltas, conn);
+	}
+
+	/**
+	 * Aplica al ledger el cambio de un gasto.
+	 *
+	 * @param before gasto antes del cambio, o null si es nuevo
+	 * @param after  gasto después del cambio (solo con los campos modificados en un update),
+	 *               o null si se ha borrado
+	 * @param conn   conexión de la transacción en la que se escribe el gasto
+	 */
+	public Future<Void> recordExpense(ExpenseEntity before, ExpenseEntity after, SqlConnection conn) {
+		Map<String, BigDecimal> deltas = new LinkedHashMap<>();
+		if (before != null) {
+			add(deltas, "expenses", before.getType(), before.getAmount(), true);
+		}
+		if (after != null) {
+			add(deltas, "expenses",
+					after.getType() != null || before == null ? after.getType() : before.getType(),
+					after.getAmount() != null || before == null ? after.getAmount() : before.getAmount(),
+					false);
+		}
+		return apply(deltas, conn);
+	}
+
+	/**
+	 * Recalcula los totales desde las tablas de movimientos y los guarda, creando la fila si
+	 * no existía. Se bloquea la fila antes de leer los movimientos, así que las escrituras
+	 * concurrentes esperan y suman su cambio sobre el resultado.
+	 */
+	public Future<LedgerEntity> rebuild() {
+		return db.withTransaction(conn -> ledgerDAO.lockById(LEDGER_ID, conn)
+				.compose(_ -> balanceDAO.getAllWithTotals(conn))
+				.compose(totals -> {
+					LedgerEntity ledger = expected(totals.isEmpty() ? null : totals.getFirst());
+					ledger.setUpdated_at(LocalDateTime.now());
+					return ledgerDAO.upsert(ledger, conn);
+				}))
+				.onSuccess(ledger -> Constants.LOGGER.info("[Ledger] Reconstruido: {}", Constants.GSON.toJson(ledger)));
+	}
+
+	/**
+	 * Compara los totales guardados con los calculados desde los movimientos, leyendo ambos
+	 * en la misma transacción para que correspondan al mismo instante.
+	 */
+	public Future<LedgerReport> reconcile() {
+		return db.withTransaction(conn -> ledgerDAO.getById(LEDGER_ID, conn)
+				.compose(ledger -> balanceDAO.getAllWithTotals(conn).map(totals -> {
+					LedgerEntity expected = expected(totals.isEmpty() ? null : totals.getFirst());
+					Map<String, BigDecimal> differences = new LinkedHashMap<>();
+					if (ledger != null) {
+						diff(differences, "total_bank_incomes", ledger.getTotal_bank_incomes(), expected.getTotal_bank_incomes());
+						diff(differences, "total_cash_incomes", ledger.getTotal_cash_incomes(), expected.getTotal_cash_incomes());
+						diff(differences, "total_bank_expenses", ledger.getTotal_bank_expenses(), expected.getTotal_bank_expenses());
+						diff(differences, "total_cash_expenses", ledger.getTotal_cash_expenses(), expected.getTotal_cash_expenses());
+					}
+					return new LedgerReport(ledger != null && differences.isEmpty(), ledger, expected, differences);
+				})));
+	}
+
+	/**
+	 * Al arrancar: crea la tabla y la fila del ledger si no existen y, si existen, avisa en el
+	 * log de cualquier descuadre. Si falla, los ingresos y gastos no se pueden escribir.
+	 */
+	public Future<Void> verify() {
+		return migrate().compose(_ -> reconcile()).compose(report -> {
+			if (report.ledger() == null) {
+				return rebuild().mapEmpty();
+			}
+			if (!report.consistent()) {
+				Constants.LOGGER.warn("[Ledger] Descuadre con los movimientos: {}", report.differences());
+			}
+			return Future.succeededFuture();
+		});
+	}
+
+	/**
+	 * Aplica {@code sql/huertos_ledger.sql} ({@code CREATE TABLE IF NOT EXISTS}).
+	 */
+	private Future<Void> migrate() {
+		String ddl;
+		try (InputStream in = LedgerService.class.getClassLoader().getResourceAsStream(SCHEMA)) {
+			if (in == null) {
+				return Future.failedFuture(new IllegalStateException(SCHEMA + " not found in resources"));
+			}
+			ddl = new String(in.readAllBytes(), StandardCharsets.UTF_8).replaceAll("(?m)^--.*$", "").trim();
+		} catch (IOException e) {
+			return Future.failedFuture(e);
+		}
+		return db.execute(ddl, LedgerEntity.class, _ -> {}, _ -> {}).mapEmpty();
+	}
+
+	private Future<Void> apply(Map<String, BigDecimal> deltas, SqlConnection conn) {
+		deltas.values().removeIf(delta -> delta.signum() == 0);
+		if (deltas.isEmpty()) {
+			return Future.succeededFuture();
+		}
+		return ledgerDAO.increment(LEDGER_ID, deltas, conn);
+	}
+
+	private static void add(Map<String, BigDecimal> deltas, String kind, HuertosPaymentType type,
+							BigDecimal amount, boolean negate) {
+		if (type == null || amount == null) return;
+		String column = "total_" + (type == HuertosPaymentType.BANK ? "bank" : "cash") + "_" + kind;
+		deltas.merge(column, negate ? amount.negate() : amount, BigDecimal::add);
+	}
+
+	private static LedgerEntity expected(ViewBalanceWithTotals totals) {
+		LedgerEntity ledger = new LedgerEntity();
+		ledger.setLedger_id(LEDGER_ID);
+		ledger.setTotal_bank_incomes(orZero(totals != null ? totals.getTotal_bank_incomes() : null));
+		ledger.setTotal_cash_incomes(orZero(totals != null ? totals.getTotal_cash_incomes() : null));
+		ledger.setTotal_bank_expenses(orZero(totals != null ? totals.getTotal_bank_expenses() : null));
+		ledger.setTotal_cash_expenses(orZero(totals != null ? totals.getTotal_cash_expenses() : null));
+		return ledger;
+	}
+
+	private static void diff(Map<String, BigDecimal> differences, String column, BigDecimal stored, BigDecimal expected) {
+		BigDecimal difference = orZero(stored).subtract(expected);
+		if (difference.signum() != 0) differences.put(column, difference);
+	}
+
+	private static BigDecimal orZero(BigDecimal value) {
+		return value != null ? value : BigDecimal.ZERO;
+	}
+}
@@ -3,6 +3,7 @@ package net.miarma.api.microservices.huertos.services;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.Constants.HuertosUserRole;
 import net.miarma.api.common.Constants.HuertosUserStatus;
@@ -10,7 +11,11 @@ import net.miarma.api.common.Constants.HuertosUserType;
 import net.miarma.api.common.exceptions.BadRequestException;
 import net.miarma.api.common.exceptions.ForbiddenException;
 import net.miarma.api.common.exceptions.NotFoundException;
+import net.miarma.api.common.db.DatabaseManager;
+import net.miarma.api.common.db.EntityMetadata;
+import net.miarma.api.common.db.EntityLoader;
 import net.miarma.api.common.exceptions.ValidationException;
+import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.common.security.JWTManager;
 import net.miarma.api.common.security.PasswordHasher;
@@ -24,20 +29,27 @@ import net.miarma.api.microservices.huertos.entities.PreUserEntity;
 import net.miarma.api.microservices.huertos.entities.UserMetadataEntity;
 import net.miarma.api.microservices.huertos.validators.MemberValidator;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @SuppressWarnings("unused")
 public class MemberService {
 
+    private final DatabaseManager db;
     private final UserDAO userDAO;
     private final UserMetadataDAO userMetadataDAO;
     private final MemberDAO memberDAO;
+    private final EntityLoader<Integer, MemberEntity> memberLoader;
     private final UserService userService;
     private final MemberValidator memberValidator;
 
     public MemberService(Pool pool) {
+        this.db = DatabaseManager.getInstance(pool);
         this.userDAO = new UserDAO(pool);
         this.memberDAO = new MemberDAO(pool);
+        this.memberLoader = EntityLoader.of(pool, MemberEntity.class,
+                memberDAO::getByIds, MemberEntity::getUser_id);
         this.userMetadataDAO = new UserMetadataDAO(pool);
         this.userService = new UserService(pool);
         this.memberValidator = new MemberValidator();
@@ -73,19 +85,30 @@ public class MemberService {
     }
     
     public Future<List<MemberEntity>> getAll() {
-		return memberDAO.getAll().compose(list -> Future.succeededFuture(list.stream()
-                .filter(m -> !m.getType().equals(HuertosUserType.DEVELOPER))
-                .toList()));
+		return getAll(new QueryParams(Map.of(), new QueryFilters()));
 	}
 
+    /**
+     * Lista los socios que cumplen los filtros, sin los desarrolladores. El descarte se hace
+     * en la propia consulta ({@code type[ne]}), así que la paginación cuenta solo socios visibles.
+     */
     public Future<List<MemberEntity>> getAll(QueryParams params) {
-        return memberDAO.getAll(params).compose(list -> Future.succeededFuture(list.stream()
-            .filter(m -> !m.getType().equals(HuertosUserType.DEVELOPER))
-            .toList()));
+        Map<String, String> filters = new HashMap<>(params.getFilters());
+        filters.put("type[ne]", String.valueOf(HuertosUserType.DEVELOPER.getValue()));
+        return memberDAO.getAll(new QueryParams(filters, params.getQueryFilters()));
     }
 
     public Future<MemberEntity> getById(Integer id) {
-        return memberDAO.getById(id).compose(member -> {
+        return memberLoader.load(id).compose(member -> {
+            if (member == null) {
+                return Future.failedFuture(new NotFoundException("Member with id " + id));
+            }
+            return Future.succeededFuture(member);
+        });
+    }
+
+    public Future<MemberEntity> getById(Integer id, SqlConnection conn) {
+        return memberDAO.getById(id, conn).compose(member -> {
             if (member == null) {
                 return Future.failedFuture(new NotFoundException("Member with id " + id));
             }
@@ -147,6 +170,15 @@ public class MemberService {
         });
     }
 
+    public Future<List<MemberEntity>> getLimitedWaitlist() {
+        return memberDAO.getLimitedWaitlist().compose(list -> {
+            if (list.isEmpty()) {
+                return Future.failedFuture(new NotFoundException("No members in the waitlist"));
+            }
+            return Future.succeededFuture(list);
+        });
+    }
+
     public Future<Integer> getLastMemberNumber() {
         return memberDAO.getLastMemberNumber().compose(number -> {
             if (number == null) {
@@ -183,6 +215,15 @@ public class MemberService {
             return Future.succeededFuture(collaborator);
         });
     }
+
+    public Future<MemberEntity> getCollaborator(Integer plotNumber, SqlConnection conn) {
+        return memberDAO.getCollaborator(plotNumber, conn).compose(collaborator -> {
+            if (collaborator == null) {
+                return Future.failedFuture(new NotFoundException("No collaborator found for plot number " + plotNumber));
+            }
+            return Future.succeededFuture(collaborator);
+        });
+    }
     
     public Future<Boolean> hasGreenHouse(String token) {
     	Integer userId = JWTManager.getInstance().getUserId(token);
@@ -215,24 +256,28 @@ public class MemberService {
             member.setPassword(PasswordHasher.hash(member.getPassword()));
             if (member.getEmail().isBlank()) member.setEmail(null);
 
-            return userDAO.insert(UserEntity.fromMemberEntity(member)).compose(user -> {
+            return db.withTransaction(conn -> userDAO.insert(UserEntity.fromMemberEntity(member), conn).compose(user -> {
                 UserMetadataEntity metadata = UserMetadataEntity.fromMemberEntity(member);
                 metadata.setUser_id(user.getUser_id());
 
-                return userMetadataDAO.insert(metadata).compose(meta -> {
+                return userMetadataDAO.insert(metadata, conn).compose(meta -> {
                     String baseName = member.getDisplay_name().split(" ")[0].toLowerCase();
                     String userName = baseName + member.getMember_number();
 
                     user.setUser_name(userName);
 
-                    return userDAO.update(user).map(updatedUser -> new MemberEntity(updatedUser, meta));
+                    return userDAO.update(user, conn).map(updatedUser -> new MemberEntity(updatedUser, meta));
                 });
-            });
+            }));
         });
     }
 
     
     public Future<MemberEntity> createFromPreUser(PreUserEntity preUser) {
+		return db.withTransaction(conn -> createFromPreUser(preUser, conn));
+	}
+
+    public Future<MemberEntity> createFromPreUser(PreUserEntity preUser, SqlConnection conn) {
 		MemberEntity memberFromPreUser = MemberEntity.fromPreUser(preUser);
 		return memberValidator.validate(memberFromPreUser).compose(validation -> {
 			if (!validation.isValid()) {
@@ -241,11 +286,11 @@ public class MemberService {
 
 			memberFromPreUser.setPassword(PasswordHasher.hash(memberFromPreUser.getPassword()));
 
-			return userDAO.insert(UserEntity.fromMemberEntity(memberFromPreUser)).compose(user -> {
+			return userDAO.insert(UserEntity.fromMemberEntity(memberFromPreUser), conn).compose(user -> {
 				UserMetadataEntity metadata = UserMetadataEntity.fromMemberEntity(memberFromPreUser);
 				metadata.setUser_id(user.getUser_id());
 
-				return userMetadataDAO.insert(metadata)
+				return userMetadataDAO.insert(metadata, conn)
 					.map(meta -> new MemberEntity(user, meta));
 			});
 		});	
@@ -277,12 +322,12 @@ public class MemberService {
 
 
     public Future<MemberEntity> delete(Integer userId) {
-        return getById(userId).compose(member -> 
-            userDAO.delete(userId).compose(deletedUser -> 
-                userMetadataDAO.delete(member.getUser_id())
+        return getById(userId).compose(member -> db.withTransaction(conn ->
+            userDAO.delete(userId, conn).compose(deletedUser ->
+                userMetadataDAO.delete(member.getUser_id(), conn)
                     .map(deletedMetadata -> member)
             )
-        );
+        ));
     }
     
     public Future<MemberEntity> changeMemberStatus(Integer userId, HuertosUserStatus status) {
@@ -292,7 +337,35 @@ public class MemberService {
 				.map(updated -> member);
 		});
 	}
+
+    public Future<MemberEntity> changeMemberStatus(Integer userId, HuertosUserStatus status, SqlConnection conn) {
+		return getById(userId, conn).compose(member -> {
+			member.setStatus(status);
+			return userMetadataDAO.update(UserMetadataEntity.fromMemberEntity(member), conn)
+				.map(updated -> member);
+		});
+	}
     
+    /**
+     * Cambia en una sola sentencia los datos de huertos de todos los socios que cumplen los
+     * filtros, por ejemplo {@code status} de todos los socios sin pagar al cerrar el año. Los
+     * desarrolladores nunca se tocan.
+     *
+     * @param filters filtros sobre las columnas de {@code huertos_user_metadata}; al menos uno válido
+     * @param changes nuevo valor de cada columna
+     * @return el número de socios actualizados
+     */
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        EntityMetadata meta = EntityMetadata.of(UserMetadataEntity.class);
+        if (filters.keySet().stream().noneMatch(key -> meta.hasColumn(QueryParams.column(key)))) {
+            return Future.failedFuture(new BadRequestException("At least one valid filter is required"));
+        }
+
+        Map<String, String> scoped = new HashMap<>(filters);
+        scoped.put("type[ne]", String.valueOf(HuertosUserType.DEVELOPER.getValue()));
+        return userMetadataDAO.updateWhere(scoped, changes);
+    }
+
     public Future<MemberEntity> changeMemberType(Integer userId, HuertosUserType type) {
 		return getById(userId).compose(member -> {
 			member.setType(type);
@@ -301,4 +374,12 @@ public class MemberService {
 			});
     			
     }
+
+    public Future<MemberEntity> changeMemberType(Integer userId, HuertosUserType type, SqlConnection conn) {
+		return getById(userId, conn).compose(member -> {
+			member.setType(type);
+			return userMetadataDAO.update(UserMetadataEntity.fromMemberEntity(member), conn)
+				.map(updated -> member);
+		});
+	}
 }
@@ -2,6 +2,7 @@ package net.miarma.api.microservices.huertos.services;
 
 import io.vertx.core.Future;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.SqlConnection;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.exceptions.NotFoundException;
 import net.miarma.api.common.exceptions.ValidationException;
@@ -44,6 +45,15 @@ public class PreUserService {
 		});
 	}
 	
+	public Future<PreUserEntity> getByRequestId(Integer requestId, SqlConnection conn) {
+		return preUserDAO.getByRequestId(requestId, conn).compose(preUser -> {
+			if (preUser == null) {
+				return Future.failedFuture(new NotFoundException("PreUser with request id " + requestId));
+			}
+			return Future.succeededFuture(preUser);
+		});
+	}
+	
 	public Future<PreUserEntity> validatePreUser(String json) {
 	    PreUserEntity preUser = Constants.GSON.fromJson(json, PreUserEntity.class);
 	    return preUserValidator.validate(preUser, false).compose(validation -> {
@@ -80,4 +90,8 @@ public class PreUserService {
 			return preUserDAO.delete(id);
 		});
 	}
+
+	public Future<Boolean> delete(Integer id, SqlConnection conn) {
+		return preUserDAO.delete(id, conn);
+	}
 }
@@ -7,6 +7,7 @@ import net.miarma.api.common.Constants.HuertosRequestStatus;
 import net.miarma.api.common.Constants.HuertosRequestType;
 import net.miarma.api.common.Constants.HuertosUserStatus;
 import net.miarma.api.common.Constants.HuertosUserType;
+import net.miarma.api.common.db.DatabaseManager;
 import net.miarma.api.common.exceptions.NotFoundException;
 import net.miarma.api.common.exceptions.ValidationException;
 import net.miarma.api.common.http.QueryParams;
@@ -17,15 +18,18 @@ import net.miarma.api.microservices.huertos.entities.ViewRequestsWithPreUsers;
 import net.miarma.api.microservices.huertos.validators.RequestValidator;
 
 import java.util.List;
+import java.util.Map;
 
 public class RequestService {
 
+	private final DatabaseManager db;
 	private final RequestDAO requestDAO;
 	private final RequestValidator requestValidator;
 	private final PreUserService preUserService;
 	private final MemberService memberService;
 
 	public RequestService(Pool pool) {
+		this.db = DatabaseManager.getInstance(pool);
 		this.requestDAO = new RequestDAO(pool);
 		this.requestValidator = new RequestValidator();
 		this.preUserService = new PreUserService(pool);
@@ -63,10 +67,8 @@ public class RequestService {
 	}
 	
 	public Future<Integer> getRequestCount() {
-		return requestDAO.getAll().compose(requests -> Future.succeededFuture(requests.stream()
-            .filter(r -> r.getStatus() == HuertosRequestStatus.PENDING)
-            .mapToInt(r -> 1)
-            .sum()));
+		return requestDAO.count(Map.of("status", String.valueOf(HuertosRequestStatus.PENDING.getValue())))
+			.map(Long::intValue);
 	}
 	
 	public Future<List<RequestEntity>> getMyRequests(String token) {
@@ -75,18 +77,20 @@ public class RequestService {
 	}
 	
 	public Future<Boolean> hasCollaboratorRequest(String token) {
-	    return getMyRequests(token).compose(requests -> {
-	        boolean result = requests.stream()
-	            .filter(r -> r.getStatus() == HuertosRequestStatus.PENDING)
-	            .anyMatch(r -> r.getType() == HuertosRequestType.ADD_COLLABORATOR);
-	        return Future.succeededFuture(result);
-	    });
+	    return hasPendingRequest(token, HuertosRequestType.ADD_COLLABORATOR);
 	}
     
 	public Future<Boolean> hasGreenHouseRequest(String token) {
-		return getMyRequests(token).compose(requests -> Future.succeededFuture(requests.stream()
-                .filter(r -> r.getStatus() == HuertosRequestStatus.PENDING)
-                .anyMatch(r -> r.getType() == HuertosRequestType.ADD_GREENHOUSE)));
+		return hasPendingRequest(token, HuertosRequestType.ADD_GREENHOUSE);
+	}
+
+	private Future<Boolean> hasPendingRequest(String token, HuertosRequestType type) {
+		Integer userId = JWTManager.getInstance().getUserId(token);
+		return requestDAO.exists(Map.of(
+			"requested_by", userId.toString(),
+			"status", String.valueOf(HuertosRequestStatus.PENDING.getValue()),
+			"type", String.valueOf(type.getValue())
+		));
 	}
 
 	public Future<RequestEntity> create(RequestEntity request) {
@@ -121,40 +125,39 @@ public class RequestService {
 	    request.setRequest_id(id);
 	    request.setStatus(HuertosRequestStatus.APPROVED);
 
-	    return requestDAO.update(request).compose(updatedRequest -> getById(id).compose(fullRequest -> {
+	    // Todos los pasos van en una transacción: si alguno falla la solicitud no queda aprobada a medias
+	    return db.withTransaction(conn -> requestDAO.update(request, conn)
+	            .compose(updatedRequest -> requestDAO.getById(id, conn))
+	            .compose(fullRequest -> {
+            if (fullRequest == null) {
+                return Future.failedFuture(new NotFoundException("Request with id " + id));
+            }
+
             HuertosRequestType type = fullRequest.getType();
 
             return switch (type) {
-                case ADD_COLLABORATOR, REGISTER -> preUserService.getByRequestId(id).compose(preUser -> {
-                    if (preUser == null) {
-                        return Future.failedFuture("PreUser not found for request id " + id);
-                    }
-
-                    return memberService.createFromPreUser(preUser).compose(createdUser ->
-                            preUserService.delete(preUser.getPre_user_id()).map(v -> fullRequest)
-                    );
-                });
+                case ADD_COLLABORATOR, REGISTER -> preUserService.getByRequestId(id, conn).compose(preUser ->
+                        memberService.createFromPreUser(preUser, conn).compose(createdUser ->
+                                preUserService.delete(preUser.getPre_user_id(), conn).map(v -> fullRequest)
+                        )
+                );
                 case UNREGISTER ->
-                        memberService.changeMemberStatus(fullRequest.getRequested_by(), HuertosUserStatus.INACTIVE)
+                        memberService.changeMemberStatus(fullRequest.getRequested_by(), HuertosUserStatus.INACTIVE, conn)
                                 .map(v -> fullRequest);
                 case REMOVE_COLLABORATOR ->
-                        memberService.getById(fullRequest.getRequested_by()).compose(requestingMember -> {
+                        memberService.getById(fullRequest.getRequested_by(), conn).compose(requestingMember -> {
                             Integer plotNumber = requestingMember.getPlot_number();
 
-                            return memberService.getCollaborator(plotNumber).compose(collaborator -> {
-                                if (collaborator == null) {
-                                    return Future.failedFuture("No collaborator found for plot number " + plotNumber);
-                                }
-
-                                return memberService.changeMemberStatus(collaborator.getUser_id(), HuertosUserStatus.INACTIVE)
-                                        .map(v -> fullRequest);
-                            });
+                            return memberService.getCollaborator(plotNumber, conn).compose(collaborator ->
+                                    memberService.changeMemberStatus(collaborator.getUser_id(), HuertosUserStatus.INACTIVE, conn)
+                                            .map(v -> fullRequest)
+                            );
                         });
                 case ADD_GREENHOUSE ->
-                        memberService.changeMemberType(fullRequest.getRequested_by(), HuertosUserType.WITH_GREENHOUSE)
+                        memberService.changeMemberType(fullRequest.getRequested_by(), HuertosUserType.WITH_GREENHOUSE, conn)
                                 .map(v -> fullRequest);
                 case REMOVE_GREENHOUSE ->
-                        memberService.changeMemberType(fullRequest.getRequested_by(), HuertosUserType.MEMBER)
+                        memberService.changeMemberType(fullRequest.getRequested_by(), HuertosUserType.MEMBER, conn)
                                 .map(v -> fullRequest);
             };
         }));
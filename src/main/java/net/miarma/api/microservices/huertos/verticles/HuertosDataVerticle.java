@@ -2,7 +2,6 @@ package net.miarma.api.microservices.huertos.verticles;
 
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.sqlclient.Pool;
@@ -10,15 +9,14 @@ import net.miarma.api.common.ConfigManager;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.Constants.HuertosUserStatus;
 import net.miarma.api.common.Constants.HuertosUserType;
-import net.miarma.api.common.db.DatabaseProvider;
+import net.miarma.api.common.bus.ActionDispatcher;
+import net.miarma.api.common.db.PoolRegistry;
+import net.miarma.api.common.db.ReadConsistency;
 import net.miarma.api.microservices.huertos.routing.HuertosDataRouter;
 import net.miarma.api.microservices.huertos.services.*;
-import net.miarma.api.util.EventBusUtil;
 import net.miarma.api.util.NameCensorer;
 import net.miarma.api.util.RouterUtil;
 
-import java.util.stream.Collectors;
-
 public class HuertosDataVerticle extends AbstractVerticle {
 
     private ConfigManager configManager;
@@ -32,7 +30,7 @@ public class HuertosDataVerticle extends AbstractVerticle {
     @Override
     public void start(Promise<Void> startPromise) {
         configManager = ConfigManager.getInstance();
-        Pool pool = DatabaseProvider.createPool(vertx, configManager);
+        Pool pool = PoolRegistry.get(vertx, "huertos");
 
         memberService = new MemberService(pool);
         incomeService = new IncomeService(pool);
@@ -40,220 +38,74 @@ public class HuertosDataVerticle extends AbstractVerticle {
         requestService = new RequestService(pool);
         preUserService = new PreUserService(pool);
         profileService = new ProfileService(pool);
-        
-        Router router = Router.router(vertx);
-        RouterUtil.attachLogger(router);
-        HuertosDataRouter.mount(router, vertx, pool);
-        registerLogicVerticleConsumer();
 
-        vertx.createHttpServer()
-            .requestHandler(router)
-            .listen(configManager.getIntProperty("huertos.data.port"), res -> {
-                if (res.succeeded()) startPromise.complete();
-                else startPromise.fail(res.cause());
+        // sin ledger los ingresos y gastos no se pueden escribir, así que no se atiende nada
+        new LedgerService(pool).verify()
+            .onFailure(err -> {
+                Constants.LOGGER.error("[Ledger] No se pudo verificar: {}", err.getMessage());
+                startPromise.fail(err);
+            })
+            .onSuccess(_ -> {
+                Router router = Router.router(vertx);
+                RouterUtil.attachLogger(router);
+                router.route().handler(ReadConsistency.handler());
+                HuertosDataRouter.mount(router, vertx, pool);
+                registerLogicVerticleConsumer();
+
+                vertx.createHttpServer()
+                    .requestHandler(router)
+                    .listen(configManager.getIntProperty("huertos.data.port"), res -> {
+                        if (res.succeeded()) startPromise.complete();
+                        else startPromise.fail(res.cause());
+                    });
             });
     }
 
     private void registerLogicVerticleConsumer() {
-        vertx.eventBus().consumer(Constants.HUERTOS_EVENT_BUS, message -> {
-            JsonObject body = (JsonObject) message.body();
-            String action = body.getString("action");
-
-            switch (action) {
-                case "login" -> {
-                    String email = body.getString("email", null);
-                    String userName = body.getString("userName", null);
-                    String password = body.getString("password");
-                    boolean keepLoggedIn = body.getBoolean("keepLoggedIn", false);
-
-                    memberService.login(email != null ? email : userName, password, keepLoggedIn)
-                        .onSuccess(message::reply)
-                        .onFailure(EventBusUtil.fail(message));
-                }
-
-                case "getByMemberNumber" ->
-	                memberService.getByMemberNumber(body.getInteger("memberNumber"))
-	                    .onSuccess(member -> message.reply(new JsonObject(Constants.GSON.toJson(member))))
-	                    .onFailure(EventBusUtil.fail(message));
-
-
-                case "getByPlotNumber" ->
-	                memberService.getByPlotNumber(body.getInteger("plotNumber"))
-	                    .onSuccess(member -> message.reply(new JsonObject(Constants.GSON.toJson(member))))
-	                    .onFailure(EventBusUtil.fail(message));
-
-
-                case "getByDNI" ->
-	                memberService.getByDni(body.getString("dni"))
-	                    .onSuccess(member -> message.reply(new JsonObject(Constants.GSON.toJson(member))))
-	                    .onFailure(EventBusUtil.fail(message));
-
-                case "getUserPayments" -> incomeService.getUserPayments(body.getInteger("memberNumber"))
-                    .onSuccess(payments -> {
-                    	String paymentsJson = payments.stream()
-							.map(Constants.GSON::toJson)
-							.collect(Collectors.joining(",", "[", "]"));
-						message.reply(new JsonArray(paymentsJson));
-                    })
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "hasPaid" -> incomeService.hasPaid(body.getInteger("memberNumber"))
-                    .onSuccess(result -> message.reply(new JsonObject().put("hasPaid", result)))
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "getWaitlist" ->
-	                memberService.getWaitlist()
-	                    .onSuccess(list -> {
-	                    	String listJson = list.stream()
-	                    			.map(Constants.GSON::toJson)
-	                    			.collect(Collectors.joining(",", "[", "]"));
-	                        message.reply(new JsonArray(listJson));
-	                    })
-	                    .onFailure(EventBusUtil.fail(message));
-	                
-				case "getLimitedWaitlist" ->
-					memberService.getWaitlist()
-						.onSuccess(list -> {
-							String listJson = list.stream()
-									.map(member -> {
-										JsonObject json = new JsonObject(Constants.GSON.toJson(member));
-										json.put("display_name", NameCensorer.censor(json.getString("display_name")));
-										json.remove("user_id");
-										json.remove("member_number");
-										json.remove("plot_number");
-										json.remove("dni");
-										json.remove("phone");
-										json.remove("email");
-										json.remove("user_name");
-										json.remove("notes");
-										json.remove("type");
-										json.remove("status");
-										json.remove("role");
-										json.remove("global_status");
-										json.remove("global_role");
-										return json;
-									})
-									.map(Constants.GSON::toJson)
-									.collect(Collectors.joining(",", "[", "]"));
-							message.reply(new JsonArray(listJson));
-						})
-						.onFailure(EventBusUtil.fail(message));
-
-                case "getLastMemberNumber" -> memberService.getLastMemberNumber()
-                    .onSuccess(last -> message.reply(new JsonObject().put("lastMemberNumber", last)))
-                    .onFailure(EventBusUtil.fail(message));
-                
-                case "getBalanceWithTotals" -> balanceService.getBalanceWithTotals()
-                    .onSuccess(balance -> {
-                    	String balanceJson = Constants.GSON.toJson(balance);
-                    	message.reply(new JsonObject(balanceJson));	
-                    })
-                    .onFailure(EventBusUtil.fail(message));
-
-                case "getRequestsWithPreUsers" -> requestService.getRequestsWithPreUsers()
-					.onSuccess(requests -> {
-						String requestsJson = requests.stream()
-								.map(Constants.GSON::toJson)
-								.collect(Collectors.joining(",", "[", "]"));
-						message.reply(new JsonArray(requestsJson));
-					})
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "getRequestWithPreUser" -> requestService.getRequestWithPreUserById(body.getInteger("requestId"))
-					.onSuccess(request -> {
-						String requestJson = Constants.GSON.toJson(request);
-						message.reply(new JsonObject(requestJson));
-					})
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "getProfile" -> profileService.getProfile(body.getString("token"))
-                	.onSuccess(profile -> {
-						String profileJson = Constants.GSON.toJson(profile);
-						message.reply(new JsonObject(profileJson));
-					})
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "getRequestCount" -> requestService.getRequestCount()
-					.onSuccess(count -> message.reply(new JsonObject().put("count", count)))
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "getMyIncomes" -> incomeService.getMyIncomes(body.getString("token"))
-					.onSuccess(incomes -> {
-						String incomesJson = incomes.stream()
-								.map(Constants.GSON::toJson)
-								.collect(Collectors.joining(",", "[", "]"));
-						message.reply(new JsonArray(incomesJson));
-						})
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "getMyRequests" -> requestService.getMyRequests(body.getString("token"))
-					.onSuccess(requests -> {
-						String requestsJson = requests.stream()
-								.map(Constants.GSON::toJson)
-								.collect(Collectors.joining(",", "[", "]"));
-						message.reply(new JsonArray(requestsJson));
-					})
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "hasCollaborator" -> memberService.hasCollaborator(body.getString("token"))
-					.onSuccess(result -> message.reply(new JsonObject().put("hasCollaborator", result)))
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "hasCollaboratorRequest" -> requestService.hasCollaboratorRequest(body.getString("token"))
-					.onSuccess(result -> message.reply(new JsonObject().put("hasCollaboratorRequest", result)))
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "hasGreenHouse" -> memberService.hasGreenHouse(body.getString("token"))
-					.onSuccess(result -> message.reply(new JsonObject().put("hasGreenHouse", result)))
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "hasGreenHouseRequest" -> requestService.hasGreenHouseRequest(body.getString("token"))
-					.onSuccess(result -> message.reply(new JsonObject().put("hasGreenHouseRequest", result)))
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "acceptRequest" -> requestService.acceptRequest(body.getInteger("requestId"))
-					.onSuccess(request -> {
-						String requestJson = Constants.GSON.toJson(request);
-						message.reply(new JsonObject(requestJson));
-					})
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "rejectRequest" -> requestService.rejectRequest(body.getInteger("requestId"))
-					.onSuccess(request -> {
-						String requestJson = Constants.GSON.toJson(request);
-						message.reply(new JsonObject(requestJson));	
-					})
-					.onFailure(EventBusUtil.fail(message));
-                
-                case "changeMemberStatus" -> {
-                	HuertosUserStatus status = HuertosUserStatus.fromInt(body.getInteger("status"));
-                	memberService.changeMemberStatus(body.getInteger("memberNumber"), status)
-					.onSuccess(member -> {
-						String memberJson = Constants.GSON.toJson(member);
-						message.reply(new JsonObject(memberJson));
-					})
-					.onFailure(EventBusUtil.fail(message));
-                }
-                
-                case "changeMemberType" -> {
-                	HuertosUserType type = HuertosUserType.fromInt(body.getInteger("type"));
-                	memberService.changeMemberType(body.getInteger("memberNumber"), type)
-					.onSuccess(member -> {
-						String memberJson = Constants.GSON.toJson(member);
-						message.reply(new JsonObject(memberJson));
-					})
-					.onFailure(EventBusUtil.fail(message));
-                }
-                
-                case "validatePreUser" -> preUserService.validatePreUser(body.getString("preUser"))
-	                .onSuccess(preUser -> {
-	                    String preUserJson = Constants.GSON.toJson(preUser);
-	                    message.reply(new JsonObject(preUserJson));
-	                })
-	                .onFailure(EventBusUtil.fail(message));
-                					
-                default -> EventBusUtil.fail(message).handle(new IllegalArgumentException("Unknown action: " + action));
-            }
-        });
+        ActionDispatcher.on(vertx, Constants.HUERTOS_EVENT_BUS)
+            .action("login", body -> {
+                String email = body.getString("email", null);
+                String userName = body.getString("userName", null);
+                return memberService.login(email != null ? email : userName, body.getString("password"),
+                    body.getBoolean("keepLoggedIn", false));
+            })
+            .action("getByMemberNumber", body -> memberService.getByMemberNumber(body.getInteger("memberNumber")))
+            .action("getByPlotNumber", body -> memberService.getByPlotNumber(body.getInteger("plotNumber")))
+            .action("getByDNI", body -> memberService.getByDni(body.getString("dni")))
+            .action("getUserPayments", body -> incomeService.getUserPayments(body.getInteger("memberNumber")))
+            .action("hasPaid", body -> incomeService.hasPaid(body.getInteger("memberNumber"))
+                .map(result -> new JsonObject().put("hasPaid", result)))
+            .read("getWaitlist", _ -> memberService.getWaitlist())
+            .action("getLimitedWaitlist", _ -> memberService.getLimitedWaitlist()
+                .map(list -> {
+                    list.forEach(member -> member.setDisplay_name(NameCensorer.censor(member.getDisplay_name())));
+                    return list;
+                }))
+            .action("getLastMemberNumber", _ -> memberService.getLastMemberNumber()
+                .map(last -> new JsonObject().put("lastMemberNumber", last)))
+            .read("getBalanceWithTotals", _ -> balanceService.getBalanceWithTotals())
+            .read("getRequestsWithPreUsers", _ -> requestService.getRequestsWithPreUsers())
+            .action("getRequestWithPreUser", body -> requestService.getRequestWithPreUserById(body.getInteger("requestId")))
+            .action("getProfile", body -> profileService.getProfile(body.getString("token")))
+            .read("getRequestCount", _ -> requestService.getRequestCount()
+                .map(count -> new JsonObject().put("count", count)))
+            .action("getMyIncomes", body -> incomeService.getMyIncomes(body.getString("token")))
+            .action("getMyRequests", body -> requestService.getMyRequests(body.getString("token")))
+            .action("hasCollaborator", body -> memberService.hasCollaborator(body.getString("token"))
+                .map(result -> new JsonObject().put("hasCollaborator", result)))
+            .action("hasCollaboratorRequest", body -> requestService.hasCollaboratorRequest(body.getString("token"))
+                .map(result -> new JsonObject().put("hasCollaboratorRequest", result)))
+            .action("hasGreenHouse", body -> memberService.hasGreenHouse(body.getString("token"))
+                .map(result -> new JsonObject().put("hasGreenHouse", result)))
+            .action("hasGreenHouseRequest", body -> requestService.hasGreenHouseRequest(body.getString("token"))
+                .map(result -> new JsonObject().put("hasGreenHouseRequest", result)))
+            .action("acceptRequest", body -> requestService.acceptRequest(body.getInteger("requestId")))
+            .action("rejectRequest", body -> requestService.rejectRequest(body.getInteger("requestId")))
+            .action("changeMemberStatus", body -> memberService.changeMemberStatus(body.getInteger("memberNumber"),
+                HuertosUserStatus.fromInt(body.getInteger("status"))))
+            .action("changeMemberType", body -> memberService.changeMemberType(body.getInteger("memberNumber"),
+                HuertosUserType.fromInt(body.getInteger("type"))))
+            .action("validatePreUser", body -> preUserService.validatePreUser(body.getString("preUser")))
+            .listen();
     }
 }
@@ -10,6 +10,7 @@ import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertosdecine.entities.MovieEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -29,10 +30,9 @@ public class MovieDAO implements DataAccessObject<MovieEntity, Integer> {
     @Override
     public Future<MovieEntity> getById(Integer id) {
         Promise<MovieEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MovieEntity.class)
-                .where(Map.of("movie_id", id.toString()))
-                .build();
+                .where(Map.of("movie_id", id.toString()));
 
         db.executeOne(query, MovieEntity.class,
                 promise::complete,
@@ -42,15 +42,31 @@ public class MovieDAO implements DataAccessObject<MovieEntity, Integer> {
         return promise.future();
     }
 
-    public Future<List<MovieEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<MovieEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
         Promise<List<MovieEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(MovieEntity.class)
+                .whereIn("movie_id", ids);
+
+        db.execute(query, MovieEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<MovieEntity>> getAll(QueryParams params) {
+        Promise<List<MovieEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(MovieEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, MovieEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -63,9 +79,8 @@ public class MovieDAO implements DataAccessObject<MovieEntity, Integer> {
     @Override
     public Future<MovieEntity> insert(MovieEntity movieEntity) {
         Promise<MovieEntity> promise = Promise.promise();
-        String query = QueryBuilder
-                .insert(movieEntity)
-                .build();
+        QueryBuilder query = QueryBuilder
+                .insert(movieEntity);
 
         db.executeOne(query, MovieEntity.class,
                 _ -> promise.complete(movieEntity),
@@ -78,9 +93,8 @@ public class MovieDAO implements DataAccessObject<MovieEntity, Integer> {
     @Override
     public Future<MovieEntity> upsert(MovieEntity movieEntity, String... conflictKeys) {
         Promise<MovieEntity> promise = Promise.promise();
-        String query = QueryBuilder
-                .upsert(movieEntity, conflictKeys)
-                .build();
+        QueryBuilder query = QueryBuilder
+                .upsert(movieEntity, conflictKeys);
 
         db.executeOne(query, MovieEntity.class,
                 _ -> promise.complete(movieEntity),
@@ -93,9 +107,8 @@ public class MovieDAO implements DataAccessObject<MovieEntity, Integer> {
     @Override
     public Future<MovieEntity> update(MovieEntity movieEntity) {
         Promise<MovieEntity> promise = Promise.promise();
-        String query = QueryBuilder
-                .update(movieEntity)
-                .build();
+        QueryBuilder query = QueryBuilder
+                .update(movieEntity);
 
         db.executeOne(query, MovieEntity.class,
                 _ -> promise.complete(movieEntity),
@@ -107,9 +120,8 @@ public class MovieDAO implements DataAccessObject<MovieEntity, Integer> {
 
     public Future<MovieEntity> updateWithNulls(MovieEntity movieEntity) {
         Promise<MovieEntity> promise = Promise.promise();
-        String query = QueryBuilder
-                .updateWithNulls(movieEntity)
-                .build();
+        QueryBuilder query = QueryBuilder
+                .updateWithNulls(movieEntity);
 
         db.executeOne(query, MovieEntity.class,
                 _ -> promise.complete(movieEntity),
@@ -119,15 +131,59 @@ public class MovieDAO implements DataAccessObject<MovieEntity, Integer> {
         return promise.future();
     }
 
+    @Override
+    public Future<List<Long>> insertAll(List<MovieEntity> movies) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = movies.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<MovieEntity> movies, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = movies.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<MovieEntity> movies) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = movies.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         MovieEntity movieEntity = new MovieEntity();
         movieEntity.setMovie_id(id);
 
-        String query = QueryBuilder
-                .delete(movieEntity)
-                .build();
+        QueryBuilder query = QueryBuilder
+                .delete(movieEntity);
 
         db.executeOne(query, MovieEntity.class,
                 result -> promise.complete(result != null),
@@ -140,13 +196,70 @@ public class MovieDAO implements DataAccessObject<MovieEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(MovieEntity.class)
-                .where( Map.of("movie_id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(MovieEntity.class)
+                .where(Map.of("movie_id", id.toString()));
 
-        db.executeOne(query, MovieEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(MovieEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(MovieEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .updateWhere(MovieEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .deleteWhere(MovieEntity.class, filters);
+
+        db.executeUpdate(query,
+                promise::complete,
                 promise::fail
         );
 
@@ -5,17 +5,20 @@ import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
+import net.miarma.api.common.db.EntityCache;
 import net.miarma.api.common.db.QueryBuilder;
 import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertosdecine.entities.ViewerEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 public class ViewerDAO implements DataAccessObject<ViewerEntity, Integer> {
 
     private final DatabaseManager db;
+    private final EntityCache<ViewerEntity> cache = EntityCache.of(ViewerEntity.class);
 
     public ViewerDAO(Pool pool) {
         this.db = DatabaseManager.getInstance(pool);
@@ -28,11 +31,14 @@ public class ViewerDAO implements DataAccessObject<ViewerEntity, Integer> {
 
     @Override
     public Future<ViewerEntity> getById(Integer id) {
+        return cache.get(id, () -> loadById(id));
+    }
+
+    private Future<ViewerEntity> loadById(Integer id) {
         Promise<ViewerEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(ViewerEntity.class)
-                .where(Map.of("user_id", id.toString()))
-                .build();
+                .where(Map.of("user_id", id.toString()));
 
         db.executeOne(query, ViewerEntity.class,
                 promise::complete,
@@ -42,15 +48,35 @@ public class ViewerDAO implements DataAccessObject<ViewerEntity, Integer> {
         return promise.future();
     }
 
-    public Future<List<ViewerEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<ViewerEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
+        return cache.getAll(ids, this::loadByIds, ViewerEntity::getUser_id);
+    }
+
+    private Future<List<ViewerEntity>> loadByIds(Collection<Integer> ids) {
         Promise<List<ViewerEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(ViewerEntity.class)
+                .whereIn("user_id", ids);
+
+        db.execute(query, ViewerEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<ViewerEntity>> getAll(QueryParams params) {
+        Promise<List<ViewerEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(ViewerEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, ViewerEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -75,6 +101,21 @@ public class ViewerDAO implements DataAccessObject<ViewerEntity, Integer> {
         throw new UnsupportedOperationException("Update not supported on view-based DAO");
     }
 
+    @Override
+    public Future<List<Long>> insertAll(List<ViewerEntity> viewers) {
+        throw new UnsupportedOperationException("Insert not supported on view-based DAO");
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<ViewerEntity> viewers, String... conflictKeys) {
+        throw new UnsupportedOperationException("Upsert not supported on view-based DAO");
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<ViewerEntity> viewers) {
+        throw new UnsupportedOperationException("Update not supported on view-based DAO");
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         throw new UnsupportedOperationException("Delete not supported on view-based DAO");
@@ -83,16 +124,55 @@ public class ViewerDAO implements DataAccessObject<ViewerEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer integer) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(ViewerEntity.class)
-                .where(Map.of("user_id", integer.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(ViewerEntity.class)
+                .where(Map.of("user_id", integer.toString()));
 
-        db.executeOne(query, ViewerEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(ViewerEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(ViewerEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
                 promise::fail
         );
 
         return promise.future();
     }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        throw new UnsupportedOperationException("Update not supported on view-based DAO");
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        throw new UnsupportedOperationException("Delete not supported on view-based DAO");
+    }
 }
@@ -10,6 +10,7 @@ import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertosdecine.entities.VoteEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -29,10 +30,9 @@ public class VoteDAO implements DataAccessObject<VoteEntity, Integer> {
     @Override
     public Future<VoteEntity> getById(Integer integer) {
         Promise<VoteEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
             .select(VoteEntity.class)
-            .where(Map.of("movie_id", integer.toString()))
-            .build();
+            .where(Map.of("movie_id", integer.toString()));
 
         db.executeOne(query, VoteEntity.class,
                 promise::complete,
@@ -42,15 +42,31 @@ public class VoteDAO implements DataAccessObject<VoteEntity, Integer> {
         return promise.future();
     }
 
-    public Future<List<VoteEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<VoteEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
         Promise<List<VoteEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
             .select(VoteEntity.class)
+            .whereIn("movie_id", ids);
+
+        db.execute(query, VoteEntity.class,
+            promise::complete,
+            promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<VoteEntity>> getAll(QueryParams params) {
+        Promise<List<VoteEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+            .select(VoteEntity.class, params.getQueryFilters())
             .where(params.getFilters())
-            .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-            .limit(params.getQueryFilters().getLimit())
-            .offset(params.getQueryFilters().getOffset())
-            .build();
+            .page(params.getQueryFilters());
 
         db.execute(query, VoteEntity.class,
             list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -62,10 +78,9 @@ public class VoteDAO implements DataAccessObject<VoteEntity, Integer> {
 
     public Future<List<VoteEntity>> getVotesByMovieId(Integer movieId) {
         Promise<List<VoteEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
             .select(VoteEntity.class)
-            .where(Map.of("movie_id", movieId.toString()))
-            .build();
+            .where(Map.of("movie_id", movieId.toString()));
 
         db.execute(query, VoteEntity.class,
             list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -78,9 +93,8 @@ public class VoteDAO implements DataAccessObject<VoteEntity, Integer> {
     @Override
     public Future<VoteEntity> insert(VoteEntity voteEntity) {
         Promise<VoteEntity> promise = Promise.promise();
-        String query = QueryBuilder
-            .insert(voteEntity)
-            .build();
+        QueryBuilder query = QueryBuilder
+            .insert(voteEntity);
 
         db.executeOne(query, VoteEntity.class,
             _ -> promise.complete(voteEntity),
@@ -93,9 +107,8 @@ public class VoteDAO implements DataAccessObject<VoteEntity, Integer> {
     @Override
     public Future<VoteEntity> upsert(VoteEntity voteEntity, String... conflictKeys) {
         Promise<VoteEntity> promise = Promise.promise();
-        String query = QueryBuilder
-            .upsert(voteEntity, conflictKeys)
-            .build();
+        QueryBuilder query = QueryBuilder
+            .upsert(voteEntity, conflictKeys);
 
         db.executeOne(query, VoteEntity.class,
             _ -> promise.complete(voteEntity),
@@ -107,9 +120,8 @@ public class VoteDAO implements DataAccessObject<VoteEntity, Integer> {
 
     public Future<VoteEntity> upsert(VoteEntity voteEntity) {
         Promise<VoteEntity> promise = Promise.promise();
-        String query = QueryBuilder
-            .upsert(voteEntity, "user_id", "movie_id")
-            .build();
+        QueryBuilder query = QueryBuilder
+            .upsert(voteEntity, "user_id", "movie_id");
 
         db.executeOne(query, VoteEntity.class,
             _ -> promise.complete(voteEntity),
@@ -122,9 +134,8 @@ public class VoteDAO implements DataAccessObject<VoteEntity, Integer> {
     @Override
     public Future<VoteEntity> update(VoteEntity voteEntity) {
         Promise<VoteEntity> promise = Promise.promise();
-        String query = QueryBuilder
-            .update(voteEntity)
-            .build();
+        QueryBuilder query = QueryBuilder
+            .update(voteEntity);
 
         db.executeOne(query, VoteEntity.class,
             _ -> promise.complete(voteEntity),
@@ -136,9 +147,8 @@ public class VoteDAO implements DataAccessObject<VoteEntity, Integer> {
 
     public Future<VoteEntity> updateWithNulls(VoteEntity voteEntity) {
         Promise<VoteEntity> promise = Promise.promise();
-        String query = QueryBuilder
-            .updateWithNulls(voteEntity)
-            .build();
+        QueryBuilder query = QueryBuilder
+            .updateWithNulls(voteEntity);
 
         db.executeOne(query, VoteEntity.class,
             _ -> promise.complete(voteEntity),
@@ -148,15 +158,59 @@ public class VoteDAO implements DataAccessObject<VoteEntity, Integer> {
         return promise.future();
     }
 
+    @Override
+    public Future<List<Long>> insertAll(List<VoteEntity> votes) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = votes.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<VoteEntity> votes, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = votes.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<VoteEntity> votes) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = votes.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         VoteEntity voteEntity = new VoteEntity();
         voteEntity.setMovie_id(id);
 
-        String query = QueryBuilder
-            .delete(voteEntity)
-            .build();
+        QueryBuilder query = QueryBuilder
+            .delete(voteEntity);
 
         db.executeOne(query, VoteEntity.class,
             result -> promise.complete(result != null),
@@ -169,13 +223,70 @@ public class VoteDAO implements DataAccessObject<VoteEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer integer) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-            .select(VoteEntity.class)
-            .where(Map.of("movie_id", integer.toString()))
-            .build();
+        QueryBuilder query = QueryBuilder
+            .exists(VoteEntity.class)
+            .where(Map.of("movie_id", integer.toString()));
 
-        db.executeOne(query, VoteEntity.class,
-            result -> promise.complete(result != null),
+        db.exists(query,
+            promise::complete,
+            promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+            .exists(VoteEntity.class)
+            .where(filters);
+
+        db.exists(query,
+            promise::complete,
+            promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+            .count(VoteEntity.class)
+            .where(filters);
+
+        db.count(query,
+            promise::complete,
+            promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+            .updateWhere(VoteEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+            promise::complete,
+            promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+            .deleteWhere(VoteEntity.class, filters);
+
+        db.executeUpdate(query,
+            promise::complete,
             promise::fail
         );
 
@@ -6,6 +6,7 @@ import net.miarma.api.common.ConfigManager;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
 import net.miarma.api.common.http.QueryParams;
+import net.miarma.api.common.http.SnapshotStore;
 import net.miarma.api.microservices.huertosdecine.entities.MovieEntity;
 import net.miarma.api.microservices.huertosdecine.services.MovieService;
 import net.miarma.api.util.JsonUtil;
@@ -23,8 +24,10 @@ public class MovieDataHandler {
     public void getAll(RoutingContext ctx) {
         QueryParams params = QueryParams.from(ctx);
 
-        movieService.getAll(params)
-            .onSuccess(movies -> JsonUtil.sendJson(ctx, ApiStatus.OK, movies))
+        String key = "cine.movies?" + params.snapshotKey(MovieEntity.class);
+
+        SnapshotStore.serve(ctx, key, () -> movieService.getAll(params))
+            .onSuccess(movies -> JsonUtil.sendPage(ctx, ApiStatus.OK, movies, MovieEntity.class, params.getQueryFilters()))
             .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
 
@@ -37,7 +40,7 @@ public class MovieDataHandler {
     }
 
     public void create(RoutingContext ctx) {
-        MovieEntity movie = Constants.GSON.fromJson(ctx.body().asString(), MovieEntity.class);
+        MovieEntity movie = JsonUtil.fromBody(ctx, MovieEntity.class);
 
         movieService.create(movie)
             .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
@@ -45,7 +48,7 @@ public class MovieDataHandler {
     }
 
     public void update(RoutingContext ctx) {
-        MovieEntity movieFromBody = Constants.GSON.fromJson(ctx.body().asString(), MovieEntity.class);
+        MovieEntity movieFromBody = JsonUtil.fromBody(ctx, MovieEntity.class);
 
         movieService.getById(movieFromBody.getMovie_id())
             .onSuccess(existingMovie -> {
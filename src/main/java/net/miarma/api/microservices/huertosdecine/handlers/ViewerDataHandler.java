@@ -2,7 +2,6 @@ package net.miarma.api.microservices.huertosdecine.handlers;
 
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.sqlclient.Pool;
-import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.huertosdecine.entities.UserMetadataEntity;
@@ -21,7 +20,7 @@ public class ViewerDataHandler {
         QueryParams params = QueryParams.from(ctx);
 
         viewerService.getAll(params)
-                .onSuccess(viewers -> JsonUtil.sendJson(ctx, ApiStatus.OK, viewers))
+                .onSuccess(viewers -> JsonUtil.sendPage(ctx, ApiStatus.OK, viewers, ViewerEntity.class, params.getQueryFilters()))
                 .onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
     }
 
@@ -34,7 +33,7 @@ public class ViewerDataHandler {
     }
 
     public void create(RoutingContext ctx) {
-        ViewerEntity viewer = Constants.GSON.fromJson(ctx.body().asString(), ViewerEntity.class);
+        ViewerEntity viewer = JsonUtil.fromBody(ctx, ViewerEntity.class);
 
         viewerService.create(viewer)
                 .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
@@ -42,7 +41,7 @@ public class ViewerDataHandler {
     }
 
     public void createMetadata(RoutingContext ctx) {
-        UserMetadataEntity userMetadata = Constants.GSON.fromJson(ctx.body().asString(), UserMetadataEntity.class);
+        UserMetadataEntity userMetadata = JsonUtil.fromBody(ctx, UserMetadataEntity.class);
 
         viewerService.createMetadata(userMetadata)
                 .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
@@ -50,7 +49,7 @@ public class ViewerDataHandler {
     }
 
     public void update(RoutingContext ctx) {
-        ViewerEntity viewer = Constants.GSON.fromJson(ctx.body().asString(), ViewerEntity.class);
+        ViewerEntity viewer = JsonUtil.fromBody(ctx, ViewerEntity.class);
 
         viewerService.update(viewer)
                 .onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null))
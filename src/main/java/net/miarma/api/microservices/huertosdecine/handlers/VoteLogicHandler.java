@@ -27,7 +27,7 @@ public class VoteLogicHandler {
 
     public void addVote(RoutingContext ctx) {
         Integer movieId = Integer.parseInt(ctx.request().getParam("movie_id"));
-        VoteEntity vote = Constants.GSON.fromJson(ctx.body().asString(), VoteEntity.class);
+        VoteEntity vote = JsonUtil.fromBody(ctx, VoteEntity.class);
         JsonObject request = new JsonObject()
                 .put("action", "addVote")
                 .put("user_id", vote.getUser_id())
@@ -40,7 +40,7 @@ public class VoteLogicHandler {
     }
 
     public void deleteVote(RoutingContext ctx) {
-        VoteEntity vote = Constants.GSON.fromJson(ctx.body().asString(), VoteEntity.class);
+        VoteEntity vote = JsonUtil.fromBody(ctx, VoteEntity.class);
         JsonObject request = new JsonObject()
                 .put("action", "deleteVote")
                 .put("user_id", vote.getUser_id());
@@ -2,23 +2,21 @@ package net.miarma.api.microservices.huertosdecine.verticles;
 
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.sqlclient.Pool;
 import net.miarma.api.common.ConfigManager;
 import net.miarma.api.common.Constants;
-import net.miarma.api.common.db.DatabaseProvider;
+import net.miarma.api.common.bus.ActionDispatcher;
+import net.miarma.api.common.db.PoolRegistry;
+import net.miarma.api.common.db.ReadConsistency;
 import net.miarma.api.microservices.huertosdecine.entities.VoteEntity;
 import net.miarma.api.microservices.huertosdecine.routing.CineDataRouter;
 import net.miarma.api.microservices.huertosdecine.services.MovieService;
 import net.miarma.api.microservices.huertosdecine.services.ViewerService;
 import net.miarma.api.microservices.huertosdecine.services.VoteService;
-import net.miarma.api.util.EventBusUtil;
 import net.miarma.api.util.RouterUtil;
 
-import java.util.stream.Collectors;
-
 public class CineDataVerticle extends AbstractVerticle {
     private ConfigManager configManager;
     private MovieService movieService;
@@ -28,7 +26,7 @@ public class CineDataVerticle extends AbstractVerticle {
     @Override
     public void start(Promise<Void> startPromise) {
         configManager = ConfigManager.getInstance();
-        Pool pool = DatabaseProvider.createPool(vertx, configManager);
+        Pool pool = PoolRegistry.get(vertx, "cine");
 
         movieService = new MovieService(pool);
         voteService = new VoteService(pool);
@@ -36,6 +34,7 @@ public class CineDataVerticle extends AbstractVerticle {
 
         Router router = Router.router(vertx);
         RouterUtil.attachLogger(router);
+        router.route().handler(ReadConsistency.handler());
         CineDataRouter.mount(router, vertx, pool);
         registerLogicVerticleConsumer();
 
@@ -48,73 +47,22 @@ public class CineDataVerticle extends AbstractVerticle {
     }
 
     private void registerLogicVerticleConsumer() {
-        vertx.eventBus().consumer(Constants.CINE_EVENT_BUS, message -> {
-            JsonObject body = (JsonObject) message.body();
-            String action = body.getString("action");
-
-            switch (action) {
-                case "login" -> {
-                    String email = body.getString("email", null);
-                    String userName = body.getString("userName", null);
-                    String password = body.getString("password");
-                    boolean keepLoggedIn = body.getBoolean("keepLoggedIn", false);
-
-                    viewerService.login(email != null ? email : userName, password, keepLoggedIn)
-                        .onSuccess(message::reply)
-                        .onFailure(EventBusUtil.fail(message));
-                }
-
-                case "getVotesOnMovieByUserId" -> {
-                    Integer movieId = body.getInteger("movie_id");
-                    voteService.getVotesByMovieId(movieId)
-                            .onSuccess(votes -> {
-                                if (votes.isEmpty()) {
-                                    message.reply(new JsonObject().put("message", "No votes found for this movie and viewer"));
-                                } else {
-                                    String votesJson = votes.stream()
-                                            .map(Constants.GSON::toJson)
-                                            .collect(Collectors.joining(",", "[", "]"));
-                                    message.reply(new JsonArray(votesJson));
-                                }
-                            })
-                            .onFailure(EventBusUtil.fail(message));
-                }
-
-
-                case "getVotes" -> voteService.getVotesByMovieId(body.getInteger("movie_id"))
-                        .onSuccess(votes -> {
-                            String votesJson = votes.stream()
-                                    .map(Constants.GSON::toJson)
-                                    .collect(Collectors.joining(",", "[", "]"));
-                            message.reply(new JsonArray(votesJson));
-                        })
-                        .onFailure(EventBusUtil.fail(message));
-
-
-                case "addVote" -> {
-                    VoteEntity vote = Constants.GSON.fromJson(body.encode(), VoteEntity.class);
-                    voteService.create(vote)
-                        .onSuccess(createdVote -> message.reply(new JsonObject(Constants.GSON.toJson(createdVote))))
-                        .onFailure(EventBusUtil.fail(message));
-                }
-
-                case "deleteVote" -> {
-                    Integer userId = body.getInteger("user_id");
-                    voteService.delete(userId)
-                        .onSuccess(deletedVote -> message.reply(new JsonObject(Constants.GSON.toJson(deletedVote))))
-                        .onFailure(EventBusUtil.fail(message));
-                }
-
-                case "getVoteSelf" -> {
-                    String token = body.getString("token");
-                    voteService.getVoteSelf(token)
-                        .onSuccess(vote -> message.reply(new JsonObject(Constants.GSON.toJson(vote))))
-                        .onFailure(EventBusUtil.fail(message));
-                }
-
-                default -> EventBusUtil.fail(message).handle(new IllegalArgumentException("Unknown action: " + action));
-            }
-        });
+        ActionDispatcher.on(vertx, Constants.CINE_EVENT_BUS)
+            .action("login", body -> {
+                String email = body.getString("email", null);
+                String userName = body.getString("userName", null);
+                return viewerService.login(email != null ? email : userName, body.getString("password"),
+                    body.getBoolean("keepLoggedIn", false));
+            })
+            .action("getVotesOnMovieByUserId", body -> voteService.getVotesByMovieId(body.getInteger("movie_id"))
+                .<Object>map(votes -> votes.isEmpty()
+                    ? new JsonObject().put("message", "No votes found for this movie and viewer")
+                    : votes))
+            .action("getVotes", body -> voteService.getVotesByMovieId(body.getInteger("movie_id")))
+            .action("addVote", VoteEntity.class, voteService::create)
+            .action("deleteVote", body -> voteService.delete(body.getInteger("user_id")))
+            .action("getVoteSelf", body -> voteService.getVoteSelf(body.getString("token")))
+            .listen();
     }
 
 }
@@ -10,6 +10,7 @@ import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.miarmacraft.entities.ModEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -29,10 +30,9 @@ public class ModDAO implements DataAccessObject<ModEntity, Integer> {
     @Override
     public Future<ModEntity> getById(Integer integer) {
         Promise<ModEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(ModEntity.class)
-                .where(Map.of("mod_id", integer.toString()))
-                .build();
+                .where(Map.of("mod_id", integer.toString()));
 
         db.executeOne(query, ModEntity.class,
                 promise::complete,
@@ -42,15 +42,31 @@ public class ModDAO implements DataAccessObject<ModEntity, Integer> {
         return promise.future();
     }
 
-    public Future<List<ModEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<ModEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
         Promise<List<ModEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(ModEntity.class)
+                .whereIn("mod_id", ids);
+
+        db.execute(query, ModEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<ModEntity>> getAll(QueryParams params) {
+        Promise<List<ModEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(ModEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
         db.execute(query, ModEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
                 promise::fail
@@ -61,7 +77,7 @@ public class ModDAO implements DataAccessObject<ModEntity, Integer> {
     @Override
     public Future<ModEntity> insert(ModEntity mod) {
         Promise<ModEntity> promise = Promise.promise();
-        String query = QueryBuilder.insert(mod).build();
+        QueryBuilder query = QueryBuilder.insert(mod);
 
         db.executeOne(query, ModEntity.class,
                 promise::complete,
@@ -74,7 +90,7 @@ public class ModDAO implements DataAccessObject<ModEntity, Integer> {
     @Override
     public Future<ModEntity> upsert(ModEntity modEntity, String... conflictKeys) {
         Promise<ModEntity> promise = Promise.promise();
-        String query = QueryBuilder.upsert(modEntity, conflictKeys).build();
+        QueryBuilder query = QueryBuilder.upsert(modEntity, conflictKeys);
 
         db.executeOne(query, ModEntity.class,
                 promise::complete,
@@ -87,7 +103,7 @@ public class ModDAO implements DataAccessObject<ModEntity, Integer> {
     @Override
     public Future<ModEntity> update(ModEntity mod) {
         Promise<ModEntity> promise = Promise.promise();
-        String query = QueryBuilder.update(mod).build();
+        QueryBuilder query = QueryBuilder.update(mod);
 
         db.executeOne(query, ModEntity.class,
                 promise::complete,
@@ -97,14 +113,58 @@ public class ModDAO implements DataAccessObject<ModEntity, Integer> {
         return promise.future();
     }
 
+    @Override
+    public Future<List<Long>> insertAll(List<ModEntity> mods) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = mods.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<ModEntity> mods, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = mods.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<ModEntity> mods) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = mods.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         ModEntity mod = new ModEntity();
         mod.setMod_id(id);
-        String query = QueryBuilder
-                .delete(mod)
-                .build();
+        QueryBuilder query = QueryBuilder
+                .delete(mod);
         db.executeOne(query, ModEntity.class,
                 result -> promise.complete(result != null),
                 promise::fail
@@ -115,13 +175,70 @@ public class ModDAO implements DataAccessObject<ModEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer id) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(ModEntity.class)
-                .where(Map.of("mod_id", id.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(ModEntity.class)
+                .where(Map.of("mod_id", id.toString()));
 
-        db.executeOne(query, ModEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(ModEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(ModEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .updateWhere(ModEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .deleteWhere(ModEntity.class, filters);
+
+        db.executeUpdate(query,
+                promise::complete,
                 promise::fail
         );
 
@@ -5,17 +5,20 @@ import io.vertx.core.Promise;
 import io.vertx.sqlclient.Pool;
 import net.miarma.api.common.db.DataAccessObject;
 import net.miarma.api.common.db.DatabaseManager;
+import net.miarma.api.common.db.EntityCache;
 import net.miarma.api.common.db.QueryBuilder;
 import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.miarmacraft.entities.PlayerEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 public class PlayerDAO implements DataAccessObject<PlayerEntity, Integer> {
 
     private final DatabaseManager db;
+    private final EntityCache<PlayerEntity> cache = EntityCache.of(PlayerEntity.class);
 
     public PlayerDAO(Pool pool) {
         this.db = DatabaseManager.getInstance(pool);
@@ -28,11 +31,14 @@ public class PlayerDAO implements DataAccessObject<PlayerEntity, Integer> {
 
     @Override
     public Future<PlayerEntity> getById(Integer integer) {
+        return cache.get(integer, () -> loadById(integer));
+    }
+
+    private Future<PlayerEntity> loadById(Integer integer) {
         Promise<PlayerEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(PlayerEntity.class)
-                .where(Map.of("user_id", integer.toString()))
-                .build();
+                .where(Map.of("user_id", integer.toString()));
 
         db.executeOne(query, PlayerEntity.class,
                 promise::complete,
@@ -42,16 +48,36 @@ public class PlayerDAO implements DataAccessObject<PlayerEntity, Integer> {
         return promise.future();
     }
 
+    @Override
+    public Future<List<PlayerEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
+        return cache.getAll(ids, this::loadByIds, PlayerEntity::getUser_id);
+    }
+
+    private Future<List<PlayerEntity>> loadByIds(Collection<Integer> ids) {
+        Promise<List<PlayerEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(PlayerEntity.class)
+                .whereIn("user_id", ids);
+
+        db.execute(query, PlayerEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     public Future<List<PlayerEntity>> getAll(QueryParams params) {
         Promise<List<PlayerEntity>> promise = Promise.promise();
 
-        String query = QueryBuilder
-                .select(PlayerEntity.class)
+        QueryBuilder query = QueryBuilder
+                .select(PlayerEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, PlayerEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -76,6 +102,21 @@ public class PlayerDAO implements DataAccessObject<PlayerEntity, Integer> {
         throw new UnsupportedOperationException("Insert not supported on view-based DAO");
     }
 
+    @Override
+    public Future<List<Long>> insertAll(List<PlayerEntity> players) {
+        throw new UnsupportedOperationException("Insert not supported on view-based DAO");
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<PlayerEntity> players, String... conflictKeys) {
+        throw new UnsupportedOperationException("Upsert not supported on view-based DAO");
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<PlayerEntity> players) {
+        throw new UnsupportedOperationException("Update not supported on view-based DAO");
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         throw new UnsupportedOperationException("Insert not supported on view-based DAO");
@@ -84,17 +125,56 @@ public class PlayerDAO implements DataAccessObject<PlayerEntity, Integer> {
     @Override
     public Future<Boolean> exists(Integer integer) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(PlayerEntity.class)
-                .where(Map.of("user_id", integer.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(PlayerEntity.class)
+                .where(Map.of("user_id", integer.toString()));
 
-        db.executeOne(query, PlayerEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(PlayerEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(PlayerEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
                 promise::fail
         );
 
         return promise.future();
     }
 
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        throw new UnsupportedOperationException("Update not supported on view-based DAO");
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        throw new UnsupportedOperationException("Delete not supported on view-based DAO");
+    }
+
 }
@@ -10,6 +10,7 @@ import net.miarma.api.common.http.QueryFilters;
 import net.miarma.api.common.http.QueryParams;
 import net.miarma.api.microservices.miarmacraft.entities.UserMetadataEntity;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -29,10 +30,9 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
     @Override
     public Future<UserMetadataEntity> getById(Integer id) {
         Promise<UserMetadataEntity> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(UserMetadataEntity.class)
-                .where(Map.of("user_id", id.toString()))
-                .build();
+                .where(Map.of("user_id", id.toString()));
 
         db.executeOne(query, UserMetadataEntity.class,
                 promise::complete,
@@ -42,15 +42,31 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
         return promise.future();
     }
 
-    public Future<List<UserMetadataEntity>> getAll(QueryParams params) {
+    @Override
+    public Future<List<UserMetadataEntity>> getByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
         Promise<List<UserMetadataEntity>> promise = Promise.promise();
-        String query = QueryBuilder
+        QueryBuilder query = QueryBuilder
                 .select(UserMetadataEntity.class)
+                .whereIn("user_id", ids);
+
+        db.execute(query, UserMetadataEntity.class,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    public Future<List<UserMetadataEntity>> getAll(QueryParams params) {
+        Promise<List<UserMetadataEntity>> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .select(UserMetadataEntity.class, params.getQueryFilters())
                 .where(params.getFilters())
-                .orderBy(params.getQueryFilters().getSort(), params.getQueryFilters().getOrder())
-                .limit(params.getQueryFilters().getLimit())
-                .offset(params.getQueryFilters().getOffset())
-                .build();
+                .page(params.getQueryFilters());
 
         db.execute(query, UserMetadataEntity.class,
                 list -> promise.complete(list.isEmpty() ? List.of() : list),
@@ -63,7 +79,7 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
     @Override
     public Future<UserMetadataEntity> insert(UserMetadataEntity t) {
         Promise<UserMetadataEntity> promise = Promise.promise();
-        String query = QueryBuilder.insert(t).build();
+        QueryBuilder query = QueryBuilder.insert(t);
         db.executeOne(query, UserMetadataEntity.class,
                 promise::complete,
                 promise::fail
@@ -74,7 +90,7 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
     @Override
     public Future<UserMetadataEntity> upsert(UserMetadataEntity userMetadataEntity, String... conflictKeys) {
         Promise<UserMetadataEntity> promise = Promise.promise();
-        String query = QueryBuilder.upsert(userMetadataEntity, conflictKeys).build();
+        QueryBuilder query = QueryBuilder.upsert(userMetadataEntity, conflictKeys);
         db.executeOne(query, UserMetadataEntity.class,
                 promise::complete,
                 promise::fail
@@ -85,7 +101,7 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
     @Override
     public Future<UserMetadataEntity> update(UserMetadataEntity t) {
         Promise<UserMetadataEntity> promise = Promise.promise();
-        String query = QueryBuilder.update(t).build();
+        QueryBuilder query = QueryBuilder.update(t);
         db.executeOne(query, UserMetadataEntity.class,
                 promise::complete,
                 promise::fail
@@ -93,12 +109,57 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
         return promise.future();
     }
 
+    @Override
+    public Future<List<Long>> insertAll(List<UserMetadataEntity> metadataList) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = metadataList.stream()
+                .map(e -> QueryBuilder.insert(e, false))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<List<Long>> upsertAll(List<UserMetadataEntity> metadataList, String... conflictKeys) {
+        Promise<List<Long>> promise = Promise.promise();
+        List<QueryBuilder> queries = metadataList.stream()
+                .map(e -> QueryBuilder.upsert(e, conflictKeys))
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.generatedIds()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateAll(List<UserMetadataEntity> metadataList) {
+        Promise<Integer> promise = Promise.promise();
+        List<QueryBuilder> queries = metadataList.stream()
+                .map(QueryBuilder::update)
+                .toList();
+
+        db.executeBatch(queries,
+                result -> promise.complete(result.affectedRows()),
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
     @Override
     public Future<Boolean> delete(Integer id) {
         Promise<Boolean> promise = Promise.promise();
         UserMetadataEntity entity = new UserMetadataEntity();
         entity.setUser_id(id);
-        String query = QueryBuilder.delete(entity).build();
+        QueryBuilder query = QueryBuilder.delete(entity);
         db.executeOne(query, UserMetadataEntity.class,
                 result -> promise.complete(result != null),
                 promise::fail
@@ -109,13 +170,70 @@ public class UserMetadataDAO implements DataAccessObject<UserMetadataEntity, Int
     @Override
     public Future<Boolean> exists(Integer integer) {
         Promise<Boolean> promise = Promise.promise();
-        String query = QueryBuilder
-                .select(UserMetadataEntity.class)
-                .where(Map.of("user_id", integer.toString()))
-                .build();
+        QueryBuilder query = QueryBuilder
+                .exists(UserMetadataEntity.class)
+                .where(Map.of("user_id", integer.toString()));
 
-        db.executeOne(query, UserMetadataEntity.class,
-                result -> promise.complete(result != null),
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> exists(Map<String, String> filters) {
+        Promise<Boolean> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .exists(UserMetadataEntity.class)
+                .where(filters);
+
+        db.exists(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Long> count(Map<String, String> filters) {
+        Promise<Long> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .count(UserMetadataEntity.class)
+                .where(filters);
+
+        db.count(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> updateWhere(Map<String, String> filters, Map<String, ?> changes) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .updateWhere(UserMetadataEntity.class, filters, changes);
+
+        db.executeUpdate(query,
+                promise::complete,
+                promise::fail
+        );
+
+        return promise.future();
+    }
+
+    @Override
+    public Future<Integer> deleteWhere(Map<String, String> filters) {
+        Promise<Integer> promise = Promise.promise();
+        QueryBuilder query = QueryBuilder
+                .deleteWhere(UserMetadataEntity.class, filters);
+
+        db.executeUpdate(query,
+                promise::complete,
                 promise::fail
         );
 
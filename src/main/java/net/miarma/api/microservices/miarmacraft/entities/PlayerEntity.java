@@ -6,6 +6,7 @@ import net.miarma.api.common.Constants.CoreUserRole;
 import net.miarma.api.common.Constants.MMCUserRole;
 import net.miarma.api.common.Constants.MMCUserStatus;
 import net.miarma.api.common.annotations.APIDontReturn;
+import net.miarma.api.common.annotations.DependsOn;
 import net.miarma.api.common.annotations.Table;
 import net.miarma.api.common.db.AbstractEntity;
 import net.miarma.api.microservices.core.entities.UserEntity;
@@ -13,6 +14,7 @@ import net.miarma.api.microservices.core.entities.UserEntity;
 import java.time.LocalDateTime;
 
 @Table("v_miarmacraft_players")
+@DependsOn({"users", "miarmacraft_user_metadata"})
 public class PlayerEntity extends AbstractEntity{
 	private Integer user_id;
 	private String user_name;
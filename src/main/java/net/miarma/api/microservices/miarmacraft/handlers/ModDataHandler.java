@@ -5,6 +5,7 @@ import io.vertx.sqlclient.Pool;
 import net.miarma.api.common.ConfigManager;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
+import net.miarma.api.common.http.SnapshotStore;
 import net.miarma.api.microservices.miarmacraft.entities.ModEntity;
 import net.miarma.api.microservices.miarmacraft.services.ModService;
 import net.miarma.api.util.JsonUtil;
@@ -21,7 +22,7 @@ public class ModDataHandler {
 	}
 	
 	public void getAll(RoutingContext ctx) {
-		modService.getAll()
+		SnapshotStore.serve(ctx, "mmc.mods", modService::getAll)
 			.onSuccess(mods -> JsonUtil.sendJson(ctx, ApiStatus.OK, mods))
 			.onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
 	}
@@ -86,7 +87,7 @@ public class ModDataHandler {
 	}
 	
 	public void update(RoutingContext ctx) {
-		ModEntity mod = Constants.GSON.fromJson(ctx.body().asString(), ModEntity.class);
+		ModEntity mod = JsonUtil.fromBody(ctx, ModEntity.class);
 		modService.update(mod)
 			.onSuccess(_ -> JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null))
 			.onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
@@ -2,7 +2,6 @@ package net.miarma.api.microservices.miarmacraft.handlers;
 
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.sqlclient.Pool;
-import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
 import net.miarma.api.microservices.miarmacraft.entities.PlayerEntity;
 import net.miarma.api.microservices.miarmacraft.services.PlayerService;
@@ -29,14 +28,14 @@ public class PlayerDataHandler {
 	}
 	
 	public void create(RoutingContext ctx) {
-		PlayerEntity player = Constants.GSON.fromJson(ctx.body().asString(), PlayerEntity.class);
+		PlayerEntity player = JsonUtil.fromBody(ctx, PlayerEntity.class);
 		playerService.create(player)
 			.onSuccess(result -> JsonUtil.sendJson(ctx, ApiStatus.CREATED, result))
 			.onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
 	}
 	
 	public void update(RoutingContext ctx) {
-		PlayerEntity player = Constants.GSON.fromJson(ctx.body().asString(), PlayerEntity.class);
+		PlayerEntity player = JsonUtil.fromBody(ctx, PlayerEntity.class);
 		playerService.update(player)
 			.onSuccess(_ -> JsonUtil.sendJson(ctx, ApiStatus.NO_CONTENT, null))
 			.onFailure(err -> JsonUtil.sendJson(ctx, ApiStatus.fromException(err), null, err.getMessage()));
@@ -2,17 +2,17 @@ package net.miarma.api.microservices.miarmacraft.verticles;
 
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
-import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.sqlclient.Pool;
 import net.miarma.api.common.ConfigManager;
 import net.miarma.api.common.Constants;
 import net.miarma.api.common.Constants.MMCUserRole;
 import net.miarma.api.common.Constants.MMCUserStatus;
-import net.miarma.api.common.db.DatabaseProvider;
+import net.miarma.api.common.bus.ActionDispatcher;
+import net.miarma.api.common.db.PoolRegistry;
+import net.miarma.api.common.db.ReadConsistency;
 import net.miarma.api.microservices.miarmacraft.routing.MMCDataRouter;
 import net.miarma.api.microservices.miarmacraft.services.PlayerService;
-import net.miarma.api.util.EventBusUtil;
 import net.miarma.api.util.RouterUtil;
 
 public class MMCDataVerticle extends AbstractVerticle {
@@ -22,12 +22,13 @@ public class MMCDataVerticle extends AbstractVerticle {
 	@Override
 	public void start(Promise<Void> startPromise) {
 		configManager = ConfigManager.getInstance();
-		Pool pool = DatabaseProvider.createPool(vertx, configManager);
+		Pool pool = PoolRegistry.get(vertx, "mmc");
 		
 		playerService = new PlayerService(pool);
 		
 		Router router = Router.router(vertx);
 		RouterUtil.attachLogger(router);
+		router.route().handler(ReadConsistency.handler());
 		MMCDataRouter.mount(router, vertx, pool);
 		registerLogicVerticleConsumer();
 		
@@ -40,65 +41,24 @@ public class MMCDataVerticle extends AbstractVerticle {
 	} 
 	
 	private void registerLogicVerticleConsumer() {
-		vertx.eventBus().consumer(Constants.MMC_EVENT_BUS, message -> {
-			JsonObject body = (JsonObject) message.body();
-			String action = body.getString("action");
-			
-			switch(action) {
-				case "login" -> {
-					String email = body.getString("email", null);
-                    String userName = body.getString("userName", null);
-                    String password = body.getString("password");
-                    boolean keepLoggedIn = body.getBoolean("keepLoggedIn", false);
-
-                    playerService.login(email != null ? email : userName, password, keepLoggedIn)
-                        .onSuccess(message::reply)
-                        .onFailure(EventBusUtil.fail(message));
-				}
-			
-				case "getStatus" -> playerService.getStatus(body.getInteger("playerId"))
-                    .onSuccess(player -> message.reply(new JsonObject(Constants.GSON.toJson(player))))
-                    .onFailure(EventBusUtil.fail(message));
-				
-				case "getRole" -> playerService.getRole(body.getInteger("playerId"))
-                    .onSuccess(role -> message.reply(new JsonObject(Constants.GSON.toJson(role))))
-                    .onFailure(EventBusUtil.fail(message));
-				
-				case "getAvatar" -> playerService.getAvatar(body.getInteger("playerId"))
-                    .onSuccess(avatar -> message.reply(new JsonObject(Constants.GSON.toJson(avatar))))
-                    .onFailure(EventBusUtil.fail(message));
-				
-				case "updateStatus" -> {
-					MMCUserStatus status = MMCUserStatus.fromInt(body.getInteger("status"));
-					playerService.updateStatus(body.getInteger("playerId"), status)
-						.onSuccess(result -> message.reply(new JsonObject(Constants.GSON.toJson(result))))
-						.onFailure(EventBusUtil.fail(message));
-				}
-				
-				case "updateRole" -> {
-					MMCUserRole role = MMCUserRole.fromInt(body.getInteger("role"));
-					playerService.updateRole(body.getInteger("playerId"), role)
-						.onSuccess(result -> message.reply(new JsonObject(Constants.GSON.toJson(result))))
-						.onFailure(EventBusUtil.fail(message));
-				}
-				
-				case "updateAvatar" -> {
-					String avatar = body.getString("avatar");
-					playerService.updateAvatar(body.getInteger("playerId"), avatar)
-						.onSuccess(result -> message.reply(new JsonObject(Constants.GSON.toJson(result))))
-						.onFailure(EventBusUtil.fail(message));
-				}
-				
-				case "playerExists" -> playerService.playerExists(body.getInteger("playerId"))
-                    .onSuccess(exists -> message.reply(new JsonObject(Constants.GSON.toJson(exists))))
-                    .onFailure(EventBusUtil.fail(message));
-				
-				case "getInfo" -> playerService.getInfo(body.getString("token"))
-                    .onSuccess(player -> message.reply(new JsonObject(Constants.GSON.toJson(player))))
-                    .onFailure(EventBusUtil.fail(message));
-		
-				default -> EventBusUtil.fail(message).handle(new IllegalArgumentException("Unknown action: " + action));
-			}
-		});
+		ActionDispatcher.on(vertx, Constants.MMC_EVENT_BUS)
+			.action("login", body -> {
+				String email = body.getString("email", null);
+				String userName = body.getString("userName", null);
+				return playerService.login(email != null ? email : userName, body.getString("password"),
+					body.getBoolean("keepLoggedIn", false));
+			})
+			.action("getStatus", body -> playerService.getStatus(body.getInteger("playerId")))
+			.action("getRole", body -> playerService.getRole(body.getInteger("playerId")))
+			.action("getAvatar", body -> playerService.getAvatar(body.getInteger("playerId")))
+			.action("updateStatus", body -> playerService.updateStatus(body.getInteger("playerId"),
+				MMCUserStatus.fromInt(body.getInteger("status"))))
+			.action("updateRole", body -> playerService.updateRole(body.getInteger("playerId"),
+				MMCUserRole.fromInt(body.getInteger("role"))))
+			.action("updateAvatar", body -> playerService.updateAvatar(body.getInteger("playerId"),
+				body.getString("avatar")))
+			.action("playerExists", body -> playerService.playerExists(body.getInteger("playerId")))
+			.action("getInfo", body -> playerService.getInfo(body.getString("token")))
+			.listen();
 	}
 }
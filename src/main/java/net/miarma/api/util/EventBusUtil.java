@@ -3,14 +3,56 @@ package net.miarma.api.util;
 import io.vertx.core.Handler;
 import io.vertx.core.eventbus.Message;
 import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.Json;
 import io.vertx.ext.web.RoutingContext;
+import net.miarma.api.common.Constants;
 import net.miarma.api.common.http.ApiStatus;
+import net.miarma.api.common.vertx.EntityMessage;
 
 /**
  * Clase de utilidad para manejar errores en el EventBus.
  * @author José Manuel Amador Gallardo
  */
 public class EventBusUtil {
+
+	/**
+	 * Handler para {@code onSuccess} que responde al mensaje con el resultado tal cual,
+	 * envuelto en un {@link EntityMessage}. Para entidades, listas y mapas, que así no se
+	 * convierten a JSON hasta escribir la respuesta HTTP.
+	 *
+	 * @param msg mensaje al que responder
+	 * @return el handler
+	 */
+	public static <T> Handler<T> reply(Message<?> msg) {
+	    return value -> msg.reply(new EntityMessage(value));
+	}
+
+	/**
+	 * Saca el objeto de una respuesta: el de dentro si es un {@link EntityMessage} y, si no,
+	 * el cuerpo tal cual.
+	 *
+	 * @param body cuerpo del mensaje
+	 * @return el objeto de la respuesta
+	 */
+	public static Object unwrap(Object body) {
+	    return body instanceof EntityMessage entity ? entity.value() : body;
+	}
+
+	/**
+	 * Lee el cuerpo de una respuesta como el tipo indicado. Si llega la propia entidad (mismo
+	 * nodo) se devuelve sin copiarla; si llega como JSON (otro nodo) se convierte con
+	 * {@link Constants#GSON}.
+	 *
+	 * @param msg  respuesta recibida
+	 * @param type clase esperada
+	 * @return el cuerpo como {@code type}, o null si venía vacío
+	 */
+	public static <T> T bodyAs(Message<?> msg, Class<T> type) {
+	    Object value = unwrap(msg.body());
+	    if (value == null || type.isInstance(value)) return type.cast(value);
+	    return Constants.GSON.fromJson(Json.encode(value), type);
+	}
+
 	public static <T> Handler<Throwable> fail(Message<T> msg) {
 	    return err -> {
 	        if(err instanceof ReplyException re) {
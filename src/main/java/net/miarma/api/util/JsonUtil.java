@@ -1,11 +1,21 @@
 package net.miarma.api.util;
 
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import net.miarma.api.common.Constants;
+import net.miarma.api.common.db.EntityStream;
+import net.miarma.api.common.db.Pagination;
+import net.miarma.api.common.gson.GsonBuffers;
 import net.miarma.api.common.http.ApiResponse;
 import net.miarma.api.common.http.ApiStatus;
+import net.miarma.api.common.http.QueryFilters;
+import net.miarma.api.common.vertx.EntityMessage;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Clase de utilidad para enviar respuestas JSON.
@@ -19,15 +29,114 @@ public class JsonUtil {
 	public static <T> void sendJson(RoutingContext ctx, ApiStatus status, T data, String message) {
 	    ctx.response().putHeader("Content-Type", "application/json").setStatusCode(status.getCode());
 
-	    if (data instanceof JsonObject || data instanceof JsonArray) {
+	    // las respuestas del event bus llegan envueltas: se serializa directamente lo de dentro
+	    Object payload = data instanceof EntityMessage entity ? entity.value() : data;
+	    if (payload instanceof JsonObject || payload instanceof JsonArray) {
 	        JsonObject response = new JsonObject()
 	            .put("status", status.getCode())
 	            .put("message", message)
-	            .put("data", data);
+	            .put("data", payload);
 	        ctx.response().end(response.encode());
 	    } else {
-	        ctx.response().end(Constants.GSON.toJson(new ApiResponse<>(status, message, data)));
+	        ctx.response().end(GsonBuffers.toBuffer(new ApiResponse<>(status, message, payload)));
 	    }
 	}
 
+	/**
+	 * Lee el cuerpo de la petición como el tipo indicado, directamente desde el buffer recibido.
+	 *
+	 * @param ctx  contexto de la petición
+	 * @param type clase esperada
+	 * @return el cuerpo convertido, o null si la petición no trae cuerpo
+	 */
+	public static <T> T fromBody(RoutingContext ctx, Class<T> type) {
+	    return GsonBuffers.fromBuffer(ctx.body().buffer(), type);
+	}
+
+	/**
+	 * Envía una página de un listado. El cuerpo es el mismo que el de {@link #sendJson(RoutingContext, ApiStatus, Object)};
+	 * los cursores para pedir la página siguiente y la anterior van en las cabeceras
+	 * {@link Pagination#NEXT_CURSOR_HEADER} y {@link Pagination#PREV_CURSOR_HEADER}.
+	 *
+	 * @param ctx     contexto de la petición
+	 * @param status  estado de la respuesta
+	 * @param page    filas de la página
+	 * @param type    clase de la entidad listada
+	 * @param filters filtros con los que se pidió la página
+	 */
+	public static <T> void sendPage(RoutingContext ctx, ApiStatus status, List<T> page, Class<T> type, QueryFilters filters) {
+	    Pagination.PageCursors cursors = Pagination.cursors(page, type, filters);
+	    if (cursors.next() != null) ctx.response().putHeader(Pagination.NEXT_CURSOR_HEADER, cursors.next());
+	    if (cursors.prev() != null) ctx.response().putHeader(Pagination.PREV_CURSOR_HEADER, cursors.prev());
+	    sendJson(ctx, status, page);
+	}
+
+	/**
+	 * Envía una página de un listado a medida que se lee de la base de datos, sin reunirla
+	 * antes en memoria. La respuesta va troceada ({@code chunked}); cada entidad se escribe
+	 * como un elemento de {@code data} en cuanto llega.
+	 * <p>
+	 * A diferencia de {@link #sendPage(RoutingContext, ApiStatus, List, Class, QueryFilters)},
+	 * los cursores de página <b>no</b> van en las cabeceras {@link Pagination#NEXT_CURSOR_HEADER}
+	 * y {@link Pagination#PREV_CURSOR_HEADER}, porque estas salen antes de conocer la última fila:
+	 * van al final del cuerpo, en los campos {@code next_cursor} y {@code prev_cursor}, que se
+	 * omiten si no hay página siguiente o anterior:
+	 * <pre>{@code {"status":200,"message":"OK","data":[...],"next_cursor":"...","prev_cursor":"..."}}</pre>
+	 * <p>
+	 * Si el socket no da abasto se pausa el flujo hasta que se vacíe ({@code drainHandler}),
+	 * y si el cliente corta la conexión se cierra el cursor.
+	 *
+	 * @param ctx     contexto de la petición
+	 * @param status  estado de la respuesta
+	 * @param stream  flujo de entidades abierto con {@link net.miarma.api.common.db.DatabaseManager#stream}
+	 * @param type    clase de la entidad listada
+	 * @param filters filtros con los que se pidió la página
+	 */
+	public static <T> void streamPage(RoutingContext ctx, ApiStatus status, EntityStream<T> stream, Class<T> type,
+									  QueryFilters filters) {
+	    HttpServerResponse response = ctx.response()
+	        .setChunked(true)
+	        .putHeader("Content-Type", "application/json")
+	        .setStatusCode(status.getCode());
+
+	    response.write("{\"status\":" + status.getCode()
+	        + ",\"message\":" + Constants.GSON.toJson(status.getDefaultMessage())
+	        + ",\"data\":[");
+
+	    List<T> bounds = new ArrayList<>(2);
+	    int[] count = {0};
+
+	    response.closeHandler(_ -> stream.close());
+	    stream.exceptionHandler(err -> {
+	        Constants.LOGGER.error("Error streaming {}: {}", type.getSimpleName(), err.getMessage());
+	        // las cabeceras ya se enviaron: solo queda cortar la respuesta
+	        response.reset();
+	    });
+	    stream.endHandler(_ -> {
+	        JsonObject tail = new JsonObject();
+	        if (count[0] > 0) {
+	            Pagination.PageCursors cursors = Pagination.cursors(bounds.getFirst(), bounds.getLast(), count[0], type, filters);
+	            if (cursors.next() != null) tail.put("next_cursor", cursors.next());
+	            if (cursors.prev() != null) tail.put("prev_cursor", cursors.prev());
+	        }
+	        String extra = tail.encode();
+	        response.end("]" + (tail.isEmpty() ? "" : "," + extra.substring(1, extra.length() - 1)) + "}");
+	    });
+	    stream.handler(item -> {
+	        if (item == null) return;
+	        Buffer chunk = count[0] == 0 ? Buffer.buffer() : Buffer.buffer(",");
+	        GsonBuffers.write(chunk, item);
+	        response.write(chunk);
+	        if (count[0] == 0) bounds.add(item);
+	        else if (bounds.size() == 1) bounds.add(item);
+	        else bounds.set(1, item);
+	        count[0]++;
+
+	        if (response.writeQueueFull()) {
+	            stream.pause();
+	            response.drainHandler(_ -> stream.resume());
+	        }
+	    });
+	}
+
 }
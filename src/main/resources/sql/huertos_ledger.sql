@@ -0,0 +1,11 @@
+-- Totales acumulados de ingresos y gastos de huertos (ver LedgerEntity y LedgerService).
+-- LedgerService.verify() lo ejecuta al arrancar HuertosDataVerticle y después crea la fila
+-- con los totales calculados desde los movimientos si aún no existe.
+CREATE TABLE IF NOT EXISTS huertos_ledger (
+    ledger_id           INT PRIMARY KEY,
+    total_bank_incomes  DECIMAL(10,2) NOT NULL DEFAULT 0,
+    total_cash_incomes  DECIMAL(10,2) NOT NULL DEFAULT 0,
+    total_bank_expenses DECIMAL(10,2) NOT NULL DEFAULT 0,
+    total_cash_expenses DECIMAL(10,2) NOT NULL DEFAULT 0,
+    updated_at          DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+)